@@ -55,6 +55,8 @@ abstract class Datatype_Builder {
     PARTIAL_TYPE("partialType"),
     PROPERTY_ENUM("propertyEnum"),
     BUILDER_SERIALIZABLE("builderSerializable"),
+    HASH_CODE_CACHED("hashCodeCached"),
+    RECORD_COMPATIBLE("recordCompatible"),
     HAS_TO_BUILDER_METHOD("hasToBuilderMethod"),
     BUILD_METHOD("buildMethod"),
     BUILD_PARTIAL_METHOD("buildPartialMethod"),
@@ -95,6 +97,8 @@ abstract class Datatype_Builder {
   private final LinkedHashMap<StandardMethod, UnderrideLevel> standardMethodUnderrides =
       new LinkedHashMap<>();
   private boolean builderSerializable;
+  private boolean hashCodeCached;
+  private boolean recordCompatible;
   private boolean hasToBuilderMethod;
   private NameAndVisibility buildMethod;
   private NameAndVisibility buildPartialMethod;
@@ -636,6 +640,76 @@ abstract class Datatype_Builder {
     return builderSerializable;
   }
 
+  /**
+   * Sets the value to be returned by {@link Datatype#isHashCodeCached()}.
+   *
+   * @return this {@code Builder} object
+   */
+  public Datatype.Builder setHashCodeCached(boolean hashCodeCached) {
+    this.hashCodeCached = hashCodeCached;
+    _unsetProperties.remove(Property.HASH_CODE_CACHED);
+    return (Datatype.Builder) this;
+  }
+
+  /**
+   * Replaces the value to be returned by {@link Datatype#isHashCodeCached()} by applying {@code
+   * mapper} to it and using the result.
+   *
+   * @return this {@code Builder} object
+   * @throws NullPointerException if {@code mapper} is null or returns null
+   * @throws IllegalStateException if the field has not been set
+   */
+  public Datatype.Builder mapHashCodeCached(UnaryOperator<Boolean> mapper) {
+    Objects.requireNonNull(mapper);
+    return setHashCodeCached(mapper.apply(isHashCodeCached()));
+  }
+
+  /**
+   * Returns the value that will be returned by {@link Datatype#isHashCodeCached()}.
+   *
+   * @throws IllegalStateException if the field has not been set
+   */
+  public boolean isHashCodeCached() {
+    Preconditions.checkState(
+        !_unsetProperties.contains(Property.HASH_CODE_CACHED), "hashCodeCached not set");
+    return hashCodeCached;
+  }
+
+  /**
+   * Sets the value to be returned by {@link Datatype#isRecordCompatible()}.
+   *
+   * @return this {@code Builder} object
+   */
+  public Datatype.Builder setRecordCompatible(boolean recordCompatible) {
+    this.recordCompatible = recordCompatible;
+    _unsetProperties.remove(Property.RECORD_COMPATIBLE);
+    return (Datatype.Builder) this;
+  }
+
+  /**
+   * Replaces the value to be returned by {@link Datatype#isRecordCompatible()} by applying {@code
+   * mapper} to it and using the result.
+   *
+   * @return this {@code Builder} object
+   * @throws NullPointerException if {@code mapper} is null or returns null
+   * @throws IllegalStateException if the field has not been set
+   */
+  public Datatype.Builder mapRecordCompatible(UnaryOperator<Boolean> mapper) {
+    Objects.requireNonNull(mapper);
+    return setRecordCompatible(mapper.apply(isRecordCompatible()));
+  }
+
+  /**
+   * Returns the value that will be returned by {@link Datatype#isRecordCompatible()}.
+   *
+   * @throws IllegalStateException if the field has not been set
+   */
+  public boolean isRecordCompatible() {
+    Preconditions.checkState(
+        !_unsetProperties.contains(Property.RECORD_COMPATIBLE), "recordCompatible not set");
+    return recordCompatible;
+  }
+
   /**
    * Sets the value to be returned by {@link Datatype#getHasToBuilderMethod()}.
    *
@@ -1281,6 +1355,14 @@ abstract class Datatype_Builder {
         || value.isBuilderSerializable() != defaults.isBuilderSerializable()) {
       setBuilderSerializable(value.isBuilderSerializable());
     }
+    if (defaults._unsetProperties.contains(Property.HASH_CODE_CACHED)
+        || value.isHashCodeCached() != defaults.isHashCodeCached()) {
+      setHashCodeCached(value.isHashCodeCached());
+    }
+    if (defaults._unsetProperties.contains(Property.RECORD_COMPATIBLE)
+        || value.isRecordCompatible() != defaults.isRecordCompatible()) {
+      setRecordCompatible(value.isRecordCompatible());
+    }
     if (defaults._unsetProperties.contains(Property.HAS_TO_BUILDER_METHOD)
         || value.getHasToBuilderMethod() != defaults.getHasToBuilderMethod()) {
       setHasToBuilderMethod(value.getHasToBuilderMethod());
@@ -1386,6 +1468,16 @@ abstract class Datatype_Builder {
             || template.isBuilderSerializable() != defaults.isBuilderSerializable())) {
       setBuilderSerializable(template.isBuilderSerializable());
     }
+    if (!base._unsetProperties.contains(Property.HASH_CODE_CACHED)
+        && (defaults._unsetProperties.contains(Property.HASH_CODE_CACHED)
+            || template.isHashCodeCached() != defaults.isHashCodeCached())) {
+      setHashCodeCached(template.isHashCodeCached());
+    }
+    if (!base._unsetProperties.contains(Property.RECORD_COMPATIBLE)
+        && (defaults._unsetProperties.contains(Property.RECORD_COMPATIBLE)
+            || template.isRecordCompatible() != defaults.isRecordCompatible())) {
+      setRecordCompatible(template.isRecordCompatible());
+    }
     if (!base._unsetProperties.contains(Property.HAS_TO_BUILDER_METHOD)
         && (defaults._unsetProperties.contains(Property.HAS_TO_BUILDER_METHOD)
             || template.getHasToBuilderMethod() != defaults.getHasToBuilderMethod())) {
@@ -1450,6 +1542,8 @@ abstract class Datatype_Builder {
     propertyEnum = defaults.propertyEnum;
     standardMethodUnderrides.clear();
     builderSerializable = defaults.builderSerializable;
+    hashCodeCached = defaults.hashCodeCached;
+    recordCompatible = defaults.recordCompatible;
     hasToBuilderMethod = defaults.hasToBuilderMethod;
     buildMethod = defaults.buildMethod;
     buildPartialMethod = defaults.buildPartialMethod;
@@ -1516,6 +1610,8 @@ abstract class Datatype_Builder {
     private final TypeClass propertyEnum;
     private final ImmutableMap<StandardMethod, UnderrideLevel> standardMethodUnderrides;
     private final boolean builderSerializable;
+    private final boolean hashCodeCached;
+    private final boolean recordCompatible;
     private final boolean hasToBuilderMethod;
     private final NameAndVisibility buildMethod;
     private final NameAndVisibility buildPartialMethod;
@@ -1540,6 +1636,8 @@ abstract class Datatype_Builder {
       this.propertyEnum = builder.propertyEnum;
       this.standardMethodUnderrides = ImmutableMap.copyOf(builder.standardMethodUnderrides);
       this.builderSerializable = builder.builderSerializable;
+      this.hashCodeCached = builder.hashCodeCached;
+      this.recordCompatible = builder.recordCompatible;
       this.hasToBuilderMethod = builder.hasToBuilderMethod;
       this.buildMethod = builder.buildMethod;
       this.buildPartialMethod = builder.buildPartialMethod;
@@ -1612,6 +1710,16 @@ abstract class Datatype_Builder {
       return builderSerializable;
     }
 
+    @Override
+    public boolean isHashCodeCached() {
+      return hashCodeCached;
+    }
+
+    @Override
+    public boolean isRecordCompatible() {
+      return recordCompatible;
+    }
+
     @Override
     public boolean getHasToBuilderMethod() {
       return hasToBuilderMethod;
@@ -1677,6 +1785,8 @@ abstract class Datatype_Builder {
       builder.propertyEnum = propertyEnum;
       builder.standardMethodUnderrides.putAll(standardMethodUnderrides);
       builder.builderSerializable = builderSerializable;
+      builder.hashCodeCached = hashCodeCached;
+      builder.recordCompatible = recordCompatible;
       builder.hasToBuilderMethod = hasToBuilderMethod;
       builder.buildMethod = buildMethod;
       builder.buildPartialMethod = buildPartialMethod;
@@ -1709,6 +1819,8 @@ abstract class Datatype_Builder {
           && Objects.equals(propertyEnum, other.propertyEnum)
           && Objects.equals(standardMethodUnderrides, other.standardMethodUnderrides)
           && builderSerializable == other.builderSerializable
+          && hashCodeCached == other.hashCodeCached
+          && recordCompatible == other.recordCompatible
           && hasToBuilderMethod == other.hasToBuilderMethod
           && Objects.equals(buildMethod, other.buildMethod)
           && Objects.equals(buildPartialMethod, other.buildPartialMethod)
@@ -1723,29 +1835,32 @@ abstract class Datatype_Builder {
 
     @Override
     public int hashCode() {
-      return Objects.hash(
-          type,
-          interfaceType,
-          builder,
-          extensible,
-          builderFactory,
-          generatedBuilder,
-          valueType,
-          partialType,
-          rebuildableType,
-          propertyEnum,
-          standardMethodUnderrides,
-          builderSerializable,
-          hasToBuilderMethod,
-          buildMethod,
-          buildPartialMethod,
-          clearMethod,
-          mergeFromBuilderMethod,
-          mergeFromValueMethod,
-          generatedBuilderAnnotations,
-          valueTypeAnnotations,
-          valueTypeVisibility,
-          nestedClasses);
+      int result = 1;
+      result = 31 * result + Objects.hashCode(type);
+      result = 31 * result + Boolean.hashCode(interfaceType);
+      result = 31 * result + Objects.hashCode(builder);
+      result = 31 * result + Boolean.hashCode(extensible);
+      result = 31 * result + Objects.hashCode(builderFactory);
+      result = 31 * result + Objects.hashCode(generatedBuilder);
+      result = 31 * result + Objects.hashCode(valueType);
+      result = 31 * result + Objects.hashCode(partialType);
+      result = 31 * result + Objects.hashCode(rebuildableType);
+      result = 31 * result + Objects.hashCode(propertyEnum);
+      result = 31 * result + Objects.hashCode(standardMethodUnderrides);
+      result = 31 * result + Boolean.hashCode(builderSerializable);
+      result = 31 * result + Boolean.hashCode(hashCodeCached);
+      result = 31 * result + Boolean.hashCode(recordCompatible);
+      result = 31 * result + Boolean.hashCode(hasToBuilderMethod);
+      result = 31 * result + Objects.hashCode(buildMethod);
+      result = 31 * result + Objects.hashCode(buildPartialMethod);
+      result = 31 * result + Objects.hashCode(clearMethod);
+      result = 31 * result + Objects.hashCode(mergeFromBuilderMethod);
+      result = 31 * result + Objects.hashCode(mergeFromValueMethod);
+      result = 31 * result + Objects.hashCode(generatedBuilderAnnotations);
+      result = 31 * result + Objects.hashCode(valueTypeAnnotations);
+      result = 31 * result + Objects.hashCode(valueTypeVisibility);
+      result = 31 * result + Objects.hashCode(nestedClasses);
+      return result;
     }
 
     @Override
@@ -1779,6 +1894,10 @@ abstract class Datatype_Builder {
           .append(standardMethodUnderrides)
           .append(", builderSerializable=")
           .append(builderSerializable)
+          .append(", hashCodeCached=")
+          .append(hashCodeCached)
+          .append(", recordCompatible=")
+          .append(recordCompatible)
           .append(", hasToBuilderMethod=")
           .append(hasToBuilderMethod)
           .append(", buildMethod=")
@@ -1823,6 +1942,8 @@ abstract class Datatype_Builder {
     private final TypeClass propertyEnum;
     private final ImmutableMap<StandardMethod, UnderrideLevel> standardMethodUnderrides;
     private final boolean builderSerializable;
+    private final boolean hashCodeCached;
+    private final boolean recordCompatible;
     private final boolean hasToBuilderMethod;
     private final NameAndVisibility buildMethod;
     private final NameAndVisibility buildPartialMethod;
@@ -1848,6 +1969,8 @@ abstract class Datatype_Builder {
       this.propertyEnum = builder.propertyEnum;
       this.standardMethodUnderrides = ImmutableMap.copyOf(builder.standardMethodUnderrides);
       this.builderSerializable = builder.builderSerializable;
+      this.hashCodeCached = builder.hashCodeCached;
+      this.recordCompatible = builder.recordCompatible;
       this.hasToBuilderMethod = builder.hasToBuilderMethod;
       this.buildMethod = builder.buildMethod;
       this.buildPartialMethod = builder.buildPartialMethod;
@@ -1948,6 +2071,22 @@ abstract class Datatype_Builder {
       return builderSerializable;
     }
 
+    @Override
+    public boolean isHashCodeCached() {
+      if (_unsetProperties.contains(Property.HASH_CODE_CACHED)) {
+        throw new UnsupportedOperationException("hashCodeCached not set");
+      }
+      return hashCodeCached;
+    }
+
+    @Override
+    public boolean isRecordCompatible() {
+      if (_unsetProperties.contains(Property.RECORD_COMPATIBLE)) {
+        throw new UnsupportedOperationException("recordCompatible not set");
+      }
+      return recordCompatible;
+    }
+
     @Override
     public boolean getHasToBuilderMethod() {
       if (_unsetProperties.contains(Property.HAS_TO_BUILDER_METHOD)) {
@@ -2041,6 +2180,8 @@ abstract class Datatype_Builder {
       builder.propertyEnum = propertyEnum;
       builder.standardMethodUnderrides.putAll(standardMethodUnderrides);
       builder.builderSerializable = builderSerializable;
+      builder.hashCodeCached = hashCodeCached;
+      builder.recordCompatible = recordCompatible;
       builder.hasToBuilderMethod = hasToBuilderMethod;
       builder.buildMethod = buildMethod;
       builder.buildPartialMethod = buildPartialMethod;
@@ -2074,6 +2215,8 @@ abstract class Datatype_Builder {
           && Objects.equals(propertyEnum, other.propertyEnum)
           && Objects.equals(standardMethodUnderrides, other.standardMethodUnderrides)
           && builderSerializable == other.builderSerializable
+          && hashCodeCached == other.hashCodeCached
+          && recordCompatible == other.recordCompatible
           && hasToBuilderMethod == other.hasToBuilderMethod
           && Objects.equals(buildMethod, other.buildMethod)
           && Objects.equals(buildPartialMethod, other.buildPartialMethod)
@@ -2089,30 +2232,33 @@ abstract class Datatype_Builder {
 
     @Override
     public int hashCode() {
-      return Objects.hash(
-          type,
-          interfaceType,
-          builder,
-          extensible,
-          builderFactory,
-          generatedBuilder,
-          valueType,
-          partialType,
-          rebuildableType,
-          propertyEnum,
-          standardMethodUnderrides,
-          builderSerializable,
-          hasToBuilderMethod,
-          buildMethod,
-          buildPartialMethod,
-          clearMethod,
-          mergeFromBuilderMethod,
-          mergeFromValueMethod,
-          generatedBuilderAnnotations,
-          valueTypeAnnotations,
-          valueTypeVisibility,
-          nestedClasses,
-          _unsetProperties);
+      int result = 1;
+      result = 31 * result + Objects.hashCode(type);
+      result = 31 * result + Boolean.hashCode(interfaceType);
+      result = 31 * result + Objects.hashCode(builder);
+      result = 31 * result + Boolean.hashCode(extensible);
+      result = 31 * result + Objects.hashCode(builderFactory);
+      result = 31 * result + Objects.hashCode(generatedBuilder);
+      result = 31 * result + Objects.hashCode(valueType);
+      result = 31 * result + Objects.hashCode(partialType);
+      result = 31 * result + Objects.hashCode(rebuildableType);
+      result = 31 * result + Objects.hashCode(propertyEnum);
+      result = 31 * result + Objects.hashCode(standardMethodUnderrides);
+      result = 31 * result + Boolean.hashCode(builderSerializable);
+      result = 31 * result + Boolean.hashCode(hashCodeCached);
+      result = 31 * result + Boolean.hashCode(recordCompatible);
+      result = 31 * result + Boolean.hashCode(hasToBuilderMethod);
+      result = 31 * result + Objects.hashCode(buildMethod);
+      result = 31 * result + Objects.hashCode(buildPartialMethod);
+      result = 31 * result + Objects.hashCode(clearMethod);
+      result = 31 * result + Objects.hashCode(mergeFromBuilderMethod);
+      result = 31 * result + Objects.hashCode(mergeFromValueMethod);
+      result = 31 * result + Objects.hashCode(generatedBuilderAnnotations);
+      result = 31 * result + Objects.hashCode(valueTypeAnnotations);
+      result = 31 * result + Objects.hashCode(valueTypeVisibility);
+      result = 31 * result + Objects.hashCode(nestedClasses);
+      result = 31 * result + Objects.hashCode(_unsetProperties);
+      return result;
     }
 
     @Override
@@ -2152,6 +2298,12 @@ abstract class Datatype_Builder {
       if (!_unsetProperties.contains(Property.BUILDER_SERIALIZABLE)) {
         result.append(", builderSerializable=").append(builderSerializable);
       }
+      if (!_unsetProperties.contains(Property.HASH_CODE_CACHED)) {
+        result.append(", hashCodeCached=").append(hashCodeCached);
+      }
+      if (!_unsetProperties.contains(Property.RECORD_COMPATIBLE)) {
+        result.append(", recordCompatible=").append(recordCompatible);
+      }
       if (!_unsetProperties.contains(Property.HAS_TO_BUILDER_METHOD)) {
         result.append(", hasToBuilderMethod=").append(hasToBuilderMethod);
       }
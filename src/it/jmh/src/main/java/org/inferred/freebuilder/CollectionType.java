@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.inferred.freebuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Benchmark corpus type with collection-heavy properties. */
+@FreeBuilder
+public interface CollectionType {
+  List<String> getTags();
+  Set<Integer> getIds();
+  Map<String, Integer> getCounts();
+
+  Builder toBuilder();
+
+  class Builder extends CollectionType_Builder { }
+}
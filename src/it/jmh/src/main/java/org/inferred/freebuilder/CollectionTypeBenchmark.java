@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.inferred.freebuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the generated code for {@link CollectionType}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectionTypeBenchmark {
+
+  private final CollectionType value = newValue();
+  private final CollectionType equalValue = newValue();
+  private final CollectionType.Builder builder = value.toBuilder();
+
+  @Benchmark
+  public CollectionType.Builder newBuilder() {
+    return new CollectionType.Builder();
+  }
+
+  @Benchmark
+  public CollectionType setAndBuild() {
+    return newValue();
+  }
+
+  @Benchmark
+  public CollectionType toBuilderAndBuild() {
+    return value.toBuilder().build();
+  }
+
+  @Benchmark
+  public CollectionType toBuilderModifyAndBuild() {
+    return value.toBuilder()
+        .addTags("epsilon")
+        .build();
+  }
+
+  @Benchmark
+  public CollectionType mergeFromValue() {
+    return new CollectionType.Builder().mergeFrom(value).build();
+  }
+
+  @Benchmark
+  public CollectionType mergeFromBuilder() {
+    return new CollectionType.Builder().mergeFrom(builder).build();
+  }
+
+  @Benchmark
+  public boolean equalsEqualValue() {
+    return value.equals(equalValue);
+  }
+
+  @Benchmark
+  public int hashCodeValue() {
+    return value.hashCode();
+  }
+
+  @Benchmark
+  public String toStringValue() {
+    return value.toString();
+  }
+
+  private static CollectionType newValue() {
+    return new CollectionType.Builder()
+        .addTags("alpha", "beta", "gamma", "delta")
+        .addIds(1, 2, 3, 5, 8, 13)
+        .putCounts("one", 1)
+        .putCounts("two", 2)
+        .putCounts("three", 3)
+        .build();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.inferred.freebuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the generated code for {@link ScalarType}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalarTypeBenchmark {
+
+  private final ScalarType value = newValue();
+  private final ScalarType equalValue = newValue();
+  private final ScalarType.Builder builder = value.toBuilder();
+
+  @Benchmark
+  public ScalarType.Builder newBuilder() {
+    return new ScalarType.Builder();
+  }
+
+  @Benchmark
+  public ScalarType setAndBuild() {
+    return newValue();
+  }
+
+  @Benchmark
+  public ScalarType toBuilderAndBuild() {
+    return value.toBuilder().build();
+  }
+
+  @Benchmark
+  public ScalarType toBuilderModifyAndBuild() {
+    return value.toBuilder()
+        .setScore(0.5)
+        .build();
+  }
+
+  @Benchmark
+  public ScalarType mergeFromValue() {
+    return new ScalarType.Builder().mergeFrom(value).build();
+  }
+
+  @Benchmark
+  public ScalarType mergeFromBuilder() {
+    return new ScalarType.Builder().mergeFrom(builder).build();
+  }
+
+  @Benchmark
+  public boolean equalsEqualValue() {
+    return value.equals(equalValue);
+  }
+
+  @Benchmark
+  public int hashCodeValue() {
+    return value.hashCode();
+  }
+
+  @Benchmark
+  public String toStringValue() {
+    return value.toString();
+  }
+
+  private static ScalarType newValue() {
+    return new ScalarType.Builder()
+        .setId(17)
+        .setTimestamp(1234567890123L)
+        .setScore(0.75)
+        .setActive(true)
+        .setName("name")
+        .setNickname("nickname")
+        .build();
+  }
+}
@@ -0,0 +1,25 @@
+package org.inferred.freebuilder;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link FreeBuilder} will cache the result of its generated {@link Object#hashCode()} on value
+ * instances of types annotated {@code @CachedHashCode}.
+ *
+ * <p>The hash code is computed the first time it is requested, and stored in a field on the
+ * value, much as {@link String#hashCode()} does. This can pay off for large nested values that
+ * are frequently used as map keys.
+ *
+ * <p><b>Warning</b>: The cached hash code will be stale if any property returns a mutable object
+ * that is later modified. Only use this annotation if every property is deeply immutable, e.g.
+ * primitives, strings, immutable collections, or other FreeBuilder types.
+ *
+ * <p>Partial values, created with {@code buildPartial()}, never cache their hash code.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface CachedHashCode {
+}
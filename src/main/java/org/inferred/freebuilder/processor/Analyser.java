@@ -21,8 +21,10 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.transform;
 
 import static org.inferred.freebuilder.processor.GwtSupport.gwtMetadata;
+import static org.inferred.freebuilder.processor.JacksonSupport.jacksonMetadata;
 import static org.inferred.freebuilder.processor.NamePicker.pickName;
 import static org.inferred.freebuilder.processor.model.MethodFinder.methodsOn;
+import static org.inferred.freebuilder.processor.model.ModelUtils.findAnnotationMirror;
 import static org.inferred.freebuilder.processor.model.ModelUtils.asElement;
 import static org.inferred.freebuilder.processor.model.ModelUtils.getReturnType;
 import static org.inferred.freebuilder.processor.naming.NamingConventions.determineNamingConvention;
@@ -32,15 +34,18 @@ import static javax.lang.model.util.ElementFilter.constructorsIn;
 import static javax.lang.model.util.ElementFilter.typesIn;
 import static javax.tools.Diagnostic.Kind.ERROR;
 import static javax.tools.Diagnostic.Kind.NOTE;
+import static javax.tools.Diagnostic.Kind.WARNING;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
+import org.inferred.freebuilder.CachedHashCode;
 import org.inferred.freebuilder.IgnoredByEquals;
 import org.inferred.freebuilder.NotInToString;
 import org.inferred.freebuilder.processor.Datatype.StandardMethod;
 import org.inferred.freebuilder.processor.Datatype.UnderrideLevel;
+import org.inferred.freebuilder.processor.model.MethodFinder;
 import org.inferred.freebuilder.processor.model.MethodIntrospector;
 import org.inferred.freebuilder.processor.naming.NamingConvention;
 import org.inferred.freebuilder.processor.property.Factories;
@@ -51,6 +56,7 @@ import org.inferred.freebuilder.processor.source.QualifiedName;
 import org.inferred.freebuilder.processor.source.Type;
 
 import java.io.Serializable;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -98,17 +104,26 @@ class Analyser {
 
   private static final String BUILDER_SIMPLE_NAME_TEMPLATE = "%s_Builder";
   private static final String USER_BUILDER_NAME = "Builder";
+  /** Methods of Object that record components may not be named after. */
+  private static final ImmutableSet<String> OBJECT_METHOD_NAMES = ImmutableSet.of(
+      "clone", "finalize", "getClass", "hashCode", "notify", "notifyAll", "toString", "wait");
 
   private final ProcessingEnvironment env;
   private final Elements elements;
   private final Messager messager;
   private final Types types;
+  /** Shared by all analysed types, as creating one may load and define classes. */
+  private final MethodIntrospector methodIntrospector;
+  /** Kept reachable so methods found on library types are cached for the whole compilation. */
+  private final MethodFinder.LibraryTypeCache libraryTypeCache;
 
   Analyser(ProcessingEnvironment env, Messager messager) {
     this.env = env;
     this.elements = env.getElementUtils();
     this.messager = messager;
     this.types = env.getTypeUtils();
+    this.methodIntrospector = MethodIntrospector.instance(env);
+    this.libraryTypeCache = MethodFinder.cacheLibraryTypes(elements);
   }
 
   /**
@@ -132,6 +147,7 @@ class Analyser {
     ImmutableSet<ExecutableElement> methods = methodsOn(type, elements, errorType -> {
       throw new CannotGenerateCodeException();
     });
+    Map<StandardMethod, UnderrideLevel> underriddenMethods = findUnderriddenMethods(methods);
     Datatype.Builder constructionAndExtension = constructionAndExtension(builder);
     QualifiedName valueType = generatedBuilder.nestedType("Value");
     QualifiedName partialType = generatedBuilder.nestedType("Partial");
@@ -144,7 +160,7 @@ class Analyser {
         .setValueType(valueType.withParameters(typeParameters))
         .setPartialType(partialType.withParameters(typeParameters))
         .setPropertyEnum(propertyType.withParameters())
-        .putAllStandardMethodUnderrides(findUnderriddenMethods(methods))
+        .putAllStandardMethodUnderrides(underriddenMethods)
         .setBuildMethod(pickName(builder, elements, types, type.asType(), "build"))
         .setBuildPartialMethod(pickName(builder, elements, types, type.asType(), "buildPartial"))
         .setClearMethod(pickName(builder, elements, types, builder, "clear"))
@@ -155,6 +171,7 @@ class Analyser {
         .setHasToBuilderMethod(hasToBuilderMethod(
             builder, constructionAndExtension.isExtensible(), methods))
         .setBuilderSerializable(shouldBuilderBeSerializable(builder))
+        .setHashCodeCached(shouldCacheHashCode(type, underriddenMethods))
         .setBuilder(Type.from(builder));
     if (datatypeBuilder.getBuilderFactory().isPresent()
         && !datatypeBuilder.getHasToBuilderMethod()) {
@@ -165,6 +182,10 @@ class Analyser {
     Map<Property, PropertyCodeGenerator> generatorsByProperty = pickPropertyGenerators(
         type, baseDatatype, builder, removeNonGetterMethods(builder, methods));
     datatypeBuilder.mergeFrom(gwtMetadata(type, baseDatatype, generatorsByProperty));
+    datatypeBuilder.mergeFrom(
+        jacksonMetadata(type, baseDatatype, generatorsByProperty, env, messager));
+    datatypeBuilder.setRecordCompatible(
+        isRecordCompatible(type, methods, generatorsByProperty.keySet()));
     return new GeneratedBuilder(datatypeBuilder.build(), generatorsByProperty);
   }
 
@@ -285,6 +306,55 @@ class Analyser {
     return result.build();
   }
 
+  /**
+   * Returns whether the user has requested a cached hash code with &#64;{@link CachedHashCode}.
+   *
+   * <p>Issues a warning if the annotation will have no effect because the user has implemented
+   * hashCode themselves.
+   */
+  private boolean shouldCacheHashCode(
+      TypeElement type, Map<StandardMethod, UnderrideLevel> underriddenMethods) {
+    Optional<AnnotationMirror> annotation = findAnnotationMirror(type, CachedHashCode.class);
+    if (!annotation.isPresent()) {
+      return false;
+    }
+    if (underriddenMethods.containsKey(StandardMethod.HASH_CODE)) {
+      messager.printMessage(
+          WARNING,
+          "@CachedHashCode has no effect on FreeBuilder types that implement hashCode",
+          type,
+          annotation.get());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the value type could be declared as a record. Records implicitly declare a
+   * public no-args accessor named after each component, which must not clash with (or override)
+   * any method of the user's type, and Jackson would serialize those accessors as properties.
+   */
+  private boolean isRecordCompatible(
+      TypeElement type, Iterable<ExecutableElement> methods, Set<Property> properties) {
+    if (!type.getKind().isInterface() || JacksonSupport.create(type, elements).isPresent()) {
+      return false;
+    }
+    Set<String> componentNames = new HashSet<>();
+    for (Property property : properties) {
+      if (OBJECT_METHOD_NAMES.contains(property.getName())) {
+        return false;
+      }
+      componentNames.add(property.getName());
+    }
+    for (ExecutableElement method : methods) {
+      if (method.getParameters().isEmpty()
+          && componentNames.contains(method.getSimpleName().toString())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /** Find a toBuilder method, if the user has provided one. */
   private boolean hasToBuilderMethod(
       DeclaredType builder,
@@ -432,7 +502,6 @@ class Analyser {
   }
 
   private Set<String> getMethodsInvokedInBuilderConstructor(TypeElement builder) {
-    MethodIntrospector methodIntrospector = MethodIntrospector.instance(env);
     List<ExecutableElement> constructors = constructorsIn(builder.getEnclosedElements());
     Set<Name> result = null;
     for (ExecutableElement constructor : constructors) {
@@ -538,6 +607,11 @@ class Analyser {
       return env;
     }
 
+    @Override
+    public MethodIntrospector getMethodIntrospector() {
+      return methodIntrospector;
+    }
+
     @Override
     public Elements getElements() {
       return elements;
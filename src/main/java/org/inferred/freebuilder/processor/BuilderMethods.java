@@ -105,5 +105,9 @@ public class BuilderMethods {
     return "clear" + property.getCapitalizedName();
   }
 
+  public static String collectorMethod(Property property) {
+    return "to" + property.getCapitalizedName();
+  }
+
   private BuilderMethods() {}
 }
@@ -121,6 +121,16 @@ public abstract class Datatype {
   /** Returns whether the builder type should be serializable. */
   public abstract boolean isBuilderSerializable();
 
+  /** Returns whether the value type should cache its hash code. */
+  public abstract boolean isHashCodeCached();
+
+  /**
+   * Returns whether the value type may be declared as a record, if the source level and processor
+   * options allow it. This requires an interface type with no method that would clash with a
+   * record component accessor, not serialized with Jackson.
+   */
+  public abstract boolean isRecordCompatible();
+
   /** Returns whether the value type has a toBuilder method that needs to be generated. */
   public abstract boolean getHasToBuilderMethod();
 
@@ -166,6 +176,8 @@ public abstract class Datatype {
       super.setMergeFromValueMethod(NameAndVisibility.of("mergeFrom", Visibility.PUBLIC));
       super.setValueTypeVisibility(Visibility.PRIVATE);
       super.setHasToBuilderMethod(false);
+      super.setHashCodeCached(false);
+      super.setRecordCompatible(false);
     }
 
     /**
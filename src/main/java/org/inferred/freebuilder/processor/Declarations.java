@@ -1,10 +1,16 @@
 package org.inferred.freebuilder.processor;
 
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
+
 import org.inferred.freebuilder.processor.BuilderFactory.TypeInference;
+import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.LazyName;
 import org.inferred.freebuilder.processor.source.Scope;
 import org.inferred.freebuilder.processor.source.Scope.Level;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.ValueType;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
 
 import java.util.Optional;
 
@@ -45,7 +51,9 @@ public class Declarations {
   /**
    * Declares a fresh Builder to copy default property values from.
    *
-   * <p>Reuses an existing fresh Builder instance if one was already declared in this scope.
+   * <p>Reuses an existing fresh Builder instance if one was already declared in this scope. If
+   * builders are {@link BuilderReuse#REUSABLE reusable}, and the type is not generic, a single
+   * Builder shared by the whole class is used instead. It must not be modified.
    *
    * @returns a variable holding a fresh Builder, if a no-args factory method is available to
    *     create one with
@@ -56,15 +64,55 @@ public class Declarations {
     }
     return Optional.of(code.scope().computeIfAbsent(Declaration.FRESH_BUILDER, () -> {
       Variable defaults = new Variable("defaults");
-      code.addLine("%s %s = %s;",
-          datatype.getGeneratedBuilder(),
-          defaults,
-          datatype.getBuilderFactory().get()
-              .newBuilder(datatype.getBuilder(), TypeInference.INFERRED_TYPES));
+      if (code.feature(BUILDER_REUSE) == BuilderReuse.REUSABLE
+          && !datatype.getType().isParameterized()) {
+        code.addLine("%s %s = %s.INSTANCE;",
+            datatype.getGeneratedBuilder(), defaults, SharedDefaults.name(datatype));
+      } else {
+        code.addLine("%s %s = %s;",
+            datatype.getGeneratedBuilder(),
+            defaults,
+            datatype.getBuilderFactory().get()
+                .newBuilder(datatype.getBuilder(), TypeInference.INFERRED_TYPES));
+      }
       return defaults;
     }));
   }
 
+  /**
+   * Holder for the Builder shared by reusable builders, so it is created the first time it is
+   * needed rather than when the builder class is loaded.
+   */
+  private static class SharedDefaults extends ValueType implements Excerpt {
+
+    static LazyName name(Datatype datatype) {
+      return LazyName.of("SharedDefaults", new SharedDefaults(datatype));
+    }
+
+    private final Datatype datatype;
+
+    private SharedDefaults(Datatype datatype) {
+      this.datatype = datatype;
+    }
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      code.addLine("")
+          .addLine("/** Default property values, shared by every builder and never modified. */")
+          .addLine("private static final class %s {", name(datatype))
+          .addLine("  static final %s INSTANCE = %s;",
+              datatype.getGeneratedBuilder(),
+              datatype.getBuilderFactory().get()
+                  .newBuilder(datatype.getBuilder(), TypeInference.INFERRED_TYPES))
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {
+      fields.add("datatype", datatype);
+    }
+  }
+
   private Declarations() {}
 
 }
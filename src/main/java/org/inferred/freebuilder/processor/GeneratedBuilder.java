@@ -20,15 +20,17 @@ import static org.inferred.freebuilder.processor.BuilderFactory.TypeInference.IN
 import static org.inferred.freebuilder.processor.Datatype.UnderrideLevel.ABSENT;
 import static org.inferred.freebuilder.processor.Datatype.UnderrideLevel.FINAL;
 import static org.inferred.freebuilder.processor.ToStringGenerator.addToString;
-import static org.inferred.freebuilder.processor.property.DefaultProperty.UNSET_PROPERTIES;
 import static org.inferred.freebuilder.processor.property.MergeAction.addActionsTo;
 import static org.inferred.freebuilder.processor.source.LazyName.addLazyDefinitions;
+import static org.inferred.freebuilder.processor.source.feature.BuildMemoization.BUILD_MEMOIZATION;
 import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.SOURCE_LEVEL;
+import static org.inferred.freebuilder.processor.source.feature.ValueRecords.VALUE_RECORDS;
 
 import static java.util.stream.Collectors.toSet;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import org.inferred.freebuilder.FreeBuilder;
 import org.inferred.freebuilder.processor.Datatype.StandardMethod;
@@ -36,39 +38,44 @@ import org.inferred.freebuilder.processor.property.MergeAction;
 import org.inferred.freebuilder.processor.property.Property;
 import org.inferred.freebuilder.processor.property.PropertyCodeGenerator;
 import org.inferred.freebuilder.processor.property.PropertyCodeGenerator.Initially;
+import org.inferred.freebuilder.processor.property.UnsetProperties;
 import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.Excerpts;
 import org.inferred.freebuilder.processor.source.FieldAccess;
-import org.inferred.freebuilder.processor.source.ObjectsExcerpts;
-import org.inferred.freebuilder.processor.source.PreconditionExcerpts;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.TypeClass;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuildMemoization;
+import org.inferred.freebuilder.processor.source.feature.ValueRecords;
 
 import java.io.Serializable;
-import java.util.EnumSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Code generation for the &#64;{@link FreeBuilder} annotation.
  */
 public class GeneratedBuilder extends GeneratedType {
 
+  private static final FieldAccess HASH_CODE = new FieldAccess("_hashCode");
+  private static final FieldAccess LAST_BUILT = new FieldAccess("_lastBuilt");
+
   private final Datatype datatype;
   private final Map<Property, PropertyCodeGenerator> generatorsByProperty;
+  private final UnsetProperties unsetProperties;
 
   @VisibleForTesting
   public GeneratedBuilder(
       Datatype datatype, Map<Property, PropertyCodeGenerator> generatorsByProperty) {
     this.datatype = datatype;
     this.generatorsByProperty = generatorsByProperty;
+    this.unsetProperties = UnsetProperties.of(datatype, generatorsByProperty);
   }
 
   Datatype getDatatype() {
@@ -92,6 +99,7 @@ public class GeneratedBuilder extends GeneratedType {
         .addLine("");
     addBuilderTypeDeclaration(code);
     code.addLine(" {");
+    unsetProperties.register(code);
     addStaticFromMethod(code);
     if (generatorsByProperty.values().stream().anyMatch(IS_REQUIRED)) {
       addPropertyEnum(code);
@@ -161,10 +169,9 @@ public class GeneratedBuilder extends GeneratedType {
     code.addLine("");
     generatorsByProperty.values().forEach(generator -> generator.addBuilderFieldDeclaration(code));
     // Unset properties
-    if (generatorsByProperty.values().stream().anyMatch(IS_REQUIRED)) {
-      code.addLine("private final %s<%s> %s =",
-              EnumSet.class, datatype.getPropertyEnum(), UNSET_PROPERTIES)
-          .addLine("    %s.allOf(%s.class);", EnumSet.class, datatype.getPropertyEnum());
+    unsetProperties.addBuilderFieldDeclarations(code);
+    if (memoizesBuild(code)) {
+      code.addLine("private transient %s %s = null;", datatype.getValueType(), LAST_BUILT);
     }
   }
 
@@ -188,11 +195,79 @@ public class GeneratedBuilder extends GeneratedType {
             datatype.getType(),
             datatype.getBuildMethod().name());
     if (hasRequiredProperties) {
-      code.add(PreconditionExcerpts.checkState(
-          "%1$s.isEmpty()", "Not set: %1$s", UNSET_PROPERTIES));
+      unsetProperties.addCheckAllSet(code);
     }
-    code.addLine("  return %s(this);", datatype.getValueType().constructor())
-        .addLine("}");
+    if (memoizesBuild(code)) {
+      addMemoizedBuild(code);
+    } else {
+      code.addLine("  return %s(this);", newValue(code));
+    }
+    code.addLine("}");
+  }
+
+  /**
+   * Returns whether build() should return the last value built if the builder is unchanged since.
+   * This requires every property's builder field to be comparable to the value's by reference.
+   */
+  private boolean memoizesBuild(SourceBuilder code) {
+    return code.feature(BUILD_MEMOIZATION) == BuildMemoization.ENABLED
+        && generatorsByProperty.values().stream()
+            .allMatch(generator -> generator.hasUnchangedCondition(code));
+  }
+
+  /**
+   * Returns the properties whose final values a memoized build method builds before checking
+   * whether the builder is unchanged, and passes to the value type after the property's field.
+   */
+  private Set<Property> prebuiltProperties(SourceBuilder code) {
+    if (!memoizesBuild(code)) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet.Builder<Property> properties = ImmutableSet.builder();
+    generatorsByProperty.forEach((property, generator) -> {
+      if (generator.buildsValueForUnchangedCondition(code)) {
+        properties.add(property);
+      }
+    });
+    return properties.build();
+  }
+
+  private void addMemoizedBuild(SourceBuilder code) {
+    Map<Property, Variable> prebuilt = new LinkedHashMap<>();
+    for (Property property : prebuiltProperties(code)) {
+      Variable built = new Variable(property.getName());
+      code.addLine("  %s %s;", property.getType(), built);
+      generatorsByProperty.get(property).addFinalFieldAssignment(code, built, "this");
+      prebuilt.put(property, built);
+    }
+    Variable value = new Variable("value");
+    code.addLine("  %s %s = %s;", datatype.getValueType(), value, LAST_BUILT);
+    if (!generatorsByProperty.isEmpty()) {
+      code.add("  if (%s != null", value);
+      generatorsByProperty.forEach((property, generator) -> {
+        code.add("%n      && ");
+        if (prebuilt.containsKey(property)) {
+          code.add("%s == %s", prebuilt.get(property), property.getField().on(value));
+        } else {
+          generator.addUnchangedCondition(code, value);
+        }
+      });
+      code.add(") {%n")
+          .addLine("    return %s;", value)
+          .addLine("  }");
+    } else {
+      code.addLine("  if (%s != null) {", value)
+          .addLine("    return %s;", value)
+          .addLine("  }");
+    }
+    code.add("  %s = %s(this", value, newValue(code));
+    prebuilt.values().forEach(built -> code.add(", %s", built));
+    code.add(");%n");
+    generatorsByProperty.values().forEach(generator -> {
+      generator.addShareBuiltState(code, value);
+    });
+    code.addLine("  %s = %s;", LAST_BUILT, value)
+        .addLine("  return %s;", value);
   }
 
   private void addMergeFromValueMethod(SourceBuilder code) {
@@ -256,8 +331,7 @@ public class GeneratedBuilder extends GeneratedType {
     if (generatorsByProperty.values().stream().anyMatch(IS_REQUIRED)) {
       Optional<Variable> defaults = Declarations.freshBuilder(code, datatype);
       if (defaults.isPresent()) {
-        code.addLine("  %s.clear();", UNSET_PROPERTIES)
-            .addLine("  %s.addAll(%s);", UNSET_PROPERTIES, UNSET_PROPERTIES.on(defaults.get()));
+        unsetProperties.addCopyFrom(code, defaults.get());
       }
     }
     code.addLine("  return (%s) this;", datatype.getBuilder())
@@ -322,12 +396,22 @@ public class GeneratedBuilder extends GeneratedType {
         .addLine("")
         .addLine("  @%s public %s toString() {", Override.class, String.class)
         .addLine("    return name;")
-        .addLine("  }")
-        .addLine("}");
+        .addLine("  }");
+    unsetProperties.addUnsetMethod(code);
+    code.addLine("}");
   }
 
   private void addRebuildableSuperclass(SourceBuilder code) {
     datatype.getRebuildableType().ifPresent(rebuildable -> {
+      if (isValueRecord(code)) {
+        // Records cannot extend a class
+        code.addLine("")
+            .addLine("private interface %s extends %s {",
+                rebuildable.declaration(), datatype.getType())
+            .addLine("  %s toBuilder();", datatype.getBuilder())
+            .addLine("}");
+        return;
+      }
       code.addLine("")
           .addLine("private abstract static class %s %s {",
               rebuildable.declaration(), extending(datatype.getType(), datatype.isInterfaceType()))
@@ -337,6 +421,10 @@ public class GeneratedBuilder extends GeneratedType {
   }
 
   private void addValueType(SourceBuilder code) {
+    if (isValueRecord(code)) {
+      addValueRecord(code);
+      return;
+    }
     code.addLine("");
     datatype.getValueTypeAnnotations().forEach(code::add);
     code.addLine("%s static final class %s %s {",
@@ -346,6 +434,9 @@ public class GeneratedBuilder extends GeneratedType {
             .map(rebuildable -> extending(rebuildable, false))
             .orElse(extending(datatype.getType(), datatype.isInterfaceType())));
     generatorsByProperty.values().forEach(generator -> generator.addValueFieldDeclaration(code));
+    if (cachesHashCode()) {
+      code.addLine("private transient int %s;", HASH_CODE);
+    }
     addValueTypeConstructor(code);
     addValueTypeGetters(code);
     if (datatype.getHasToBuilderMethod() || datatype.getRebuildableType().isPresent()) {
@@ -375,17 +466,112 @@ public class GeneratedBuilder extends GeneratedType {
     code.addLine("}");
   }
 
+  /**
+   * Returns whether the value type is declared as a record. Records cannot declare instance
+   * fields or extend a class, and get equals and hashCode methods comparing every field.
+   */
+  private boolean isValueRecord(SourceBuilder code) {
+    return code.feature(VALUE_RECORDS) == ValueRecords.RECORDS
+        && code.feature(SOURCE_LEVEL).supportsRecords()
+        && datatype.isRecordCompatible()
+        && datatype.getValueTypeAnnotations().isEmpty()
+        && datatype.standardMethodUnderride(StandardMethod.EQUALS) == ABSENT
+        && datatype.standardMethodUnderride(StandardMethod.HASH_CODE) == ABSENT
+        && !cachesHashCode()
+        && generatorsByProperty.keySet().stream().allMatch(Property::isInEqualsAndHashCode)
+        && generatorsByProperty.values().stream()
+            .allMatch(generator -> generator.valueFieldType(code).isPresent());
+  }
+
+  /** Returns an excerpt creating a value from a builder passed in brackets after it. */
+  private Excerpt newValue(SourceBuilder code) {
+    if (isValueRecord(code)) {
+      return Excerpts.add("%s.fromBuilder", datatype.getValueType().getQualifiedName());
+    }
+    return datatype.getValueType().constructor();
+  }
+
+  private void addValueRecord(SourceBuilder code) {
+    code.addLine("")
+        .add("%srecord %s(",
+            datatype.getValueTypeVisibility(), datatype.getValueType().declaration());
+    String separator = "";
+    for (Map.Entry<Property, PropertyCodeGenerator> entry : generatorsByProperty.entrySet()) {
+      code.add("%s%n    %s %s",
+          separator, entry.getValue().valueFieldType(code).get(), entry.getKey().getField());
+      separator = ",";
+    }
+    code.add(") %s {%n",
+        datatype.getRebuildableType()
+            .map(rebuildable -> extending(rebuildable, true))
+            .orElse(extending(datatype.getType(), true)));
+    addValueRecordFactory(code);
+    addValueTypeGetters(code);
+    if (datatype.getHasToBuilderMethod() || datatype.getRebuildableType().isPresent()) {
+      addValueTypeToBuilder(code);
+    }
+    // Keep our toString format, rather than the record's
+    if (datatype.standardMethodUnderride(StandardMethod.TO_STRING) == ABSENT) {
+      addToString(code, datatype, generatorsByProperty, false);
+    }
+    code.addLine("}");
+  }
+
+  private void addValueRecordFactory(SourceBuilder code) {
+    Set<Property> prebuilt = prebuiltProperties(code);
+    code.addLine("")
+        .add("  private static %s %s fromBuilder(%s builder",
+            datatype.getValueType().declarationParameters(),
+            datatype.getValueType(),
+            datatype.getGeneratedBuilder());
+    prebuilt.forEach(property ->
+        code.add(", %s %s", property.getType(), prebuiltParameter(property)));
+    code.add(") {%n");
+    List<Object> fields = new ArrayList<>();
+    generatorsByProperty.forEach((property, generator) -> {
+      if (prebuilt.contains(property)) {
+        fields.add(prebuiltParameter(property));
+        return;
+      }
+      Variable field = new Variable(property.getName());
+      code.addLine("    %s %s;", generator.valueFieldType(code).get(), field);
+      generator.addFinalFieldAssignment(code, field, "builder");
+      fields.add(field);
+    });
+    code.add("    return %s(", datatype.getValueType().constructor());
+    String separator = "";
+    for (Object field : fields) {
+      code.add("%s%s", separator, field);
+      separator = ", ";
+    }
+    code.add(");%n")
+        .addLine("  }");
+  }
+
   private void addValueTypeConstructor(SourceBuilder code) {
+    Set<Property> prebuilt = prebuiltProperties(code);
     code.addLine("")
-        .addLine("  private %s(%s builder) {",
+        .add("  private %s(%s builder",
             datatype.getValueType().getSimpleName(),
             datatype.getGeneratedBuilder());
+    prebuilt.forEach(property ->
+        code.add(", %s %s", property.getType(), prebuiltParameter(property)));
+    code.add(") {%n");
     generatorsByProperty.forEach((property, generator) -> {
-      generator.addFinalFieldAssignment(code, property.getField().on("this"), "builder");
+      if (prebuilt.contains(property)) {
+        code.addLine("    %s = %s;", property.getField().on("this"), prebuiltParameter(property));
+      } else {
+        generator.addFinalFieldAssignment(code, property.getField().on("this"), "builder");
+      }
     });
     code.addLine("  }");
   }
 
+  /** Parameter name for a property value built by a memoized build method. */
+  private static String prebuiltParameter(Property property) {
+    return property.getName() + "Value";
+  }
+
   private void addValueTypeGetters(SourceBuilder code) {
     generatorsByProperty.forEach((property, generator) -> {
       code.addLine("")
@@ -401,7 +587,6 @@ public class GeneratedBuilder extends GeneratedType {
   }
 
   private void addValueTypeToBuilder(SourceBuilder code) {
-    boolean hasRequiredProperties = generatorsByProperty.values().stream().anyMatch(IS_REQUIRED);
     code.addLine("")
         .addLine("  @%s", Override.class)
         .addLine("  public %s toBuilder() {", datatype.getBuilder());
@@ -415,8 +600,10 @@ public class GeneratedBuilder extends GeneratedType {
       generatorsByProperty.values().forEach(generator -> {
         generator.addAssignToBuilder(code, builder);
       });
-      if (hasRequiredProperties) {
-        code.addLine("    %s.clear();", UNSET_PROPERTIES.on(builder));
+      unsetProperties.addMarkAllSet(code, builder);
+      if (memoizesBuild(code)) {
+        // Until the builder is modified, build() will return this value
+        code.addLine("    %s = this;", LAST_BUILT.on(builder));
       }
       code.addLine("    return (%s) %s;", datatype.getBuilder(), builder);
     } else {
@@ -444,10 +631,7 @@ public class GeneratedBuilder extends GeneratedType {
       String prefix = "    return ";
       for (Property property : properties) {
         code.add(prefix);
-        code.add(ObjectsExcerpts.equals(
-            property.getField(),
-            property.getField().on("other"),
-            property.getType().getKind()));
+        generatorsByProperty.get(property).addEqualsCondition(code, "other");
         prefix = "\n        && ";
       }
       code.add(";\n");
@@ -466,16 +650,46 @@ public class GeneratedBuilder extends GeneratedType {
   }
 
   private void addValueTypeHashCode(SourceBuilder code) {
-    FieldAccessList fields = getFields(
-        generatorsByProperty.keySet()
-            .stream()
-            .filter(Property::isInEqualsAndHashCode)
-    );
+    List<Excerpt> fieldHashCodes = fieldHashCodes();
     code.addLine("")
         .addLine("  @%s", Override.class)
-        .addLine("  public int hashCode() {")
-        .addLine("    return %s.hash(%s);", Objects.class, fields)
-        .addLine("  }");
+        .addLine("  public int hashCode() {");
+    if (cachesHashCode()) {
+      addCachedHashCodeBody(code, fieldHashCodes);
+    } else {
+      addHashCodeBody(code, fieldHashCodes);
+    }
+    code.addLine("  }");
+  }
+
+  /**
+   * Returns whether the value type caches its hash code.
+   *
+   * <p>Caching is skipped if the user has implemented hashCode, or if the result is a constant.
+   */
+  private boolean cachesHashCode() {
+    return datatype.isHashCodeCached()
+        && datatype.standardMethodUnderride(StandardMethod.HASH_CODE) == ABSENT
+        && generatorsByProperty.keySet().stream().anyMatch(Property::isInEqualsAndHashCode);
+  }
+
+  /**
+   * Adds a hashCode body that computes the hash code on first use and stores it in a field.
+   *
+   * <p>As with {@link String#hashCode()}, a race between two threads will at worst compute the
+   * same value twice, and a hash code of zero will simply be recomputed on every call.
+   */
+  private static void addCachedHashCodeBody(SourceBuilder code, List<Excerpt> fieldHashCodes) {
+    Variable result = new Variable("result");
+    code.addLine("    int %s = %s;", result, HASH_CODE)
+        .addLine("    if (%s == 0) {", result)
+        .addLine("      %s = 1;", result);
+    for (Excerpt fieldHashCode : fieldHashCodes) {
+      code.addLine("      %1$s = 31 * %1$s + %2$s;", result, fieldHashCode);
+    }
+    code.addLine("      %s = %s;", HASH_CODE, result)
+        .addLine("    }")
+        .addLine("    return %s;", result);
   }
 
   private void addPartialType(SourceBuilder code) {
@@ -483,7 +697,7 @@ public class GeneratedBuilder extends GeneratedType {
         .addLine("private static final class %s %s {",
             datatype.getPartialType().declaration(),
             datatype.getRebuildableType()
-                .map(rebuildable -> extending(rebuildable, false))
+                .map(rebuildable -> extending(rebuildable, isValueRecord(code)))
                 .orElse(extending(datatype.getType(), datatype.isInterfaceType())));
     addPartialFields(code);
     addPartialConstructor(code);
@@ -503,10 +717,7 @@ public class GeneratedBuilder extends GeneratedType {
 
   private void addPartialFields(SourceBuilder code) {
     generatorsByProperty.values().forEach(generator -> generator.addValueFieldDeclaration(code));
-    if (generatorsByProperty.values().stream().anyMatch(IS_REQUIRED)) {
-      code.addLine("  private final %s<%s> %s;",
-          EnumSet.class, datatype.getPropertyEnum(), UNSET_PROPERTIES);
-    }
+    unsetProperties.addPartialFieldDeclarations(code);
   }
 
   private void addPartialConstructor(SourceBuilder code) {
@@ -517,10 +728,7 @@ public class GeneratedBuilder extends GeneratedType {
     generatorsByProperty.forEach((property, generator) -> {
       generator.addPartialFieldAssignment(code, property.getField().on("this"), "builder");
     });
-    if (generatorsByProperty.values().stream().anyMatch(IS_REQUIRED)) {
-      code.addLine("    %s = %s.clone();",
-          UNSET_PROPERTIES.on("this"), UNSET_PROPERTIES.on("builder"));
-    }
+    unsetProperties.addCopy(code, "builder", "this");
     code.addLine("  }");
   }
 
@@ -532,8 +740,7 @@ public class GeneratedBuilder extends GeneratedType {
       generator.addGetterAnnotations(code);
       code.addLine("  public %s %s() {", property.getType(), property.getGetterName());
       if (generator.initialState() == Initially.REQUIRED) {
-        code.addLine("    if (%s.contains(%s.%s)) {",
-                UNSET_PROPERTIES, datatype.getPropertyEnum(), property.getAllCapsName())
+        code.addLine("    if (%s) {", unsetProperties.isUnset(property))
             .addLine("      throw new %s(\"%s not set\");",
                 UnsupportedOperationException.class, property.getName())
             .addLine("    }");
@@ -549,7 +756,6 @@ public class GeneratedBuilder extends GeneratedType {
     if (!datatype.getHasToBuilderMethod() && !datatype.getRebuildableType().isPresent()) {
       return;
     }
-    boolean hasRequiredProperties = generatorsByProperty.values().stream().anyMatch(IS_REQUIRED);
     if (datatype.isExtensible()) {
       code.addLine("")
           .addLine("  private static class PartialBuilder%s extends %s {",
@@ -570,10 +776,7 @@ public class GeneratedBuilder extends GeneratedType {
       generatorsByProperty.values().forEach(generator -> {
         generator.addAssignToBuilder(code, builder);
       });
-      if (hasRequiredProperties) {
-        code.addLine("    %s.clear();", UNSET_PROPERTIES.on(builder))
-            .addLine("    %s.addAll(%s);", UNSET_PROPERTIES.on(builder), UNSET_PROPERTIES);
-      }
+      unsetProperties.addCopy(code, "this", builder);
       code.addLine("    return (%s) %s;", datatype.getBuilder(), builder);
     } else {
       code.addLine("    throw new %s();", UnsupportedOperationException.class);
@@ -582,7 +785,6 @@ public class GeneratedBuilder extends GeneratedType {
   }
 
   private void addPartialEquals(SourceBuilder code) {
-    boolean hasRequiredProperties = generatorsByProperty.values().stream().anyMatch(IS_REQUIRED);
     code.addLine("")
         .addLine("  @%s", Override.class)
         .addLine("  public boolean equals(Object obj) {")
@@ -600,16 +802,12 @@ public class GeneratedBuilder extends GeneratedType {
       String prefix = "    return ";
       for (Property property : properties) {
         code.add(prefix);
-        code.add(ObjectsExcerpts.equals(
-            property.getField(),
-            property.getField().on("other"),
-            property.getType().getKind()));
+        generatorsByProperty.get(property).addEqualsCondition(code, "other");
         prefix = "\n        && ";
       }
-      if (hasRequiredProperties) {
+      for (Excerpt fieldEquals : unsetProperties.fieldEquals("other")) {
         code.add(prefix);
-        code.add("%s.equals(%s, %s)",
-            Objects.class, UNSET_PROPERTIES, UNSET_PROPERTIES.on("other"));
+        code.add(fieldEquals);
       }
       code.add(";\n");
     }
@@ -617,55 +815,46 @@ public class GeneratedBuilder extends GeneratedType {
   }
 
   private void addPartialHashCode(SourceBuilder code) {
+    List<Excerpt> fieldHashCodes = fieldHashCodes();
+    fieldHashCodes.addAll(unsetProperties.fieldHashCodes());
     code.addLine("")
         .addLine("  @%s", Override.class)
         .addLine("  public int hashCode() {");
-    FieldAccessList fields = getFields(
-        generatorsByProperty.keySet()
-            .stream()
-            .filter(Property::isInEqualsAndHashCode)
-    );
-    if (generatorsByProperty.values().stream().anyMatch(IS_REQUIRED)) {
-      fields = fields.plus(UNSET_PROPERTIES);
-    }
-
-    code.addLine("    return %s.hash(%s);", Objects.class, fields)
-        .addLine("  }");
-  }
-
-  /** Returns an {@link Excerpt} of "implements/extends {@code type}". */
-  private static Excerpt extending(Object type, boolean isInterface) {
-    return Excerpts.add(isInterface ? "implements %s" : "extends %s", type);
+    addHashCodeBody(code, fieldHashCodes);
+    code.addLine("  }");
   }
 
-  private static class FieldAccessList implements Excerpt {
-    private final List<FieldAccess> fieldAccesses;
-
-    FieldAccessList(List<FieldAccess> fieldAccesses) {
-      this.fieldAccesses = ImmutableList.copyOf(fieldAccesses);
-    }
-
-    @Override
-    public void addTo(SourceBuilder source) {
-      String separator = "";
-      for (FieldAccess field : fieldAccesses) {
-        source.add(separator).add(field);
-        separator = ", ";
-      }
+  /** Returns a hash code excerpt for each property included in equals and hashCode. */
+  private List<Excerpt> fieldHashCodes() {
+    return generatorsByProperty.keySet()
+        .stream()
+        .filter(Property::isInEqualsAndHashCode)
+        .map(property -> (Excerpt) generatorsByProperty.get(property)::addHashCodeValue)
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  /**
+   * Adds a hashCode body returning the same value as {@code Objects.hash(fields...)}.
+   *
+   * <p>The calculation is unrolled, so no varargs array is allocated and primitive fields are
+   * not boxed.
+   */
+  private static void addHashCodeBody(SourceBuilder code, List<Excerpt> fieldHashCodes) {
+    if (fieldHashCodes.isEmpty()) {
+      code.addLine("    return 1;");
+      return;
     }
-
-    public FieldAccessList plus(FieldAccess fieldAccess) {
-      return new FieldAccessList(ImmutableList.<FieldAccess>builder()
-          .addAll(fieldAccesses)
-          .add(fieldAccess)
-          .build());
+    Variable result = new Variable("result");
+    code.addLine("    int %s = 1;", result);
+    for (Excerpt fieldHashCode : fieldHashCodes) {
+      code.addLine("    %1$s = 31 * %1$s + %2$s;", result, fieldHashCode);
     }
+    code.addLine("    return %s;", result);
   }
 
-  private static FieldAccessList getFields(Stream<Property> properties) {
-    ImmutableList.Builder<FieldAccess> fieldAccesses = ImmutableList.builder();
-    properties.forEach(property -> fieldAccesses.add(property.getField()));
-    return new FieldAccessList(fieldAccesses.build());
+  /** Returns an {@link Excerpt} of "implements/extends {@code type}". */
+  private static Excerpt extending(Object type, boolean isInterface) {
+    return Excerpts.add(isInterface ? "implements %s" : "extends %s", type);
   }
 
   private static final Predicate<PropertyCodeGenerator> IS_REQUIRED =
@@ -1,9 +1,16 @@
 package org.inferred.freebuilder.processor;
 
+import static org.inferred.freebuilder.processor.model.ModelUtils.erasesToAnyOf;
 import static org.inferred.freebuilder.processor.model.ModelUtils.findAnnotationMirror;
 import static org.inferred.freebuilder.processor.model.ModelUtils.findProperty;
+import static org.inferred.freebuilder.processor.model.ModelUtils.maybeDeclared;
+import static org.inferred.freebuilder.processor.model.ModelUtils.withInitialCapital;
+import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.inferred.freebuilder.processor.Datatype.Visibility;
 import org.inferred.freebuilder.processor.property.Property;
@@ -16,12 +23,16 @@ import org.inferred.freebuilder.processor.source.ValueType;
 import org.inferred.freebuilder.processor.source.Variable;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
 
 class GwtSupport {
 
@@ -119,14 +130,28 @@ class GwtSupport {
               datatype.getValueType(), SERIALIZATION_STREAM_READER, SERIALIZATION_EXCEPTION)
           .addLine("    %1$s %2$s = new %1$s();", datatype.getBuilder(), builder);
       for (Property property : generatorsByProperty.keySet()) {
+        PropertyCodeGenerator generator = generatorsByProperty.get(property);
         Variable temporary = new Variable(property.getName());
+        Optional<PrimitiveCollection> collection = PrimitiveCollection.of(code, property);
         if (property.getType().getKind().isPrimitive()) {
           code.addLine("    %s %s = reader.read%s();",
               property.getType(), temporary, withInitialCapital(property.getType()));
-          generatorsByProperty.get(property).addSetFromResult(code, builder, temporary);
-        } else if (String.class.getName().equals(property.getType().toString())) {
+          generator.addSetFromResult(code, builder, temporary);
+        } else if (isString(property.getType())) {
           code.addLine("    %s %s = reader.readString();", property.getType(), temporary);
-          generatorsByProperty.get(property).addSetFromResult(code, builder, temporary);
+          generator.addSetFromResult(code, builder, temporary);
+        } else if (collection.isPresent()) {
+          Variable elements = new Variable(property.getName() + "Elements");
+          Variable i = new Variable("i");
+          code.addLine("    %1$s[] %2$s = new %1$s[reader.readInt()];",
+                  collection.get().elementType, elements)
+              .addLine("    for (int %1$s = 0; %1$s < %2$s.length; %1$s++) {", i, elements)
+              .addLine("      %s[%s] = reader.read%s();",
+                  elements, i, withInitialCapital(collection.get().streamType))
+              .addLine("    }")
+              .addLine("    %s %s = %s.copyOf(%s);",
+                  property.getType(), temporary, collection.get().immutableType, elements);
+          generator.addSetFromResult(code, builder, temporary);
         } else {
           code.addLine("    try {");
           if (!property.isFullyCheckedCast()) {
@@ -134,7 +159,7 @@ class GwtSupport {
           }
           code.addLine("      %1$s %2$s = (%1$s) reader.readObject();",
               property.getType(), temporary);
-          generatorsByProperty.get(property).addSetFromResult(code, builder, temporary);
+          generator.addSetFromResult(code, builder, temporary);
           code.addLine("    } catch (%s e) {", ClassCastException.class)
               .addLine("      throw new %s(", SERIALIZATION_EXCEPTION)
               .addLine("          \"Wrong type for property '%s'\", e);", property.getName())
@@ -153,15 +178,25 @@ class GwtSupport {
               SERIALIZATION_STREAM_WRITER, datatype.getValueType())
           .addLine("      throws %s {", SERIALIZATION_EXCEPTION);
       for (Property property : generatorsByProperty.keySet()) {
+        Optional<PrimitiveCollection> collection = PrimitiveCollection.of(code, property);
+        if (collection.isPresent()) {
+          Variable element = new Variable("element");
+          code.addLine("    writer.writeInt(instance.%s().size());", property.getGetterName())
+              .addLine("    for (%s %s : instance.%s()) {",
+                  collection.get().elementType, element, property.getGetterName())
+              .addLine("      writer.write%s(%s);",
+                  withInitialCapital(collection.get().streamType), element)
+              .addLine("    }");
+          continue;
+        }
         if (property.getType().getKind().isPrimitive()) {
           code.add("    writer.write%s(", withInitialCapital(property.getType()));
-        } else if (String.class.getName().equals(property.getType().toString())) {
+        } else if (isString(property.getType())) {
           code.add("    writer.writeString(");
         } else {
           code.add("    writer.writeObject(");
         }
-        generatorsByProperty.get(property)
-            .addReadValueFragment(code, property.getField().on("instance"));
+        code.add("instance.%s()", property.getGetterName());
         code.add(");\n");
       }
       code.addLine("  }");
@@ -218,8 +253,55 @@ class GwtSupport {
     }
   }
 
-  private static String withInitialCapital(Object obj) {
-    String s = obj.toString();
-    return s.substring(0, 1).toUpperCase() + s.substring(1);
+  /**
+   * A list or set of strings or boxed primitives, which is streamed as a length followed by its
+   * elements, rather than as an object carrying its runtime type.
+   */
+  private static final class PrimitiveCollection {
+
+    private static final Map<String, String> STREAM_TYPES = ImmutableMap.<String, String>builder()
+        .put(Boolean.class.getName(), "boolean")
+        .put(Byte.class.getName(), "byte")
+        .put(Character.class.getName(), "char")
+        .put(Double.class.getName(), "double")
+        .put(Float.class.getName(), "float")
+        .put(Integer.class.getName(), "int")
+        .put(Long.class.getName(), "long")
+        .put(Short.class.getName(), "short")
+        .put(String.class.getName(), "string")
+        .build();
+
+    static Optional<PrimitiveCollection> of(SourceBuilder code, Property property) {
+      Optional<DeclaredType> type = maybeDeclared(property.getType());
+      if (!code.feature(GUAVA).isAvailable()
+          || !type.isPresent() || type.get().getTypeArguments().size() != 1) {
+        return Optional.empty();
+      }
+      TypeMirror elementType = type.get().getTypeArguments().get(0);
+      String streamType = STREAM_TYPES.get(elementType.toString());
+      if (streamType == null) {
+        return Optional.empty();
+      }
+      if (erasesToAnyOf(type.get(), List.class, ImmutableList.class)) {
+        return Optional.of(new PrimitiveCollection(elementType, streamType, ImmutableList.class));
+      } else if (erasesToAnyOf(type.get(), Set.class, ImmutableSet.class)) {
+        return Optional.of(new PrimitiveCollection(elementType, streamType, ImmutableSet.class));
+      }
+      return Optional.empty();
+    }
+
+    final TypeMirror elementType;
+    final String streamType;
+    final Class<?> immutableType;
+
+    private PrimitiveCollection(TypeMirror elementType, String streamType, Class<?> immutableType) {
+      this.elementType = elementType;
+      this.streamType = streamType;
+      this.immutableType = immutableType;
+    }
+  }
+
+  private static boolean isString(TypeMirror type) {
+    return String.class.getName().equals(type.toString());
   }
 }
@@ -1,20 +1,44 @@
 package org.inferred.freebuilder.processor;
 
+import static org.inferred.freebuilder.processor.model.ModelUtils.asElement;
 import static org.inferred.freebuilder.processor.model.ModelUtils.findAnnotationMirror;
+import static org.inferred.freebuilder.processor.model.ModelUtils.findProperty;
+import static org.inferred.freebuilder.processor.model.ModelUtils.withInitialCapital;
+import static org.inferred.freebuilder.processor.source.Quotes.escapeJava;
+
+import static javax.lang.model.util.ElementFilter.methodsIn;
+import static javax.tools.Diagnostic.Kind.ERROR;
 
 import com.google.common.collect.ImmutableSet;
+import com.sun.source.util.Trees;
 
 import org.inferred.freebuilder.processor.property.Property;
+import org.inferred.freebuilder.processor.property.PropertyCodeGenerator;
+import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.Excerpts;
 import org.inferred.freebuilder.processor.source.QualifiedName;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.ValueType;
+import org.inferred.freebuilder.processor.source.Variable;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 
 class JacksonSupport {
@@ -27,6 +51,8 @@ class JacksonSupport {
 
   private static final String JSON_DESERIALIZE =
       "com.fasterxml.jackson.databind.annotation.JsonDeserialize";
+  private static final String JSON_SERIALIZE =
+      "com.fasterxml.jackson.databind.annotation.JsonSerialize";
   private static final QualifiedName JSON_PROPERTY =
       QualifiedName.of("com.fasterxml.jackson.annotation", "JsonProperty");
   private static final String JACKSON_XML_ANNOTATION_PACKAGE =
@@ -40,6 +66,101 @@ class JacksonSupport {
       QualifiedName.of("com.fasterxml.jackson.annotation", "JsonIgnore"),
       QualifiedName.of("com.fasterxml.jackson.annotation", "JsonUnwrapped"),
       QualifiedName.of("com.fasterxml.jackson.annotation", "JsonValue"));
+  private static final QualifiedName JSON_IGNORE =
+      QualifiedName.of("com.fasterxml.jackson.annotation", "JsonIgnore");
+  private static final String JACKSON_PACKAGE_PREFIX = "com.fasterxml.jackson.";
+
+  private static final QualifiedName DESERIALIZATION_CONTEXT =
+      QualifiedName.of("com.fasterxml.jackson.databind", "DeserializationContext");
+  private static final QualifiedName JSON_DESERIALIZER =
+      QualifiedName.of("com.fasterxml.jackson.databind", "JsonDeserializer");
+  private static final QualifiedName JSON_GENERATOR =
+      QualifiedName.of("com.fasterxml.jackson.core", "JsonGenerator");
+  private static final QualifiedName JSON_MAPPING_EXCEPTION =
+      QualifiedName.of("com.fasterxml.jackson.databind", "JsonMappingException");
+  private static final QualifiedName JSON_PARSER =
+      QualifiedName.of("com.fasterxml.jackson.core", "JsonParser");
+  private static final QualifiedName JSON_TOKEN =
+      QualifiedName.of("com.fasterxml.jackson.core", "JsonToken");
+  private static final QualifiedName RESOLVABLE_DESERIALIZER =
+      QualifiedName.of("com.fasterxml.jackson.databind.deser", "ResolvableDeserializer");
+  private static final QualifiedName SERIALIZER_PROVIDER =
+      QualifiedName.of("com.fasterxml.jackson.databind", "SerializerProvider");
+  private static final QualifiedName STD_DESERIALIZER =
+      QualifiedName.of("com.fasterxml.jackson.databind.deser.std", "StdDeserializer");
+  private static final QualifiedName STD_SERIALIZER =
+      QualifiedName.of("com.fasterxml.jackson.databind.ser.std", "StdSerializer");
+  private static final QualifiedName TYPE_REFERENCE =
+      QualifiedName.of("com.fasterxml.jackson.core.type", "TypeReference");
+
+  /**
+   * Returns the streaming Deserializer and Serializer classes to nest in the generated builder,
+   * if {@code type} registers them with {@code @JsonDeserialize(using = ...)} or
+   * {@code @JsonSerialize(using = ...)}.
+   */
+  public static Datatype.Builder jacksonMetadata(
+      TypeElement type,
+      Datatype datatype,
+      Map<Property, PropertyCodeGenerator> generatorsByProperty,
+      ProcessingEnvironment env,
+      Messager messager) {
+    Datatype.Builder extraMetadata = new Datatype.Builder();
+    Elements elements = env.getElementUtils();
+    boolean deserializer =
+        usesGeneratedClass(type, JSON_DESERIALIZE, datatype, "Deserializer", env);
+    boolean serializer =
+        usesGeneratedClass(type, JSON_SERIALIZE, datatype, "Serializer", env);
+    if (!deserializer && !serializer) {
+      return extraMetadata;
+    }
+    if (datatype.getType().isParameterized()) {
+      messager.printMessage(
+          ERROR, "Generated Jackson serializers do not support generic types", type);
+      return extraMetadata;
+    }
+    if (deserializer && !datatype.getBuilderFactory().isPresent()) {
+      messager.printMessage(
+          ERROR, "Generated Jackson deserializers require a way to create a Builder", type);
+      return extraMetadata;
+    }
+    Map<Property, String> jsonNames = new LinkedHashMap<>();
+    Set<String> ignoredNames = new LinkedHashSet<>();
+    boolean supported = true;
+    for (Property property : generatorsByProperty.keySet()) {
+      ExecutableElement getter = getter(type, property, elements);
+      if (findAnnotationMirror(getter, JSON_IGNORE).isPresent()) {
+        ignoredNames.add(jsonName(getter, property));
+        continue;
+      }
+      Optional<? extends AnnotationMirror> unsupported = getter.getAnnotationMirrors()
+          .stream()
+          .filter(mirror -> isUnsupportedAnnotation(mirror, elements))
+          .findFirst();
+      if (unsupported.isPresent()) {
+        messager.printMessage(
+            ERROR,
+            "Generated Jackson serializers do not support @"
+                + unsupported.get().getAnnotationType().asElement().getSimpleName(),
+            getter,
+            unsupported.get());
+        supported = false;
+        continue;
+      }
+      jsonNames.put(property, jsonName(getter, property));
+    }
+    if (!supported) {
+      return extraMetadata;
+    }
+    ignoredNames.removeAll(jsonNames.values());
+    if (deserializer) {
+      extraMetadata.addNestedClasses(
+          new StreamingDeserializer(datatype, generatorsByProperty, jsonNames, ignoredNames));
+    }
+    if (serializer) {
+      extraMetadata.addNestedClasses(new StreamingSerializer(datatype, jsonNames));
+    }
+    return extraMetadata;
+  }
 
   public static Optional<JacksonSupport> create(TypeElement userValueType, Elements elements) {
     return findAnnotationMirror(userValueType, JSON_DESERIALIZE)
@@ -103,4 +224,342 @@ class JacksonSupport {
     }
     return GenerateAnnotation.DEFAULT;
   }
+
+  /**
+   * Returns whether the {@code using} property of {@code annotation} on {@code type} names the
+   * {@code className} class nested in the generated builder.
+   *
+   * <p>In the first round, the generated class does not exist yet, so the compiler cannot resolve
+   * it. javac then reports the value as a "&lt;error&gt;" string rather than a type, so we compare
+   * the class name as written in the source instead. If the compiler does not expose the source,
+   * we assume an unresolved class is ours.
+   */
+  private static boolean usesGeneratedClass(
+      TypeElement type,
+      String annotation,
+      Datatype datatype,
+      String className,
+      ProcessingEnvironment env) {
+    Optional<? extends AnnotationMirror> mirror = findAnnotationMirror(type, annotation);
+    Optional<AnnotationValue> using = mirror.flatMap(m -> findProperty(m, "using"));
+    if (!using.isPresent()) {
+      return false;
+    }
+    QualifiedName generatedClass =
+        datatype.getGeneratedBuilder().getQualifiedName().nestedType(className);
+    Object value = using.get().getValue();
+    if (!(value instanceof TypeMirror)) {
+      return sourceText(env, type, mirror.get(), using.get())
+          .map(text -> text.replaceFirst("\\.class$", ""))
+          .map(name -> namesClass(name, datatype, className))
+          .orElse(true);
+    }
+    TypeMirror usingType = (TypeMirror) value;
+    switch (usingType.getKind()) {
+      case ERROR:
+        return namesClass(usingType.toString(), datatype, className);
+      case DECLARED:
+        return QualifiedName.of(asElement((DeclaredType) usingType)).equals(generatedClass);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns whether {@code writtenName} could refer to the {@code className} class nested in the
+   * generated builder, reached either directly or through the user's Builder subclass.
+   */
+  private static boolean namesClass(String writtenName, Datatype datatype, String className) {
+    return Stream.of(
+            datatype.getGeneratedBuilder().getQualifiedName(),
+            datatype.getBuilder().getQualifiedName())
+        .map(builder -> builder.nestedType(className).toString())
+        .anyMatch(name -> name.equals(writtenName) || name.endsWith("." + writtenName));
+  }
+
+  /** Returns the source code of {@code value}, if the compiler is javac. */
+  private static Optional<String> sourceText(
+      ProcessingEnvironment env,
+      TypeElement type,
+      AnnotationMirror mirror,
+      AnnotationValue value) {
+    try {
+      return Optional.ofNullable(Trees.instance(env).getTree(type, mirror, value))
+          .map(Object::toString);
+    } catch (IllegalArgumentException | LinkageError e) {
+      // Not javac, or javac's API is not visible to the processor
+      return Optional.empty();
+    }
+  }
+
+  private static ExecutableElement getter(
+      TypeElement type,
+      Property property,
+      Elements elements) {
+    return methodsIn(elements.getAllMembers(type))
+        .stream()
+        .filter(method -> method.getSimpleName().contentEquals(property.getGetterName()))
+        .filter(method -> method.getParameters().isEmpty())
+        .findFirst()
+        .get();
+  }
+
+  private static boolean isUnsupportedAnnotation(AnnotationMirror mirror, Elements elements) {
+    TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+    String pkg = elements.getPackageOf(annotationType).getQualifiedName().toString();
+    QualifiedName name = QualifiedName.of(annotationType);
+    return (pkg + ".").startsWith(JACKSON_PACKAGE_PREFIX)
+        && !name.equals(JSON_PROPERTY)
+        && !name.equals(JSON_IGNORE);
+  }
+
+  private static String jsonName(ExecutableElement getter, Property property) {
+    return findAnnotationMirror(getter, JSON_PROPERTY)
+        .flatMap(mirror -> findProperty(mirror, "value"))
+        .map(value -> value.getValue().toString())
+        .filter(name -> !name.isEmpty())
+        .orElse(property.getName());
+  }
+
+  private static final class StreamingDeserializer extends ValueType implements Excerpt {
+
+    private final Datatype datatype;
+    private final Map<Property, PropertyCodeGenerator> generatorsByProperty;
+    private final Map<Property, String> jsonNames;
+    private final Set<String> ignoredNames;
+
+    private StreamingDeserializer(
+        Datatype datatype,
+        Map<Property, PropertyCodeGenerator> generatorsByProperty,
+        Map<Property, String> jsonNames,
+        Set<String> ignoredNames) {
+      this.datatype = datatype;
+      this.generatorsByProperty = generatorsByProperty;
+      this.jsonNames = jsonNames;
+      this.ignoredNames = ignoredNames;
+    }
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      code.addLine("")
+          .addLine("/**")
+          .addLine(" * Deserializes %s from a stream of JSON tokens, without reflection.",
+              datatype.getType().javadocLink())
+          .addLine(" *")
+          .addLine(" * <p>Register with {@code @JsonDeserialize(using = %s.Deserializer.class)}.",
+              datatype.getGeneratedBuilder().getSimpleName())
+          .addLine(" */")
+          .addLine("public static class Deserializer extends %s<%s>",
+              STD_DESERIALIZER, datatype.getType())
+          .addLine("    implements %s {", RESOLVABLE_DESERIALIZER)
+          .addLine("")
+          .addLine("  private static final long serialVersionUID = 1L;")
+          .addLine("");
+      for (Property property : jsonNames.keySet()) {
+        if (!hasFastPath(property)) {
+          code.addLine("  private %s<Object> %s;", JSON_DESERIALIZER, deserializer(property));
+        }
+      }
+      code.addLine("")
+          .addLine("  public Deserializer() {")
+          .addLine("    super(%s.class);", datatype.getType())
+          .addLine("  }");
+      addResolve(code);
+      addDeserialize(code);
+      code.addLine("}");
+    }
+
+    private void addResolve(SourceBuilder code) {
+      String context = "context";
+      code.addLine("")
+          .addLine("  @%s", Override.class)
+          .addLine("  public void resolve(%s %s) throws %s {",
+              DESERIALIZATION_CONTEXT, context, JSON_MAPPING_EXCEPTION);
+      for (Property property : jsonNames.keySet()) {
+        if (hasFastPath(property)) {
+          continue;
+        }
+        code.add("    %s = %s.findRootValueDeserializer(%s.getTypeFactory().constructType(",
+            deserializer(property), context, context);
+        if (property.getType().getKind().isPrimitive()) {
+          code.add("%s.class", property.getType());
+        } else {
+          code.add("new %s<%s>() {}", TYPE_REFERENCE, property.getType());
+        }
+        code.add("));\n");
+      }
+      code.addLine("  }");
+    }
+
+    private void addDeserialize(SourceBuilder code) {
+      String parser = "parser";
+      String context = "context";
+      Variable builder = new Variable("builder");
+      Variable token = new Variable("token");
+      Variable fieldName = new Variable("fieldName");
+      Variable e = new Variable("e");
+      code.addLine("");
+      if (jsonNames.keySet().stream().anyMatch(property -> !property.isFullyCheckedCast())) {
+        code.addLine("  @%s(\"unchecked\")", SuppressWarnings.class);
+      }
+      code.addLine("  @%s", Override.class)
+          .addLine("  public %s deserialize(%s %s, %s %s) throws %s {",
+              datatype.getType(), JSON_PARSER, parser, DESERIALIZATION_CONTEXT, context,
+              IOException.class)
+          .addLine("    %s %s = %s;", datatype.getBuilder(), builder,
+              datatype.getBuilderFactory().get().newBuilder(
+                  datatype.getBuilder(), BuilderFactory.TypeInference.EXPLICIT_TYPES))
+          .addLine("    %s %s = %s.getCurrentToken();", JSON_TOKEN, token, parser)
+          .addLine("    if (%s == %s.START_OBJECT) {", token, JSON_TOKEN)
+          .addLine("      %s = %s.nextToken();", token, parser)
+          .addLine("    } else if (%1$s != %2$s.FIELD_NAME && %1$s != %2$s.END_OBJECT) {",
+              token, JSON_TOKEN)
+          .addLine("      throw %s.mappingException(handledType(), %s);", context, token)
+          .addLine("    }")
+          .addLine("    while (%s == %s.FIELD_NAME) {", token, JSON_TOKEN)
+          .addLine("      String %s = %s.getCurrentName();", fieldName, parser)
+          .addLine("      %s = %s.nextToken();", token, parser)
+          .addLine("      switch (%s) {", fieldName);
+      for (Property property : jsonNames.keySet()) {
+        Variable value = new Variable(property.getName());
+        code.addLine("        case \"%s\": {", escapeJava(jsonNames.get(property)));
+        TypeMirror type = property.getType();
+        if (hasFastPath(property) && type.getKind().isPrimitive()) {
+          code.addLine("          %s %s = _parse%sPrimitive(%s, %s);",
+              type, value, withInitialCapital(type), parser, context);
+        } else if (hasFastPath(property)) {
+          code.addLine("          %s %s = (%s == %s.VALUE_NULL)",
+                  type, value, token, JSON_TOKEN)
+              .addLine("              ? null : _parseString(%s, %s);", parser, context);
+        } else {
+          Object castType = type.getKind().isPrimitive() ? property.getBoxedType().get() : type;
+          code.addLine("          %s %s = (%s) ((%s == %s.VALUE_NULL)",
+                  type, value, castType, token, JSON_TOKEN)
+              .addLine("              ? %s.getNullValue(%s)", deserializer(property), context)
+              .addLine("              : %s.deserialize(%s, %s));",
+                  deserializer(property), parser, context);
+        }
+        generatorsByProperty.get(property).addSetFromResult(code, builder, value);
+        code.addLine("          break;")
+            .addLine("        }");
+      }
+      if (!ignoredNames.isEmpty()) {
+        for (String ignoredName : ignoredNames) {
+          code.addLine("        case \"%s\":", escapeJava(ignoredName));
+        }
+        code.addLine("          %s.skipChildren();", parser)
+            .addLine("          break;");
+      }
+      code.addLine("        default:")
+          .addLine("          handleUnknownProperty(%s, %s, handledType(), %s);",
+              parser, context, fieldName)
+          .addLine("      }")
+          .addLine("      %s = %s.nextToken();", token, parser)
+          .addLine("    }")
+          .addLine("    try {")
+          .addLine("      return %s.%s();", builder, datatype.getBuildMethod().name())
+          .addLine("    } catch (%s %s) {", IllegalStateException.class, e)
+          .addLine("      throw %s.instantiationException(handledType(), %s);", context, e)
+          .addLine("    }")
+          .addLine("  }");
+    }
+
+    private static Excerpt deserializer(Property property) {
+      return Excerpts.add("%sDeserializer", property.getName());
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {
+      fields.add("datatype", datatype);
+      fields.add("generatorsByProperty", generatorsByProperty);
+      fields.add("jsonNames", jsonNames);
+      fields.add("ignoredNames", ignoredNames);
+    }
+  }
+
+  private static final class StreamingSerializer extends ValueType implements Excerpt {
+
+    private final Datatype datatype;
+    private final Map<Property, String> jsonNames;
+
+    private StreamingSerializer(Datatype datatype, Map<Property, String> jsonNames) {
+      this.datatype = datatype;
+      this.jsonNames = jsonNames;
+    }
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      String value = "value";
+      String generator = "generator";
+      String provider = "provider";
+      code.addLine("")
+          .addLine("/**")
+          .addLine(" * Serializes %s to a stream of JSON tokens, without reflection.",
+              datatype.getType().javadocLink())
+          .addLine(" *")
+          .addLine(" * <p>Register with {@code @JsonSerialize(using = %s.Serializer.class)}.",
+              datatype.getGeneratedBuilder().getSimpleName())
+          .addLine(" */")
+          .addLine("public static class Serializer extends %s<%s> {",
+              STD_SERIALIZER, datatype.getType())
+          .addLine("")
+          .addLine("  private static final long serialVersionUID = 1L;")
+          .addLine("")
+          .addLine("  public Serializer() {")
+          .addLine("    super(%s.class);", datatype.getType())
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @%s", Override.class)
+          .addLine("  public void serialize(%s %s, %s %s, %s %s) throws %s {",
+              datatype.getType(), value, JSON_GENERATOR, generator, SERIALIZER_PROVIDER, provider,
+              IOException.class)
+          .addLine("    %s.writeStartObject();", generator);
+      for (Property property : jsonNames.keySet()) {
+        CharSequence name = escapeJava(jsonNames.get(property));
+        TypeKind kind = property.getType().getKind();
+        if (kind == TypeKind.BOOLEAN) {
+          code.addLine("    %s.writeBooleanField(\"%s\", %s.%s());",
+              generator, name, value, property.getGetterName());
+        } else if (kind.isPrimitive() && kind != TypeKind.CHAR) {
+          code.addLine("    %s.writeNumberField(\"%s\", %s.%s());",
+              generator, name, value, property.getGetterName());
+        } else if (isString(property)) {
+          code.addLine("    %s.writeStringField(\"%s\", %s.%s());",
+              generator, name, value, property.getGetterName());
+        } else {
+          code.addLine("    %s.writeFieldName(\"%s\");", generator, name)
+              .addLine("    %s.defaultSerializeValue(%s.%s(), %s);",
+                  provider, value, property.getGetterName(), generator);
+        }
+      }
+      code.addLine("    %s.writeEndObject();", generator)
+          .addLine("  }")
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {
+      fields.add("datatype", datatype);
+      fields.add("jsonNames", jsonNames);
+    }
+  }
+
+  /** Returns true if {@code property} can be parsed without looking up a JsonDeserializer. */
+  private static boolean hasFastPath(Property property) {
+    switch (property.getType().getKind()) {
+      case BOOLEAN:
+      case SHORT:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return isString(property);
+    }
+  }
+
+  private static boolean isString(Property property) {
+    return String.class.getName().equals(property.getType().toString());
+  }
 }
@@ -24,17 +24,37 @@ import com.google.auto.service.AutoService;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MapMaker;
 
 import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.ProcessorStats.Measurement;
+import org.inferred.freebuilder.processor.ProcessorStats.Phase;
+import org.inferred.freebuilder.processor.ProcessorStats.TypeStats;
 import org.inferred.freebuilder.processor.source.FilerUtils;
+import org.inferred.freebuilder.processor.source.FunctionalType;
+import org.inferred.freebuilder.processor.source.FunctionalType.AcceptedTypesCache;
+import org.inferred.freebuilder.processor.source.QualifiedName;
+import org.inferred.freebuilder.processor.source.ReflectionCache;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.BooleanOption;
+import org.inferred.freebuilder.processor.source.feature.BuildMemoization;
+import org.inferred.freebuilder.processor.source.feature.BuilderCollectors;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
+import org.inferred.freebuilder.processor.source.feature.CollectionStorage;
 import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.ListStorage;
+import org.inferred.freebuilder.processor.source.feature.OptionalStorage;
+import org.inferred.freebuilder.processor.source.feature.SourceFormat;
+import org.inferred.freebuilder.processor.source.feature.ValueRecords;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.FilerException;
@@ -61,7 +81,19 @@ public class Processor extends AbstractProcessor {
   private static final ConcurrentMap<ProcessingEnvironment, Processor> registeredProcessors =
       new MapMaker().weakKeys().weakValues().concurrencyLevel(1).initialCapacity(1).makeMap();
 
+  /** Processor options taking {@code true} or {@code false}, all defaulting to false. */
+  private static final ImmutableList<String> BOOLEAN_OPTIONS = ImmutableList.of(
+      ProcessorStats.OPTION,
+      OptionalStorage.OPTION,
+      ListStorage.OPTION,
+      BuilderReuse.OPTION,
+      BuildMemoization.OPTION,
+      CollectionStorage.OPTION,
+      BuilderCollectors.OPTION,
+      ValueRecords.OPTION);
+
   private Analyser analyser;
+  private ProcessorStats stats;
   private final FeatureSet features;
 
   public Processor() {
@@ -78,6 +110,14 @@ public class Processor extends AbstractProcessor {
     return ImmutableSet.of(FreeBuilder.class.getName());
   }
 
+  @Override
+  public Set<String> getSupportedOptions() {
+    return ImmutableSet.<String>builder()
+        .add(SourceFormat.OPTION)
+        .addAll(BOOLEAN_OPTIONS)
+        .build();
+  }
+
   @Override
   public SourceVersion getSupportedSourceVersion() {
     return SourceVersion.latestSupported();
@@ -92,6 +132,23 @@ public class Processor extends AbstractProcessor {
       return;
     }
     analyser = new Analyser(processingEnv, processingEnv.getMessager());
+    String format = processingEnv.getOptions().get(SourceFormat.OPTION);
+    if (format != null && !SourceFormat.forOption(format).isPresent()) {
+      processingEnv.getMessager().printMessage(
+          Kind.WARNING,
+          "Unrecognised value for -A" + SourceFormat.OPTION + ": \"" + format
+              + "\" (expected none, fast or full); using full");
+    }
+    stats = ProcessorStats.forOptions(processingEnv.getOptions());
+    for (String option : BOOLEAN_OPTIONS) {
+      String value = processingEnv.getOptions().get(option);
+      if (value != null && !BooleanOption.parse(value).isPresent()) {
+        processingEnv.getMessager().printMessage(
+            Kind.WARNING,
+            "Unrecognised value for -A" + option + ": \"" + value
+                + "\" (expected true or false); using false");
+      }
+    }
   }
 
   @Override
@@ -100,13 +157,45 @@ public class Processor extends AbstractProcessor {
       // Another FreeBuilder Processor is already registered; skip processing
       return false;
     }
-    for (TypeElement type : typesIn(annotatedElementsIn(roundEnv, FreeBuilder.class))) {
+    try (Measurement round = stats.measureRound()) {
+      processTypes(roundEnv);
+    }
+    if (roundEnv.processingOver()) {
+      stats.reportTotals(processingEnv.getMessager());
+    }
+    return false;
+  }
+
+  private void processTypes(RoundEnvironment roundEnv) {
+    // javac's model is not thread-safe, so types are analysed and rendered sequentially...
+    List<PendingSource> pendingSources = new ArrayList<>();
+    // Types referenced by many builders are only inspected once per round; a new cache is needed
+    // each round, as types generated in one round only become visible in the next.
+    ReflectionCache reflectionCache = ReflectionCache.forEnvironment(processingEnv);
+    // Likewise, the functional types accepted by a builder's methods, looked up for each property
+    try (AcceptedTypesCache acceptedTypes =
+        FunctionalType.cacheAcceptedTypes(processingEnv.getElementUtils())) {
+      analyseTypes(roundEnv, reflectionCache, pendingSources);
+    }
+    // ...but formatting only touches strings, so is spread across cores...
+    if (pendingSources.size() > 1) {
+      pendingSources.parallelStream().forEach(PendingSource::format);
+    } else {
+      pendingSources.forEach(PendingSource::format);
+    }
+    // ...before the results are written out on the processor thread, as the Filer is not
+    // thread-safe either.
+    for (PendingSource pendingSource : pendingSources) {
+      TypeElement type = pendingSource.type;
       try {
-        SourceBuilder code = SourceBuilder.forEnvironment(processingEnv, features);
-        code.add(analyser.analyse(type));
-        FilerUtils.writeCompilationUnit(processingEnv.getFiler(), code, type);
-      } catch (Analyser.CannotGenerateCodeException e) {
-        // Thrown to skip writing the builder source; the error will already have been issued.
+        String source = pendingSource.get();
+        try (Measurement write = pendingSource.stats.measure(Phase.WRITE)) {
+          // Each builder is derived from a single annotated type, passed as the sole originating
+          // element; this lets Gradle treat FreeBuilder as an isolating incremental processor.
+          FilerUtils.writeCompilationUnit(
+              processingEnv.getFiler(), pendingSource.typename, source, type);
+        }
+        pendingSource.stats.report(processingEnv.getMessager());
       } catch (FilerException e) {
         processingEnv.getMessager().printMessage(
             Kind.WARNING,
@@ -120,14 +209,82 @@ public class Processor extends AbstractProcessor {
             type,
             findAnnotationMirror(type, "org.inferred.freebuilder.FreeBuilder").get());
       } catch (RuntimeException e) {
-        processingEnv.getMessager().printMessage(
-            Kind.ERROR,
-            "Internal error: " + Throwables.getStackTraceAsString(e),
-            type,
-            findAnnotationMirror(type, "org.inferred.freebuilder.FreeBuilder").get());
+        reportInternalError(type, e);
       }
     }
-    return false;
+  }
+
+  private void analyseTypes(
+      RoundEnvironment roundEnv,
+      ReflectionCache reflectionCache,
+      List<PendingSource> pendingSources) {
+    for (TypeElement type : typesIn(annotatedElementsIn(roundEnv, FreeBuilder.class))) {
+      TypeStats typeStats = stats.forType(type);
+      try {
+        SourceBuilder code =
+            SourceBuilder.forEnvironment(processingEnv, features, reflectionCache);
+        GeneratedType generatedType;
+        try (Measurement analyse = typeStats.measure(Phase.ANALYSE)) {
+          generatedType = analyser.analyse(type);
+        }
+        try (Measurement generate = typeStats.measure(Phase.GENERATE)) {
+          code.add(generatedType);
+        }
+        pendingSources.add(new PendingSource(type, code, typeStats));
+      } catch (Analyser.CannotGenerateCodeException e) {
+        // Thrown to skip writing the builder source; the error will already have been issued.
+      } catch (RuntimeException e) {
+        reportInternalError(type, e);
+      }
+    }
+  }
+
+  private void reportInternalError(TypeElement type, RuntimeException e) {
+    processingEnv.getMessager().printMessage(
+        Kind.ERROR,
+        "Internal error: " + Throwables.getStackTraceAsString(e),
+        type,
+        findAnnotationMirror(type, "org.inferred.freebuilder.FreeBuilder").get());
+  }
+
+  /**
+   * Source generated for a single annotated type, with all javac model lookups done, but
+   * formatting still pending.
+   */
+  private static class PendingSource {
+
+    final TypeElement type;
+    final QualifiedName typename;
+    final TypeStats stats;
+    private final Supplier<String> formatter;
+    private String source;
+    private RuntimeException failure;
+
+    PendingSource(TypeElement type, SourceBuilder code, TypeStats stats) {
+      this.type = type;
+      this.typename = code.typename();
+      this.stats = stats;
+      try (Measurement shortenReferences = stats.measure(Phase.SHORTEN_REFERENCES)) {
+        this.formatter = code.deferFormatting();
+      }
+    }
+
+    /** Formats the source. Safe to call from any thread. */
+    void format() {
+      try (Measurement format = stats.measure(Phase.FORMAT)) {
+        source = formatter.get();
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    /** Returns the formatted source, rethrowing any exception thrown by {@link #format()}. */
+    String get() {
+      if (failure != null) {
+        throw failure;
+      }
+      return source;
+    }
   }
 
   @Override
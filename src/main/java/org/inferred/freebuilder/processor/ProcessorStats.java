@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.inferred.freebuilder.processor;
+
+import com.google.common.base.Ticker;
+
+import org.inferred.freebuilder.processor.source.feature.BooleanOption;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Per-phase timings and allocations of the {@link Processor}, reported through the
+ * {@link Messager} when the {@code -Afreebuilder.stats=true} processor option is set.
+ *
+ * <p>Each annotated type gets a NOTE listing the time spent, and bytes allocated, in each phase
+ * of generating its builder; a final NOTE gives the totals across all types. Allocations are
+ * only reported on JVMs that support per-thread allocation counting.
+ */
+class ProcessorStats {
+
+  /** Name of the processor option enabling stats. */
+  static final String OPTION = "freebuilder.stats";
+
+  /** The phases a builder goes through, in order. */
+  enum Phase {
+    ANALYSE("analyse"),
+    GENERATE("generate"),
+    SHORTEN_REFERENCES("shorten references"),
+    FORMAT("format"),
+    WRITE("write");
+
+    private final String description;
+
+    Phase(String description) {
+      this.description = description;
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+
+  /** A measurement in progress; closing it records the time elapsed and bytes allocated. */
+  interface Measurement extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Measurement NOT_MEASURED = () -> { };
+  private static final long UNKNOWN = -1;
+
+  /** Returns a {@link ProcessorStats}, enabled if requested in the processor {@code options}. */
+  static ProcessorStats forOptions(Map<String, String> options) {
+    boolean enabled = BooleanOption.parse(options.get(OPTION)).orElse(false);
+    if (!enabled) {
+      return new ProcessorStats(false, Ticker.systemTicker(), () -> UNKNOWN);
+    }
+    return new ProcessorStats(true, Ticker.systemTicker(), threadAllocatedBytes());
+  }
+
+  private final boolean enabled;
+  private final Ticker ticker;
+  private final LongSupplier allocatedBytes;
+  private final Totals totals = new Totals();
+  private long rounds;
+  private long roundNanos;
+
+  ProcessorStats(boolean enabled, Ticker ticker, LongSupplier allocatedBytes) {
+    this.enabled = enabled;
+    this.ticker = ticker;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * Starts measuring a processing round. Call from the processor thread only.
+   *
+   * <p>Per-phase times are summed across threads, so can exceed the round time when formatting
+   * runs in parallel.
+   */
+  Measurement measureRound() {
+    if (!enabled) {
+      return NOT_MEASURED;
+    }
+    long start = ticker.read();
+    return () -> {
+      rounds++;
+      roundNanos += ticker.read() - start;
+    };
+  }
+
+  /** Returns a new object to record the stats of generating {@code type}'s builder. */
+  TypeStats forType(TypeElement type) {
+    return new TypeStats(type);
+  }
+
+  /** Reports the totals across all types. Call from the processor thread only. */
+  void reportTotals(Messager messager) {
+    if (!enabled) {
+      return;
+    }
+    messager.printMessage(Kind.NOTE, String.format(
+        "FreeBuilder stats for %d type%s over %d round%s (%s): %s",
+        totals.types,
+        totals.types == 1 ? "" : "s",
+        rounds,
+        rounds == 1 ? "" : "s",
+        formatNanos(roundNanos),
+        totals));
+  }
+
+  /**
+   * The stats of generating a single type's builder. Each phase may be measured on a different
+   * thread, but not concurrently.
+   */
+  class TypeStats {
+
+    private final TypeElement type;
+    private final Totals phases = new Totals();
+
+    private TypeStats(TypeElement type) {
+      this.type = type;
+    }
+
+    /** Starts measuring {@code phase} on the current thread. */
+    Measurement measure(Phase phase) {
+      if (!enabled) {
+        return NOT_MEASURED;
+      }
+      long startNanos = ticker.read();
+      long startBytes = allocatedBytes.getAsLong();
+      return () -> {
+        long bytes = UNKNOWN;
+        if (startBytes != UNKNOWN) {
+          bytes = allocatedBytes.getAsLong() - startBytes;
+        }
+        phases.add(phase, ticker.read() - startNanos, bytes);
+      };
+    }
+
+    /**
+     * Reports the stats of this type, and adds them to the totals. Call from the processor thread
+     * only.
+     */
+    void report(Messager messager) {
+      if (!enabled) {
+        return;
+      }
+      totals.addAll(phases);
+      messager.printMessage(Kind.NOTE, "FreeBuilder stats: " + phases, type);
+    }
+  }
+
+  /** Nanoseconds and bytes spent in each phase. */
+  private static class Totals {
+
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] bytes = new long[Phase.values().length];
+    private long types;
+
+    void add(Phase phase, long phaseNanos, long phaseBytes) {
+      nanos[phase.ordinal()] += phaseNanos;
+      bytes[phase.ordinal()] = addBytes(bytes[phase.ordinal()], phaseBytes);
+    }
+
+    void addAll(Totals other) {
+      for (Phase phase : Phase.values()) {
+        add(phase, other.nanos[phase.ordinal()], other.bytes[phase.ordinal()]);
+      }
+      types++;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder();
+      long totalNanos = 0;
+      long totalBytes = 0;
+      for (Phase phase : Phase.values()) {
+        long phaseNanos = nanos[phase.ordinal()];
+        long phaseBytes = bytes[phase.ordinal()];
+        result.append(phase).append(' ').append(formatNanos(phaseNanos));
+        result.append(formatBytes(phaseBytes)).append(", ");
+        totalNanos += phaseNanos;
+        totalBytes = addBytes(totalBytes, phaseBytes);
+      }
+      result.append("total ").append(formatNanos(totalNanos)).append(formatBytes(totalBytes));
+      return result.toString();
+    }
+  }
+
+  private static long addBytes(long a, long b) {
+    return (a == UNKNOWN || b == UNKNOWN) ? UNKNOWN : a + b;
+  }
+
+  private static String formatNanos(long nanos) {
+    return String.format("%.2f ms", nanos / 1e6);
+  }
+
+  private static String formatBytes(long bytes) {
+    if (bytes == UNKNOWN) {
+      return "";
+    }
+    return String.format(" / %,d KB", (bytes + 512) / 1024);
+  }
+
+  /**
+   * Returns a supplier of the bytes allocated so far by the current thread, or of
+   * {@link #UNKNOWN} if the JVM does not support counting them.
+   *
+   * <p>The {@code com.sun.management} API is missing from JVMs without the
+   * {@code jdk.management} module, in which case loading it throws a {@link LinkageError}.
+   */
+  private static LongSupplier threadAllocatedBytes() {
+    try {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (sunThreads.isThreadAllocatedMemorySupported()
+            && sunThreads.isThreadAllocatedMemoryEnabled()) {
+          return () -> sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+      }
+    } catch (LinkageError e) {
+      // Fall through to UNKNOWN
+    }
+    return () -> UNKNOWN;
+  }
+}
@@ -3,11 +3,10 @@ package org.inferred.freebuilder.processor;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getLast;
 
-import static org.inferred.freebuilder.processor.property.DefaultProperty.UNSET_PROPERTIES;
-
 import org.inferred.freebuilder.processor.property.Property;
 import org.inferred.freebuilder.processor.property.PropertyCodeGenerator;
 import org.inferred.freebuilder.processor.property.PropertyCodeGenerator.Initially;
+import org.inferred.freebuilder.processor.property.UnsetProperties;
 import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Variable;
@@ -27,6 +26,7 @@ class ToStringGenerator {
       Datatype datatype,
       Map<Property, PropertyCodeGenerator> generatorsByProperty,
       boolean forPartial) {
+    UnsetProperties unsetProperties = UnsetProperties.of(datatype, generatorsByProperty);
     // This code is to ensure entry order is preserved.
     // Specifically this code is boiler plate from Collectors.toMap.
     // Except with a LinkedHashMap supplier.
@@ -55,9 +55,9 @@ class ToStringGenerator {
         .addLine("@%s", Override.class)
         .addLine("public %s toString() {", String.class);
     if (allOptional) {
-      bodyWithBuilderAndSeparator(code, datatype, generatorsByProperty, typename);
+      bodyWithBuilderAndSeparator(code, unsetProperties, generatorsByProperty, typename);
     } else if (anyOptional) {
-      bodyWithBuilder(code, datatype, generatorsByProperty, typename, isOptional);
+      bodyWithBuilder(code, unsetProperties, generatorsByProperty, typename, isOptional);
     } else {
       bodyWithConcatenation(code, generatorsByProperty, typename);
     }
@@ -105,7 +105,7 @@ class ToStringGenerator {
    */
   private static void bodyWithBuilder(
       SourceBuilder code,
-      Datatype datatype,
+      UnsetProperties unsetProperties,
       Map<Property, PropertyCodeGenerator> generatorsByProperty,
       String typename,
       Predicate<PropertyCodeGenerator> isOptional) {
@@ -135,8 +135,7 @@ class ToStringGenerator {
         if (generator.initialState() == Initially.OPTIONAL) {
           generator.addToStringCondition(code);
         } else {
-          code.add("!%s.contains(%s.%s)",
-              UNSET_PROPERTIES, datatype.getPropertyEnum(), property.getAllCapsName());
+          code.add(unsetProperties.isSet(property));
         }
         code.add(") {%n    %s.append(\"", result);
         if (prependCommas) {
@@ -195,7 +194,7 @@ class ToStringGenerator {
    */
   private static void bodyWithBuilderAndSeparator(
       SourceBuilder code,
-      Datatype datatype,
+      UnsetProperties unsetProperties,
       Map<Property, PropertyCodeGenerator> generatorsByProperty,
       String typename) {
     Variable result = new Variable("result");
@@ -220,8 +219,7 @@ class ToStringGenerator {
           break;
 
         case REQUIRED:
-          code.addLine("  if (!%s.contains(%s.%s)) {",
-              UNSET_PROPERTIES, datatype.getPropertyEnum(), property.getAllCapsName());
+          code.addLine("  if (%s) {", unsetProperties.isSet(property));
           break;
       }
       code.add("    ").add(result);
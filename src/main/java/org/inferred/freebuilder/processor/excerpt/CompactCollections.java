@@ -0,0 +1,304 @@
+package org.inferred.freebuilder.processor.excerpt;
+
+import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.LazyName;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.ValueType;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Excerpts defining compact immutable lists, sets and maps for values, for use when Guava is not
+ * available.
+ *
+ * <p>Each stores its contents in a single array, in insertion order. Sets and maps index that
+ * array with an open-addressing hash table of {@code int}s, rather than allocating a node per
+ * entry. None support null elements, keys or values.
+ */
+public class CompactCollections {
+
+  /**
+   * Returns the name of an immutable list, constructed from an {@code Object[]} array, which it
+   * takes ownership of.
+   */
+  public static LazyName list() {
+    return LazyName.of("CompactList", new CompactList());
+  }
+
+  /**
+   * Returns the name of an immutable set, constructed from an {@code Object[]} array of distinct
+   * elements, which it takes ownership of.
+   */
+  public static LazyName set() {
+    return LazyName.of("CompactSet", new CompactSet());
+  }
+
+  /** Returns the name of an immutable map, constructed from a copy of a {@code Map}. */
+  public static LazyName map() {
+    return LazyName.of("CompactMap", new CompactMap());
+  }
+
+  private static class CompactList extends ValueType implements Excerpt {
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      LazyName name = list();
+      code.addLine("")
+          .addLine("/** An immutable list stored in a single array. */")
+          .addLine("private static final class %s<E> extends %s<E>", name, AbstractList.class)
+          .addLine("    implements %s, %s {", RandomAccess.class, Serializable.class)
+          .addLine("")
+          .addLine("  private static final long serialVersionUID = 1L;")
+          .addLine("")
+          .addLine("  private final Object[] elements;")
+          .addLine("")
+          .addLine("  /** Takes ownership of {@code elements}, which must not be modified. */")
+          .addLine("  %s(Object[] elements) {", name)
+          .addLine("    this.elements = elements;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public int size() {")
+          .addLine("    return elements.length;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @%s(\"unchecked\")", SuppressWarnings.class)
+          .addLine("  @Override public E get(int index) {")
+          .addLine("    return (E) elements[index];")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public Object[] toArray() {")
+          .addLine("    return %s.copyOf(elements, elements.length, Object[].class);",
+              Arrays.class)
+          .addLine("  }")
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {}
+  }
+
+  private static class CompactSet extends ValueType implements Excerpt {
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      LazyName name = set();
+      code.addLine("")
+          .addLine("/**")
+          .addLine(" * An immutable set storing its elements in insertion order in a single array,")
+          .addLine(" * indexed by an open-addressing hash table.")
+          .addLine(" */")
+          .addLine("private static final class %s<E> extends %s<E> implements %s {",
+              name, AbstractSet.class, Serializable.class)
+          .addLine("")
+          .addLine("  private static final long serialVersionUID = 1L;")
+          .addLine("")
+          .addLine("  private final Object[] elements;")
+          .addLine("  /** Indices into {@code elements}, plus one; zero marks an empty slot. */")
+          .addLine("  private final transient int[] table;")
+          .addLine("")
+          .addLine("  /**")
+          .addLine("   * Takes ownership of {@code elements}, which must be distinct, and must not")
+          .addLine("   * be modified.")
+          .addLine("   */")
+          .addLine("  %s(Object[] elements) {", name)
+          .addLine("    this.elements = elements;")
+          .addLine("    table = new int[Integer.highestOneBit(Math.max(elements.length, 1)) << 2];")
+          .addLine("    int mask = table.length - 1;")
+          .addLine("    for (int i = 0; i < elements.length; i++) {")
+          .addLine("      int slot = spread(elements[i].hashCode()) & mask;")
+          .addLine("      while (table[slot] != 0) {")
+          .addLine("        slot = (slot + 1) & mask;")
+          .addLine("      }")
+          .addLine("      table[slot] = i + 1;")
+          .addLine("    }")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public int size() {")
+          .addLine("    return elements.length;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public boolean contains(Object o) {")
+          .addLine("    if (o == null) {")
+          .addLine("      return false;")
+          .addLine("    }")
+          .addLine("    int mask = table.length - 1;")
+          .addLine("    for (int slot = spread(o.hashCode()) & mask;")
+          .addLine("        table[slot] != 0;")
+          .addLine("        slot = (slot + 1) & mask) {")
+          .addLine("      if (o.equals(elements[table[slot] - 1])) {")
+          .addLine("        return true;")
+          .addLine("      }")
+          .addLine("    }")
+          .addLine("    return false;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @%s(\"unchecked\")", SuppressWarnings.class)
+          .addLine("  @Override public %s<E> iterator() {", Iterator.class)
+          .addLine("    return (%s<E>) %s.asList(elements).iterator();",
+              Iterator.class, Arrays.class)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public Object[] toArray() {")
+          .addLine("    return %s.copyOf(elements, elements.length, Object[].class);",
+              Arrays.class)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  /** Rebuilds the hash table, as hash codes may differ between JVMs. */")
+          .addLine("  private Object readResolve() {")
+          .addLine("    return new %s<>(elements);", name)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  private static int spread(int hashCode) {")
+          .addLine("    int hash = hashCode * 0x9E3779B9;")
+          .addLine("    return hash ^ (hash >>> 16);")
+          .addLine("  }")
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {}
+  }
+
+  private static class CompactMap extends ValueType implements Excerpt {
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      LazyName name = map();
+      code.addLine("")
+          .addLine("/**")
+          .addLine(" * An immutable map storing its keys and values in insertion order in a single")
+          .addLine(" * array, indexed by an open-addressing hash table.")
+          .addLine(" */")
+          .addLine("private static final class %s<K, V> extends %s<K, V> implements %s {",
+              name, AbstractMap.class, Serializable.class)
+          .addLine("")
+          .addLine("  private static final long serialVersionUID = 1L;")
+          .addLine("")
+          .addLine("  /** Alternating keys and values. */")
+          .addLine("  private final Object[] entries;")
+          .addLine("  /** Indices of keys in {@code entries}, plus one; zero marks empty slots. */")
+          .addLine("  private final transient int[] table;")
+          .addLine("")
+          .addLine("  %s(%s<? extends K, ? extends V> source) {", name, Map.class)
+          .addLine("    this(toArray(source));")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  private %s(Object[] entries) {", name)
+          .addLine("    this.entries = entries;")
+          .addLine("    int size = entries.length / 2;")
+          .addLine("    table = new int[Integer.highestOneBit(Math.max(size, 1)) << 2];")
+          .addLine("    int mask = table.length - 1;")
+          .addLine("    for (int i = 0; i < entries.length; i += 2) {")
+          .addLine("      int slot = spread(entries[i].hashCode()) & mask;")
+          .addLine("      while (table[slot] != 0) {")
+          .addLine("        slot = (slot + 1) & mask;")
+          .addLine("      }")
+          .addLine("      table[slot] = i + 1;")
+          .addLine("    }")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public int size() {")
+          .addLine("    return entries.length / 2;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public boolean containsKey(Object key) {")
+          .addLine("    return indexOf(key) >= 0;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @%s(\"unchecked\")", SuppressWarnings.class)
+          .addLine("  @Override public V get(Object key) {")
+          .addLine("    int index = indexOf(key);")
+          .addLine("    return (index < 0) ? null : (V) entries[index + 1];")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @%s(\"unchecked\")", SuppressWarnings.class)
+          .addLine("  @Override public void forEach(%s<? super K, ? super V> action) {",
+              BiConsumer.class)
+          .addLine("    for (int i = 0; i < entries.length; i += 2) {")
+          .addLine("      action.accept((K) entries[i], (V) entries[i + 1]);")
+          .addLine("    }")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public %s<%s<K, V>> entrySet() {", Set.class, Map.Entry.class)
+          .addLine("    return new %s<%s<K, V>>() {", AbstractSet.class, Map.Entry.class)
+          .addLine("      @Override public int size() {")
+          .addLine("        return entries.length / 2;")
+          .addLine("      }")
+          .addLine("")
+          .addLine("      @Override public %s<%s<K, V>> iterator() {",
+              Iterator.class, Map.Entry.class)
+          .addLine("        return new %s<%s<K, V>>() {", Iterator.class, Map.Entry.class)
+          .addLine("          private int next = 0;")
+          .addLine("")
+          .addLine("          @Override public boolean hasNext() {")
+          .addLine("            return next < entries.length;")
+          .addLine("          }")
+          .addLine("")
+          .addLine("          @%s(\"unchecked\")", SuppressWarnings.class)
+          .addLine("          @Override public %s<K, V> next() {", Map.Entry.class)
+          .addLine("            if (!hasNext()) {")
+          .addLine("              throw new %s();", NoSuchElementException.class)
+          .addLine("            }")
+          .addLine("            next += 2;")
+          .addLine("            return new %s<>(", AbstractMap.SimpleImmutableEntry.class)
+          .addLine("                (K) entries[next - 2], (V) entries[next - 1]);")
+          .addLine("          }")
+          .addLine("        };")
+          .addLine("      }")
+          .addLine("    };")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  private int indexOf(Object key) {")
+          .addLine("    if (key == null) {")
+          .addLine("      return -1;")
+          .addLine("    }")
+          .addLine("    int mask = table.length - 1;")
+          .addLine("    for (int slot = spread(key.hashCode()) & mask;")
+          .addLine("        table[slot] != 0;")
+          .addLine("        slot = (slot + 1) & mask) {")
+          .addLine("      int index = table[slot] - 1;")
+          .addLine("      if (key.equals(entries[index])) {")
+          .addLine("        return index;")
+          .addLine("      }")
+          .addLine("    }")
+          .addLine("    return -1;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  /** Rebuilds the hash table, as hash codes may differ between JVMs. */")
+          .addLine("  private Object readResolve() {")
+          .addLine("    return new %s<>(entries);", name)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  private static Object[] toArray(%s<?, ?> source) {", Map.class)
+          .addLine("    Object[] entries = new Object[source.size() * 2];")
+          .addLine("    int i = 0;")
+          .addLine("    for (%s<?, ?> entry : source.entrySet()) {", Map.Entry.class)
+          .addLine("      entries[i++] = entry.getKey();")
+          .addLine("      entries[i++] = entry.getValue();")
+          .addLine("    }")
+          .addLine("    return entries;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  private static int spread(int hashCode) {")
+          .addLine("    int hash = hashCode * 0x9E3779B9;")
+          .addLine("    return hash ^ (hash >>> 16);")
+          .addLine("  }")
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {}
+  }
+
+  private CompactCollections() {}
+}
@@ -0,0 +1,252 @@
+package org.inferred.freebuilder.processor.excerpt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.LazyName;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.ValueType;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+
+import javax.lang.model.type.TypeKind;
+
+/**
+ * Excerpts defining lists of {@code int}, {@code long} or {@code double} values stored in a
+ * primitive array: a growable list for builders, and an immutable list for values.
+ */
+public class PrimitiveLists {
+
+  /** Returns true if lists of {@code kind} values can be stored in a primitive array. */
+  public static boolean isSupported(TypeKind kind) {
+    return kind == TypeKind.INT || kind == TypeKind.LONG || kind == TypeKind.DOUBLE;
+  }
+
+  /**
+   * Returns the name of a growable list of {@code kind} values, for use in builders.
+   *
+   * <p>In addition to the {@code List} methods, the list has {@code append(primitive)} and
+   * {@code appendAll(primitive[])} methods, which do not box, plus {@code ensureCapacity(int)}
+   * and {@code toPrimitiveArray()}.
+   */
+  public static LazyName mutableList(TypeKind kind) {
+    checkArgument(isSupported(kind), "Unsupported primitive type %s", kind);
+    return LazyName.of(titleCase(kind) + "ArrayList", new MutableList(kind));
+  }
+
+  /**
+   * Returns the name of an immutable list of {@code kind} values, for use in values.
+   *
+   * <p>The list is constructed from a primitive array, which it takes ownership of, and exposes
+   * it as an {@code elements} field.
+   */
+  public static LazyName immutableList(TypeKind kind) {
+    checkArgument(isSupported(kind), "Unsupported primitive type %s", kind);
+    return LazyName.of("Immutable" + titleCase(kind) + "List", new ImmutableList(kind));
+  }
+
+  private static class MutableList extends ValueType implements Excerpt {
+
+    private final TypeKind kind;
+
+    MutableList(TypeKind kind) {
+      this.kind = kind;
+    }
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      String primitive = primitive(kind);
+      Class<?> boxed = boxed(kind);
+      LazyName name = mutableList(kind);
+      code.addLine("")
+          .addLine("/** A growable list of {@code %s} values, stored in a primitive array. */",
+              primitive)
+          .addLine("private static final class %s extends %s<%s> implements %s {",
+              name, AbstractList.class, boxed, RandomAccess.class)
+          .addLine("")
+          .addLine("  private static final %s[] EMPTY = {};", primitive)
+          .addLine("")
+          .addLine("  private %s[] elements = EMPTY;", primitive)
+          .addLine("  private int size;")
+          .addLine("")
+          .addLine("  void append(%s element) {", primitive)
+          .addLine("    ensureCapacity(size + 1);")
+          .addLine("    elements[size++] = element;")
+          .addLine("    modCount++;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  void appendAll(%s[] source) {", primitive)
+          .addLine("    ensureCapacity(size + source.length);")
+          .addLine("    System.arraycopy(source, 0, elements, size, source.length);")
+          .addLine("    size += source.length;")
+          .addLine("    modCount++;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  void ensureCapacity(int minCapacity) {")
+          .addLine("    if (minCapacity > elements.length) {")
+          .addLine("      int newCapacity = elements.length + (elements.length >> 1) + 1;")
+          .addLine("      elements = %s.copyOf(elements, Math.max(minCapacity, newCapacity));",
+              Arrays.class)
+          .addLine("    }")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  %s[] toPrimitiveArray() {", primitive)
+          .addLine("    return %s.copyOf(elements, size);", Arrays.class)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public int size() {")
+          .addLine("    return size;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public %s get(int index) {", boxed)
+          .addLine("    checkElementIndex(index);")
+          .addLine("    return elements[index];")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public %1$s set(int index, %1$s element) {", boxed)
+          .addLine("    checkElementIndex(index);")
+          .addLine("    %s previous = elements[index];", primitive)
+          .addLine("    elements[index] = element;")
+          .addLine("    return previous;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public void add(int index, %s element) {", boxed)
+          .addLine("    if (index < 0 || index > size) {")
+          .addLine("      throw new IndexOutOfBoundsException(")
+          .addLine("          \"Index: \" + index + \", Size: \" + size);")
+          .addLine("    }")
+          .addLine("    %s value = element;", primitive)
+          .addLine("    ensureCapacity(size + 1);")
+          .addLine("    System.arraycopy(elements, index, elements, index + 1, size - index);")
+          .addLine("    elements[index] = value;")
+          .addLine("    size++;")
+          .addLine("    modCount++;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public %s remove(int index) {", boxed)
+          .addLine("    checkElementIndex(index);")
+          .addLine("    %s previous = elements[index];", primitive)
+          .addLine("    System.arraycopy(elements, index + 1, elements, index, size - index - 1);")
+          .addLine("    size--;")
+          .addLine("    modCount++;")
+          .addLine("    return previous;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public void clear() {")
+          .addLine("    size = 0;")
+          .addLine("    modCount++;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override protected void removeRange(int fromIndex, int toIndex) {")
+          .addLine("    System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);")
+          .addLine("    size -= toIndex - fromIndex;")
+          .addLine("    modCount++;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  private void checkElementIndex(int index) {")
+          .addLine("    if (index < 0 || index >= size) {")
+          .addLine("      throw new IndexOutOfBoundsException(")
+          .addLine("          \"Index: \" + index + \", Size: \" + size);")
+          .addLine("    }")
+          .addLine("  }")
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {
+      fields.add("kind", kind);
+    }
+  }
+
+  private static class ImmutableList extends ValueType implements Excerpt {
+
+    private final TypeKind kind;
+
+    ImmutableList(TypeKind kind) {
+      this.kind = kind;
+    }
+
+    @Override
+    public void addTo(SourceBuilder code) {
+      String primitive = primitive(kind);
+      Class<?> boxed = boxed(kind);
+      LazyName name = immutableList(kind);
+      code.addLine("")
+          .addLine("/** An immutable list of {@code %s} values, stored in a primitive array. */",
+              primitive)
+          .addLine("private static final class %s extends %s<%s>", name, AbstractList.class, boxed)
+          .addLine("    implements %s, %s {", RandomAccess.class, Serializable.class)
+          .addLine("")
+          .addLine("  private static final long serialVersionUID = 1L;")
+          .addLine("")
+          .addLine("  final %s[] elements;", primitive)
+          .addLine("")
+          .addLine("  /** Takes ownership of {@code elements}, which must not be modified. */")
+          .addLine("  %s(%s[] elements) {", name, primitive)
+          .addLine("    this.elements = elements;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public int size() {")
+          .addLine("    return elements.length;")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public %s get(int index) {", boxed)
+          .addLine("    return elements[index];")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public %s<%s> spliterator() {", Spliterator.class, boxed)
+          .addLine("    return %s.spliterator(elements);", Arrays.class)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public boolean equals(Object obj) {")
+          .addLine("    if (obj instanceof %s) {", name)
+          .addLine("      return %s.equals(elements, ((%s) obj).elements);", Arrays.class, name)
+          .addLine("    }")
+          .addLine("    return super.equals(obj);")
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public int hashCode() {")
+          .addLine("    return %s.hashCode(elements);", Arrays.class)
+          .addLine("  }")
+          .addLine("")
+          .addLine("  @Override public String toString() {")
+          .addLine("    return %s.toString(elements);", Arrays.class)
+          .addLine("  }")
+          .addLine("}");
+    }
+
+    @Override
+    protected void addFields(FieldReceiver fields) {
+      fields.add("kind", kind);
+    }
+  }
+
+  private static String primitive(TypeKind kind) {
+    return kind.name().toLowerCase(Locale.ROOT);
+  }
+
+  private static String titleCase(TypeKind kind) {
+    String primitive = primitive(kind);
+    return Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+  }
+
+  private static Class<?> boxed(TypeKind kind) {
+    switch (kind) {
+      case INT:
+        return Integer.class;
+      case LONG:
+        return Long.class;
+      case DOUBLE:
+        return Double.class;
+      default:
+        throw new IllegalArgumentException("Unsupported primitive type " + kind);
+    }
+  }
+
+  private PrimitiveLists() {}
+}
@@ -19,8 +19,10 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.maybeAsTypeEle
 
 import static javax.lang.model.util.ElementFilter.methodsIn;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 
@@ -29,6 +31,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
@@ -62,9 +66,96 @@ public class MethodFinder {
       TypeElement type,
       Elements elements,
       ErrorTypeHandling<E> errorTypeHandling) throws E {
+    LibraryTypes libraryTypes = cachedLibraryTypes(elements);
+    if (libraryTypes == null) {
+      return findMethodsOn(type, elements, new LibraryTypes(elements), errorTypeHandling);
+    }
+    if (!isLibraryType(type, elements)) {
+      return findMethodsOn(type, elements, libraryTypes, errorTypeHandling);
+    }
+    ImmutableSet<ExecutableElement> methods = libraryTypes.methods.get(type);
+    if (methods == null) {
+      boolean[] sawErrorType = { false };
+      methods = findMethodsOn(type, elements, libraryTypes, errorType -> {
+        sawErrorType[0] = true;
+        errorTypeHandling.handleErrorType(errorType);
+      });
+      if (!sawErrorType[0]) {
+        libraryTypes.methods.put(type, methods);
+      }
+    }
+    return methods;
+  }
+
+  /**
+   * Caches the methods found on library types, and the methods of {@link Object}, for as long as
+   * the returned cache is reachable. Library types are compiled into the classpath, so their
+   * hierarchies cannot change between rounds, while they are looked up again for almost every
+   * property (e.g. to find the single abstract method of {@code Consumer} or
+   * {@code UnaryOperator}).
+   *
+   * <p>The caller must hold on to the returned cache for the lifetime of the compilation; only a
+   * weak reference is kept here, as the cached elements would otherwise keep the whole compilation
+   * alive after it finishes.
+   */
+  public static LibraryTypeCache cacheLibraryTypes(Elements elements) {
+    return LIBRARY_TYPE_CACHES.computeIfAbsent(elements, LibraryTypeCache::new);
+  }
+
+  /** Returned by {@link #cacheLibraryTypes(Elements)}. */
+  public static final class LibraryTypeCache {
+    private volatile LibraryTypes libraryTypes;
+
+    private LibraryTypeCache(Elements elements) {
+      libraryTypes = new LibraryTypes(elements);
+    }
+  }
+
+  private static final ConcurrentMap<Elements, LibraryTypeCache> LIBRARY_TYPE_CACHES =
+      new MapMaker().weakKeys().weakValues().makeMap();
+
+  /** Packages whose types are never compiled from source alongside a &#64;FreeBuilder type. */
+  private static final ImmutableList<String> LIBRARY_PACKAGES =
+      ImmutableList.of("java.", "javax.", "com.google.common.");
+
+  private static class LibraryTypes {
+    final TypeElement objectType;
+    final Map<Signature, ExecutableElement> objectMethods;
+    final Map<TypeElement, ImmutableSet<ExecutableElement>> methods = new ConcurrentHashMap<>();
+
+    LibraryTypes(Elements elements) {
+      objectType = elements.getTypeElement(Object.class.getCanonicalName());
+      objectMethods = Maps.uniqueIndex(
+          methodsIn(objectType.getEnclosedElements()), Signature::new);
+    }
+  }
+
+  /** Returns the cached library types for {@code elements}, or null if they are not cached. */
+  private static LibraryTypes cachedLibraryTypes(Elements elements) {
+    LibraryTypeCache cache = LIBRARY_TYPE_CACHES.get(elements);
+    if (cache == null) {
+      return null;
+    }
+    // Some compilers reuse their Elements instance, but not their symbols, across rounds.
     TypeElement objectType = elements.getTypeElement(Object.class.getCanonicalName());
-    Map<Signature, ExecutableElement> objectMethods = Maps.uniqueIndex(
-        methodsIn(objectType.getEnclosedElements()), Signature::new);
+    if (!cache.libraryTypes.objectType.equals(objectType)) {
+      cache.libraryTypes = new LibraryTypes(elements);
+    }
+    return cache.libraryTypes;
+  }
+
+  private static boolean isLibraryType(TypeElement type, Elements elements) {
+    String pkg = elements.getPackageOf(type).getQualifiedName().toString() + ".";
+    return LIBRARY_PACKAGES.stream().anyMatch(pkg::startsWith);
+  }
+
+  private static <E extends Exception> ImmutableSet<ExecutableElement> findMethodsOn(
+      TypeElement type,
+      Elements elements,
+      LibraryTypes libraryTypes,
+      ErrorTypeHandling<E> errorTypeHandling) throws E {
+    TypeElement objectType = libraryTypes.objectType;
+    Map<Signature, ExecutableElement> objectMethods = libraryTypes.objectMethods;
     SetMultimap<Signature, ExecutableElement> methods = LinkedHashMultimap.create();
     for (TypeElement supertype : getSupertypes(type, errorTypeHandling)) {
       for (ExecutableElement method : methodsIn(supertype.getEnclosedElements())) {
@@ -18,6 +18,7 @@ package org.inferred.freebuilder.processor.model;
 import static java.util.Objects.requireNonNull;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 import com.google.common.io.ByteStreams;
 
 import org.inferred.freebuilder.processor.model.javac.JavacMethodIntrospector;
@@ -26,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
@@ -63,8 +65,17 @@ public abstract class MethodIntrospector {
       ExecutableElement method,
       OwnMethodInvocationVisitor visitor);
 
-  /** Returns a {@link MethodIntrospector} implementation for the given environment. */
+  /**
+   * Returns a {@link MethodIntrospector} implementation for the given environment.
+   *
+   * <p>Creating an instance may load and define classes, so callers should reuse it for the
+   * lifetime of {@code env}. Results of {@link #getOwnMethodInvocations} are cached per method.
+   */
   public static MethodIntrospector instance(ProcessingEnvironment env) {
+    return new CachingMethodIntrospector(uncachedInstance(env));
+  }
+
+  private static MethodIntrospector uncachedInstance(ProcessingEnvironment env) {
     try {
       try {
         return JavacMethodIntrospector.instance(env);
@@ -125,6 +136,30 @@ public abstract class MethodIntrospector {
     }
   }
 
+  private static class CachingMethodIntrospector extends MethodIntrospector {
+
+    private final MethodIntrospector delegate;
+    /** Keyed by identity; weak keys stop elements from earlier rounds leaking. */
+    private final ConcurrentMap<ExecutableElement, Set<Name>> ownMethodInvocations =
+        new MapMaker().weakKeys().makeMap();
+
+    CachingMethodIntrospector(MethodIntrospector delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Set<Name> getOwnMethodInvocations(ExecutableElement method) {
+      return ownMethodInvocations.computeIfAbsent(method, delegate::getOwnMethodInvocations);
+    }
+
+    @Override
+    public void visitAllOwnMethodInvocations(
+        ExecutableElement method,
+        OwnMethodInvocationVisitor visitor) {
+      delegate.visitAllOwnMethodInvocations(method, visitor);
+    }
+  }
+
   private static class NoMethodIntrospector extends MethodIntrospector {
     @Override
     public Set<Name> getOwnMethodInvocations(ExecutableElement method) {
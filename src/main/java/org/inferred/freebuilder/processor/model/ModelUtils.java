@@ -25,6 +25,7 @@ import org.inferred.freebuilder.processor.source.QualifiedName;
 import org.inferred.freebuilder.processor.source.Shading;
 
 import java.lang.annotation.Annotation;
+import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
@@ -372,4 +373,13 @@ public class ModelUtils {
     return false;
   }
 
+  /**
+   * Returns the string form of {@code obj} with its first character upper-cased, e.g. {@code Int}
+   * for the type {@code int}. Uses the root locale, so generated method names do not depend on
+   * the platform's default locale.
+   */
+  public static String withInitialCapital(Object obj) {
+    String s = obj.toString();
+    return s.substring(0, 1).toUpperCase(Locale.ROOT) + s.substring(1);
+  }
 }
@@ -33,6 +33,7 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
@@ -49,6 +50,7 @@ import org.inferred.freebuilder.processor.source.FunctionalType;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Type;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
 
 import java.util.Collection;
 import java.util.Map;
@@ -179,8 +181,8 @@ class BiMapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %1$s<%2$s, %3$s> %4$s = %1$s.create();",
-        HashBiMap.class, keyType, valueType, property.getField());
+    code.addLine("private %s<%s, %s> %s = %s.of();",
+        BiMap.class, keyType, valueType, property.getField(), ImmutableBiMap.class);
   }
 
   @Override
@@ -267,6 +269,7 @@ class BiMapProperty extends PropertyCodeGenerator {
     if (!unboxedValueType.isPresent()) {
       code.addLine("  %s.requireNonNull(value);", Objects.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.forcePut(key, value);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -314,6 +317,7 @@ class BiMapProperty extends PropertyCodeGenerator {
     if (!unboxedKeyType.isPresent()) {
       code.addLine("  %s.requireNonNull(key);", Objects.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.remove(key);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -338,6 +342,7 @@ class BiMapProperty extends PropertyCodeGenerator {
     if (!unboxedValueType.isPresent()) {
       code.addLine("  %s.requireNonNull(value);", Objects.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.inverse().remove(value);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -359,6 +364,7 @@ class BiMapProperty extends PropertyCodeGenerator {
         .addLine(" */")
         .addLine("public %s %s(%s mutator) {",
             datatype.getBuilder(), mutator(property), mutatorType.getFunctionalInterface());
+    addConvertToMutable(code);
     if (overridesForcePutMethod) {
       code.addLine("  mutator.%s(new %s<>(%s, this::%s));",
           mutatorType.getMethodName(),
@@ -383,7 +389,11 @@ class BiMapProperty extends PropertyCodeGenerator {
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
         .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property))
-        .addLine("  %s.clear();", property.getField())
+        .addLine("  if (%s instanceof %s) {", property.getField(), ImmutableBiMap.class)
+        .addLine("    %s = %s.of();", property.getField(), ImmutableBiMap.class)
+        .addLine("  } else {")
+        .addLine("    %s.clear();", property.getField())
+        .addLine("  }")
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
@@ -395,11 +405,22 @@ class BiMapProperty extends PropertyCodeGenerator {
         .addLine(" * %s.", datatype.getType().javadocNoArgMethodLink(property.getGetterName()))
         .addLine(" * Changes to this builder will be reflected in the view.")
         .addLine(" */")
-        .addLine("public %s<%s, %s> %s() {", BiMap.class, keyType, valueType, getter(property))
-        .addLine("  return %s.unmodifiableBiMap(%s);", Maps.class, property.getField())
+        .addLine("public %s<%s, %s> %s() {", BiMap.class, keyType, valueType, getter(property));
+    addConvertToMutable(code);
+    code.addLine("  return %s.unmodifiableBiMap(%s);", Maps.class, property.getField())
         .addLine("}");
   }
 
+  /**
+   * Adds code copying the bimap into a {@link HashBiMap} if it is still the
+   * {@link ImmutableBiMap} adopted from a value, so it can be modified.
+   */
+  private void addConvertToMutable(SourceBuilder code) {
+    code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableBiMap.class)
+        .addLine("    %1$s = %2$s.create(%1$s);", property.getField(), HashBiMap.class)
+        .addLine("  }");
+  }
+
   @Override
   public void addFinalFieldAssignment(SourceBuilder code, Excerpt finalField, String builder) {
     code.addLine("%s = %s.copyOf(%s);",
@@ -409,12 +430,23 @@ class BiMapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addAssignToBuilder(SourceBuilder code, Variable builder) {
-    code.addLine("%s.putAll(%s);", property.getField().on(builder), property.getField());
+    code.addLine("%s = %s;", property.getField().on(builder), property.getField());
   }
 
   @Override
   public void addMergeFromValue(SourceBuilder code, String value) {
-    code.addLine("%s(%s.%s());", putAllMethod(property), value, property.getGetterName());
+    code.addLine("if (%s instanceof %s && %s == %s.<%s, %s>of()) {",
+            value,
+            datatype.getValueType().getQualifiedName(),
+            property.getField(),
+            ImmutableBiMap.class,
+            keyType,
+            valueType)
+        .addLine("  %s = %s.copyOf(%s.%s());",
+            property.getField(), ImmutableBiMap.class, value, property.getGetterName())
+        .addLine("} else {")
+        .addLine("  %s(%s.%s());", putAllMethod(property), value, property.getGetterName())
+        .addLine("}");
   }
 
   @Override
@@ -428,6 +460,24 @@ class BiMapProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(appendingToCollections());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    if (code.feature(BUILDER_REUSE) != BuilderReuse.REUSABLE) {
+      // Adopt the built bimap; it will be copied if this builder is modified again
+      code.addLine("%s = %s;", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, putAllMethod(property), variable);
@@ -435,6 +485,10 @@ class BiMapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addClearField(SourceBuilder code) {
-    code.addLine("%s.clear();", property.getField());
+    code.addLine("if (%s instanceof %s) {", property.getField(), ImmutableBiMap.class)
+        .addLine("  %s = %s.of();", property.getField(), ImmutableBiMap.class)
+        .addLine("} else {")
+        .addLine("  %s.clear();", property.getField())
+        .addLine("}");
   }
 }
@@ -20,6 +20,8 @@ import static org.inferred.freebuilder.processor.BuilderFactory.TypeInference.EX
 import static org.inferred.freebuilder.processor.BuilderMethods.getBuilderMethod;
 import static org.inferred.freebuilder.processor.BuilderMethods.mutator;
 import static org.inferred.freebuilder.processor.BuilderMethods.setter;
+import static org.inferred.freebuilder.processor.model.ModelUtils.asElement;
+import static org.inferred.freebuilder.processor.model.ModelUtils.findAnnotationMirror;
 import static org.inferred.freebuilder.processor.model.ModelUtils.maybeAsTypeElement;
 import static org.inferred.freebuilder.processor.model.ModelUtils.maybeDeclared;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
@@ -27,6 +29,7 @@ import static org.inferred.freebuilder.processor.source.FunctionalType.functiona
 
 import com.google.common.collect.ImmutableSet;
 
+import org.inferred.freebuilder.FreeBuilder;
 import org.inferred.freebuilder.processor.BuildableType;
 import org.inferred.freebuilder.processor.BuildableType.MergeBuilderMethod;
 import org.inferred.freebuilder.processor.BuildableType.PartialToBuilderMethod;
@@ -75,22 +78,28 @@ class BuildableProperty extends PropertyCodeGenerator {
           config.getElements(),
           config.getTypes());
 
+      boolean isFreeBuilderType =
+          findAnnotationMirror(asElement(datatype), FreeBuilder.class).isPresent();
+
       return Optional.of(new BuildableProperty(
-          config.getDatatype(), config.getProperty(), type, mutatorType));
+          config.getDatatype(), config.getProperty(), type, mutatorType, isFreeBuilderType));
     }
   }
 
   private final BuildableType type;
   private final FunctionalType mutatorType;
+  private final boolean isFreeBuilderType;
 
   private BuildableProperty(
       Datatype datatype,
       Property property,
       BuildableType type,
-      FunctionalType mutatorType) {
+      FunctionalType mutatorType,
+      boolean isFreeBuilderType) {
     super(datatype, property);
     this.type = type;
     this.mutatorType = mutatorType;
+    this.isFreeBuilderType = isFreeBuilderType;
   }
 
   @Override
@@ -98,6 +107,11 @@ class BuildableProperty extends PropertyCodeGenerator {
     code.addLine("private final %s %s;", property.getType(), property.getField());
   }
 
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.of(Excerpts.add("%s", property.getType()));
+  }
+
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
     code.addLine("private Object %s = null;", property.getField());
@@ -301,6 +315,29 @@ class BuildableProperty extends PropertyCodeGenerator {
     return ImmutableSet.of();
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public boolean buildsValueForUnchangedCondition(SourceBuilder code) {
+    // A nested FreeBuilder builder may return its last value again if it is unchanged
+    return isFreeBuilderType;
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    code.addLine("if (%s == null) {", property.getField())
+        .addLine("  %s = %s;", property.getField(), property.getField().on(value))
+        .addLine("}");
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, setter(property), variable);
@@ -0,0 +1,106 @@
+package org.inferred.freebuilder.processor.property;
+
+import static org.inferred.freebuilder.processor.BuilderFactory.TypeInference.EXPLICIT_TYPES;
+import static org.inferred.freebuilder.processor.BuilderMethods.addMethod;
+import static org.inferred.freebuilder.processor.BuilderMethods.collectorMethod;
+import static org.inferred.freebuilder.processor.model.MethodFinder.methodsOn;
+import static org.inferred.freebuilder.processor.model.ModelUtils.asElement;
+import static org.inferred.freebuilder.processor.source.feature.BuilderCollectors.BUILDER_COLLECTORS;
+
+import org.inferred.freebuilder.processor.BuilderFactory;
+import org.inferred.freebuilder.processor.Datatype;
+import org.inferred.freebuilder.processor.property.PropertyCodeGenerator.Config;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.BooleanOption;
+import org.inferred.freebuilder.processor.source.feature.BuilderCollectors;
+
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/** Static {@link Collector} factories for collection properties. */
+class CollectorFactory {
+
+  /**
+   * Returns whether the builder can take a static {@code to<Property>()} collector factory for
+   * {@code config}'s property. {@link Object} and the user's builder may already declare a no-arg
+   * method of that name, e.g. {@code toString()} for a property called {@code string}, and a
+   * static {@code toBuilder()} would be mistaken for the value type's. On a clash, the factory is
+   * left out, with a note if collectors were requested.
+   */
+  static boolean collectorNameAvailable(Config config) {
+    String name = collectorMethod(config.getProperty());
+    boolean clashes = name.equals("toBuilder")
+        || Stream.concat(
+                ElementFilter.methodsIn(config.getElements()
+                    .getTypeElement(Object.class.getCanonicalName())
+                    .getEnclosedElements()).stream(),
+                methodsOn(asElement(config.getBuilder()), config.getElements(), errorType -> { })
+                    .stream())
+            .anyMatch(method -> isNoArgMethodNamed(method, name));
+    if (clashes && BooleanOption.parse(
+        config.getEnvironment().getOptions().get(BuilderCollectors.OPTION)).orElse(false)) {
+      config.getEnvironment().getMessager().printMessage(
+          Kind.NOTE,
+          "No collector factory generated for " + config.getProperty().getName() + ", as "
+              + name + "() would clash with an existing method",
+          config.getSourceElement());
+    }
+    return !clashes;
+  }
+
+  private static boolean isNoArgMethodNamed(ExecutableElement method, String name) {
+    return method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty();
+  }
+
+  /**
+   * Adds a static method returning a {@link Collector} that adds stream elements to {@code
+   * property} on a new builder, if {@link BuilderCollectors#GENERATED enabled}, and if the builder
+   * can be constructed.
+   *
+   * <p>The builders filled by each thread of a parallel stream are combined with
+   * {@code mergeFrom(Builder)}, which appends their collections in encounter order.
+   *
+   * @param collection the kind of collection the property holds, for the JavaDoc, e.g. "list"
+   */
+  static void addCollectorFactory(
+      SourceBuilder code,
+      Datatype datatype,
+      Property property,
+      TypeMirror elementType,
+      String collection) {
+    BuilderFactory builderFactory = datatype.getBuilderFactory().orElse(null);
+    if (code.feature(BUILDER_COLLECTORS) != BuilderCollectors.GENERATED
+        || builderFactory == null) {
+      return;
+    }
+    code.addLine("")
+        .addLine("/**")
+        .addLine(" * Returns a {@link %s} that adds each element to the %s to be returned from",
+            Collector.class, collection)
+        .addLine(" * %s, on a new builder.",
+            datatype.getType().javadocNoArgMethodLink(property.getGetterName()))
+        .addLine(" *")
+        .addLine(" * <p>Each thread of a parallel stream fills its own builder, and builders are")
+        .addLine(" * combined with {@code mergeFrom}, keeping the stream's encounter order.")
+        .addLine(" */")
+        .addLine("public static %s %s<%s, ?, %s> %s() {",
+            datatype.getType().declarationParameters(),
+            Collector.class,
+            elementType,
+            datatype.getBuilder(),
+            collectorMethod(property))
+        .addLine("  return %s.of(", Collector.class)
+        .addLine("      () -> %s,",
+            builderFactory.newBuilder(datatype.getBuilder(), EXPLICIT_TYPES))
+        .addLine("      (builder, element) -> builder.%s(element),", addMethod(property))
+        .addLine("      (builder, other) -> builder.mergeFrom(other));")
+        .addLine("}");
+  }
+
+  private CollectorFactory() {}
+}
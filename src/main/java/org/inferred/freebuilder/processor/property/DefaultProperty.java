@@ -29,10 +29,8 @@ import org.inferred.freebuilder.processor.Datatype;
 import org.inferred.freebuilder.processor.Declarations;
 import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.Excerpts;
-import org.inferred.freebuilder.processor.source.FieldAccess;
 import org.inferred.freebuilder.processor.source.FunctionalType;
 import org.inferred.freebuilder.processor.source.ObjectsExcerpts;
-import org.inferred.freebuilder.processor.source.PreconditionExcerpts;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Variable;
 
@@ -92,8 +90,6 @@ public class DefaultProperty extends PropertyCodeGenerator {
     }
   }
 
-  public static final FieldAccess UNSET_PROPERTIES = new FieldAccess("_unsetProperties");
-
   private final boolean hasDefault;
   private final FunctionalType mapperType;
   private final TypeKind kind;
@@ -119,6 +115,11 @@ public class DefaultProperty extends PropertyCodeGenerator {
     code.addLine("private final %s %s;", property.getType(), property.getField());
   }
 
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.of(Excerpts.add("%s", property.getType()));
+  }
+
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
     code.addLine("private %s %s;", property.getType(), property.getField());
@@ -152,8 +153,7 @@ public class DefaultProperty extends PropertyCodeGenerator {
           property.getField(), Objects.class, property.getName());
     }
     if (!hasDefault) {
-      code.addLine("  %s.remove(%s.%s);",
-          UNSET_PROPERTIES, datatype.getPropertyEnum(), property.getAllCapsName());
+      UnsetProperties.in(code).addMarkSet(code, property);
     }
     if ((datatype.getBuilder() == datatype.getGeneratedBuilder())) {
       code.addLine("  return this;");
@@ -179,7 +179,7 @@ public class DefaultProperty extends PropertyCodeGenerator {
       code.addLine(" * @throws IllegalStateException if the field has not been set");
     }
     code.addLine(" */")
-        .add("public %s %s(%s mapper) {",
+        .addLine("public %s %s(%s mapper) {",
             datatype.getBuilder(),
             mapper(property),
             mapperType.getFunctionalInterface());
@@ -203,12 +203,7 @@ public class DefaultProperty extends PropertyCodeGenerator {
     code.addLine(" */")
         .addLine("public %s %s() {", property.getType(), getter(property));
     if (!hasDefault) {
-      code.add(PreconditionExcerpts.checkState(
-          "!%s.contains(%s.%s)",
-          property.getName() + " not set",
-          UNSET_PROPERTIES,
-          datatype.getPropertyEnum(),
-          property.getAllCapsName()));
+      code.add(UnsetProperties.in(code).checkSet(property, property.getName() + " not set"));
     }
     code.addLine("  return %s;", property.getField())
         .addLine("}");
@@ -230,8 +225,7 @@ public class DefaultProperty extends PropertyCodeGenerator {
     if (defaults != null) {
       code.add("if (");
       if (!hasDefault) {
-        code.add("%s.contains(%s.%s) || ",
-            UNSET_PROPERTIES.on(defaults), datatype.getPropertyEnum(), property.getAllCapsName());
+        code.add("%s || ", UnsetProperties.in(code).isUnset(defaults, property));
       }
       code.add(ObjectsExcerpts.notEquals(
           Excerpts.add("%s.%s()", value, property.getGetterName()),
@@ -253,12 +247,9 @@ public class DefaultProperty extends PropertyCodeGenerator {
     if (defaults != null) {
       code.add("if (");
       if (!hasDefault) {
-        code.add("!%s.contains(%s.%s) && ",
-                UNSET_PROPERTIES.on(base), datatype.getPropertyEnum(), property.getAllCapsName())
-            .add("(%s.contains(%s.%s) ||",
-                UNSET_PROPERTIES.on(defaults),
-                datatype.getPropertyEnum(),
-                property.getAllCapsName());
+        UnsetProperties unsetProperties = UnsetProperties.in(code);
+        code.add("%s && ", unsetProperties.isSet(base, property))
+            .add("(%s || ", unsetProperties.isUnset(defaults, property));
       }
       code.add(ObjectsExcerpts.notEquals(
           Excerpts.add("%s.%s()", builder, getter(property)),
@@ -269,8 +260,7 @@ public class DefaultProperty extends PropertyCodeGenerator {
       }
       code.add(") {%n");
     } else if (!hasDefault) {
-      code.addLine("if (!%s.contains(%s.%s)) {",
-          UNSET_PROPERTIES.on(base), datatype.getPropertyEnum(), property.getAllCapsName());
+      code.addLine("if (%s) {", UnsetProperties.in(code).isSet(base, property));
     }
     code.addLine("  %s(%s.%s());", setter(property), builder, getter(property));
     if (defaults != null || !hasDefault) {
@@ -283,6 +273,17 @@ public class DefaultProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(hasDefault ? skippingDefaults() : skippingUnsetProperties());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add(ObjectsExcerpts.identical(
+        property.getField(), property.getField().on(value), kind));
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, setter(property), variable);
@@ -26,18 +26,26 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.maybeUnbox;
 import static org.inferred.freebuilder.processor.model.ModelUtils.needsSafeVarargs;
 import static org.inferred.freebuilder.processor.model.ModelUtils.overrides;
 import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.addCollectorFactory;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.collectorNameAvailable;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
+import static org.inferred.freebuilder.processor.source.feature.CollectionStorage.COLLECTION_STORAGE;
 import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
+import static org.inferred.freebuilder.processor.source.feature.ListStorage.LIST_STORAGE;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import org.inferred.freebuilder.processor.Datatype;
 import org.inferred.freebuilder.processor.Declarations;
 import org.inferred.freebuilder.processor.excerpt.CheckedList;
+import org.inferred.freebuilder.processor.excerpt.CompactCollections;
+import org.inferred.freebuilder.processor.excerpt.PrimitiveLists;
 import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.Excerpts;
 import org.inferred.freebuilder.processor.source.FunctionalType;
@@ -46,6 +54,9 @@ import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Type;
 import org.inferred.freebuilder.processor.source.ValueType;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
+import org.inferred.freebuilder.processor.source.feature.CollectionStorage;
+import org.inferred.freebuilder.processor.source.feature.ListStorage;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
@@ -57,10 +68,14 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 import java.util.stream.BaseStream;
 
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -100,7 +115,8 @@ class ListProperty extends PropertyCodeGenerator {
           overridesVarargsAddMethod,
           elementType,
           unboxedType,
-          mutatorType));
+          mutatorType,
+          collectorNameAvailable(config)));
     }
 
     private static boolean hasAddMethodOverride(Config config, TypeMirror elementType) {
@@ -131,12 +147,23 @@ class ListProperty extends PropertyCodeGenerator {
     }
   }
 
+  /** Primitive spliterators that can be drained without boxing, by element type. */
+  private static final ImmutableMap<TypeKind, Class<?>> PRIMITIVE_SPLITERATORS = ImmutableMap.of(
+      TypeKind.INT, Spliterator.OfInt.class,
+      TypeKind.LONG, Spliterator.OfLong.class,
+      TypeKind.DOUBLE, Spliterator.OfDouble.class);
+  private static final ImmutableMap<TypeKind, Class<?>> PRIMITIVE_CONSUMERS = ImmutableMap.of(
+      TypeKind.INT, IntConsumer.class,
+      TypeKind.LONG, LongConsumer.class,
+      TypeKind.DOUBLE, DoubleConsumer.class);
+
   private final boolean needsSafeVarargs;
   private final boolean overridesAddMethod;
   private final boolean overridesVarargsAddMethod;
   private final TypeMirror elementType;
   private final Optional<TypeMirror> unboxedType;
   private final FunctionalType mutatorType;
+  private final boolean hasCollectorFactory;
 
   @VisibleForTesting
   ListProperty(
@@ -147,7 +174,8 @@ class ListProperty extends PropertyCodeGenerator {
       boolean overridesVarargsAddMethod,
       TypeMirror elementType,
       Optional<TypeMirror> unboxedType,
-      FunctionalType mutatorType) {
+      FunctionalType mutatorType,
+      boolean hasCollectorFactory) {
     super(datatype, property);
     this.needsSafeVarargs = needsSafeVarargs;
     this.overridesAddMethod = overridesAddMethod;
@@ -155,19 +183,32 @@ class ListProperty extends PropertyCodeGenerator {
     this.elementType = elementType;
     this.unboxedType = unboxedType;
     this.mutatorType = mutatorType;
+    this.hasCollectorFactory = hasCollectorFactory;
   }
 
   @Override
   public void addValueFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %s<%s> %s;",
+    code.addLine("private final %s %s;", valueFieldType(code).get(), property.getField());
+  }
+
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    if (hasUnboxedStorage(code)) {
+      return Optional.of(Excerpts.add(
+          "%s", PrimitiveLists.immutableList(unboxedType.get().getKind())));
+    }
+    return Optional.of(Excerpts.add("%s<%s>",
         code.feature(GUAVA).isAvailable() ? ImmutableList.class : List.class,
-        elementType,
-        property.getField());
+        elementType));
   }
 
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
-    if (code.feature(GUAVA).isAvailable()) {
+    if (hasUnboxedStorage(code)) {
+      code.addLine("private final %1$s %2$s = new %1$s();",
+          PrimitiveLists.mutableList(unboxedType.get().getKind()),
+          property.getField());
+    } else if (code.feature(GUAVA).isAvailable()) {
       code.addLine("private %s<%s> %s = %s.of();",
           List.class,
           elementType,
@@ -191,6 +232,9 @@ class ListProperty extends PropertyCodeGenerator {
     addMutate(code);
     addClear(code);
     addGetter(code);
+    if (hasCollectorFactory) {
+      addCollectorFactory(code, datatype, property, elementType, "list");
+    }
   }
 
   private void addAdd(SourceBuilder code) {
@@ -206,6 +250,12 @@ class ListProperty extends PropertyCodeGenerator {
     code.addLine(" */")
         .addLine("public %s %s(%s element) {",
             datatype.getBuilder(), addMethod(property), unboxedType.orElse(elementType));
+    if (hasUnboxedStorage(code)) {
+      code.addLine("  %s.append(element);", property.getField())
+          .addLine("  return (%s) this;", datatype.getBuilder())
+          .addLine("}");
+      return;
+    }
     if (code.feature(GUAVA).isAvailable()) {
       code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableList.class)
           .addLine("    %1$s = new %2$s<>(%1$s);", property.getField(), ArrayList.class)
@@ -249,7 +299,10 @@ class ListProperty extends PropertyCodeGenerator {
             addMethod(property),
             unboxedType.orElse(elementType));
     Optional<Class<?>> arrayUtils = code.feature(GUAVA).arrayUtils(unboxedType.orElse(elementType));
-    if (arrayUtils.isPresent()) {
+    if (hasUnboxedStorage(code) && !overridesAddMethod) {
+      code.addLine("  %s.appendAll(elements);", property.getField())
+          .addLine("  return (%s) this;", datatype.getBuilder());
+    } else if (arrayUtils.isPresent() && !hasUnboxedStorage(code)) {
       code.addLine("  return %s(%s.asList(elements));", addAllMethod(property), arrayUtils.get());
     } else {
       // Primitive type, Guava not available
@@ -272,7 +325,9 @@ class ListProperty extends PropertyCodeGenerator {
         .addLine("  if ((elements.characteristics() & %s.SIZED) != 0) {", Spliterator.class)
         .addLine("    long elementsSize = elements.estimateSize();")
         .addLine("    if (elementsSize > 0 && elementsSize <= Integer.MAX_VALUE) {");
-    if (code.feature(GUAVA).isAvailable()) {
+    if (hasUnboxedStorage(code)) {
+      code.add("      %s", property.getField());
+    } else if (code.feature(GUAVA).isAvailable()) {
       code.addLine("      if (%s instanceof %s) {", property.getField(), ImmutableList.class)
           .addLine("        %1$s = new %2$s<>(%1$s);", property.getField(), ArrayList.class)
           .addLine("      }")
@@ -282,9 +337,19 @@ class ListProperty extends PropertyCodeGenerator {
     }
     code.add(".ensureCapacity(%s.size() + (int) elementsSize);%n", property.getField())
         .addLine("    }")
-        .addLine("  }")
-        .addLine("  elements.forEachRemaining(this::%s);", addMethod(property))
-        .addLine("  return (%s) this;", datatype.getBuilder())
+        .addLine("  }");
+    if (hasUnboxedStorage(code)) {
+      TypeKind kind = unboxedType.get().getKind();
+      code.addLine("  if (elements instanceof %s) {", PRIMITIVE_SPLITERATORS.get(kind))
+          .addLine("    ((%s) elements).forEachRemaining((%s) this::%s);",
+              PRIMITIVE_SPLITERATORS.get(kind), PRIMITIVE_CONSUMERS.get(kind), addMethod(property))
+          .addLine("  } else {")
+          .addLine("    elements.forEachRemaining(this::%s);", addMethod(property))
+          .addLine("  }");
+    } else {
+      code.addLine("  elements.forEachRemaining(this::%s);", addMethod(property));
+    }
+    code.addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
@@ -295,8 +360,16 @@ class ListProperty extends PropertyCodeGenerator {
             datatype.getBuilder(),
             addAllMethod(property),
             Iterable.class,
-            elementType)
-        .addLine("  return %s(elements.spliterator());", addAllMethod(property))
+            elementType);
+    if (code.feature(GUAVA).isAvailable() && !hasUnboxedStorage(code) && !overridesAddMethod) {
+      code.addLine("  if (elements instanceof %s && %s == %s.<%s>of()) {",
+              ImmutableList.class, property.getField(), ImmutableList.class, elementType)
+          .addLine("    // Adopt the immutable list; it will be copied if this builder is modified")
+          .addLine("    %s = %s.copyOf(elements);", property.getField(), ImmutableList.class)
+          .addLine("    return (%s) this;", datatype.getBuilder())
+          .addLine("  }");
+    }
+    code.addLine("  return %s(elements.spliterator());", addAllMethod(property))
         .addLine("}");
   }
 
@@ -341,7 +414,7 @@ class ListProperty extends PropertyCodeGenerator {
             datatype.getBuilder(),
             mutator(property),
             mutatorType.getFunctionalInterface());
-    if (code.feature(GUAVA).isAvailable()) {
+    if (code.feature(GUAVA).isAvailable() && !hasUnboxedStorage(code)) {
       code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableList.class)
           .addLine("    %1$s = new %2$s<>(%1$s);", property.getField(), ArrayList.class)
           .addLine("  }");
@@ -367,13 +440,14 @@ class ListProperty extends PropertyCodeGenerator {
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
         .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property));
-    if (code.feature(GUAVA).isAvailable()) {
+    boolean mayBeImmutable = code.feature(GUAVA).isAvailable() && !hasUnboxedStorage(code);
+    if (mayBeImmutable) {
       code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableList.class)
           .addLine("    %s = %s.of();", property.getField(), ImmutableList.class)
           .addLine("  } else {");
     }
     code.addLine("    %s.clear();", property.getField());
-    if (code.feature(GUAVA).isAvailable()) {
+    if (mayBeImmutable) {
       code.addLine("  }");
     }
     code.addLine("  return (%s) this;", datatype.getBuilder())
@@ -388,7 +462,7 @@ class ListProperty extends PropertyCodeGenerator {
         .addLine(" * Changes to this builder will be reflected in the view.")
         .addLine(" */")
         .addLine("public %s<%s> %s() {", List.class, elementType, getter(property));
-    if (code.feature(GUAVA).isAvailable()) {
+    if (code.feature(GUAVA).isAvailable() && !hasUnboxedStorage(code)) {
       code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableList.class)
           .addLine("    %1$s = new %2$s<>(%1$s);", property.getField(), ArrayList.class)
           .addLine("  }");
@@ -399,9 +473,18 @@ class ListProperty extends PropertyCodeGenerator {
 
   @Override
   public void addFinalFieldAssignment(SourceBuilder code, Excerpt finalField, String builder) {
+    if (hasUnboxedStorage(code)) {
+      code.addLine("%s = new %s(%s.toPrimitiveArray());",
+          finalField,
+          PrimitiveLists.immutableList(unboxedType.get().getKind()),
+          property.getField().on(builder));
+      return;
+    }
     Excerpt immutableListMethod;
     if (code.feature(GUAVA).isAvailable()) {
       immutableListMethod = Excerpts.add("%s.copyOf", ImmutableList.class);
+    } else if (code.feature(COLLECTION_STORAGE) == CollectionStorage.COMPACT) {
+      immutableListMethod = ImmutableListMethod.COMPACT_REFERENCE;
     } else {
       immutableListMethod = ImmutableListMethod.REFERENCE;
     }
@@ -410,7 +493,9 @@ class ListProperty extends PropertyCodeGenerator {
 
   @Override
   public void addAssignToBuilder(SourceBuilder code, Variable builder) {
-    if (code.feature(GUAVA).isAvailable()) {
+    if (hasUnboxedStorage(code)) {
+      code.add("%s.appendAll(%s.elements);", property.getField().on(builder), property.getField());
+    } else if (code.feature(GUAVA).isAvailable()) {
       code.add("%s = %s;", property.getField().on(builder), property.getField());
     } else {
       code.add("%s.addAll(%s);", property.getField().on(builder), property.getField());
@@ -419,6 +504,11 @@ class ListProperty extends PropertyCodeGenerator {
 
   @Override
   public void addMergeFromValue(SourceBuilder code, String value) {
+    if (hasUnboxedStorage(code)) {
+      // Spliterators of values' lists do not box, so elements are only boxed for other types
+      code.addLine("%s(%s.%s());", addAllMethod(property), value, property.getGetterName());
+      return;
+    }
     if (code.feature(GUAVA).isAvailable()) {
       code.addLine("if (%s instanceof %s && %s == %s.<%s>of()) {",
               value,
@@ -447,6 +537,24 @@ class ListProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(appendingToCollections());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return code.feature(GUAVA).isAvailable() && !hasUnboxedStorage(code);
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    if (code.feature(BUILDER_REUSE) != BuilderReuse.REUSABLE) {
+      // Adopt the built list; it will be copied if this builder is modified again
+      code.addLine("%s = %s;", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, addAllMethod(property), variable);
@@ -457,31 +565,55 @@ class ListProperty extends PropertyCodeGenerator {
     code.addLine("%s();", clearMethod(property));
   }
 
+  /**
+   * Returns whether elements are stored in a primitive array rather than boxed. This is not done
+   * for {@code ImmutableList} properties, whose getters must return a Guava list.
+   */
+  private boolean hasUnboxedStorage(SourceBuilder code) {
+    return unboxedType.isPresent()
+        && PrimitiveLists.isSupported(unboxedType.get().getKind())
+        && code.feature(LIST_STORAGE) == ListStorage.UNBOXED
+        && !erasesToAnyOf(maybeDeclared(property.getType()).get(), ImmutableList.class);
+  }
+
   private static class ImmutableListMethod extends ValueType implements Excerpt {
 
-    static final LazyName REFERENCE = LazyName.of("immutableList", new ImmutableListMethod());
+    static final LazyName REFERENCE = LazyName.of("immutableList", new ImmutableListMethod(false));
+    static final LazyName COMPACT_REFERENCE =
+        LazyName.of("immutableList", new ImmutableListMethod(true));
 
-    private ImmutableListMethod() {}
+    private final boolean compact;
+
+    private ImmutableListMethod(boolean compact) {
+      this.compact = compact;
+    }
 
     @Override
     public void addTo(SourceBuilder code) {
+      LazyName name = compact ? COMPACT_REFERENCE : REFERENCE;
       code.addLine("")
           .addLine("@%s(\"unchecked\")", SuppressWarnings.class)
-          .addLine("private static <E> %1$s<E> %2$s(%1$s<E> elements) {", List.class, REFERENCE)
+          .addLine("private static <E> %1$s<E> %2$s(%1$s<E> elements) {", List.class, name)
           .addLine("  switch (elements.size()) {")
           .addLine("  case 0:")
           .addLine("    return %s.emptyList();", Collections.class)
           .addLine("  case 1:")
           .addLine("    return %s.singletonList(elements.get(0));", Collections.class)
-          .addLine("  default:")
-          .addLine("    return (%1$s<E>)(%1$s<?>) %2$s.unmodifiableList(%3$s.asList(",
-              List.class, Collections.class, Arrays.class)
-          .addLine("        elements.toArray()));", Array.class)
-          .addLine("  }")
+          .addLine("  default:");
+      if (compact) {
+        code.addLine("    return new %s<>(elements.toArray());", CompactCollections.list());
+      } else {
+        code.addLine("    return (%1$s<E>)(%1$s<?>) %2$s.unmodifiableList(%3$s.asList(",
+                List.class, Collections.class, Arrays.class)
+            .addLine("        elements.toArray()));", Array.class);
+      }
+      code.addLine("  }")
           .addLine("}");
     }
 
     @Override
-    protected void addFields(FieldReceiver fields) {}
+    protected void addFields(FieldReceiver fields) {
+      fields.add("compact", compact);
+    }
   }
 }
@@ -29,6 +29,8 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
+import static org.inferred.freebuilder.processor.source.feature.CollectionStorage.COLLECTION_STORAGE;
 import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
 
 import com.google.common.collect.ImmutableMap;
@@ -37,6 +39,7 @@ import com.google.common.collect.ImmutableSet;
 import org.inferred.freebuilder.processor.Datatype;
 import org.inferred.freebuilder.processor.Declarations;
 import org.inferred.freebuilder.processor.excerpt.CheckedMap;
+import org.inferred.freebuilder.processor.excerpt.CompactCollections;
 import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.Excerpts;
 import org.inferred.freebuilder.processor.source.FunctionalType;
@@ -45,6 +48,8 @@ import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Type;
 import org.inferred.freebuilder.processor.source.ValueType;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
+import org.inferred.freebuilder.processor.source.feature.CollectionStorage;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -80,6 +85,7 @@ class MapProperty extends PropertyCodeGenerator {
       Optional<TypeMirror> unboxedValueType = maybeUnbox(valueType, config.getTypes());
       boolean overridesPutMethod = hasPutMethodOverride(
           config, unboxedKeyType.orElse(keyType), unboxedValueType.orElse(valueType));
+      boolean overridesPutAllMethod = hasPutAllMethodOverride(config);
 
       FunctionalType mutatorType = functionalTypeAcceptedByMethod(
           config.getBuilder(),
@@ -92,6 +98,7 @@ class MapProperty extends PropertyCodeGenerator {
           config.getDatatype(),
           property,
           overridesPutMethod,
+          overridesPutAllMethod,
           keyType,
           unboxedKeyType,
           valueType,
@@ -109,6 +116,14 @@ class MapProperty extends PropertyCodeGenerator {
           valueType);
     }
 
+    private static boolean hasPutAllMethodOverride(Config config) {
+      return overrides(
+          config.getBuilder(),
+          config.getTypes(),
+          putAllMethod(config.getProperty()),
+          config.getElements().getTypeElement(Map.class.getName()).asType());
+    }
+
     private static TypeMirror wildcardSuperMap(
         TypeMirror keyType,
         TypeMirror valueType,
@@ -120,6 +135,7 @@ class MapProperty extends PropertyCodeGenerator {
   }
 
   private final boolean overridesPutMethod;
+  private final boolean overridesPutAllMethod;
   private final TypeMirror keyType;
   private final Optional<TypeMirror> unboxedKeyType;
   private final TypeMirror valueType;
@@ -130,6 +146,7 @@ class MapProperty extends PropertyCodeGenerator {
       Datatype datatype,
       Property property,
       boolean overridesPutMethod,
+      boolean overridesPutAllMethod,
       TypeMirror keyType,
       Optional<TypeMirror> unboxedKeyType,
       TypeMirror valueType,
@@ -137,6 +154,7 @@ class MapProperty extends PropertyCodeGenerator {
       FunctionalType mutatorType) {
     super(datatype, property);
     this.overridesPutMethod = overridesPutMethod;
+    this.overridesPutAllMethod = overridesPutAllMethod;
     this.keyType = keyType;
     this.unboxedKeyType = unboxedKeyType;
     this.valueType = valueType;
@@ -146,20 +164,33 @@ class MapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addValueFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %s<%s, %s> %s;",
+    code.addLine("private final %s %s;", valueFieldType(code).get(), property.getField());
+  }
+
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.of(Excerpts.add("%s<%s, %s>",
         (code.feature(GUAVA).isAvailable()) ? ImmutableMap.class : Map.class,
         keyType,
-        valueType,
-        property.getField());
+        valueType));
   }
 
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %1$s<%2$s, %3$s> %4$s = new %1$s<>();",
-        LinkedHashMap.class,
-        keyType,
-        valueType,
-        property.getField());
+    if (code.feature(GUAVA).isAvailable()) {
+      code.addLine("private %s<%s, %s> %s = %s.of();",
+          Map.class,
+          keyType,
+          valueType,
+          property.getField(),
+          ImmutableMap.class);
+    } else {
+      code.addLine("private final %1$s<%2$s, %3$s> %4$s = new %1$s<>();",
+          LinkedHashMap.class,
+          keyType,
+          valueType,
+          property.getField());
+    }
   }
 
   @Override
@@ -205,6 +236,7 @@ class MapProperty extends PropertyCodeGenerator {
     if (!unboxedValueType.isPresent()) {
       code.addLine("  %s.requireNonNull(value);", Objects.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.put(key, value);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -226,15 +258,57 @@ class MapProperty extends PropertyCodeGenerator {
             putAllMethod(property),
             Map.class,
             keyType,
-            valueType)
-        .addLine("  for (%s<? extends %s, ? extends %s> entry : map.entrySet()) {",
-            Map.Entry.class, keyType, valueType)
-        .addLine("    %s(entry.getKey(), entry.getValue());", putMethod(property))
-        .addLine("  }")
+            valueType);
+    if (overridesPutMethod) {
+      code.addLine("  for (%s<? extends %s, ? extends %s> entry : map.entrySet()) {",
+              Map.Entry.class, keyType, valueType)
+          .addLine("    %s(entry.getKey(), entry.getValue());", putMethod(property))
+          .addLine("  }")
+          .addLine("  return (%s) this;", datatype.getBuilder())
+          .addLine("}");
+      return;
+    }
+    code.addLine("  // If %s is overridden, this method will be updated to delegate to it",
+        putMethod(property));
+    if (code.feature(GUAVA).isAvailable()) {
+      code.addLine("  if (map instanceof %s) {", ImmutableMap.class)
+          .addLine("    if (%s == %s.<%s, %s>of()) {",
+              property.getField(), ImmutableMap.class, keyType, valueType)
+          .addLine("      %s = %s.copyOf(map);", property.getField(), ImmutableMap.class)
+          .addLine("      return (%s) this;", datatype.getBuilder())
+          .addLine("    }")
+          .addLine("  } else {");
+      addNullChecks(code, "    ");
+      code.addLine("  }");
+    } else {
+      addNullChecks(code, "  ");
+    }
+    addConvertToMutable(code);
+    code.addLine("  %s.putAll(map);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
+  private void addNullChecks(SourceBuilder code, String indent) {
+    code.addLine("%sfor (%s<? extends %s, ? extends %s> entry : map.entrySet()) {",
+            indent, Map.Entry.class, keyType, valueType)
+        .addLine("%s  %s.requireNonNull(entry.getKey());", indent, Objects.class)
+        .addLine("%s  %s.requireNonNull(entry.getValue());", indent, Objects.class)
+        .addLine("%s}", indent);
+  }
+
+  /**
+   * Adds code replacing an immutable map adopted from a value or template with a mutable copy,
+   * prior to modification.
+   */
+  private void addConvertToMutable(SourceBuilder code) {
+    if (code.feature(GUAVA).isAvailable()) {
+      code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableMap.class)
+          .addLine("    %1$s = new %2$s<>(%1$s);", property.getField(), LinkedHashMap.class)
+          .addLine("  }");
+    }
+  }
+
   private void addRemove(SourceBuilder code) {
     code.addLine("")
         .addLine("/**")
@@ -254,6 +328,7 @@ class MapProperty extends PropertyCodeGenerator {
     if (!unboxedKeyType.isPresent()) {
       code.addLine("  %s.requireNonNull(key);", Objects.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.remove(key);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -277,6 +352,7 @@ class MapProperty extends PropertyCodeGenerator {
             datatype.getBuilder(),
             mutator(property),
             mutatorType.getFunctionalInterface());
+    addConvertToMutable(code);
     if (overridesPutMethod) {
       code.addLine("  mutator.%s(new %s<>(%s, this::%s));",
           mutatorType.getMethodName(), CheckedMap.TYPE, property.getField(), putMethod(property));
@@ -297,9 +373,17 @@ class MapProperty extends PropertyCodeGenerator {
         .addLine(" *")
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
-        .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property))
-        .addLine("  %s.clear();", property.getField())
-        .addLine("  return (%s) this;", datatype.getBuilder())
+        .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property));
+    if (code.feature(GUAVA).isAvailable()) {
+      code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableMap.class)
+          .addLine("    %s = %s.of();", property.getField(), ImmutableMap.class)
+          .addLine("  } else {")
+          .addLine("    %s.clear();", property.getField())
+          .addLine("  }");
+    } else {
+      code.addLine("  %s.clear();", property.getField());
+    }
+    code.addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
@@ -310,8 +394,9 @@ class MapProperty extends PropertyCodeGenerator {
         .addLine(" * %s.", datatype.getType().javadocNoArgMethodLink(property.getGetterName()))
         .addLine(" * Changes to this builder will be reflected in the view.")
         .addLine(" */")
-        .addLine("public %s<%s, %s> %s() {", Map.class, keyType, valueType, getter(property))
-        .addLine("  return %s.unmodifiableMap(%s);", Collections.class, property.getField())
+        .addLine("public %s<%s, %s> %s() {", Map.class, keyType, valueType, getter(property));
+    addConvertToMutable(code);
+    code.addLine("  return %s.unmodifiableMap(%s);", Collections.class, property.getField())
         .addLine("}");
   }
 
@@ -320,6 +405,8 @@ class MapProperty extends PropertyCodeGenerator {
     Excerpt immutableMapMethod;
     if (code.feature(GUAVA).isAvailable()) {
       immutableMapMethod = Excerpts.add("%s.copyOf", ImmutableMap.class);
+    } else if (code.feature(COLLECTION_STORAGE) == CollectionStorage.COMPACT) {
+      immutableMapMethod = ImmutableMapMethod.COMPACT_REFERENCE;
     } else {
       immutableMapMethod = ImmutableMapMethod.REFERENCE;
     }
@@ -328,18 +415,54 @@ class MapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addAssignToBuilder(SourceBuilder code, Variable builder) {
-    code.addLine("%s.putAll(%s);", property.getField().on(builder), property.getField());
+    if (code.feature(GUAVA).isAvailable()) {
+      code.addLine("%s = %s;", property.getField().on(builder), property.getField());
+    } else {
+      code.addLine("%s.putAll(%s);", property.getField().on(builder), property.getField());
+    }
   }
 
   @Override
   public void addMergeFromValue(SourceBuilder code, String value) {
-    code.addLine("%s(%s.%s());", putAllMethod(property), value, property.getGetterName());
+    if (!overridesPutMethod && !overridesPutAllMethod && !code.feature(GUAVA).isAvailable()) {
+      // Entries of a Value were checked when it was built, so can be copied in bulk. (With Guava,
+      // putAll already adopts or bulk-copies the ImmutableMap of a Value without checks.)
+      code.addLine("if (%s instanceof %s) {", value, datatype.getValueType().getQualifiedName())
+          .addLine("  %s.putAll(%s.%s());",
+              property.getField(), value, property.getGetterName())
+          .addLine("} else {")
+          .addLine("  %s(%s.%s());", putAllMethod(property), value, property.getGetterName())
+          .addLine("}");
+    } else {
+      code.addLine("%s(%s.%s());", putAllMethod(property), value, property.getGetterName());
+    }
   }
 
   @Override
   public void addMergeFromBuilder(SourceBuilder code, String builder) {
     Excerpt base = Declarations.upcastToGeneratedBuilder(code, datatype, builder);
-    code.addLine("%s(%s);", putAllMethod(property), property.getField().on(base));
+    if (overridesPutMethod || overridesPutAllMethod) {
+      code.addLine("%s(%s);", putAllMethod(property), property.getField().on(base));
+    } else if (code.feature(GUAVA).isAvailable()) {
+      // Entries of another builder were checked when they were added
+      code.addLine("if (%s == %s.<%s, %s>of() && %s instanceof %s) {",
+              property.getField(),
+              ImmutableMap.class,
+              keyType,
+              valueType,
+              property.getField().on(base),
+              ImmutableMap.class)
+          .addLine("  %s = %s;", property.getField(), property.getField().on(base))
+          .addLine("} else {")
+          .addLine("  if (%s instanceof %s) {", property.getField(), ImmutableMap.class)
+          .addLine("    %1$s = new %2$s<>(%1$s);", property.getField(), LinkedHashMap.class)
+          .addLine("  }")
+          .addLine("  %s.putAll(%s);", property.getField(), property.getField().on(base))
+          .addLine("}");
+    } else {
+      // Entries of another builder were checked when they were added
+      code.addLine("%s.putAll(%s);", property.getField(), property.getField().on(base));
+    }
   }
 
   @Override
@@ -347,6 +470,24 @@ class MapProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(appendingToCollections());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return code.feature(GUAVA).isAvailable();
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    if (code.feature(BUILDER_REUSE) != BuilderReuse.REUSABLE) {
+      // Adopt the built map; it will be copied if this builder is modified again
+      code.addLine("%s = %s;", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, putAllMethod(property), variable);
@@ -354,20 +495,35 @@ class MapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addClearField(SourceBuilder code) {
-    code.addLine("%s.clear();", property.getField());
+    if (code.feature(GUAVA).isAvailable()) {
+      code.addLine("if (%s instanceof %s) {", property.getField(), ImmutableMap.class)
+          .addLine("  %s = %s.of();", property.getField(), ImmutableMap.class)
+          .addLine("} else {")
+          .addLine("  %s.clear();", property.getField())
+          .addLine("}");
+    } else {
+      code.addLine("%s.clear();", property.getField());
+    }
   }
 
   private static class ImmutableMapMethod extends ValueType implements Excerpt {
 
-    static final LazyName REFERENCE = LazyName.of("immutableMap", new ImmutableMapMethod());
+    static final LazyName REFERENCE = LazyName.of("immutableMap", new ImmutableMapMethod(false));
+    static final LazyName COMPACT_REFERENCE =
+        LazyName.of("immutableMap", new ImmutableMapMethod(true));
 
-    private ImmutableMapMethod() {}
+    private final boolean compact;
+
+    private ImmutableMapMethod(boolean compact) {
+      this.compact = compact;
+    }
 
     @Override
     public void addTo(SourceBuilder code) {
+      LazyName name = compact ? COMPACT_REFERENCE : REFERENCE;
       code.addLine("")
           .addLine("private static <K, V> %1$s<K, V> %2$s(%1$s<K, V> entries) {",
-              Map.class, REFERENCE)
+              Map.class, name)
           .addLine("  switch (entries.size()) {")
           .addLine("  case 0:")
           .addLine("    return %s.emptyMap();", Collections.class)
@@ -375,14 +531,20 @@ class MapProperty extends PropertyCodeGenerator {
           .addLine("    %s<K, V> entry = entries.entrySet().iterator().next();", Map.Entry.class)
           .addLine("    return %s.singletonMap(entry.getKey(), entry.getValue());",
               Collections.class)
-          .addLine("  default:")
-          .addLine("    return %s.unmodifiableMap(new %s<>(entries));",
-              Collections.class, LinkedHashMap.class)
-          .addLine("  }")
+          .addLine("  default:");
+      if (compact) {
+        code.addLine("    return new %s<>(entries);", CompactCollections.map());
+      } else {
+        code.addLine("    return %s.unmodifiableMap(new %s<>(entries));",
+            Collections.class, LinkedHashMap.class);
+      }
+      code.addLine("  }")
           .addLine("}");
     }
 
     @Override
-    protected void addFields(FieldReceiver fields) {}
+    protected void addFields(FieldReceiver fields) {
+      fields.add("compact", compact);
+    }
   }
 }
@@ -28,9 +28,12 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.maybeUnbox;
 import static org.inferred.freebuilder.processor.model.ModelUtils.needsSafeVarargs;
 import static org.inferred.freebuilder.processor.model.ModelUtils.overrides;
 import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.addCollectorFactory;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.collectorNameAvailable;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMultiset;
@@ -47,6 +50,7 @@ import org.inferred.freebuilder.processor.source.FunctionalType;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Type;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -98,7 +102,8 @@ class MultisetProperty extends PropertyCodeGenerator {
           overridesVarargsAddMethod,
           elementType,
           unboxedType,
-          mutatorType));
+          mutatorType,
+          collectorNameAvailable(config)));
     }
 
     private static boolean hasSetCountMethodOverride(
@@ -134,6 +139,7 @@ class MultisetProperty extends PropertyCodeGenerator {
   private final TypeMirror elementType;
   private final Optional<TypeMirror> unboxedType;
   private final FunctionalType mutatorType;
+  private final boolean hasCollectorFactory;
 
   MultisetProperty(
       Datatype datatype,
@@ -143,7 +149,8 @@ class MultisetProperty extends PropertyCodeGenerator {
       boolean overridesVarargsAddMethod,
       TypeMirror elementType,
       Optional<TypeMirror> unboxedType,
-      FunctionalType mutatorType) {
+      FunctionalType mutatorType,
+      boolean hasCollectorFactory) {
     super(datatype, property);
     this.needsSafeVarargs = needsSafeVarargs;
     this.overridesSetCountMethod = overridesSetCountMethod;
@@ -151,6 +158,7 @@ class MultisetProperty extends PropertyCodeGenerator {
     this.elementType = elementType;
     this.unboxedType = unboxedType;
     this.mutatorType = mutatorType;
+    this.hasCollectorFactory = hasCollectorFactory;
   }
 
   @Override
@@ -161,8 +169,8 @@ class MultisetProperty extends PropertyCodeGenerator {
 
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %1$s<%2$s> %3$s = %1$s.create();",
-        LinkedHashMultiset.class, elementType, property.getField());
+    code.addLine("private %s<%s> %s = %s.of();",
+        Multiset.class, elementType, property.getField(), ImmutableMultiset.class);
   }
 
   @Override
@@ -177,6 +185,9 @@ class MultisetProperty extends PropertyCodeGenerator {
     addClear(code);
     addSetCountOf(code);
     addGetter(code);
+    if (hasCollectorFactory) {
+      addCollectorFactory(code, datatype, property, elementType, "multiset");
+    }
   }
 
   private void addAdd(SourceBuilder code) {
@@ -324,6 +335,7 @@ class MultisetProperty extends PropertyCodeGenerator {
             datatype.getBuilder(),
             mutator(property),
             mutatorType.getFunctionalInterface());
+    addConvertToMutable(code);
     if (overridesSetCountMethod) {
       code.addLine("  mutator.%s(new %s<>(%s, this::%s));",
           mutatorType.getMethodName(),
@@ -348,7 +360,11 @@ class MultisetProperty extends PropertyCodeGenerator {
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
         .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property))
-        .addLine("  %s.clear();", property.getField())
+        .addLine("  if (%s instanceof %s) {", property.getField(), ImmutableMultiset.class)
+        .addLine("    %s = %s.of();", property.getField(), ImmutableMultiset.class)
+        .addLine("  } else {")
+        .addLine("    %s.clear();", property.getField())
+        .addLine("  }")
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
@@ -374,11 +390,22 @@ class MultisetProperty extends PropertyCodeGenerator {
     if (!unboxedType.isPresent()) {
       code.addLine("  %s.checkNotNull(element);", Preconditions.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.setCount(element, occurrences);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
+  /**
+   * Adds code copying the multiset into a {@link LinkedHashMultiset} if it is still the
+   * {@link ImmutableMultiset} adopted from a value, so it can be modified.
+   */
+  private void addConvertToMutable(SourceBuilder code) {
+    code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableMultiset.class)
+        .addLine("    %1$s = %2$s.create(%1$s);", property.getField(), LinkedHashMultiset.class)
+        .addLine("  }");
+  }
+
   private void addGetter(SourceBuilder code) {
     code.addLine("")
         .addLine("/**")
@@ -386,8 +413,9 @@ class MultisetProperty extends PropertyCodeGenerator {
         .addLine(" * %s.", datatype.getType().javadocNoArgMethodLink(property.getGetterName()))
         .addLine(" * Changes to this builder will be reflected in the view.")
         .addLine(" */")
-        .addLine("public %s<%s> %s() {", Multiset.class, elementType, getter(property))
-        .addLine("  return %s.unmodifiableMultiset(%s);", Multisets.class, property.getField())
+        .addLine("public %s<%s> %s() {", Multiset.class, elementType, getter(property));
+    addConvertToMutable(code);
+    code.addLine("  return %s.unmodifiableMultiset(%s);", Multisets.class, property.getField())
         .addLine("}");
   }
 
@@ -399,12 +427,22 @@ class MultisetProperty extends PropertyCodeGenerator {
 
   @Override
   public void addAssignToBuilder(SourceBuilder code, Variable builder) {
-    code.addLine("%s.addAll(%s);", property.getField().on(builder), property.getField());
+    code.addLine("%s = %s;", property.getField().on(builder), property.getField());
   }
 
   @Override
   public void addMergeFromValue(SourceBuilder code, String value) {
-    code.addLine("%s(%s.%s());", addAllMethod(property), value, property.getGetterName());
+    code.addLine("if (%s instanceof %s && %s == %s.<%s>of()) {",
+            value,
+            datatype.getValueType().getQualifiedName(),
+            property.getField(),
+            ImmutableMultiset.class,
+            elementType)
+        .addLine("  %s = %s.copyOf(%s.%s());",
+            property.getField(), ImmutableMultiset.class, value, property.getGetterName())
+        .addLine("} else {")
+        .addLine("  %s(%s.%s());", addAllMethod(property), value, property.getGetterName())
+        .addLine("}");
   }
 
   @Override
@@ -418,6 +456,24 @@ class MultisetProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(appendingToCollections());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    if (code.feature(BUILDER_REUSE) != BuilderReuse.REUSABLE) {
+      // Adopt the built multiset; it will be copied if this builder is modified again
+      code.addLine("%s = %s;", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, addAllMethod(property), variable);
@@ -425,6 +481,10 @@ class MultisetProperty extends PropertyCodeGenerator {
 
   @Override
   public void addClearField(SourceBuilder code) {
-    code.addLine("%s.clear();", property.getField());
+    code.addLine("if (%s instanceof %s) {", property.getField(), ImmutableMultiset.class)
+        .addLine("  %s = %s.of();", property.getField(), ImmutableMultiset.class)
+        .addLine("} else {")
+        .addLine("  %s.clear();", property.getField())
+        .addLine("}");
   }
 }
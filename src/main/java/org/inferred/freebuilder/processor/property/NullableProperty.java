@@ -103,6 +103,11 @@ class NullableProperty extends PropertyCodeGenerator {
     code.add("private final %s %s;%n", property.getType(), property.getField());
   }
 
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.of(Excerpts.add("%s", property.getType()));
+  }
+
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
     addGetterAnnotations(code);
@@ -220,6 +225,16 @@ class NullableProperty extends PropertyCodeGenerator {
     }
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, setter(property), variable);
@@ -34,6 +34,7 @@ import com.google.common.collect.ImmutableSet;
 import org.inferred.freebuilder.processor.Datatype;
 import org.inferred.freebuilder.processor.Declarations;
 import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.Excerpts;
 import org.inferred.freebuilder.processor.source.FunctionalType;
 import org.inferred.freebuilder.processor.source.QualifiedName;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
@@ -202,6 +203,11 @@ class OptionalProperty extends PropertyCodeGenerator {
         .addLine("private final %s %s;", elementType, property.getField());
   }
 
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.of(Excerpts.add("%s", elementType));
+  }
+
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
     code.addLine("// Store a nullable object instead of an Optional. Escape analysis then")
@@ -371,6 +377,16 @@ class OptionalProperty extends PropertyCodeGenerator {
     code.add("%s.%s(%s)", optional.cls, optional.ofNullable, finalField);
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, setter(property), variable);
@@ -14,19 +14,23 @@ import static org.inferred.freebuilder.processor.source.FunctionalType.functiona
 import static org.inferred.freebuilder.processor.source.FunctionalType.isAssignable;
 import static org.inferred.freebuilder.processor.source.FunctionalType.primitiveUnaryOperator;
 import static org.inferred.freebuilder.processor.source.FunctionalType.unaryOperator;
+import static org.inferred.freebuilder.processor.source.feature.OptionalStorage.OPTIONAL_STORAGE;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 
 import org.inferred.freebuilder.processor.Datatype;
 import org.inferred.freebuilder.processor.Declarations;
-import org.inferred.freebuilder.processor.model.MethodIntrospector;
 import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.Excerpts;
+import org.inferred.freebuilder.processor.source.FieldAccess;
 import org.inferred.freebuilder.processor.source.FunctionalType;
+import org.inferred.freebuilder.processor.source.ObjectsExcerpts;
 import org.inferred.freebuilder.processor.source.QualifiedName;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.TypeClass;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.OptionalStorage;
 
 import java.util.Arrays;
 import java.util.List;
@@ -104,7 +108,7 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
       if (override == null) {
         return;
       }
-      MethodIntrospector.instance(config.getEnvironment())
+      config.getMethodIntrospector()
           .visitAllOwnMethodInvocations(override, (methodName, logger) -> {
             if (setter(config.getProperty()).contentEquals(methodName)) {
               logger.logMessage(Kind.ERROR, "Infinite recursive loop detected");
@@ -139,6 +143,8 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
   private final OptionalType optional;
   private final Optional<FunctionalType> primitiveOperator;
   private final Optional<FunctionalType> optionalOperator;
+  /** Whether the value is present, if the optional is stored {@link OptionalStorage#UNBOXED}. */
+  private final FieldAccess presentField;
 
   @VisibleForTesting
   PrimitiveOptionalProperty(
@@ -151,6 +157,7 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
     this.optional = optional;
     this.primitiveOperator = primitiveOperator;
     this.optionalOperator = optionalOperator;
+    this.presentField = new FieldAccess("_" + property.getName() + "Present");
   }
 
   @Override
@@ -160,12 +167,37 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
 
   @Override
   public void addValueFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %s %s;", optional.type, property.getField());
+    if (isUnboxed(code)) {
+      code.addLine("// Store a primitive and a presence flag instead of an %s, so no",
+              optional.type.getSimpleName())
+          .addLine("// optional is allocated until our getter method is called. The primitive")
+          .addLine("// is always zero if the value is absent.")
+          .addLine("private final %s %s;", optional.primitiveType, property.getField())
+          .addLine("private final boolean %s;", presentField);
+    } else {
+      code.addLine("private final %s %s;", optional.type, property.getField());
+    }
+  }
+
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    if (isUnboxed(code)) {
+      return Optional.empty();
+    }
+    return Optional.of(Excerpts.add("%s", optional.type));
   }
 
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
-    code.addLine("private %1$s %2$s = %1$s.empty();", optional.type, property.getField());
+    if (isUnboxed(code)) {
+      code.addLine("// Store a primitive and a presence flag instead of an %s, so no",
+              optional.type.getSimpleName())
+          .addLine("// optional is allocated by our setter methods.")
+          .addLine("private %s %s = 0;", optional.primitiveType, property.getField())
+          .addLine("private boolean %s = false;", presentField);
+    } else {
+      code.addLine("private %1$s %2$s = %1$s.empty();", optional.type, property.getField());
+    }
   }
 
   @Override
@@ -187,9 +219,14 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
         .addLine("public %s %s(%s %s) {",
-            datatype.getBuilder(), setter(property), optional.primitiveType, property.getName())
-        .addLine("  %s = %s.of(%s);", property.getField(), optional.type, property.getName())
-        .addLine("  return (%s) this;", datatype.getBuilder())
+            datatype.getBuilder(), setter(property), optional.primitiveType, property.getName());
+    if (isUnboxed(code)) {
+      code.addLine("  %s = %s;", property.getField(), property.getName())
+          .addLine("  %s = true;", presentField);
+    } else {
+      code.addLine("  %s = %s.of(%s);", property.getField(), optional.type, property.getName());
+    }
+    code.addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
@@ -232,7 +269,24 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
             datatype.getBuilder(), mapper(property), mapperType.getFunctionalInterface())
         .addLine("  %s.requireNonNull(mapper);", Objects.class);
     Variable value = new Variable("value");
-    if (mapperType.canReturnNull()) {
+    if (isUnboxed(code)) {
+      code.addLine("  if (%s) {", presentField);
+      if (mapperType.canReturnNull()) {
+        Variable result = new Variable("result");
+        code.addLine("    %s %s = mapper.%s(%s);",
+                wrap(optional.primitiveType), result, mapperType.getMethodName(),
+                property.getField())
+            .addLine("    if (%s != null) {", result)
+            .addLine("      %s(%s);", setter(property), result)
+            .addLine("    } else {")
+            .addLine("      %s();", clearMethod(property))
+            .addLine("    }");
+      } else {
+        code.addLine("    %s(mapper.%s(%s));",
+            setter(property), mapperType.getMethodName(), property.getField());
+      }
+      code.addLine("  }");
+    } else if (mapperType.canReturnNull()) {
       Variable result = new Variable("result");
       code.addLine("  %s.ifPresent(%s -> {", property.getField(), value)
           .addLine("    %s %s = mapper.%s(%s);",
@@ -277,9 +331,14 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
         .addLine(" *")
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
-        .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property))
-        .addLine("  %s = %s.empty();", property.getField(), optional.type)
-        .addLine("  return (%s) this;", datatype.getBuilder())
+        .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property));
+    if (isUnboxed(code)) {
+      code.addLine("  %s = 0;", property.getField())
+          .addLine("  %s = false;", presentField);
+    } else {
+      code.addLine("  %s = %s.empty();", property.getField(), optional.type);
+    }
+    code.addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
@@ -289,29 +348,95 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
         .addLine(" * Returns the value that will be returned by %s.",
             datatype.getType().javadocNoArgMethodLink(property.getGetterName()))
         .addLine(" */")
-        .addLine("public %s %s() {", property.getType(), getter(property))
-        .addLine("  return %s;", property.getField())
-        .addLine("}");
+        .addLine("public %s %s() {", property.getType(), getter(property));
+    if (isUnboxed(code)) {
+      code.addLine("  return %s;", (Excerpt) this::addOptionalFromFields);
+    } else {
+      code.addLine("  return %s;", property.getField());
+    }
+    code.addLine("}");
   }
 
   @Override
   public void addFinalFieldAssignment(SourceBuilder code, Excerpt finalField, String builder) {
     code.addLine("%s = %s;", finalField, property.getField().on(builder));
+    if (isUnboxed(code)) {
+      code.addLine("%s = %s;", presentField.on("this"), presentField.on(builder));
+    }
   }
 
   @Override
   public void addAssignToBuilder(SourceBuilder code, Variable builder) {
     code.addLine("%s = %s;", property.getField().on(builder), property.getField());
+    if (isUnboxed(code)) {
+      code.addLine("%s = %s;", presentField.on(builder), presentField);
+    }
+  }
+
+  @Override
+  public void addReadValueFragment(SourceBuilder code, Excerpt finalField) {
+    if (isUnboxed(code)) {
+      addOptionalFromFields(code);
+    } else {
+      super.addReadValueFragment(code, finalField);
+    }
+  }
+
+  @Override
+  public void addEqualsCondition(SourceBuilder code, String other) {
+    if (isUnboxed(code)) {
+      code.add(ObjectsExcerpts.equals(
+              property.getField(), property.getField().on(other), optional.primitiveKind))
+          .add(" && %s == %s", presentField, presentField.on(other));
+    } else {
+      super.addEqualsCondition(code, other);
+    }
+  }
+
+  @Override
+  public void addHashCodeValue(SourceBuilder code) {
+    if (isUnboxed(code)) {
+      // The primitive is zero if absent, so this matches the hash code of the boxed optional.
+      code.add(ObjectsExcerpts.hashCode(property.getField(), optional.primitiveKind));
+    } else {
+      super.addHashCodeValue(code);
+    }
   }
 
   @Override
   public void addMergeFromValue(SourceBuilder code, String value) {
-    code.addLine("%s.%s().ifPresent(this::%s);", value, property.getGetterName(), setter(property));
+    if (isUnboxed(code)) {
+      // Read the fields of our own value type directly, so no optional is allocated
+      Variable other = new Variable("other");
+      code.addLine("if (%s instanceof %s) {", value, datatype.getValueType().getQualifiedName())
+          .addLine("  %1$s %2$s = (%1$s) %3$s;",
+              datatype.getValueType().withWildcards(), other, value);
+      addSetIfPresent(code, "  ", other);
+      code.addLine("} else {")
+          .addLine("  %s.%s().ifPresent(this::%s);",
+              value, property.getGetterName(), setter(property))
+          .addLine("}");
+    } else {
+      code.addLine("%s.%s().ifPresent(this::%s);",
+          value, property.getGetterName(), setter(property));
+    }
   }
 
   @Override
   public void addMergeFromBuilder(SourceBuilder code, String builder) {
-    code.addLine("%s.%s().ifPresent(this::%s);", builder, getter(property), setter(property));
+    if (isUnboxed(code)) {
+      Excerpt base = Declarations.upcastToGeneratedBuilder(code, datatype, builder);
+      addSetIfPresent(code, "", base);
+    } else {
+      code.addLine("%s.%s().ifPresent(this::%s);", builder, getter(property), setter(property));
+    }
+  }
+
+  /** Adds code calling the primitive setter if the unboxed optional in {@code source} is set. */
+  private void addSetIfPresent(SourceBuilder code, String indent, Excerpt source) {
+    code.addLine("%sif (%s) {", indent, presentField.on(source))
+        .addLine("%s  %s(%s);", indent, setter(property), property.getField().on(source))
+        .addLine("%s}", indent);
   }
 
   @Override
@@ -319,6 +444,22 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(skippingEmptyOptionals());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    if (isUnboxed(code)) {
+      code.add("%s == %s && ", presentField, presentField.on(value))
+          .add(ObjectsExcerpts.identical(
+              property.getField(), property.getField().on(value), optional.primitiveKind));
+    } else {
+      code.add("%s == %s", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, setter(property), variable);
@@ -329,6 +470,12 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
     Optional<Variable> defaults = Declarations.freshBuilder(code, datatype);
     if (defaults.isPresent()) {
       code.addLine("%s = %s;", property.getField(), property.getField().on(defaults.get()));
+      if (isUnboxed(code)) {
+        code.addLine("%s = %s;", presentField, presentField.on(defaults.get()));
+      }
+    } else if (isUnboxed(code)) {
+      code.addLine("%s = 0;", property.getField())
+          .addLine("%s = false;", presentField);
     } else {
       code.addLine("%s = %s.empty();", property.getField(), optional.type);
     }
@@ -336,11 +483,29 @@ public class PrimitiveOptionalProperty extends PropertyCodeGenerator {
 
   @Override
   public void addToStringCondition(SourceBuilder code) {
-    code.add("%s.isPresent()", property.getField());
+    if (isUnboxed(code)) {
+      code.add(presentField);
+    } else {
+      code.add("%s.isPresent()", property.getField());
+    }
   }
 
   @Override
   public void addToStringValue(SourceBuilder code) {
-    code.add("%s.%s()", property.getField(), optional.getter);
+    if (isUnboxed(code)) {
+      code.add(property.getField());
+    } else {
+      code.add("%s.%s()", property.getField(), optional.getter);
+    }
+  }
+
+  private static boolean isUnboxed(SourceBuilder code) {
+    return code.feature(OPTIONAL_STORAGE) == OptionalStorage.UNBOXED;
+  }
+
+  /** Adds an expression creating the optional from its unboxed primitive and presence flag. */
+  private void addOptionalFromFields(SourceBuilder code) {
+    code.add("(%s ? %s.of(%s) : %s.empty())",
+        presentField, optional.type, property.getField(), optional.type);
   }
 }
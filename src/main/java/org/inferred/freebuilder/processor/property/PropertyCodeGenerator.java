@@ -23,7 +23,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import org.inferred.freebuilder.processor.Datatype;
+import org.inferred.freebuilder.processor.model.MethodIntrospector;
 import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.ObjectsExcerpts;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Variable;
 
@@ -73,6 +75,9 @@ public abstract class PropertyCodeGenerator {
     /** The compiler's {@link ProcessingEnvironment} implementation. */
     ProcessingEnvironment getEnvironment();
 
+    /** The {@link MethodIntrospector} for the compiler's environment. */
+    MethodIntrospector getMethodIntrospector();
+
     /** The compiler's {@link Elements} implementation. */
     Elements getElements();
 
@@ -137,6 +142,15 @@ public abstract class PropertyCodeGenerator {
   /** Add the field declaration for the property to the value's source code. */
   public abstract void addValueFieldDeclaration(SourceBuilder code);
 
+  /**
+   * Returns the type of the property's field on the value type, if it is stored in exactly one
+   * field that {@link #addFinalFieldAssignment} assigns, letting the value type be declared as a
+   * record. By default, it is not, and the value type will be a class.
+   */
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.empty();
+  }
+
   /** Add the field declaration for the property to the builder's source code. */
   public abstract void addBuilderFieldDeclaration(SourceBuilder code);
 
@@ -177,6 +191,55 @@ public abstract class PropertyCodeGenerator {
     code.add("%s", finalField);
   }
 
+  /**
+   * Adds a condition testing whether the property's field on the Value/Partial type equals the
+   * field on {@code other}, for the equals method.
+   */
+  public void addEqualsCondition(SourceBuilder code, String other) {
+    code.add(ObjectsExcerpts.equals(
+        property.getField(), property.getField().on(other), property.getType().getKind()));
+  }
+
+  /** Adds the hash code of the property's field on the Value/Partial type. */
+  public void addHashCodeValue(SourceBuilder code) {
+    code.add(ObjectsExcerpts.hashCode(property.getField(), property.getType().getKind()));
+  }
+
+  /**
+   * Returns whether {@link #addUnchangedCondition} can tell if the builder still holds the state
+   * a value was built from without comparing contents. By default, it cannot, and build() will not
+   * be memoized.
+   */
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return false;
+  }
+
+  /**
+   * Adds a condition testing whether the builder's field still holds exactly the state
+   * {@code value}'s field was built from, for a memoized build method.
+   *
+   * @throws IllegalStateException if {@link #hasUnchangedCondition} is false
+   */
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    throw new IllegalStateException(property.getName() + " cannot be checked for changes");
+  }
+
+  /**
+   * Returns whether a memoized build method must build the property's final value before it can
+   * tell if the builder is unchanged. If so, {@link #addUnchangedCondition} is not used; instead,
+   * the value assigned by {@link #addFinalFieldAssignment} is compared to {@code value}'s field by
+   * reference, then passed to the value type, so it is not built twice. By default, it need not.
+   */
+  public boolean buildsValueForUnchangedCondition(SourceBuilder code) {
+    return false;
+  }
+
+  /**
+   * Adds statements run by a memoized build method once it has created {@code value}, letting the
+   * builder share the value's state until it is next modified.
+   */
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {}
+
   /** Adds a set call for the property from a function result to the builder's source code. */
   public abstract void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable);
 
@@ -30,6 +30,7 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
@@ -46,6 +47,7 @@ import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.FunctionalType;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
 
 import java.util.Collection;
 import java.util.Map.Entry;
@@ -150,8 +152,8 @@ class SetMultimapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addBuilderFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %1$s<%2$s, %3$s> %4$s = %1$s.create();",
-        LinkedHashMultimap.class, keyType, valueType, property.getField());
+    code.addLine("private %s<%s, %s> %s = %s.of();",
+        SetMultimap.class, keyType, valueType, property.getField(), ImmutableSetMultimap.class);
   }
 
   @Override
@@ -200,6 +202,7 @@ class SetMultimapProperty extends PropertyCodeGenerator {
     if (!unboxedValueType.isPresent()) {
       code.addLine("  %s.checkNotNull(value);", Preconditions.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.put(key, value);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -296,6 +299,7 @@ class SetMultimapProperty extends PropertyCodeGenerator {
     if (!unboxedValueType.isPresent()) {
       code.addLine("  %s.checkNotNull(value);", Preconditions.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.remove(key, value);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -320,6 +324,7 @@ class SetMultimapProperty extends PropertyCodeGenerator {
     if (!unboxedKeyType.isPresent()) {
       code.addLine("  %s.checkNotNull(key);", Preconditions.class);
     }
+    addConvertToMutable(code);
     code.addLine("  %s.removeAll(key);", property.getField())
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
@@ -341,6 +346,7 @@ class SetMultimapProperty extends PropertyCodeGenerator {
             datatype.getBuilder(),
             mutator(property),
             mutatorType.getFunctionalInterface());
+    addConvertToMutable(code);
     if (overridesPutMethod) {
       code.addLine("  mutator.%s(new %s<>(%s, this::%s));",
           mutatorType.getMethodName(),
@@ -365,11 +371,25 @@ class SetMultimapProperty extends PropertyCodeGenerator {
         .addLine(" * @return this {@code %s} object", datatype.getBuilder().getSimpleName())
         .addLine(" */")
         .addLine("public %s %s() {", datatype.getBuilder(), clearMethod(property))
-        .addLine("  %s.clear();", property.getField())
+        .addLine("  if (%s instanceof %s) {", property.getField(), ImmutableSetMultimap.class)
+        .addLine("    %s = %s.of();", property.getField(), ImmutableSetMultimap.class)
+        .addLine("  } else {")
+        .addLine("    %s.clear();", property.getField())
+        .addLine("  }")
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
 
+  /**
+   * Adds code copying the multimap into a {@link LinkedHashMultimap} if it is still the
+   * {@link ImmutableSetMultimap} adopted from a value, so it can be modified.
+   */
+  private void addConvertToMutable(SourceBuilder code) {
+    code.addLine("  if (%s instanceof %s) {", property.getField(), ImmutableSetMultimap.class)
+        .addLine("    %1$s = %2$s.create(%1$s);", property.getField(), LinkedHashMultimap.class)
+        .addLine("  }");
+  }
+
   private void addGetter(SourceBuilder code) {
     code.addLine("")
         .addLine("/**")
@@ -381,8 +401,9 @@ class SetMultimapProperty extends PropertyCodeGenerator {
             SetMultimap.class,
             keyType,
             valueType,
-            getter(property))
-        .addLine("  return %s.unmodifiableSetMultimap(%s);",
+            getter(property));
+    addConvertToMutable(code);
+    code.addLine("  return %s.unmodifiableSetMultimap(%s);",
             Multimaps.class, property.getField())
         .addLine("}");
   }
@@ -395,12 +416,23 @@ class SetMultimapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addAssignToBuilder(SourceBuilder code, Variable builder) {
-    code.addLine("%s.putAll(%s);", property.getField().on(builder), property.getField());
+    code.addLine("%s = %s;", property.getField().on(builder), property.getField());
   }
 
   @Override
   public void addMergeFromValue(SourceBuilder code, String value) {
-    code.addLine("%s(%s.%s());", putAllMethod(property), value, property.getGetterName());
+    code.addLine("if (%s instanceof %s && %s == %s.<%s, %s>of()) {",
+            value,
+            datatype.getValueType().getQualifiedName(),
+            property.getField(),
+            ImmutableSetMultimap.class,
+            keyType,
+            valueType)
+        .addLine("  %s = %s.copyOf(%s.%s());",
+            property.getField(), ImmutableSetMultimap.class, value, property.getGetterName())
+        .addLine("} else {")
+        .addLine("  %s(%s.%s());", putAllMethod(property), value, property.getGetterName())
+        .addLine("}");
   }
 
   @Override
@@ -414,6 +446,24 @@ class SetMultimapProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(appendingToCollections());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return true;
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    if (code.feature(BUILDER_REUSE) != BuilderReuse.REUSABLE) {
+      // Adopt the built multimap; it will be copied if this builder is modified again
+      code.addLine("%s = %s;", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, putAllMethod(property), variable);
@@ -421,6 +471,10 @@ class SetMultimapProperty extends PropertyCodeGenerator {
 
   @Override
   public void addClearField(SourceBuilder code) {
-    code.addLine("%s.clear();", property.getField());
+    code.addLine("if (%s instanceof %s) {", property.getField(), ImmutableSetMultimap.class)
+        .addLine("  %s = %s.of();", property.getField(), ImmutableSetMultimap.class)
+        .addLine("} else {")
+        .addLine("  %s.clear();", property.getField())
+        .addLine("}");
   }
 }
@@ -27,9 +27,13 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.maybeUnbox;
 import static org.inferred.freebuilder.processor.model.ModelUtils.needsSafeVarargs;
 import static org.inferred.freebuilder.processor.model.ModelUtils.overrides;
 import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.addCollectorFactory;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.collectorNameAvailable;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
+import static org.inferred.freebuilder.processor.source.feature.CollectionStorage.COLLECTION_STORAGE;
 import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
 
 import com.google.common.collect.ImmutableSet;
@@ -37,6 +41,7 @@ import com.google.common.collect.ImmutableSet;
 import org.inferred.freebuilder.processor.Datatype;
 import org.inferred.freebuilder.processor.Declarations;
 import org.inferred.freebuilder.processor.excerpt.CheckedSet;
+import org.inferred.freebuilder.processor.excerpt.CompactCollections;
 import org.inferred.freebuilder.processor.source.Excerpt;
 import org.inferred.freebuilder.processor.source.Excerpts;
 import org.inferred.freebuilder.processor.source.FunctionalType;
@@ -45,6 +50,8 @@ import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.Type;
 import org.inferred.freebuilder.processor.source.ValueType;
 import org.inferred.freebuilder.processor.source.Variable;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
+import org.inferred.freebuilder.processor.source.feature.CollectionStorage;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -97,7 +104,8 @@ class SetProperty extends PropertyCodeGenerator {
           mutatorType,
           needsSafeVarargs,
           overridesAddMethod,
-          overridesVarargsAddMethod));
+          overridesVarargsAddMethod,
+          collectorNameAvailable(config)));
     }
 
     private static boolean hasAddMethodOverride(Config config, TypeMirror elementType) {
@@ -131,6 +139,7 @@ class SetProperty extends PropertyCodeGenerator {
   private final boolean needsSafeVarargs;
   private final boolean overridesAddMethod;
   private final boolean overridesVarargsAddMethod;
+  private final boolean hasCollectorFactory;
 
   SetProperty(
       Datatype datatype,
@@ -140,7 +149,8 @@ class SetProperty extends PropertyCodeGenerator {
       FunctionalType mutatorType,
       boolean needsSafeVarargs,
       boolean overridesAddMethod,
-      boolean overridesVarargsAddMethod) {
+      boolean overridesVarargsAddMethod,
+      boolean hasCollectorFactory) {
     super(datatype, property);
     this.elementType = elementType;
     this.unboxedType = unboxedType;
@@ -148,14 +158,19 @@ class SetProperty extends PropertyCodeGenerator {
     this.needsSafeVarargs = needsSafeVarargs;
     this.overridesAddMethod = overridesAddMethod;
     this.overridesVarargsAddMethod = overridesVarargsAddMethod;
+    this.hasCollectorFactory = hasCollectorFactory;
   }
 
   @Override
   public void addValueFieldDeclaration(SourceBuilder code) {
-    code.addLine("private final %s<%s> %s;",
-          code.feature(GUAVA).isAvailable() ? ImmutableSet.class : Set.class,
-          elementType,
-          property.getField());
+    code.addLine("private final %s %s;", valueFieldType(code).get(), property.getField());
+  }
+
+  @Override
+  public Optional<Excerpt> valueFieldType(SourceBuilder code) {
+    return Optional.of(Excerpts.add("%s<%s>",
+        code.feature(GUAVA).isAvailable() ? ImmutableSet.class : Set.class,
+        elementType));
   }
 
   @Override
@@ -180,6 +195,9 @@ class SetProperty extends PropertyCodeGenerator {
     addMutator(code);
     addClear(code);
     addGetter(code);
+    if (hasCollectorFactory) {
+      addCollectorFactory(code, datatype, property, elementType, "set");
+    }
   }
 
   private void addAdd(SourceBuilder code) {
@@ -287,8 +305,16 @@ class SetProperty extends PropertyCodeGenerator {
             datatype.getBuilder(),
             addAllMethod(property),
             Iterable.class,
-            elementType)
-        .addLine("  elements.forEach(this::%s);", addMethod(property))
+            elementType);
+    if (code.feature(GUAVA).isAvailable() && !overridesAddMethod) {
+      code.addLine("  if (elements instanceof %s && %s == %s.<%s>of()) {",
+              ImmutableSet.class, property.getField(), ImmutableSet.class, elementType)
+          .addLine("    // Adopt the immutable set; it will be copied if this builder is modified")
+          .addLine("    %s = %s.copyOf(elements);", property.getField(), ImmutableSet.class)
+          .addLine("    return (%s) this;", datatype.getBuilder())
+          .addLine("  }");
+    }
+    code.addLine("  elements.forEach(this::%s);", addMethod(property))
         .addLine("  return (%s) this;", datatype.getBuilder())
         .addLine("}");
   }
@@ -418,6 +444,8 @@ class SetProperty extends PropertyCodeGenerator {
     Excerpt immutableSetMethod;
     if (code.feature(GUAVA).isAvailable()) {
       immutableSetMethod = Excerpts.add("%s.copyOf", ImmutableSet.class);
+    } else if (code.feature(COLLECTION_STORAGE) == CollectionStorage.COMPACT) {
+      immutableSetMethod = ImmutableSetMethod.COMPACT_REFERENCE;
     } else {
       immutableSetMethod = ImmutableSetMethod.REFERENCE;
     }
@@ -463,6 +491,24 @@ class SetProperty extends PropertyCodeGenerator {
     return ImmutableSet.of(appendingToCollections());
   }
 
+  @Override
+  public boolean hasUnchangedCondition(SourceBuilder code) {
+    return code.feature(GUAVA).isAvailable();
+  }
+
+  @Override
+  public void addUnchangedCondition(SourceBuilder code, Excerpt value) {
+    code.add("%s == %s", property.getField(), property.getField().on(value));
+  }
+
+  @Override
+  public void addShareBuiltState(SourceBuilder code, Excerpt value) {
+    if (code.feature(BUILDER_REUSE) != BuilderReuse.REUSABLE) {
+      // Adopt the built set; it will be copied if this builder is modified again
+      code.addLine("%s = %s;", property.getField(), property.getField().on(value));
+    }
+  }
+
   @Override
   public void addSetFromResult(SourceBuilder code, Excerpt builder, Excerpt variable) {
     code.addLine("%s.%s(%s);", builder, addAllMethod(property), variable);
@@ -475,27 +521,40 @@ class SetProperty extends PropertyCodeGenerator {
 
   private static class ImmutableSetMethod extends ValueType implements Excerpt {
 
-    static final LazyName REFERENCE = LazyName.of("immutableSet", new ImmutableSetMethod());
+    static final LazyName REFERENCE = LazyName.of("immutableSet", new ImmutableSetMethod(false));
+    static final LazyName COMPACT_REFERENCE =
+        LazyName.of("immutableSet", new ImmutableSetMethod(true));
 
-    private ImmutableSetMethod() {}
+    private final boolean compact;
+
+    private ImmutableSetMethod(boolean compact) {
+      this.compact = compact;
+    }
 
     @Override
     public void addTo(SourceBuilder code) {
+      LazyName name = compact ? COMPACT_REFERENCE : REFERENCE;
       code.addLine("")
-          .addLine("private static <E> %1$s<E> %2$s(%1$s<E> elements) {", Set.class, REFERENCE)
+          .addLine("private static <E> %1$s<E> %2$s(%1$s<E> elements) {", Set.class, name)
           .addLine("  switch (elements.size()) {")
           .addLine("  case 0:")
           .addLine("    return %s.emptySet();", Collections.class)
           .addLine("  case 1:")
           .addLine("    return %s.singleton(elements.iterator().next());", Collections.class)
-          .addLine("  default:")
-          .addLine("    return %s.unmodifiableSet(new %s<>(elements));",
-              Collections.class, LinkedHashSet.class)
-          .addLine("  }")
+          .addLine("  default:");
+      if (compact) {
+        code.addLine("    return new %s<>(elements.toArray());", CompactCollections.set());
+      } else {
+        code.addLine("    return %s.unmodifiableSet(new %s<>(elements));",
+            Collections.class, LinkedHashSet.class);
+      }
+      code.addLine("  }")
           .addLine("}");
     }
 
     @Override
-    protected void addFields(FieldReceiver fields) {}
+    protected void addFields(FieldReceiver fields) {
+      fields.add("compact", compact);
+    }
   }
 }
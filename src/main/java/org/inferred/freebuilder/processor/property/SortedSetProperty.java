@@ -28,6 +28,8 @@ import static org.inferred.freebuilder.processor.model.ModelUtils.maybeUnbox;
 import static org.inferred.freebuilder.processor.model.ModelUtils.needsSafeVarargs;
 import static org.inferred.freebuilder.processor.model.ModelUtils.overrides;
 import static org.inferred.freebuilder.processor.model.ModelUtils.upperBound;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.addCollectorFactory;
+import static org.inferred.freebuilder.processor.property.CollectorFactory.collectorNameAvailable;
 import static org.inferred.freebuilder.processor.property.MergeAction.appendingToCollections;
 import static org.inferred.freebuilder.processor.source.FunctionalType.consumer;
 import static org.inferred.freebuilder.processor.source.FunctionalType.functionalTypeAcceptedByMethod;
@@ -100,7 +102,8 @@ class SortedSetProperty extends PropertyCodeGenerator {
           mutatorType,
           needsSafeVarargs,
           overridesAddMethod,
-          overridesVarargsAddMethod));
+          overridesVarargsAddMethod,
+          collectorNameAvailable(config)));
     }
 
     private static boolean hasAddMethodOverride(Config config, TypeMirror elementType) {
@@ -134,6 +137,7 @@ class SortedSetProperty extends PropertyCodeGenerator {
   private final boolean needsSafeVarargs;
   private final boolean overridesAddMethod;
   private final boolean overridesVarargsAddMethod;
+  private final boolean hasCollectorFactory;
 
   SortedSetProperty(
       Datatype datatype,
@@ -143,7 +147,8 @@ class SortedSetProperty extends PropertyCodeGenerator {
       FunctionalType mutatorType,
       boolean needsSafeVarargs,
       boolean overridesAddMethod,
-      boolean overridesVarargsAddMethod) {
+      boolean overridesVarargsAddMethod,
+      boolean hasCollectorFactory) {
     super(datatype, property);
     this.elementType = elementType;
     this.unboxedType = unboxedType;
@@ -151,6 +156,7 @@ class SortedSetProperty extends PropertyCodeGenerator {
     this.needsSafeVarargs = needsSafeVarargs;
     this.overridesAddMethod = overridesAddMethod;
     this.overridesVarargsAddMethod = overridesVarargsAddMethod;
+    this.hasCollectorFactory = hasCollectorFactory;
   }
 
   @Override
@@ -178,6 +184,9 @@ class SortedSetProperty extends PropertyCodeGenerator {
     addMutator(code);
     addClear(code);
     addGetter(code);
+    if (hasCollectorFactory) {
+      addCollectorFactory(code, datatype, property, elementType, "set");
+    }
   }
 
   private void addSetComparator(SourceBuilder code) {
@@ -0,0 +1,261 @@
+package org.inferred.freebuilder.processor.property;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableList;
+
+import org.inferred.freebuilder.processor.Datatype;
+import org.inferred.freebuilder.processor.property.PropertyCodeGenerator.Initially;
+import org.inferred.freebuilder.processor.source.Excerpt;
+import org.inferred.freebuilder.processor.source.Excerpts;
+import org.inferred.freebuilder.processor.source.FieldAccess;
+import org.inferred.freebuilder.processor.source.ObjectsExcerpts;
+import org.inferred.freebuilder.processor.source.PreconditionExcerpts;
+import org.inferred.freebuilder.processor.source.Scope;
+import org.inferred.freebuilder.processor.source.Scope.Level;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.TypeClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.type.TypeKind;
+
+/**
+ * Code generation for tracking which required properties have not been set on a builder.
+ *
+ * <p>Each required property is assigned a bit in an {@code _unsetProperties} field. Up to 32
+ * properties are packed into an int; beyond that, as many long fields as necessary are used.
+ * Setting, testing and copying the unset state are thus simple bit operations, and the generated
+ * property enum is only needed to describe unset properties in error messages.
+ */
+public class UnsetProperties {
+
+  private enum Key implements Scope.Key<UnsetProperties> {
+    INSTANCE;
+
+    @Override
+    public Level level() {
+      return Level.FILE;
+    }
+  }
+
+  private static final String FIELD_NAME = "_unsetProperties";
+
+  /**
+   * Returns the unset property tracking for a builder with the given property code generators.
+   */
+  public static UnsetProperties of(
+      Datatype datatype, Map<Property, PropertyCodeGenerator> generatorsByProperty) {
+    List<Property> properties = generatorsByProperty.entrySet()
+        .stream()
+        .filter(entry -> entry.getValue().initialState() == Initially.REQUIRED)
+        .map(Map.Entry::getKey)
+        .collect(toList());
+    return new UnsetProperties(datatype.getPropertyEnum(), properties);
+  }
+
+  /**
+   * Returns the unset property tracking registered for the builder currently being generated.
+   *
+   * @throws IllegalStateException if no tracking has been {@link #register registered}
+   */
+  public static UnsetProperties in(SourceBuilder code) {
+    UnsetProperties unsetProperties = code.scope().get(Key.INSTANCE);
+    checkState(unsetProperties != null, "No unset properties registered");
+    return unsetProperties;
+  }
+
+  private final TypeClass propertyEnum;
+  private final List<Property> properties;
+  private final TypeKind kind;
+  private final int bitsPerField;
+  private final List<FieldAccess> fields;
+
+  private UnsetProperties(TypeClass propertyEnum, List<Property> properties) {
+    this.propertyEnum = propertyEnum;
+    this.properties = ImmutableList.copyOf(properties);
+    this.kind = (properties.size() <= Integer.SIZE) ? TypeKind.INT : TypeKind.LONG;
+    this.bitsPerField = (kind == TypeKind.INT) ? Integer.SIZE : Long.SIZE;
+    ImmutableList.Builder<FieldAccess> fields = ImmutableList.builder();
+    for (int i = 0; i * bitsPerField < properties.size(); i++) {
+      fields.add(new FieldAccess(FIELD_NAME + (i == 0 ? "" : Integer.toString(i + 1))));
+    }
+    this.fields = fields.build();
+  }
+
+  /** Registers this tracking for use by property code generators in the current file. */
+  public void register(SourceBuilder code) {
+    code.scope().putIfAbsent(Key.INSTANCE, this);
+  }
+
+  /** Returns whether there are no required properties to track. */
+  public boolean isEmpty() {
+    return properties.isEmpty();
+  }
+
+  /** Adds declarations of the builder fields, initialized with every property unset. */
+  public void addBuilderFieldDeclarations(SourceBuilder code) {
+    for (int i = 0; i < fields.size(); i++) {
+      int bits = Math.min(bitsPerField, properties.size() - i * bitsPerField);
+      long mask = (bits == Long.SIZE) ? -1L : (1L << bits) - 1;
+      code.addLine("private %s %s = %s;", typeName(), fields.get(i), literal(mask));
+    }
+  }
+
+  /** Adds declarations of the final fields of a partial value. */
+  public void addPartialFieldDeclarations(SourceBuilder code) {
+    for (FieldAccess field : fields) {
+      code.addLine("private final %s %s;", typeName(), field);
+    }
+  }
+
+  /** Returns an excerpt that is true if {@code property} is unset on {@code instance}. */
+  public Excerpt isUnset(Object instance, Property property) {
+    return Excerpts.add("(%s & %s) != 0", field(instance, property), mask(property));
+  }
+
+  /** Returns an excerpt that is true if {@code property} is unset on {@code this}. */
+  public Excerpt isUnset(Property property) {
+    return Excerpts.add("(%s & %s) != 0", field(property), mask(property));
+  }
+
+  /** Returns an excerpt that is true if {@code property} has been set on {@code instance}. */
+  public Excerpt isSet(Object instance, Property property) {
+    return Excerpts.add("(%s & %s) == 0", field(instance, property), mask(property));
+  }
+
+  /** Returns an excerpt that is true if {@code property} has been set on {@code this}. */
+  public Excerpt isSet(Property property) {
+    return Excerpts.add("(%s & %s) == 0", field(property), mask(property));
+  }
+
+  /**
+   * Returns an excerpt checking that {@code property} has been set on {@code this}, throwing an
+   * IllegalStateException with {@code message} if not.
+   */
+  public Excerpt checkSet(Property property, String message) {
+    return PreconditionExcerpts.checkState(
+        "(%s & %s) == 0", message, field(property), mask(property));
+  }
+
+  /** Returns an excerpt that is true if any property is unset on {@code this}. */
+  public Excerpt anyUnset() {
+    return Excerpts.join(" || ", fields.stream()
+        .map(field -> Excerpts.add("%s != 0", field))
+        .collect(toList()));
+  }
+
+  /** Adds a statement marking {@code property} as set on {@code this}. */
+  public void addMarkSet(SourceBuilder code, Property property) {
+    code.addLine("%s &= ~%s;", field(property), mask(property));
+  }
+
+  /** Adds statements marking every property as set on {@code instance}. */
+  public void addMarkAllSet(SourceBuilder code, Object instance) {
+    for (FieldAccess field : fields) {
+      code.addLine("%s = 0;", field.on(instance));
+    }
+  }
+
+  /** Adds statements copying the unset properties of {@code from} to {@code to}. */
+  public void addCopy(SourceBuilder code, Object from, Object to) {
+    for (FieldAccess field : fields) {
+      code.addLine("%s = %s;", field.on(to), field.on(from));
+    }
+  }
+
+  /**
+   * Adds statements copying the unset properties of {@code from} to the fields of {@code this}.
+   */
+  public void addCopyFrom(SourceBuilder code, Object from) {
+    for (FieldAccess field : fields) {
+      code.addLine("%s = %s;", field, field.on(from));
+    }
+  }
+
+  /** Returns excerpts comparing the fields of {@code this} and {@code other} for equality. */
+  public List<Excerpt> fieldEquals(Object other) {
+    return fields.stream()
+        .map(field -> ObjectsExcerpts.equals(field, field.on(other), kind))
+        .collect(toList());
+  }
+
+  /** Returns excerpts hashing the fields of {@code this}. */
+  public List<Excerpt> fieldHashCodes() {
+    return fields.stream()
+        .map(field -> ObjectsExcerpts.hashCode(field, kind))
+        .collect(toList());
+  }
+
+  /**
+   * Adds a check that every property has been set on {@code this}, throwing an
+   * IllegalStateException listing the unset properties if not.
+   */
+  public void addCheckAllSet(SourceBuilder code) {
+    code.addLine("if (%s) {", anyUnset())
+        .addLine("  throw new %s(\"Not set: \" + %s.unset(%s));",
+            IllegalStateException.class, propertyEnum, Excerpts.join(", ", fields))
+        .addLine("}");
+  }
+
+  /**
+   * Adds a static method to the property enum, returning the properties whose bits are set in
+   * its arguments.
+   */
+  public void addUnsetMethod(SourceBuilder code) {
+    code.addLine("")
+        .addLine("  private static %s<%s> unset(%s%s unsetProperties) {",
+            List.class,
+            propertyEnum.getSimpleName(),
+            typeName(),
+            (kind == TypeKind.LONG) ? "..." : "")
+        .addLine("    %s<%s> result = new %s<>();",
+            List.class, propertyEnum.getSimpleName(), ArrayList.class)
+        .addLine("    for (%1$s property : %1$s.values()) {", propertyEnum.getSimpleName());
+    if (kind == TypeKind.INT) {
+      code.addLine("      if ((unsetProperties & (1 << property.ordinal())) != 0) {");
+    } else {
+      code.addLine("      if ((unsetProperties[property.ordinal() / %s]"
+          + " & (1L << property.ordinal())) != 0) {", Long.SIZE);
+    }
+    code.addLine("        result.add(property);")
+        .addLine("      }")
+        .addLine("    }")
+        .addLine("    return result;")
+        .addLine("  }");
+  }
+
+  private Excerpt field(Object instance, Property property) {
+    return fields.get(index(property) / bitsPerField).on(instance);
+  }
+
+  private FieldAccess field(Property property) {
+    return fields.get(index(property) / bitsPerField);
+  }
+
+  private Excerpt mask(Property property) {
+    return Excerpts.add("%s", literal(1L << (index(property) % bitsPerField)));
+  }
+
+  private int index(Property property) {
+    int index = properties.indexOf(property);
+    checkState(index >= 0, "%s is not a required property", property.getName());
+    return index;
+  }
+
+  private String typeName() {
+    return (kind == TypeKind.INT) ? "int" : "long";
+  }
+
+  private String literal(long value) {
+    if (kind == TypeKind.INT) {
+      return "0x" + Integer.toHexString((int) value);
+    } else {
+      return "0x" + Long.toHexString(value) + "L";
+    }
+  }
+}
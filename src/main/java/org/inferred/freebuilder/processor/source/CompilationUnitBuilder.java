@@ -19,10 +19,10 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getLast;
 
 import static org.inferred.freebuilder.processor.source.ImportManager.shortenReferences;
+import static org.inferred.freebuilder.processor.source.feature.SourceFormat.SOURCE_FORMAT;
 
 import static java.util.stream.Collectors.joining;
 
-import com.google.googlejavaformat.java.Formatter;
 import com.google.googlejavaformat.java.FormatterException;
 
 import org.inferred.freebuilder.processor.source.ScopeHandler.Reflection;
@@ -30,10 +30,12 @@ import org.inferred.freebuilder.processor.source.ScopeHandler.Visibility;
 import org.inferred.freebuilder.processor.source.feature.Feature;
 import org.inferred.freebuilder.processor.source.feature.FeatureSet;
 import org.inferred.freebuilder.processor.source.feature.FeatureType;
+import org.inferred.freebuilder.processor.source.feature.SourceFormat;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /** Internals of {@code SourceBuilder}, handling source parsing and type shortening. */
 class CompilationUnitBuilder implements QualifiedNameAppendable, SourceParser.EventHandler {
@@ -134,9 +136,8 @@ class CompilationUnitBuilder implements QualifiedNameAppendable, SourceParser.Ev
 
   @Override
   public void append(CharSequence csq, int start, int end) {
-    for (int i = start; i < end; i++) {
-      append(csq.charAt(i));
-    }
+    source.append(csq, start, end);
+    parser.parse(csq, start, end);
   }
 
   @Override
@@ -159,10 +160,24 @@ class CompilationUnitBuilder implements QualifiedNameAppendable, SourceParser.Ev
 
   @Override
   public String toString() {
+    return deferFormatting().get();
+  }
+
+  /**
+   * Returns a supplier of the final source, identical to {@link #toString()}.
+   *
+   * <p>Type references and the {@link SourceFormat} are resolved against the compiler's model
+   * and options before this method returns; formatting is deferred to the supplier, which is
+   * thread-safe.
+   */
+  public Supplier<String> deferFormatting() {
     if (importsIndex == -1) {
-      return formatSnippet(source, usages);
+      String snippet = formatSnippet(source, usages);
+      return () -> snippet;
     } else {
-      return formatSource(shortenReferences(source, pkg, importsIndex, usages, scopeHandler));
+      String shortened = shortenReferences(source, pkg, importsIndex, usages, scopeHandler);
+      SourceFormat format = features.get(SOURCE_FORMAT);
+      return () -> formatSource(format, shortened);
     }
   }
 
@@ -178,9 +193,9 @@ class CompilationUnitBuilder implements QualifiedNameAppendable, SourceParser.Ev
     return snippet.toString();
   }
 
-  private static String formatSource(String source) {
+  private static String formatSource(SourceFormat format, String source) {
     try {
-      return new Formatter().formatSource(source);
+      return format.format(source);
     } catch (FormatterException | RuntimeException e) {
       StringBuilder message = new StringBuilder()
           .append("Formatter failed:\n")
@@ -34,9 +34,21 @@ public class FilerUtils {
       Filer filer,
       SourceBuilder unit,
       Element originatingElement) throws IOException {
-    String typename = unit.typename().toString();
-    String finalSource = unit.toString();
-    try (Writer writer = filer.createSourceFile(typename, originatingElement).openWriter()) {
+    writeCompilationUnit(filer, unit.typename(), unit.toString(), originatingElement);
+  }
+
+  /**
+   * Writes {@code source}, the already-rendered source of {@code typename}, to the correct file.
+   *
+   * @see #writeCompilationUnit(Filer, SourceBuilder, Element)
+   */
+  public static void writeCompilationUnit(
+      Filer filer,
+      QualifiedName typename,
+      String finalSource,
+      Element originatingElement) throws IOException {
+    try (Writer writer = filer.createSourceFile(typename.toString(), originatingElement)
+        .openWriter()) {
       writer.append(finalSource);
     }
   }
@@ -13,12 +13,19 @@ import static java.util.stream.Collectors.toList;
 import static javax.lang.model.element.Modifier.ABSTRACT;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+
+import org.inferred.freebuilder.processor.model.MethodFinder.ErrorTypeHandling;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 import java.util.function.DoubleUnaryOperator;
 import java.util.function.IntUnaryOperator;
@@ -145,21 +152,86 @@ public class FunctionalType extends ValueType {
         .orElse(prototype);
   }
 
-  /** Returns the functional types accepted by {@code methodName} on {@code type}. */
+  /**
+   * Returns the functional types accepted by {@code methodName} on {@code type}.
+   *
+   * <p>If called while a {@link #cacheAcceptedTypes cache} is open, the result is memoized, unless
+   * an error type was found while looking it up.
+   */
   public static List<FunctionalType> functionalTypesAcceptedByMethod(
       DeclaredType type,
       String methodName,
       Elements elements,
       Types types) {
+    AcceptedTypesCache cache = ACCEPTED_TYPES_CACHES.get(elements);
+    if (cache == null) {
+      return findFunctionalTypesAcceptedByMethod(
+          type, methodName, elements, types, errorType -> { });
+    }
+    Map<String, List<FunctionalType>> acceptedTypes =
+        cache.acceptedTypes.computeIfAbsent(type, t -> new HashMap<>());
+    List<FunctionalType> result = acceptedTypes.get(methodName);
+    if (result == null) {
+      boolean[] sawErrorType = { false };
+      result = findFunctionalTypesAcceptedByMethod(
+          type, methodName, elements, types, errorType -> sawErrorType[0] = true);
+      if (!sawErrorType[0]) {
+        acceptedTypes.put(methodName, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Memoizes {@link #functionalTypesAcceptedByMethod} until the returned cache is closed, keyed
+   * on the type and method name. The methods of a user's builder are looked up again for almost
+   * every property, while its hierarchy cannot change until the next processing round. Lookups
+   * that found an error type are not memoized.
+   *
+   * <p>The cache is not thread-safe, so must only be used on the processor thread.
+   */
+  public static AcceptedTypesCache cacheAcceptedTypes(Elements elements) {
+    AcceptedTypesCache cache = new AcceptedTypesCache(elements);
+    ACCEPTED_TYPES_CACHES.put(elements, cache);
+    return cache;
+  }
+
+  /** Returned by {@link #cacheAcceptedTypes(Elements)}. */
+  public static final class AcceptedTypesCache implements AutoCloseable {
+    private final Elements elements;
+    private final Map<DeclaredType, Map<String, List<FunctionalType>>> acceptedTypes =
+        new IdentityHashMap<>();
+
+    private AcceptedTypesCache(Elements elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    public void close() {
+      ACCEPTED_TYPES_CACHES.remove(elements, this);
+    }
+  }
+
+  private static final ConcurrentMap<Elements, AcceptedTypesCache> ACCEPTED_TYPES_CACHES =
+      new MapMaker().weakKeys().makeMap();
+
+  private static List<FunctionalType> findFunctionalTypesAcceptedByMethod(
+      DeclaredType type,
+      String methodName,
+      Elements elements,
+      Types types,
+      ErrorTypeHandling<RuntimeException> errorTypeHandling) {
     TypeElement typeElement = asElement(type);
-    return methodsOn(typeElement, elements, errorType -> { })
+    return methodsOn(typeElement, elements, errorTypeHandling)
         .stream()
         .filter(method -> method.getSimpleName().contentEquals(methodName)
             && method.getParameters().size() == 1)
         .flatMap(method -> {
           ExecutableType methodType = (ExecutableType) types.asMemberOf(type, method);
           TypeMirror parameter = getOnlyElement(methodType.getParameterTypes());
-          return maybeFunctionalType(parameter, elements, types)
+          return maybeDeclared(parameter)
+              .flatMap(declaredType -> maybeFunctionalType(
+                  declaredType, elements, types, errorTypeHandling))
               .map(Stream::of).orElse(Stream.of());
         })
         .collect(toList());
@@ -177,12 +249,20 @@ public class FunctionalType extends ValueType {
       DeclaredType type,
       Elements elements,
       Types types) {
+    return maybeFunctionalType(type, elements, types, errorType -> { });
+  }
+
+  private static Optional<FunctionalType> maybeFunctionalType(
+      DeclaredType type,
+      Elements elements,
+      Types types,
+      ErrorTypeHandling<RuntimeException> errorTypeHandling) {
     TypeElement typeElement = asElement(type);
     if (!typeElement.getKind().isInterface()) {
       return Optional.empty();
     }
     Set<ExecutableElement> abstractMethods =
-        only(ABSTRACT, methodsOn(typeElement, elements, errorType -> { }));
+        only(ABSTRACT, methodsOn(typeElement, elements, errorTypeHandling));
     if (abstractMethods.size() != 1) {
       return Optional.empty();
     }
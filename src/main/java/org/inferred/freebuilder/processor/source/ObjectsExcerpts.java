@@ -51,5 +51,63 @@ public class ObjectsExcerpts {
     }
   }
 
+  /**
+   * Returns an Excerpt that is true if {@code a} and {@code b} are the same object, or the same
+   * primitive value bit for bit.
+   */
+  public static Excerpt identical(Object a, Object b, TypeKind kind) {
+    switch (kind) {
+      case FLOAT:
+        return code -> code.add("%1$s.floatToRawIntBits(%2$s) == %1$s.floatToRawIntBits(%3$s)",
+            Float.class, a, b);
+
+      case DOUBLE:
+        return code -> code.add(
+            "%1$s.doubleToRawLongBits(%2$s) == %1$s.doubleToRawLongBits(%3$s)",
+            Double.class, a, b);
+
+      default:
+        return code -> code.add("%s == %s", a, b);
+    }
+  }
+
+  /**
+   * Returns an Excerpt equivalent to {@code Objects.hashCode(a)}.
+   *
+   * <p>Uses the static hashCode methods on the wrapper types for primitive types, as this avoids
+   * boxing. The result is the same as calling hashCode on the boxed value.
+   */
+  public static Excerpt hashCode(Object a, TypeKind kind) {
+    switch (kind) {
+      case BOOLEAN:
+        return code -> code.add("%s.hashCode(%s)", Boolean.class, a);
+
+      case BYTE:
+        return code -> code.add("%s.hashCode(%s)", Byte.class, a);
+
+      case SHORT:
+        return code -> code.add("%s.hashCode(%s)", Short.class, a);
+
+      case INT:
+        return code -> code.add("%s.hashCode(%s)", Integer.class, a);
+
+      case LONG:
+        return code -> code.add("%s.hashCode(%s)", Long.class, a);
+
+      case CHAR:
+        return code -> code.add("%s.hashCode(%s)", Character.class, a);
+
+      case FLOAT:
+        return code -> code.add("%s.hashCode(%s)", Float.class, a);
+
+      case DOUBLE:
+        return code -> code.add("%s.hashCode(%s)", Double.class, a);
+
+      default:
+        Preconditions.checkState(!kind.isPrimitive(), "Unexpected primitive type " + kind);
+        return code -> code.add("%s.hashCode(%s)", Objects.class, a);
+    }
+  }
+
   private ObjectsExcerpts() {}
 }
@@ -0,0 +1,101 @@
+package org.inferred.freebuilder.processor.source;
+
+import static java.util.stream.Collectors.toList;
+
+import org.inferred.freebuilder.processor.source.ScopeHandler.Reflection;
+import org.inferred.freebuilder.processor.source.ScopeHandler.TypeInfo;
+import org.inferred.freebuilder.processor.source.ScopeHandler.Visibility;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * Caches the type lookups made while shortening type references, so a type referenced by many
+ * compilation units has its existence, visibility, supertypes and nested types inspected once,
+ * rather than once per unit.
+ *
+ * <p>Types generated in one processing round only become visible in the next, so a new cache
+ * must be used for each round. Not thread-safe.
+ */
+public class ReflectionCache implements Reflection {
+
+  /** Returns a new cache of lookups in {@code env}. */
+  public static ReflectionCache forEnvironment(ProcessingEnvironment env) {
+    return new ReflectionCache(new CompilerReflection(env.getElementUtils()));
+  }
+
+  private final Reflection delegate;
+  /** Qualified name as string ↦ type, or empty if no such type exists */
+  private final Map<String, Optional<TypeInfo>> types = new HashMap<>();
+
+  ReflectionCache(Reflection delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Optional<TypeInfo> find(String typename) {
+    Optional<TypeInfo> type = types.get(typename);
+    if (type == null) {
+      type = delegate.find(typename).map(this::cached);
+      types.put(typename, type);
+    }
+    return type;
+  }
+
+  /** Returns the cached equivalent of {@code type}, caching it if this is its first lookup. */
+  private TypeInfo cached(TypeInfo type) {
+    String typename = type.name().toString();
+    Optional<TypeInfo> cached = types.get(typename);
+    if (cached == null || !cached.isPresent()) {
+      cached = Optional.of(new CachedTypeInfo(type));
+      types.put(typename, cached);
+    }
+    return cached.get();
+  }
+
+  private class CachedTypeInfo implements TypeInfo {
+
+    private final TypeInfo delegate;
+    private Visibility visibility;
+    private List<TypeInfo> supertypes;
+    private List<TypeInfo> nestedTypes;
+
+    CachedTypeInfo(TypeInfo delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public QualifiedName name() {
+      return delegate.name();
+    }
+
+    @Override
+    public Visibility visibility() {
+      if (visibility == null) {
+        visibility = delegate.visibility();
+      }
+      return visibility;
+    }
+
+    @Override
+    public Stream<TypeInfo> supertypes() {
+      if (supertypes == null) {
+        supertypes = delegate.supertypes().map(ReflectionCache.this::cached).collect(toList());
+      }
+      return supertypes.stream();
+    }
+
+    @Override
+    public Stream<TypeInfo> nestedTypes() {
+      if (nestedTypes == null) {
+        nestedTypes = delegate.nestedTypes().map(ReflectionCache.this::cached).collect(toList());
+      }
+      return nestedTypes.stream();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package org.inferred.freebuilder.processor.source;
+
+import com.google.common.base.Strings;
+
+/**
+ * Lightweight alternative to google-java-format, which re-indents Java source by nesting depth.
+ *
+ * <p>Lines are stripped of their existing indentation, then indented two spaces per enclosing
+ * brace, and four further spaces if they continue a statement started on an earlier line.
+ * Runs of blank lines are collapsed to a single line. Long lines are not wrapped, and nothing else
+ * about the source is changed.
+ */
+public class Reindenter {
+
+  private static final int INDENT = 2;
+  private static final int CONTINUATION_INDENT = 4;
+
+  /** Returns {@code source}, re-indented. */
+  public static String reindent(String source) {
+    return new Reindenter(source).reindent();
+  }
+
+  private final String source;
+  private final String lineSeparator;
+  private final StringBuilder result;
+  private int braces = 0;
+  private int brackets = 0;
+  private boolean inComment = false;
+  private boolean continuation = false;
+
+  private Reindenter(String source) {
+    this.source = source;
+    this.lineSeparator = source.contains("\r\n") ? "\r\n" : "\n";
+    this.result = new StringBuilder(source.length() + source.length() / 4);
+  }
+
+  private String reindent() {
+    boolean previousLineBlank = true;
+    for (String line : source.split("\r?\n")) {
+      String trimmed = line.trim();
+      if (trimmed.isEmpty()) {
+        if (!previousLineBlank) {
+          result.append(lineSeparator);
+          previousLineBlank = true;
+        }
+        continue;
+      }
+      appendIndented(trimmed);
+      scan(trimmed);
+      previousLineBlank = false;
+    }
+    if (previousLineBlank && result.length() > 0) {
+      result.setLength(result.length() - lineSeparator.length());
+    }
+    return result.toString();
+  }
+
+  private void appendIndented(String line) {
+    int indent;
+    if (inComment) {
+      indent = braces * INDENT + (line.startsWith("*") ? 1 : 0);
+    } else {
+      int depth = line.startsWith("}") ? braces - 1 : braces;
+      boolean continues = continuation || brackets > 0;
+      indent = Math.max(depth, 0) * INDENT + (continues ? CONTINUATION_INDENT : 0);
+    }
+    result.append(Strings.repeat(" ", indent)).append(line).append(lineSeparator);
+  }
+
+  /**
+   * Updates the nesting depth and continuation state to take account of {@code line}, skipping
+   * over comments and string and character literals.
+   */
+  private void scan(String line) {
+    char lastCodeChar = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (inComment) {
+        if (line.startsWith("*/", i)) {
+          inComment = false;
+          i++;
+        }
+      } else if (line.startsWith("//", i)) {
+        break;
+      } else if (line.startsWith("/*", i)) {
+        inComment = true;
+        i++;
+      } else if (c == '"' || c == '\'') {
+        i = endOfLiteral(line, i);
+        lastCodeChar = c;
+      } else {
+        switch (c) {
+          case '{':
+            braces++;
+            break;
+          case '}':
+            braces--;
+            break;
+          case '(':
+          case '[':
+            brackets++;
+            break;
+          case ')':
+          case ']':
+            brackets--;
+            break;
+          default:
+            break;
+        }
+        if (!Character.isWhitespace(c)) {
+          lastCodeChar = c;
+        }
+      }
+    }
+    if (lastCodeChar != 0) {
+      boolean isAnnotation = line.startsWith("@") && brackets == 0;
+      continuation = !isAnnotation && ";{},:".indexOf(lastCodeChar) == -1;
+    }
+  }
+
+  /** Returns the index of the quote closing the literal opened at {@code start}. */
+  private static int endOfLiteral(String line, int start) {
+    char quote = line.charAt(start);
+    for (int i = start + 1; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == quote) {
+        return i;
+      }
+    }
+    return line.length();
+  }
+}
@@ -114,6 +114,16 @@ class ScopeHandler {
     return reflect.find(typename).map(TypeInfo::name).map(Stream::of).orElse(Stream.of());
   }
 
+  /**
+   * Returns whether a top-level type called {@code simpleName} exists in {@code pkg}.
+   *
+   * <p>This is the only lookup of types that may not be reachable from the originating element,
+   * which isolating incremental processors must otherwise avoid. It can only cause a clashing
+   * type to be qualified rather than imported, and qualified names and explicit imports both stay
+   * correct if the same-package type is later added or removed without the builder being
+   * regenerated. Types in java.lang are referenced without an import, so a later-added
+   * same-package type can shadow them; hand-written code in that package is equally affected.
+   */
   private boolean isTopLevelType(String pkg, String simpleName) {
     String name = pkg + "." + simpleName;
     return generatedTypes.containsKey(name) || reflect.find(name).isPresent();
@@ -144,6 +154,8 @@ class ScopeHandler {
         });
       });
       element.nestedTypes().forEach(nested -> {
+        // Record visibility now, as nested types cannot always be found again by canonical name
+        typeVisibility.computeIfAbsent(nested.name(), name -> nested.visibility());
         visibleInScope.put(nested.name().getSimpleName().toString(), nested.name());
       });
     });
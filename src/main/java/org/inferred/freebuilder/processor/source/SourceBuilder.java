@@ -32,6 +32,7 @@ import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
 import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
@@ -56,8 +57,23 @@ public class SourceBuilder {
    * If {@code features} is not null, it will be used instead of those deduced from {@code env}.
    */
   public static SourceBuilder forEnvironment(ProcessingEnvironment env, FeatureSet features) {
+    return create(env, features, new CompilerReflection(env.getElementUtils()));
+  }
+
+  /**
+   * Returns a {@link SourceBuilder}, as {@link #forEnvironment(ProcessingEnvironment, FeatureSet)},
+   * that looks up potential import collisions through {@code reflectionCache}. The cache must have
+   * been created for {@code env} in the current processing round.
+   */
+  public static SourceBuilder forEnvironment(
+      ProcessingEnvironment env, FeatureSet features, ReflectionCache reflectionCache) {
+    return create(env, features, reflectionCache);
+  }
+
+  private static SourceBuilder create(
+      ProcessingEnvironment env, FeatureSet features, Reflection reflect) {
     return new SourceBuilder(
-        new CompilerReflection(env.getElementUtils()),
+        reflect,
         Optional.ofNullable(features).orElseGet(() -> new EnvironmentFeatureSet(env)));
   }
 
@@ -168,6 +184,16 @@ public class SourceBuilder {
     return source.toString();
   }
 
+  /**
+   * Returns a supplier of the final source code, identical to {@link #toString()}.
+   *
+   * <p>All lookups against the compiler's type model happen before this method returns, so the
+   * (potentially expensive) formatting done by the supplier may safely run on another thread.
+   */
+  public Supplier<String> deferFormatting() {
+    return source.deferFormatting();
+  }
+
   private void add(Object arg) {
     if (arg instanceof Excerpt) {
       ((Excerpt) arg).addTo(this);
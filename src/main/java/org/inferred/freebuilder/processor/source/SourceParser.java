@@ -4,6 +4,9 @@ import static com.google.common.base.Preconditions.checkState;
 
 import static javax.lang.model.SourceVersion.isIdentifier;
 
+import com.google.common.collect.ImmutableSet;
+
+import java.nio.CharBuffer;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -31,12 +34,23 @@ class SourceParser {
   private static final Pattern PACKAGE = Pattern.compile("\\bpackage\\s([^;]*);");
   private static final Pattern TYPE = Pattern.compile(
       "\\b(class|interface|enum|@interface)\\s+([^\\s<>]+)");
+  private static final Pattern RECORD = Pattern.compile(
+      "\\brecord\\s+(\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)\\s*\\([^()]*\\)");
   private static final Pattern METHOD = Pattern.compile(
       "\\b([^\\s()<>,.]+)\\s*\\(([^()]*)\\)\\s*(throws\\b|$)");
   private static final Pattern ARGUMENTS = Pattern.compile(
       ",?[^,]+\\s([^\\s.,]+)\\s*");
   private static final Pattern IDENTIFIER = Pattern.compile("[^\\s.,]+(\\s*\\.\\s*[^\\s.,]+)*");
 
+  /**
+   * Keywords that can start a block statement but never a type or method declaration. Note
+   * {@code synchronized} is excluded, as it is also a method modifier.
+   */
+  private static final Set<String> CONTROL_KEYWORDS = ImmutableSet.of(
+      "catch", "do", "else", "finally", "for", "if", "switch", "try", "while");
+  /** Keywords that start a type declaration. */
+  private static final Set<String> TYPE_KEYWORDS = ImmutableSet.of("class", "interface", "enum");
+
   private enum State {
     CODE,
     SLASH,
@@ -51,7 +65,10 @@ class SourceParser {
 
   private final EventHandler eventHandler;
   private final StringBuilder statement;
+  private final char[] singleChar = new char[1];
+  private final CharBuffer singleCharBuffer = CharBuffer.wrap(singleChar);
   private State state;
+  private int depth;
 
   SourceParser(EventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -60,106 +77,166 @@ class SourceParser {
   }
 
   public void parse(char c) {
-    switch (state) {
-      case CODE:
-      case SLASH:
-        statement.append(c);
-        switch (c) {
-          case '{':
-            statement.deleteCharAt(statement.length() - 1);
-            onBlockStart(statement.toString().trim());
-            statement.setLength(0);
-            break;
-          case '}':
-            eventHandler.onBlockEnd();
-            statement.setLength(0);
-            break;
-          case ';':
-            onStatement(statement);
-            statement.setLength(0);
-            break;
-          case '"':
-            state = State.STRING_LITERAL;
-            break;
-          case '/':
-            if (state == State.CODE) {
-              state = State.SLASH;
-            } else {
-              state = State.LINE_COMMENT;
-              statement.delete(statement.length() - 2, statement.length());
-            }
-            break;
-          case '*':
-            if (state == State.CODE) {
-              state = State.CODE;
-            } else {
-              state = State.BLOCK_COMMENT;
-              statement.delete(statement.length() - 2, statement.length());
-            }
-            break;
-        }
-        break;
+    singleChar[0] = c;
+    parse(singleCharBuffer, 0, 1);
+  }
 
-      case STRING_LITERAL:
-        switch (c) {
-          case '\\':
-            state = State.STRING_LITERAL_ESCAPE;
-            break;
+  /**
+   * Parses {@code chars[start, end)}, continuing from the end of any previously parsed source.
+   *
+   * <p>Code is scanned up to the next character that can change the parser state, and appended
+   * to the current statement in bulk; comments and the contents of literals are skipped without
+   * being copied.
+   */
+  public void parse(CharSequence chars, int start, int end) {
+    int i = start;
+    while (i < end) {
+      switch (state) {
+        case CODE:
+          i = parseCode(chars, i, end);
+          break;
 
-          case '"':
-            statement.append(c);
+        case SLASH:
+          char c = chars.charAt(i);
+          if (c == '/') {
+            state = State.LINE_COMMENT;
+            i++;
+          } else if (c == '*') {
+            state = State.BLOCK_COMMENT;
+            i++;
+          } else {
+            statement.append('/');
             state = State.CODE;
-            break;
-        }
-        break;
+          }
+          break;
 
-      case STRING_LITERAL_ESCAPE:
-        statement.append(c);
-        state = State.STRING_LITERAL;
-        break;
+        case STRING_LITERAL:
+          i = skipLiteral(chars, i, end, '"', State.STRING_LITERAL_ESCAPE);
+          break;
 
-      case CHAR_LITERAL:
-        switch (c) {
-          case '\\':
-            state = State.CHAR_LITERAL_ESCAPE;
-            break;
+        case STRING_LITERAL_ESCAPE:
+          state = State.STRING_LITERAL;
+          i++;
+          break;
 
-          case '\'':
-            statement.append(c);
-            state = State.CODE;
-            break;
-        }
-        break;
+        case CHAR_LITERAL:
+          i = skipLiteral(chars, i, end, '\'', State.CHAR_LITERAL_ESCAPE);
+          break;
 
-      case CHAR_LITERAL_ESCAPE:
-        state = State.CHAR_LITERAL;
-        break;
+        case CHAR_LITERAL_ESCAPE:
+          state = State.CHAR_LITERAL;
+          i++;
+          break;
 
-      case LINE_COMMENT:
-        if (c == '\n') {
-          state = State.CODE;
-        }
-        break;
-
-      case BLOCK_COMMENT:
-      case BLOCK_COMMENT_STAR:
-        switch (c) {
-          case '*':
-            state = State.BLOCK_COMMENT_STAR;
-            break;
-
-          case '/':
-            if (state == State.BLOCK_COMMENT_STAR) {
-              state = State.CODE;
-            }
-            break;
+        case LINE_COMMENT:
+          i = skipLineComment(chars, i, end);
+          break;
 
-          default:
-            state = State.BLOCK_COMMENT;
-            break;
+        case BLOCK_COMMENT:
+        case BLOCK_COMMENT_STAR:
+          i = skipBlockComment(chars, i, end);
+          break;
+      }
+    }
+  }
+
+  /**
+   * Appends code up to the next character that may change the parser state to the current
+   * statement, then handles that character. Returns the index after the last character consumed.
+   */
+  private int parseCode(CharSequence chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = chars.charAt(i);
+      switch (c) {
+        case '{':
+          statement.append(chars, start, i);
+          onBlockStart();
+          statement.setLength(0);
+          depth++;
+          return i + 1;
+
+        case '}':
+          eventHandler.onBlockEnd();
+          statement.setLength(0);
+          depth = Math.max(depth - 1, 0);
+          return i + 1;
+
+        case ';':
+          // Package statements must appear before any block, so there is no need to look for
+          // them inside type or method bodies.
+          if (depth == 0) {
+            statement.append(chars, start, i + 1);
+            onStatement(statement);
+          }
+          statement.setLength(0);
+          return i + 1;
+
+        case '"':
+          statement.append(chars, start, i + 1);
+          state = State.STRING_LITERAL;
+          return i + 1;
+
+        case '\'':
+          statement.append(chars, start, i + 1);
+          state = State.CHAR_LITERAL;
+          return i + 1;
+
+        case '/':
+          statement.append(chars, start, i);
+          state = State.SLASH;
+          return i + 1;
+
+        default:
+          break;
+      }
+    }
+    statement.append(chars, start, end);
+    return end;
+  }
+
+  /**
+   * Skips the contents of a string or char literal up to and including the closing
+   * {@code quote}, which is appended to the current statement.
+   */
+  private int skipLiteral(
+      CharSequence chars, int start, int end, char quote, State escapeState) {
+    for (int i = start; i < end; i++) {
+      char c = chars.charAt(i);
+      if (c == '\\') {
+        if (i + 1 == end) {
+          state = escapeState;
+          return end;
         }
-        break;
+        i++;
+      } else if (c == quote) {
+        statement.append(quote);
+        state = State.CODE;
+        return i + 1;
+      }
+    }
+    return end;
+  }
+
+  private int skipLineComment(CharSequence chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (chars.charAt(i) == '\n') {
+        state = State.CODE;
+        return i + 1;
+      }
+    }
+    return end;
+  }
+
+  private int skipBlockComment(CharSequence chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = chars.charAt(i);
+      if (c == '/' && state == State.BLOCK_COMMENT_STAR) {
+        state = State.CODE;
+        return i + 1;
+      }
+      state = (c == '*') ? State.BLOCK_COMMENT_STAR : State.BLOCK_COMMENT;
     }
+    return end;
   }
 
   private void onStatement(CharSequence chars) {
@@ -171,6 +248,76 @@ class SourceParser {
     }
   }
 
+  /**
+   * Classifies the block started by the current statement.
+   *
+   * <p>Most blocks in generated source are control-flow or lambda bodies, so these are detected
+   * by a cheap scan of the statement. Only statements that may declare a type or method are
+   * copied out and matched against the regular expressions.
+   */
+  private void onBlockStart() {
+    int start = 0;
+    int end = statement.length();
+    while (start < end && statement.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && statement.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (!mayDeclareTypeOrMethod(statement, start, end)) {
+      eventHandler.onOtherBlockStart();
+      return;
+    }
+    onBlockStart(statement.substring(start, end));
+  }
+
+  /**
+   * Returns false if {@code chars[start, end)} definitely does not declare a type or method:
+   * that is, if it starts with a control-flow keyword, or contains no parentheses, annotations
+   * or type keywords.
+   */
+  private static boolean mayDeclareTypeOrMethod(CharSequence chars, int start, int end) {
+    int i = start;
+    while (i < end) {
+      char c = chars.charAt(i);
+      if (Character.isJavaIdentifierStart(c)) {
+        int tokenStart = i;
+        do {
+          i++;
+        } while (i < end && Character.isJavaIdentifierPart(chars.charAt(i)));
+        if (tokenStart == start && isAnyOf(chars, tokenStart, i, CONTROL_KEYWORDS)) {
+          return false;
+        } else if (isAnyOf(chars, tokenStart, i, TYPE_KEYWORDS)) {
+          return true;
+        }
+      } else if (c == '(' || c == '@') {
+        return true;
+      } else {
+        i++;
+      }
+    }
+    return false;
+  }
+
+  /** Returns true if {@code chars[start, end)} is one of {@code tokens}, without copying it. */
+  private static boolean isAnyOf(CharSequence chars, int start, int end, Set<String> tokens) {
+    for (String token : tokens) {
+      if (token.length() == end - start && startsWith(chars, start, token)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(CharSequence chars, int start, String prefix) {
+    for (int i = 0; i < prefix.length(); i++) {
+      if (chars.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void onBlockStart(CharSequence raw) {
     CharSequence chars = withoutTypeParams(withoutAnnotations(raw));
     if (chars == null) {
@@ -183,6 +330,13 @@ class SourceParser {
       eventHandler.onTypeBlockStart(typeMatcher.group(1), typeMatcher.group(2), supertypes);
       return;
     }
+    Matcher recordMatcher = RECORD.matcher(chars);
+    if (recordMatcher.find()) {
+      Set<String> supertypes =
+          supertypes(chars.subSequence(recordMatcher.end(), chars.length()));
+      eventHandler.onTypeBlockStart("record", recordMatcher.group(1), supertypes);
+      return;
+    }
     Matcher methodMatcher = METHOD.matcher(chars);
     if (methodMatcher.find()) {
       String methodName = methodMatcher.group(1);
@@ -2,7 +2,12 @@ package org.inferred.freebuilder.processor.source;
 
 import static java.lang.Integer.parseInt;
 
+import com.google.common.collect.MapMaker;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.MissingFormatArgumentException;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,6 +28,14 @@ public class TemplateApplier {
   private static final Pattern PARAM = Pattern.compile("%([%ns]|([1-9]\\d*)\\$s)");
   private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
+  /**
+   * Compiled templates, keyed by identity. Templates are almost always string literals in the
+   * code generators, so the same few thousand instances are applied over and over; weak keys
+   * stop any computed templates from leaking.
+   */
+  private static final ConcurrentMap<String, CompiledTemplate> COMPILED_TEMPLATES =
+      new MapMaker().weakKeys().makeMap();
+
   private final Object[] params;
   private TextAppender textAppender;
   private ParamAppender paramAppender;
@@ -43,33 +56,90 @@ public class TemplateApplier {
   }
 
   public TemplateApplier parse(CharSequence template) {
-    int offset = 0;
-    Matcher matcher = PARAM.matcher(template);
-    while (matcher.find()) {
-      if (offset != matcher.start()) {
-        textAppender.append(template, offset, matcher.start());
+    CompiledTemplate compiled;
+    if (template instanceof String) {
+      compiled = COMPILED_TEMPLATES.computeIfAbsent((String) template, CompiledTemplate::compile);
+    } else {
+      compiled = CompiledTemplate.compile(template);
+    }
+    compiled.applyTo(this);
+    return this;
+  }
+
+  /**
+   * A template split into literal text and parameter references, with {@code %%} and {@code %n}
+   * already substituted into the text.
+   */
+  private static class CompiledTemplate {
+
+    /** Parameter index used for {@code %s}, which takes the next sequential parameter. */
+    private static final int NEXT_PARAM = -1;
+
+    static CompiledTemplate compile(CharSequence template) {
+      List<String> texts = new ArrayList<>();
+      List<String> specs = new ArrayList<>();
+      List<Integer> indices = new ArrayList<>();
+      StringBuilder text = new StringBuilder();
+      int offset = 0;
+      Matcher matcher = PARAM.matcher(template);
+      while (matcher.find()) {
+        text.append(template, offset, matcher.start());
+        if (matcher.group(1).contentEquals("%")) {
+          text.append("%");
+        } else if (matcher.group(1).contentEquals("n")) {
+          text.append(LINE_SEPARATOR);
+        } else {
+          texts.add(text.toString());
+          text.setLength(0);
+          specs.add(matcher.group());
+          if (matcher.group(1).contentEquals("s")) {
+            indices.add(NEXT_PARAM);
+          } else {
+            indices.add(parseInt(matcher.group(2)) - 1);
+          }
+        }
+        offset = matcher.end();
       }
-      if (matcher.group(1).contentEquals("%")) {
-        textAppender.append("%", 0, 1);
-      } else if (matcher.group(1).contentEquals("n")) {
-        textAppender.append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
-      } else if (matcher.group(1).contentEquals("s")) {
-        if (nextParam >= params.length) {
-          throw new MissingFormatArgumentException(matcher.group());
+      text.append(template, offset, template.length());
+      texts.add(text.toString());
+      return new CompiledTemplate(
+          texts.toArray(new String[0]),
+          specs.toArray(new String[0]),
+          indices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /** Literal text before each parameter, plus the text after the last. */
+    private final String[] texts;
+    /** The format specifier of each parameter, for error messages. */
+    private final String[] specs;
+    /** The index of each parameter, or {@link #NEXT_PARAM}. */
+    private final int[] indices;
+
+    private CompiledTemplate(String[] texts, String[] specs, int[] indices) {
+      this.texts = texts;
+      this.specs = specs;
+      this.indices = indices;
+    }
+
+    void applyTo(TemplateApplier applier) {
+      for (int i = 0; i < indices.length; i++) {
+        appendText(applier, texts[i]);
+        int index = indices[i];
+        if (index == NEXT_PARAM) {
+          index = applier.nextParam++;
         }
-        paramAppender.append(params[nextParam++]);
-      } else {
-        int index = parseInt(matcher.group(2)) - 1;
-        if (index >= params.length) {
-          throw new MissingFormatArgumentException(matcher.group());
+        if (index >= applier.params.length) {
+          throw new MissingFormatArgumentException(specs[i]);
         }
-        paramAppender.append(params[index]);
+        applier.paramAppender.append(applier.params[index]);
       }
-      offset = matcher.end();
+      appendText(applier, texts[indices.length]);
     }
-    if (offset != template.length()) {
-      textAppender.append(template, offset, template.length());
+
+    private static void appendText(TemplateApplier applier, String text) {
+      if (!text.isEmpty()) {
+        applier.textAppender.append(text, 0, text.length());
+      }
     }
-    return this;
   }
 }
@@ -0,0 +1,56 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import java.util.Optional;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * A {@link FeatureType} selected with a {@code true|false} processor option, falling back to the
+ * {@code false} feature if the option is unset or unrecognised.
+ */
+public class BooleanOption<F extends Feature<F>> extends FeatureType<F> {
+
+  /**
+   * Returns the boolean {@code value} names, ignoring case and surrounding whitespace, or empty if
+   * {@code value} is null or is neither {@code true} nor {@code false}.
+   */
+  public static Optional<Boolean> parse(String value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    if (value.trim().equalsIgnoreCase("true")) {
+      return Optional.of(true);
+    } else if (value.trim().equalsIgnoreCase("false")) {
+      return Optional.of(false);
+    }
+    return Optional.empty();
+  }
+
+  private final String option;
+  private final F ifFalse;
+  private final F ifTrue;
+
+  public BooleanOption(String option, F ifFalse, F ifTrue) {
+    this.option = option;
+    this.ifFalse = ifFalse;
+    this.ifTrue = ifTrue;
+  }
+
+  /**
+   * Returns the feature selected by {@code value}, or empty if {@code value} is null or is not a
+   * recognised option value.
+   */
+  public Optional<F> forOption(String value) {
+    return parse(value).map(enabled -> enabled ? ifTrue : ifFalse);
+  }
+
+  @Override
+  protected F testDefault(FeatureSet features) {
+    return ifFalse;
+  }
+
+  @Override
+  protected F forEnvironment(ProcessingEnvironment env, FeatureSet features) {
+    return forOption(env.getOptions().get(option)).orElse(ifFalse);
+  }
+}
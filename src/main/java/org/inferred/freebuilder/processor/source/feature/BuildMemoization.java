@@ -0,0 +1,44 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * Whether generated builders remember the last value they built, and return it again if nothing
+ * has changed since, selected with the {@code -Afreebuilder.memoizeBuilds=true|false} processor
+ * option. Defaults to {@link #DISABLED}.
+ */
+public enum BuildMemoization implements Feature<BuildMemoization> {
+
+  /** Every call to build() creates a new value. */
+  DISABLED("Unmemoized builds"),
+
+  /**
+   * build() returns the last value built if every field of the builder still holds the same
+   * object as that value, and nested builders in turn return their last value. Unchanged subtrees
+   * of nested types are then shared by reference rather than rebuilt, but the builder holds a
+   * reference to the last value, and adopts its immutable collections copy-on-write. Builders
+   * created by toBuilder() start out holding the value they were created from.
+   */
+  ENABLED("Memoized builds");
+
+  /** Name of the processor option selecting build memoization. */
+  public static final String OPTION = "freebuilder.memoizeBuilds";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link BuildMemoization}.
+   */
+  public static final FeatureType<BuildMemoization> BUILD_MEMOIZATION =
+      new BooleanOption<>(OPTION, DISABLED, ENABLED);
+
+  private final String humanReadableFormat;
+
+  BuildMemoization(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
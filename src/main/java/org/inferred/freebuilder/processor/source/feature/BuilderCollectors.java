@@ -0,0 +1,44 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * Whether generated builders have static {@code Collector} factories for their collection
+ * properties, selected with the {@code -Afreebuilder.collectors=true|false} processor option.
+ * Defaults to {@link #OMITTED}.
+ */
+public enum BuilderCollectors implements Feature<BuilderCollectors> {
+
+  /** No collector factories are generated. */
+  OMITTED("No collectors"),
+
+  /**
+   * Each list, set and multiset property gets a static factory, named {@code to} followed by the
+   * capitalized property name, returning a {@code Collector} that adds stream elements to that
+   * property of a new builder. Builders filled by separate threads of a parallel stream are
+   * combined with {@code mergeFrom}. Properties whose factory name is already taken, e.g.
+   * {@code toString()}, get no factory.
+   */
+  GENERATED("Collectors");
+
+  /** Name of the processor option selecting the collector generation. */
+  public static final String OPTION = "freebuilder.collectors";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link BuilderCollectors}.
+   */
+  public static final FeatureType<BuilderCollectors> BUILDER_COLLECTORS =
+      new BooleanOption<>(OPTION, OMITTED, GENERATED);
+
+  private final String humanReadableFormat;
+
+  BuilderCollectors(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
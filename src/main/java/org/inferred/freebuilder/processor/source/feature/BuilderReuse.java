@@ -0,0 +1,42 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * Where generated builders read their default property values from when they are cleared or
+ * merged into, selected with the {@code -Afreebuilder.reusableBuilders=true|false} processor
+ * option. Defaults to {@link #DISPOSABLE}.
+ */
+public enum BuilderReuse implements Feature<BuilderReuse> {
+
+  /** A fresh builder is created every time the defaults are needed. */
+  DISPOSABLE("Disposable builders"),
+
+  /**
+   * A single builder, created the first time the defaults are needed, is shared by every builder
+   * of the type. Clearing a builder then allocates nothing, so one builder can be reused to build
+   * many values, but the builder constructor must set the same defaults every time it is run.
+   */
+  REUSABLE("Reusable builders");
+
+  /** Name of the processor option selecting the builder reuse mode. */
+  public static final String OPTION = "freebuilder.reusableBuilders";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link BuilderReuse}.
+   */
+  public static final FeatureType<BuilderReuse> BUILDER_REUSE =
+      new BooleanOption<>(OPTION, DISPOSABLE, REUSABLE);
+
+  private final String humanReadableFormat;
+
+  BuilderReuse(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
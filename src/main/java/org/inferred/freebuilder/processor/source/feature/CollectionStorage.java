@@ -0,0 +1,42 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * How lists, sets and maps are stored in generated values when Guava is not available, selected
+ * with the {@code -Afreebuilder.compactCollections=true|false} processor option. Defaults to
+ * {@link #STANDARD}.
+ */
+public enum CollectionStorage implements Feature<CollectionStorage> {
+
+  /** Collections are copied into standard JDK collections and wrapped as unmodifiable. */
+  STANDARD("Standard collections"),
+
+  /**
+   * Collections are copied into generated array-backed implementations: sets and maps keep their
+   * elements in insertion order in a single array, indexed by an open-addressing hash table,
+   * rather than in a node per entry. The serialized form of the value type changes.
+   */
+  COMPACT("Compact collections");
+
+  /** Name of the processor option selecting the collection storage. */
+  public static final String OPTION = "freebuilder.compactCollections";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link CollectionStorage}.
+   */
+  public static final FeatureType<CollectionStorage> COLLECTION_STORAGE =
+      new BooleanOption<>(OPTION, STANDARD, COMPACT);
+
+  private final String humanReadableFormat;
+
+  CollectionStorage(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
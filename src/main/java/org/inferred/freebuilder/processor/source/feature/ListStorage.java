@@ -0,0 +1,42 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * How lists of {@code Integer}, {@code Long} and {@code Double} elements are stored in generated
+ * builders and values, selected with the
+ * {@code -Afreebuilder.unboxedLists=true|false} processor option. Defaults to {@link #BOXED}.
+ */
+public enum ListStorage implements Feature<ListStorage> {
+
+  /** Elements are boxed and stored in a standard list implementation. */
+  BOXED("Boxed lists"),
+
+  /**
+   * Elements are stored in a primitive array, and only boxed when read through the {@code List}
+   * interface. Adding elements then allocates nothing once the array has grown, but the
+   * serialized form of the value type changes.
+   */
+  UNBOXED("Unboxed lists");
+
+  /** Name of the processor option selecting the list storage. */
+  public static final String OPTION = "freebuilder.unboxedLists";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link ListStorage}.
+   */
+  public static final FeatureType<ListStorage> LIST_STORAGE =
+      new BooleanOption<>(OPTION, BOXED, UNBOXED);
+
+  private final String humanReadableFormat;
+
+  ListStorage(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
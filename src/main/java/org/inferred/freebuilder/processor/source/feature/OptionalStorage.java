@@ -0,0 +1,42 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * How {@code OptionalInt}, {@code OptionalLong} and {@code OptionalDouble} properties are stored
+ * in generated builders and values, selected with the
+ * {@code -Afreebuilder.unboxedOptionals=true|false} processor option. Defaults to {@link #BOXED}.
+ */
+public enum OptionalStorage implements Feature<OptionalStorage> {
+
+  /** The optional object itself is stored. */
+  BOXED("Boxed optionals"),
+
+  /**
+   * A primitive value and a presence flag are stored, and optional objects are only created by
+   * getters. Setting and building then allocate nothing, but the serialized form of the value
+   * type changes.
+   */
+  UNBOXED("Unboxed optionals");
+
+  /** Name of the processor option selecting the optional storage. */
+  public static final String OPTION = "freebuilder.unboxedOptionals";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link OptionalStorage}.
+   */
+  public static final FeatureType<OptionalStorage> OPTIONAL_STORAGE =
+      new BooleanOption<>(OPTION, BOXED, UNBOXED);
+
+  private final String humanReadableFormat;
+
+  OptionalStorage(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
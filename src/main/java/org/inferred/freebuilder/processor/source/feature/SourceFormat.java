@@ -0,0 +1,97 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+
+import org.inferred.freebuilder.processor.source.Reindenter;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * How generated source is formatted before it is written out, selected with the
+ * {@code -Afreebuilder.format=none|fast|full} processor option. Defaults to {@link #FULL}.
+ */
+public enum SourceFormat implements Feature<SourceFormat> {
+
+  /** Source is written out exactly as it was added to the {@link SourceBuilder}. */
+  NONE("none", "Unformatted"),
+
+  /** Source is re-indented by nesting depth; long lines are not wrapped. */
+  FAST("fast", "Re-indented"),
+
+  /** Source is formatted with google-java-format. */
+  FULL("full", "google-java-format");
+
+  /** Name of the processor option selecting the source format. */
+  public static final String OPTION = "freebuilder.format";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link SourceFormat}.
+   */
+  public static final FeatureType<SourceFormat> SOURCE_FORMAT = new FeatureType<SourceFormat>() {
+
+    @Override
+    protected SourceFormat testDefault(FeatureSet features) {
+      return FULL;
+    }
+
+    @Override
+    protected SourceFormat forEnvironment(ProcessingEnvironment env, FeatureSet features) {
+      return forOption(env.getOptions().get(OPTION)).orElse(FULL);
+    }
+  };
+
+  /**
+   * Returns the format selected by {@code value}, or empty if {@code value} is null or is not a
+   * recognised option value.
+   */
+  public static Optional<SourceFormat> forOption(String value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    return Stream.of(values())
+        .filter(format -> format.optionValue.equalsIgnoreCase(value.trim()))
+        .findFirst();
+  }
+
+  /**
+   * Shared by all compilation units, as a Formatter holds only immutable options, and is
+   * relatively expensive to create.
+   */
+  private static class FormatterHolder {
+    static final Formatter FORMATTER = new Formatter();
+  }
+
+  private final String optionValue;
+  private final String humanReadableFormat;
+
+  SourceFormat(String optionValue, String humanReadableFormat) {
+    this.optionValue = optionValue;
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  /** Returns {@code source} formatted in this style. */
+  public String format(String source) throws FormatterException {
+    switch (this) {
+      case NONE:
+        return source;
+
+      case FAST:
+        return Reindenter.reindent(source);
+
+      case FULL:
+        return FormatterHolder.FORMATTER.formatSource(source);
+    }
+    throw new IllegalStateException("Unknown source format " + this);
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
@@ -34,7 +34,11 @@ import javax.lang.model.SourceVersion;
  */
 public enum SourceLevel implements Feature<SourceLevel> {
 
-  JAVA_8("Java 8+", 8);
+  JAVA_8("Java 8+", 8),
+  JAVA_16("Java 16+", 16);
+
+  /** Ordinal of {@code SourceVersion.RELEASE_16}; there is one constant per release. */
+  private static final int RELEASE_16_ORDINAL = 16;
 
   /**
    * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
@@ -49,6 +53,10 @@ public enum SourceLevel implements Feature<SourceLevel> {
 
     @Override
     protected SourceLevel forEnvironment(ProcessingEnvironment env, FeatureSet features) {
+      // Compare ordinals, as RELEASE_16 is missing from the compilers we are built with
+      if (env.getSourceVersion().ordinal() >= RELEASE_16_ORDINAL) {
+        return JAVA_16;
+      }
       return JAVA_8;
     }
   };
@@ -65,6 +73,11 @@ public enum SourceLevel implements Feature<SourceLevel> {
     return ImmutableList.of("-source", Integer.toString(version));
   }
 
+  /** Returns whether records may be declared at this source level. */
+  public boolean supportsRecords() {
+    return version >= 16;
+  }
+
   @Override
   public String toString() {
     return humanReadableFormat;
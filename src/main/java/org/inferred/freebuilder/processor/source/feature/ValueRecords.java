@@ -0,0 +1,44 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+
+/**
+ * Whether generated value types are declared as records where the source level allows it,
+ * selected with the {@code -Afreebuilder.recordValues=true|false} processor option. Defaults to
+ * {@link #CLASSES}.
+ */
+public enum ValueRecords implements Feature<ValueRecords> {
+
+  /** Value types are always final classes with hand-written equals and hashCode methods. */
+  CLASSES("Value classes"),
+
+  /**
+   * Value types are records when compiling for Java 16 or later, if the user's type is an
+   * interface with no method that a record component accessor would clash with, and every
+   * property is stored in a single field. Records get their equals and hashCode methods from the
+   * JDK, and their fields are trusted as final by the JIT. Types that cache their hash code, or
+   * are serialized with GWT or Jackson, keep using classes.
+   */
+  RECORDS("Value records");
+
+  /** Name of the processor option selecting value records. */
+  public static final String OPTION = "freebuilder.recordValues";
+
+  /**
+   * Constant to pass to {@link SourceBuilder#feature(FeatureType)} to get the current
+   * {@link ValueRecords}.
+   */
+  public static final FeatureType<ValueRecords> VALUE_RECORDS =
+      new BooleanOption<>(OPTION, CLASSES, RECORDS);
+
+  private final String humanReadableFormat;
+
+  ValueRecords(String humanReadableFormat) {
+    this.humanReadableFormat = humanReadableFormat;
+  }
+
+  @Override
+  public String toString() {
+    return humanReadableFormat;
+  }
+}
@@ -33,6 +33,7 @@ import static java.util.stream.Collectors.toMap;
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.collect.ImmutableMap;
 
+import org.inferred.freebuilder.CachedHashCode;
 import org.inferred.freebuilder.IgnoredByEquals;
 import org.inferred.freebuilder.NotInToString;
 import org.inferred.freebuilder.processor.Analyser.CannotGenerateCodeException;
@@ -947,6 +948,39 @@ public class AnalyserTest {
         StandardMethod.HASH_CODE, UnderrideLevel.OVERRIDEABLE));
   }
 
+  @Test
+  public void cachedHashCode() throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + CachedHashCode.class.getName(),
+        "public class DataType {",
+        "  public static class Builder extends DataType_Builder {}",
+        "}"));
+
+    assertTrue(builder.getDatatype().isHashCodeCached());
+  }
+
+  @Test
+  public void cachedHashCode_underriddenHashCode() throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + CachedHashCode.class.getName(),
+        "public class DataType {",
+        "  @Override public int hashCode() {",
+        "    return DataType.class.hashCode();",
+        "  }",
+        "  @Override public boolean equals(Object obj) {",
+        "    return (obj instanceof DataType);",
+        "  }",
+        "  public static class Builder extends DataType_Builder {}",
+        "}"));
+
+    assertFalse(builder.getDatatype().isHashCodeCached());
+    messager.verifyWarning(
+        "DataType@CachedHashCode",
+        "@CachedHashCode has no effect on FreeBuilder types that implement hashCode");
+  }
+
   @Test
   public void underriddenToString() throws CannotGenerateCodeException {
     GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
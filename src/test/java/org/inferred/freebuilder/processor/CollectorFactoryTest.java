@@ -0,0 +1,213 @@
+package org.inferred.freebuilder.processor;
+
+import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+
+import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.BuilderCollectors;
+import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
+import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
+import org.inferred.freebuilder.processor.source.testing.TestBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/** Behavioral tests for {@link BuilderCollectors#GENERATED generated} collector factories. */
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(ParameterizedBehaviorTestFactory.class)
+public class CollectorFactoryTest {
+
+  @Parameters(name = "{0}")
+  public static List<FeatureSet> featureSets() {
+    return ImmutableList.of(
+        new StaticFeatureSet(JAVA_8, BuilderCollectors.GENERATED),
+        new StaticFeatureSet(JAVA_8, GuavaLibrary.AVAILABLE, BuilderCollectors.GENERATED));
+  }
+
+  @Parameter public FeatureSet features;
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+  @Shared public BehaviorTester behaviorTester;
+
+  @Test
+  public void listCollectorKeepsParallelEncounterOrder() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("List<String> expected = IntStream.range(0, 10000)")
+            .addLine("    .mapToObj(i -> \"item\" + i)")
+            .addLine("    .collect(Collectors.toList());")
+            .addLine("DataType value = expected.parallelStream()")
+            .addLine("    .collect(DataType.Builder.toItems())")
+            .addLine("    .build();")
+            .addLine("assertEquals(expected, value.getItems());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void setCollectorDeduplicates() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType value = Stream.of(\"a\", \"b\", \"a\", \"c\")")
+            .addLine("    .parallel()")
+            .addLine("    .collect(DataType.Builder.toTags())")
+            .addLine("    .build();")
+            .addLine("assertThat(value.getTags()).containsExactly(\"a\", \"b\", \"c\").inOrder();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void sortedSetCollectorSorts() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType value = IntStream.of(5, 3, 9, 3)")
+            .addLine("    .boxed()")
+            .addLine("    .parallel()")
+            .addLine("    .collect(DataType.Builder.toRanks())")
+            .addLine("    .build();")
+            .addLine("assertThat(value.getRanks()).containsExactly(3, 5, 9).inOrder();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void collectorRejectsNullElements() {
+    thrown.expect(NullPointerException.class);
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("Stream.of(\"a\", null).collect(DataType.Builder.toItems());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void multisetCollectorCountsElements() {
+    assumeTrue("Guava available", features.get(GUAVA).isAvailable());
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface DataType {")
+            .addLine("  %s<String> getWords();", Multiset.class)
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = Stream.of(\"a\", \"b\", \"a\")")
+            .addLine("    .parallel()")
+            .addLine("    .collect(DataType.Builder.toWords())")
+            .addLine("    .build();")
+            .addLine("assertEquals(2, value.getWords().count(\"a\"));")
+            .addLine("assertEquals(1, value.getWords().count(\"b\"));")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void genericTypeCollector() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface DataType<T> {")
+            .addLine("  %s<T> getItems();", List.class)
+            .addLine("")
+            .addLine("  public static class Builder<T> extends DataType_Builder<T> {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType<Integer> value = Stream.of(1, 2, 3)")
+            .addLine("    .parallel()")
+            .addLine("    .collect(DataType.Builder.<Integer>toItems())")
+            .addLine("    .build();")
+            .addLine("assertThat(value.getItems()).containsExactly(1, 2, 3).inOrder();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void clashingCollectorNamesOmitted() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface DataType {")
+            .addLine("  %s<String> getString();", List.class)
+            .addLine("  %s<String> getBuilder();", List.class)
+            .addLine("  %s<String> getTags();", List.class)
+            .addLine("  %s<String> getItems();", List.class)
+            .addLine("")
+            .addLine("  Builder toBuilder();")
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {")
+            .addLine("    public String toTags() {")
+            .addLine("      return \"tags\";")
+            .addLine("    }")
+            .addLine("  }")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = Stream.of(\"a\", \"b\")")
+            .addLine("    .collect(DataType.Builder.toItems())")
+            .addLine("    .addString(\"s\")")
+            .addLine("    .build();")
+            .addLine("assertEquals(\"tags\", value.toBuilder().toTags());")
+            .addLine("assertThat(value.getItems()).containsExactly(\"a\", \"b\").inOrder();")
+            .addLine("assertThat(value.getString()).containsExactly(\"s\");")
+            .build())
+        .runTest();
+  }
+
+  private static SourceBuilder collectionsType() {
+    return SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface DataType {")
+        .addLine("  %s<String> getItems();", List.class)
+        .addLine("  %s<String> getTags();", Set.class)
+        .addLine("  %s<Integer> getRanks();", SortedSet.class)
+        .addLine("")
+        .addLine("  public static class Builder extends DataType_Builder {}")
+        .addLine("}");
+  }
+
+  private static TestBuilder testBuilder() {
+    return new TestBuilder()
+        .addImport("com.example.DataType")
+        .addImport(Collectors.class)
+        .addImport(IntStream.class)
+        .addImport(List.class)
+        .addImport(Stream.class);
+  }
+}
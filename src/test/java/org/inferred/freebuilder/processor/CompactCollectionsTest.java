@@ -0,0 +1,193 @@
+package org.inferred.freebuilder.processor;
+
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
+
+import com.google.common.collect.ImmutableList;
+
+import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.CollectionStorage;
+import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
+import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
+import org.inferred.freebuilder.processor.source.testing.TestBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Behavioral tests for {@link CollectionStorage#COMPACT compact} collections. */
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(ParameterizedBehaviorTestFactory.class)
+public class CompactCollectionsTest {
+
+  @Parameters(name = "{0}")
+  public static List<FeatureSet> featureSets() {
+    return ImmutableList.of(new StaticFeatureSet(JAVA_8, CollectionStorage.COMPACT));
+  }
+
+  @Parameter public FeatureSet features;
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+  @Shared public BehaviorTester behaviorTester;
+
+  @Test
+  public void listKeepsOrder() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .addItems(\"c\", \"a\", \"b\", \"a\")")
+            .addLine("    .build();")
+            .addLine("assertThat(value.getItems()).containsExactly(\"c\", \"a\", \"b\", \"a\")")
+            .addLine("    .inOrder();")
+            .addLine("assertEquals(1, value.getItems().indexOf(\"a\"));")
+            .addLine("assertEquals(-1, value.getItems().indexOf(null));")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void setMatchesLinkedHashSet() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder();")
+            .addLine("Set<String> expected = new LinkedHashSet<>();")
+            .addLine("for (int i = 0; i < 100; i++) {")
+            .addLine("  builder.addTags(\"tag\" + (i * 7 % 100));")
+            .addLine("  expected.add(\"tag\" + (i * 7 % 100));")
+            .addLine("}")
+            .addLine("Set<String> tags = builder.build().getTags();")
+            .addLine("assertEquals(expected, tags);")
+            .addLine("assertEquals(tags, expected);")
+            .addLine("assertEquals(expected.hashCode(), tags.hashCode());")
+            .addLine("assertEquals(new ArrayList<>(expected), new ArrayList<>(tags));")
+            .addLine("assertTrue(tags.contains(\"tag42\"));")
+            .addLine("assertFalse(tags.contains(\"tag100\"));")
+            .addLine("assertFalse(tags.contains(null));")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void mapMatchesLinkedHashMap() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder();")
+            .addLine("Map<String, Integer> expected = new LinkedHashMap<>();")
+            .addLine("for (int i = 0; i < 100; i++) {")
+            .addLine("  builder.putCounts(\"key\" + (i * 7 % 100), i);")
+            .addLine("  expected.put(\"key\" + (i * 7 % 100), i);")
+            .addLine("}")
+            .addLine("Map<String, Integer> counts = builder.build().getCounts();")
+            .addLine("assertEquals(expected, counts);")
+            .addLine("assertEquals(counts, expected);")
+            .addLine("assertEquals(expected.hashCode(), counts.hashCode());")
+            .addLine("assertEquals(new ArrayList<>(expected.entrySet()),")
+            .addLine("    new ArrayList<>(counts.entrySet()));")
+            .addLine("assertEquals(expected.get(\"key42\"), counts.get(\"key42\"));")
+            .addLine("assertNull(counts.get(\"key100\"));")
+            .addLine("assertFalse(counts.containsKey(null));")
+            .addLine("assertTrue(counts.containsValue(99));")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void setIsImmutable() {
+    thrown.expect(UnsupportedOperationException.class);
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder().addTags(\"a\", \"b\").build();")
+            .addLine("value.getTags().add(\"c\");")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void mapIsImmutable() {
+    thrown.expect(UnsupportedOperationException.class);
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .putCounts(\"a\", 1)")
+            .addLine("    .putCounts(\"b\", 2)")
+            .addLine("    .build();")
+            .addLine("value.getCounts().entrySet().iterator().next().setValue(3);")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void serializedValueIsEqual() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(collectionsType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .addItems(\"a\", \"b\")")
+            .addLine("    .addTags(\"c\", \"d\")")
+            .addLine("    .putCounts(\"e\", 1)")
+            .addLine("    .putCounts(\"f\", 2)")
+            .addLine("    .build();")
+            .addLine("%1$s bytes = new %1$s();", ByteArrayOutputStream.class)
+            .addLine("new %s(bytes).writeObject(value);", ObjectOutputStream.class)
+            .addLine("DataType copy = (DataType) new %s(", ObjectInputStream.class)
+            .addLine("    new %s(bytes.toByteArray())).readObject();", ByteArrayInputStream.class)
+            .addLine("assertEquals(value, copy);")
+            .addLine("assertTrue(copy.getTags().contains(\"d\"));")
+            .addLine("assertEquals(2, (int) copy.getCounts().get(\"f\"));")
+            .build())
+        .runTest();
+  }
+
+  private static SourceBuilder collectionsType() {
+    return SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface DataType extends %s {", Serializable.class)
+        .addLine("  %s<String> getItems();", List.class)
+        .addLine("  %s<String> getTags();", Set.class)
+        .addLine("  %s<String, Integer> getCounts();", Map.class)
+        .addLine("")
+        .addLine("  public static class Builder extends DataType_Builder {}")
+        .addLine("}");
+  }
+
+  private static TestBuilder testBuilder() {
+    return new TestBuilder()
+        .addImport("com.example.DataType")
+        .addImport(ArrayList.class)
+        .addImport(LinkedHashMap.class)
+        .addImport(LinkedHashSet.class)
+        .addImport(Map.class)
+        .addImport(Set.class);
+  }
+}
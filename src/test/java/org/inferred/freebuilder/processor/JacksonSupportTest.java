@@ -20,7 +20,9 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlText;
 
@@ -145,6 +147,82 @@ public class JacksonSupportTest {
     assertThat(property.getAccessorAnnotations()).named("property accessor annotations").isEmpty();
   }
 
+  @Test
+  public void streamingSerializersAddedWhenRegistered() throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + JsonDeserialize.class.getName() + "(using = DataType_Builder.Deserializer.class)",
+        "@" + JsonSerialize.class.getName() + "(using = DataType_Builder.Serializer.class)",
+        "public interface DataType {",
+        "  int getFooBar();",
+        "  class Builder extends DataType_Builder {}",
+        "}"));
+
+    assertThat(builder.getDatatype().getNestedClasses()).hasSize(2);
+  }
+
+  @Test
+  public void streamingSerializersNotAddedForOtherDeserializers()
+      throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + JsonDeserialize.class.getName() + "(using = "
+            + JsonDeserializer.None.class.getCanonicalName() + ".class)",
+        "public interface DataType {",
+        "  int getFooBar();",
+        "  class Builder extends DataType_Builder {}",
+        "}"));
+
+    assertThat(builder.getDatatype().getNestedClasses()).isEmpty();
+  }
+
+  @Test
+  public void streamingSerializersNotAddedForUnresolvedDeserializers()
+      throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + JsonDeserialize.class.getName() + "(using = MissingDeserializer.class)",
+        "public interface DataType {",
+        "  @" + JsonAnyGetter.class.getName(),
+        "  " + Map.class.getName() + "<String, String> getFooBar();",
+        "  class Builder extends DataType_Builder {}",
+        "}"));
+
+    // The messager rule also fails the test if @JsonAnyGetter is reported as unsupported
+    assertThat(builder.getDatatype().getNestedClasses()).isEmpty();
+  }
+
+  @Test
+  public void streamingSerializersAddedWhenRegisteredThroughBuilder()
+      throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + JsonDeserialize.class.getName() + "(using = DataType.Builder.Deserializer.class)",
+        "public interface DataType {",
+        "  int getFooBar();",
+        "  class Builder extends DataType_Builder {}",
+        "}"));
+
+    assertThat(builder.getDatatype().getNestedClasses()).hasSize(1);
+  }
+
+  @Test
+  public void streamingSerializersRejectJsonAnyGetter()throws CannotGenerateCodeException {
+    GeneratedBuilder builder = (GeneratedBuilder) analyser.analyse(model.newType(
+        "package com.example;",
+        "@" + JsonDeserialize.class.getName() + "(using = DataType_Builder.Deserializer.class)",
+        "public interface DataType {",
+        "  @" + JsonAnyGetter.class.getName(),
+        "  " + Map.class.getName() + "<String, String> getFooBar();",
+        "  class Builder extends DataType_Builder {}",
+        "}"));
+
+    assertThat(builder.getDatatype().getNestedClasses()).isEmpty();
+    messager.verifyError(
+        "getFooBar@JsonAnyGetter",
+        "Generated Jackson serializers do not support @JsonAnyGetter");
+  }
+
   private static void assertPropertyHasAnnotation(
       Property property, Class<? extends Annotation> annotationClass, String annotationString) {
     Excerpt annotationExcerpt = property.getAccessorAnnotations()
@@ -0,0 +1,259 @@
+package org.inferred.freebuilder.processor;
+
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
+
+import com.google.common.collect.ImmutableList;
+
+import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.BuildMemoization;
+import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
+import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
+import org.inferred.freebuilder.processor.source.testing.TestBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** Behavioral tests for {@link BuildMemoization#ENABLED memoized} builds. */
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(ParameterizedBehaviorTestFactory.class)
+public class MemoizedBuildTest {
+
+  @Parameters(name = "{0}")
+  public static List<FeatureSet> featureSets() {
+    return ImmutableList.of(
+        new StaticFeatureSet(JAVA_8, GuavaLibrary.AVAILABLE, BuildMemoization.ENABLED));
+  }
+
+  @Parameter public FeatureSet features;
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+  @Shared public BehaviorTester behaviorTester;
+
+  @Test
+  public void unchangedBuilderReturnsSameValue() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(orderType())
+        .with(testBuilder()
+            .addLine("Order.Builder builder = new Order.Builder()")
+            .addLine("    .setId(1)")
+            .addLine("    .addNotes(\"a\")")
+            .addLine("    .putCounts(\"b\", 2);")
+            .addLine("builder.mutateItem(item -> item.setName(\"x\").setWeight(1.5));")
+            .addLine("Order value = builder.build();")
+            .addLine("assertSame(value, builder.build());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void settingSameValueReturnsSameValue() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(testBuilder()
+            .addLine("Item.Builder builder = new Item.Builder().setName(\"x\").setWeight(1.5);")
+            .addLine("Item value = builder.build();")
+            .addLine("assertSame(value, builder.setWeight(1.5).build());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void modifiedBuilderReturnsNewValue() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(orderType())
+        .with(testBuilder()
+            .addLine("Order.Builder builder = new Order.Builder().setId(1).addNotes(\"a\");")
+            .addLine("builder.mutateItem(item -> item.setName(\"x\").setWeight(1.5));")
+            .addLine("Order first = builder.build();")
+            .addLine("Order second = builder.addNotes(\"b\").build();")
+            .addLine("assertNotSame(first, second);")
+            .addLine("assertThat(first.getNotes()).containsExactly(\"a\");")
+            .addLine("assertThat(second.getNotes()).containsExactly(\"a\", \"b\").inOrder();")
+            .addLine("Order third = builder.putCounts(\"c\", 3).build();")
+            .addLine("assertThat(second.getCounts()).isEmpty();")
+            .addLine("assertThat(third.getCounts()).containsExactly(\"c\", 3);")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void unchangedNestedValueIsShared() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(orderType())
+        .with(testBuilder()
+            .addLine("Order.Builder builder = new Order.Builder().setId(1).addNotes(\"a\");")
+            .addLine("builder.mutateItem(item -> item.setName(\"x\").setWeight(1.5));")
+            .addLine("Order first = builder.build();")
+            .addLine("Order second = builder.setId(2).build();")
+            .addLine("assertNotSame(first, second);")
+            .addLine("assertSame(first.getItem(), second.getItem());")
+            .addLine("assertSame(first.getNotes(), second.getNotes());")
+            .addLine("builder.mutateItem(item -> item.setTag(\"t\"));")
+            .addLine("Order third = builder.build();")
+            .addLine("assertNotSame(second.getItem(), third.getItem());")
+            .addLine("assertEquals(Optional.of(\"t\"), third.getItem().getTag());")
+            .addLine("assertEquals(Optional.empty(), second.getItem().getTag());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void nestedBuilderIsBuiltOncePerBuild() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface Item {")
+            .addLine("  String getName();")
+            .addLine("")
+            .addLine("  public static class Builder extends Item_Builder {")
+            .addLine("    public static int builds = 0;")
+            .addLine("")
+            .addLine("    @Override public Item build() {")
+            .addLine("      builds++;")
+            .addLine("      return super.build();")
+            .addLine("    }")
+            .addLine("  }")
+            .addLine("}"))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface Order {")
+            .addLine("  int getId();")
+            .addLine("  Item getItem();")
+            .addLine("")
+            .addLine("  public static class Builder extends Order_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("Order.Builder builder = new Order.Builder().setId(1);")
+            .addLine("builder.getItemBuilder().setName(\"x\");")
+            .addLine("Order first = builder.build();")
+            .addLine("assertEquals(1, Item.Builder.builds);")
+            .addLine("assertSame(first, builder.build());")
+            .addLine("assertEquals(2, Item.Builder.builds);")
+            .addLine("Order second = builder.setId(2).build();")
+            .addLine("assertEquals(3, Item.Builder.builds);")
+            .addLine("assertSame(first.getItem(), second.getItem());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void unmodifiedToBuilderReturnsOriginalValue() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(orderType())
+        .with(testBuilder()
+            .addLine("Order.Builder builder = new Order.Builder()")
+            .addLine("    .setId(1)")
+            .addLine("    .addNotes(\"a\")")
+            .addLine("    .putCounts(\"b\", 2);")
+            .addLine("builder.mutateItem(item -> item.setName(\"x\").setWeight(1.5));")
+            .addLine("Order value = builder.build();")
+            .addLine("assertSame(value, value.toBuilder().build());")
+            .addLine("assertSame(value, Order.Builder.from(value).build());")
+            .addLine("assertSame(value, value.toBuilder().mutateItem(item -> {}).build());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void modifiedToBuilderReturnsNewValue() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(orderType())
+        .with(testBuilder()
+            .addLine("Order.Builder builder = new Order.Builder().setId(1).addNotes(\"a\");")
+            .addLine("builder.mutateItem(item -> item.setName(\"x\").setWeight(1.5));")
+            .addLine("Order value = builder.build();")
+            .addLine("Order modified = value.toBuilder()")
+            .addLine("    .mutateItem(item -> item.setWeight(2.5))")
+            .addLine("    .build();")
+            .addLine("assertNotSame(value, modified);")
+            .addLine("assertEquals(1.5, value.getItem().getWeight(), 0.0);")
+            .addLine("assertEquals(2.5, modified.getItem().getWeight(), 0.0);")
+            .addLine("assertSame(value.getNotes(), modified.getNotes());")
+            .addLine("Order cleared = value.toBuilder().clearNotes().build();")
+            .addLine("assertThat(cleared.getNotes()).isEmpty();")
+            .addLine("assertThat(value.getNotes()).containsExactly(\"a\");")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void clearedBuilderStillChecksRequiredProperties() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Not set: [name, weight]");
+    behaviorTester
+        .with(new Processor(features))
+        .with(itemType())
+        .with(testBuilder()
+            .addLine("Item.Builder builder = new Item.Builder().setName(\"x\").setWeight(1.5);")
+            .addLine("builder.build();")
+            .addLine("builder.clear().build();")
+            .build())
+        .runTest();
+  }
+
+  private static SourceBuilder itemType() {
+    return SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface Item {")
+        .addLine("  String getName();")
+        .addLine("  double getWeight();")
+        .addLine("  %s<String> getTag();", Optional.class)
+        .addLine("")
+        .addLine("  Builder toBuilder();")
+        .addLine("")
+        .addLine("  public static class Builder extends Item_Builder {}")
+        .addLine("}");
+  }
+
+  private static SourceBuilder orderType() {
+    return SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface Order {")
+        .addLine("  int getId();")
+        .addLine("  Item getItem();")
+        .addLine("  %s<String> getNotes();", List.class)
+        .addLine("  %s<String, Integer> getCounts();", Map.class)
+        .addLine("")
+        .addLine("  Builder toBuilder();")
+        .addLine("")
+        .addLine("  public static class Builder extends Order_Builder {}")
+        .addLine("}");
+  }
+
+  private static TestBuilder testBuilder() {
+    return new TestBuilder()
+        .addImport("com.example.Item")
+        .addImport("com.example.Order")
+        .addImport(Optional.class);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.inferred.freebuilder.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.FakeTicker;
+
+import org.inferred.freebuilder.processor.ProcessorStats.Measurement;
+import org.inferred.freebuilder.processor.ProcessorStats.Phase;
+import org.inferred.freebuilder.processor.ProcessorStats.TypeStats;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+@RunWith(JUnit4.class)
+public class ProcessorStatsTest {
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final AtomicLong allocatedBytes = new AtomicLong();
+  private final Messager messager = mock(Messager.class);
+  private final TypeElement type = mock(TypeElement.class);
+
+  @Test
+  public void forOptions_disabledByDefault() {
+    ProcessorStats stats = ProcessorStats.forOptions(ImmutableMap.of());
+    stats.forType(type).report(messager);
+    stats.reportTotals(messager);
+    verifyZeroInteractions(messager);
+  }
+
+  @Test
+  public void forOptions_enabled() {
+    ProcessorStats stats = ProcessorStats.forOptions(
+        ImmutableMap.of(ProcessorStats.OPTION, "true"));
+    stats.reportTotals(messager);
+    verify(messager).printMessage(Kind.NOTE, "FreeBuilder stats for 0 types over 0 rounds "
+        + "(0.00 ms): analyse 0.00 ms / 0 KB, generate 0.00 ms / 0 KB, "
+        + "shorten references 0.00 ms / 0 KB, format 0.00 ms / 0 KB, write 0.00 ms / 0 KB, "
+        + "total 0.00 ms / 0 KB");
+  }
+
+  @Test
+  public void reportsPhasesOfType() {
+    ProcessorStats stats = new ProcessorStats(true, ticker, allocatedBytes::get);
+    TypeStats typeStats = stats.forType(type);
+    spend(typeStats, Phase.ANALYSE, 1500, 2048);
+    spend(typeStats, Phase.GENERATE, 250, 1024);
+    spend(typeStats, Phase.FORMAT, 3000, 10240);
+
+    typeStats.report(messager);
+
+    verify(messager).printMessage(Kind.NOTE, "FreeBuilder stats: "
+        + "analyse 1.50 ms / 2 KB, generate 0.25 ms / 1 KB, "
+        + "shorten references 0.00 ms / 0 KB, format 3.00 ms / 10 KB, write 0.00 ms / 0 KB, "
+        + "total 4.75 ms / 13 KB", type);
+  }
+
+  @Test
+  public void reportsTotalsOfAllTypes() {
+    ProcessorStats stats = new ProcessorStats(true, ticker, allocatedBytes::get);
+    try (Measurement round = stats.measureRound()) {
+      TypeStats first = stats.forType(type);
+      spend(first, Phase.ANALYSE, 1000, 1024);
+      first.report(messager);
+      TypeStats second = stats.forType(type);
+      spend(second, Phase.ANALYSE, 2000, 1024);
+      spend(second, Phase.WRITE, 500, 2048);
+      second.report(messager);
+    }
+    try (Measurement round = stats.measureRound()) {
+      ticker.advance(100, TimeUnit.MICROSECONDS);
+    }
+
+    stats.reportTotals(messager);
+
+    verify(messager).printMessage(Kind.NOTE, "FreeBuilder stats for 2 types over 2 rounds "
+        + "(3.60 ms): analyse 3.00 ms / 2 KB, generate 0.00 ms / 0 KB, "
+        + "shorten references 0.00 ms / 0 KB, format 0.00 ms / 0 KB, write 0.50 ms / 2 KB, "
+        + "total 3.50 ms / 4 KB");
+  }
+
+  @Test
+  public void omitsAllocationsWhenUnsupported() {
+    ProcessorStats stats = new ProcessorStats(true, ticker, () -> -1);
+    TypeStats typeStats = stats.forType(type);
+    try (Measurement analyse = typeStats.measure(Phase.ANALYSE)) {
+      ticker.advance(1, TimeUnit.MILLISECONDS);
+    }
+
+    typeStats.report(messager);
+
+    verify(messager).printMessage(Kind.NOTE, "FreeBuilder stats: "
+        + "analyse 1.00 ms, generate 0.00 ms / 0 KB, "
+        + "shorten references 0.00 ms / 0 KB, format 0.00 ms / 0 KB, write 0.00 ms / 0 KB, "
+        + "total 1.00 ms", type);
+  }
+
+  private void spend(TypeStats typeStats, Phase phase, long micros, long bytes) {
+    try (Measurement measurement = typeStats.measure(phase)) {
+      ticker.advance(micros, TimeUnit.MICROSECONDS);
+      allocatedBytes.addAndGet(bytes);
+    }
+  }
+}
@@ -15,14 +15,25 @@
  */
 package org.inferred.freebuilder.processor;
 
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.base.Preconditions;
 import com.google.common.testing.EqualsTester;
 import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.client.rpc.SerializationStreamReader;
+import com.google.gwt.user.client.rpc.SerializationStreamWriter;
 import com.google.gwt.user.server.rpc.RPC;
 
+import org.inferred.freebuilder.CachedHashCode;
 import org.inferred.freebuilder.FreeBuilder;
 import org.inferred.freebuilder.IgnoredByEquals;
 import org.inferred.freebuilder.NotInToString;
@@ -48,8 +59,16 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import javax.annotation.Nullable;
 
@@ -123,6 +142,28 @@ public class ProcessorTest {
         .runTest();
   }
 
+  @Test
+  public void testManyTypesInOneRound() {
+    behaviorTester.with(new Processor(features));
+    TestBuilder testBuilder = new TestBuilder();
+    for (int i = 0; i < 20; i++) {
+      behaviorTester.with(SourceBuilder.forTesting()
+          .addLine("package com.example;")
+          .addLine("@%s", FreeBuilder.class)
+          .addLine("public interface DataType%s {", i)
+          .addLine("  int value();")
+          .addLine("")
+          .addLine("  class Builder extends DataType%s_Builder {}", i)
+          .addLine("}"));
+      testBuilder.addLine(
+          "assertEquals(%1$s, new com.example.DataType%1$s.Builder().value(%1$s).build().value());",
+          i);
+    }
+    behaviorTester
+        .with(testBuilder.build())
+        .runTest();
+  }
+
   @Test
   public void testIgnoredEquality_allProperties() {
     behaviorTester
@@ -212,6 +253,51 @@ public class ProcessorTest {
         .runTest();
   }
 
+  @Test
+  public void testCachedHashCode() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s", CachedHashCode.class)
+            .addLine("public interface DataType {")
+            .addLine("  String name();")
+            .addLine("  int age();")
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .name(\"Bob\")")
+            .addLine("    .age(32)")
+            .addLine("    .build();")
+            .addLine("assertEquals(%s.hash(\"Bob\", 32), value.hashCode());", Objects.class)
+            .addLine("assertEquals(%s.hash(\"Bob\", 32), value.hashCode());", Objects.class)
+            .addLine("new %s()", EqualsTester.class)
+            .addLine("    .addEqualityGroup(")
+            .addLine("        value,")
+            .addLine("        new DataType.Builder()")
+            .addLine("            .name(\"Bob\")")
+            .addLine("            .age(32)")
+            .addLine("            .build())")
+            .addLine("    .addEqualityGroup(")
+            .addLine("        new DataType.Builder()")
+            .addLine("            .name(\"Bob\")")
+            .addLine("            .age(33)")
+            .addLine("            .build())")
+            .addLine("    .addEqualityGroup(")
+            .addLine("        new DataType.Builder()")
+            .addLine("            .name(\"Bob\")")
+            .addLine("            .buildPartial(),")
+            .addLine("        new DataType.Builder()")
+            .addLine("            .name(\"Bob\")")
+            .addLine("            .buildPartial())")
+            .addLine("    .testEquals();")
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testGenericInterfaceWithBound() {
     behaviorTester
@@ -960,6 +1046,145 @@ public class ProcessorTest {
         .runTest();
   }
 
+  @Test
+  public void testGwtReserialize_primitiveCollectionProperties() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(serializable = true)", GwtCompatible.class)
+            .addLine("public interface DataType {")
+            .addLine("  int getCount();")
+            .addLine("  String getName();")
+            .addLine("  %s<Integer> getNumbers();", List.class)
+            .addLine("  %s<String> getTags();", Set.class)
+            .addLine("  %s<%s<String>> getNested();", List.class, List.class)
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .setCount(3)")
+            .addLine("    .setName(\"foo\")")
+            .addLine("    .addNumbers(1, 2, 3)")
+            .addLine("    .addTags(\"b\", \"a\")")
+            .addLine("    .addNested(%s.asList(\"x\", \"y\"))", Arrays.class)
+            .addLine("    .build();")
+            .addLine("DataType copy = %s.gwtReserialize(value);", this.getClass())
+            .addLine("assertEquals(value, copy);")
+            .addLine("assertThat(copy.getTags()).containsExactly(\"b\", \"a\").inOrder();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testGwtReserialize_nullRejected() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(serializable = true)", GwtCompatible.class)
+            .addLine("public interface DataType {")
+            .addLine("  String getName();")
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder().setName(\"foo\").build();")
+            .addLine("try {")
+            .addLine("  %s.gwtReserialize(value, v -> null);", this.getClass())
+            .addLine("  fail(\"Expected NPE\");")
+            .addLine("} catch (NullPointerException expected) { }")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testGwtReserialize_setterOverrideRejectsValue() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(serializable = true)", GwtCompatible.class)
+            .addLine("public interface DataType {")
+            .addLine("  int getCount();")
+            .addLine("  %s<String> getTags();", List.class)
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {")
+            .addLine("    @Override public Builder setCount(int count) {")
+            .addLine("      %s.checkArgument(count >= 0, \"count negative\");",
+                Preconditions.class)
+            .addLine("      return super.setCount(count);")
+            .addLine("    }")
+            .addLine("")
+            .addLine("    @Override public Builder addTags(String tag) {")
+            .addLine("      %s.checkArgument(!tag.isEmpty(), \"tag empty\");",
+                Preconditions.class)
+            .addLine("      return super.addTags(tag);")
+            .addLine("    }")
+            .addLine("  }")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder().setCount(3).addTags(\"a\").build();")
+            .addLine("try {")
+            .addLine("  %s.gwtReserialize(value, v -> v.equals(3) ? -3 : v);", this.getClass())
+            .addLine("  fail(\"Expected IllegalArgumentException\");")
+            .addLine("} catch (IllegalArgumentException expected) {")
+            .addLine("  assertEquals(\"count negative\", expected.getMessage());")
+            .addLine("}")
+            .addLine("try {")
+            .addLine("  %s.gwtReserialize(value, v -> v.equals(\"a\") ? \"\"", this.getClass())
+            .addLine("      : v.equals(%1$s.asList(\"a\")) ? %1$s.asList(\"\") : v);", Arrays.class)
+            .addLine("  fail(\"Expected IllegalArgumentException\");")
+            .addLine("} catch (IllegalArgumentException expected) {")
+            .addLine("  assertEquals(\"tag empty\", expected.getMessage());")
+            .addLine("}")
+            .build())
+        .runTest();
+  }
+
+  /**
+   * Round-trips {@code object} through its generated custom field serializer, using streams that
+   * simply queue up each value written.
+   */
+  public static <T> T gwtReserialize(T object) throws Exception {
+    return gwtReserialize(object, UnaryOperator.identity());
+  }
+
+  /**
+   * Round-trips {@code object} through its generated custom field serializer, passing each value
+   * read back through {@code tamper}, to simulate untrusted input.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T gwtReserialize(T object, UnaryOperator<Object> tamper) throws Exception {
+    Class<?> serializer = Class.forName(
+        object.getClass().getEnclosingClass().getName() + "$Value_CustomFieldSerializer",
+        true,
+        object.getClass().getClassLoader());
+    Method serialize = serializer.getMethod(
+        "serialize", SerializationStreamWriter.class, object.getClass());
+    Method instantiate = serializer.getMethod("instantiate", SerializationStreamReader.class);
+    serialize.setAccessible(true);
+    instantiate.setAccessible(true);
+    Deque<Object> stream = new ArrayDeque<>();
+    serialize.invoke(null, Proxy.newProxyInstance(
+        ProcessorTest.class.getClassLoader(),
+        new Class<?>[] { SerializationStreamWriter.class },
+        (proxy, method, args) -> stream.add(args[0])), object);
+    try {
+      return (T) instantiate.invoke(null, Proxy.newProxyInstance(
+          ProcessorTest.class.getClassLoader(),
+          new Class<?>[] { SerializationStreamReader.class },
+          (proxy, method, args) -> tamper.apply(stream.remove())));
+    } catch (InvocationTargetException e) {
+      throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
   /**
    * Server-side deserialize does not match server-side serialize, so we can't test a round trip.
    */
@@ -1764,6 +1989,128 @@ public class ProcessorTest {
         .runTest();
   }
 
+  @Test
+  public void testJacksonStreamingSerializers() {
+    behaviorTester
+        .with(new Processor(features))
+        .withPermittedPackage(ObjectMapper.class.getPackage())
+        .withPermittedPackage(JsonParser.class.getPackage())
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(using = DataType_Builder.Deserializer.class)", JsonDeserialize.class)
+            .addLine("@%s(using = DataType_Builder.Serializer.class)", JsonSerialize.class)
+            .addLine("public abstract class DataType {")
+            .addLine("  public abstract int getPropertyA();")
+            .addLine("  @%s(\"b\") public abstract boolean isPropertyB();", JsonProperty.class)
+            .addLine("  @%s public abstract String getName();", Nullable.class)
+            .addLine("  public abstract %s<String> getItems();", List.class)
+            .addLine("  @%s @%s public abstract String getIgnored();",
+                JsonIgnore.class, Nullable.class)
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .setPropertyA(11)")
+            .addLine("    .setPropertyB(true)")
+            .addLine("    .addItems(\"x\", \"y\")")
+            .addLine("    .setIgnored(\"z\")")
+            .addLine("    .build();")
+            .addLine("%1$s mapper = new %1$s();", ObjectMapper.class)
+            .addLine("String json = mapper.writeValueAsString(value);")
+            .addLine("assertEquals(")
+            .addLine("    \"{\\\"propertyA\\\":11,\\\"b\\\":true,\\\"name\\\":null,"
+                + "\\\"items\\\":[\\\"x\\\",\\\"y\\\"]}\",")
+            .addLine("    json);")
+            .addLine("DataType clone = mapper.readValue(json, DataType.class);")
+            .addLine("assertEquals(11, clone.getPropertyA());")
+            .addLine("assertTrue(clone.isPropertyB());")
+            .addLine("assertNull(clone.getName());")
+            .addLine("assertThat(clone.getItems()).containsExactly(\"x\", \"y\").inOrder();")
+            .addLine("assertNull(clone.getIgnored());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testJacksonStreamingDeserializer_unknownProperty() {
+    behaviorTester
+        .with(new Processor(features))
+        .withPermittedPackage(ObjectMapper.class.getPackage())
+        .withPermittedPackage(JsonParser.class.getPackage())
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(using = DataType_Builder.Deserializer.class)", JsonDeserialize.class)
+            .addLine("public interface DataType {")
+            .addLine("  int getPropertyA();")
+            .addLine("")
+            .addLine("  class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("%1$s mapper = new %1$s()", ObjectMapper.class)
+            .addLine("    .disable(%s.FAIL_ON_UNKNOWN_PROPERTIES);", DeserializationFeature.class)
+            .addLine("DataType value = mapper.readValue(")
+            .addLine("    \"{\\\"other\\\":{\\\"propertyA\\\":1},\\\"propertyA\\\":2}\",")
+            .addLine("    DataType.class);")
+            .addLine("assertEquals(2, value.getPropertyA());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testJacksonStreamingDeserializer_missingProperty() {
+    behaviorTester
+        .with(new Processor(features))
+        .withPermittedPackage(ObjectMapper.class.getPackage())
+        .withPermittedPackage(JsonParser.class.getPackage())
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(using = DataType_Builder.Deserializer.class)", JsonDeserialize.class)
+            .addLine("public interface DataType {")
+            .addLine("  int getPropertyA();")
+            .addLine("")
+            .addLine("  class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("try {")
+            .addLine("  new %s().readValue(\"{}\", DataType.class);", ObjectMapper.class)
+            .addLine("  fail(\"Expected JsonMappingException\");")
+            .addLine("} catch (%s e) {", JsonMappingException.class)
+            .addLine("  assertThat(e.getMessage()).contains(\"Not set: [propertyA]\");")
+            .addLine("}")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testJacksonStreamingDeserializer_ignoredProperty() {
+    behaviorTester
+        .with(new Processor(features))
+        .withPermittedPackage(ObjectMapper.class.getPackage())
+        .withPermittedPackage(JsonParser.class.getPackage())
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("@%s(using = DataType_Builder.Deserializer.class)", JsonDeserialize.class)
+            .addLine("public interface DataType {")
+            .addLine("  int getPropertyA();")
+            .addLine("  @%s @%s String getIgnored();", JsonIgnore.class, Nullable.class)
+            .addLine("")
+            .addLine("  class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new %s().readValue(", ObjectMapper.class)
+            .addLine("    \"{\\\"ignored\\\":[{\\\"propertyA\\\":1}],\\\"propertyA\\\":2}\",")
+            .addLine("    DataType.class);")
+            .addLine("assertEquals(2, value.getPropertyA());")
+            .addLine("assertNull(value.getIgnored());")
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testDoubleRegistration() {
     // See also https://github.com/google/FreeBuilder/issues/21
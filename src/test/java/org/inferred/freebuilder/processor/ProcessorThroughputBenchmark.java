@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Google Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.inferred.freebuilder.processor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static javax.tools.ToolProvider.getSystemJavaCompiler;
+
+import com.google.common.collect.ImmutableList;
+
+import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.SourceFormat;
+import org.inferred.freebuilder.processor.source.testing.TempJavaFileManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * Measures how the {@link Processor} scales with the number of &#64;{@link FreeBuilder} types in
+ * a compilation, by generating synthetic types and running the processor over them in-process.
+ *
+ * <p>Usage: {@code ProcessorThroughputBenchmark [types [iterations [format]]]}, where
+ * {@code format} is passed as {@code -Afreebuilder.format}. Each iteration runs javac with
+ * {@code -proc:only -Afreebuilder.stats=true}; the last iteration's stats are printed.
+ */
+public class ProcessorThroughputBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int types = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+    int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+    String format = (args.length > 2) ? args[2] : "full";
+
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 0; i < types; i++) {
+      sources.add(syntheticType(i));
+    }
+
+    List<Diagnostic<? extends JavaFileObject>> lastStats = ImmutableList.of();
+    for (int iteration = 1; iteration <= iterations; iteration++) {
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      long start = System.nanoTime();
+      try (TempJavaFileManager fileManager =
+          TempJavaFileManager.newTempFileManager(null, null, UTF_8)) {
+        CompilationTask task = getSystemJavaCompiler().getTask(
+            null,
+            fileManager,
+            diagnostics,
+            ImmutableList.of(
+                "-proc:only",
+                "-A" + ProcessorStats.OPTION + "=true",
+                "-A" + SourceFormat.OPTION + "=" + format),
+            null,
+            sources);
+        task.setProcessors(ImmutableList.of(new Processor()));
+        if (!task.call()) {
+          diagnostics.getDiagnostics().forEach(System.err::println);
+          throw new AssertionError("Compilation failed");
+        }
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("Iteration %d: %d types in %.1f ms%n", iteration, types, elapsed / 1e6);
+      lastStats = diagnostics.getDiagnostics();
+    }
+    lastStats.stream()
+        .filter(diagnostic -> diagnostic.getSource() == null)
+        .forEach(diagnostic -> System.out.println(diagnostic.getMessage(null)));
+  }
+
+  /**
+   * Returns the {@code index}th synthetic type. Types cycle through a mix of scalar, optional,
+   * collection and nested buildable properties, so the corpus exercises most property kinds.
+   */
+  private static JavaFileObject syntheticType(int index) {
+    String name = "DataType" + index;
+    SourceBuilder code = SourceBuilder.forTesting()
+        .addLine("package com.example.benchmark;")
+        .addLine("")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface %s {", name)
+        .addLine("  int getId();")
+        .addLine("  String getName();")
+        .addLine("  %s<String> getNickname();", Optional.class);
+    switch (index % 3) {
+      case 0:
+        code.addLine("  %s<String> getTags();", List.class)
+            .addLine("  %s<Integer> getIds();", Set.class)
+            .addLine("  %s<String, Long> getCounts();", Map.class);
+        break;
+      case 1:
+        code.addLine("  long getTimestamp();")
+            .addLine("  double getScore();")
+            .addLine("  boolean isActive();");
+        break;
+      default:
+        code.addLine("  DataType%s getParent();", index - 1)
+            .addLine("  %s<DataType%s> getSiblings();", List.class, index - 2);
+        break;
+    }
+    code.addLine("")
+        .addLine("  Builder toBuilder();")
+        .addLine("  class Builder extends %s_Builder {}", name)
+        .addLine("}");
+    String source = code.toString();
+    return new SimpleJavaFileObject(
+        URI.create("mem:///com/example/benchmark/" + name + ".java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+  }
+}
@@ -0,0 +1,213 @@
+package org.inferred.freebuilder.processor;
+
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_16;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ImmutableList;
+
+import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
+import org.inferred.freebuilder.processor.source.feature.ValueRecords;
+import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
+import org.inferred.freebuilder.processor.source.testing.TestBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Optional;
+
+import javax.lang.model.SourceVersion;
+
+/** Behavioral tests for {@link ValueRecords#RECORDS record} value types. */
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(ParameterizedBehaviorTestFactory.class)
+public class RecordValueTypeTest {
+
+  @Parameters(name = "{0}")
+  public static List<FeatureSet> featureSets() {
+    return ImmutableList.of(
+        new StaticFeatureSet(JAVA_16, ValueRecords.RECORDS),
+        new StaticFeatureSet(JAVA_16, GuavaLibrary.AVAILABLE, ValueRecords.RECORDS));
+  }
+
+  @BeforeClass
+  public static void compilerSupportsRecords() {
+    assumeTrue("Compiler supports records", SourceVersion.latestSupported().ordinal() >= 16);
+  }
+
+  @Parameter public FeatureSet features;
+
+  @Shared public BehaviorTester behaviorTester;
+
+  @Test
+  public void valueIsRecord() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(recordType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder().setName(\"a\").build();")
+            .addLine("assertTrue(value.getClass().isRecord());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void equalsAndHashCodeCompareEveryProperty() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(recordType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .setName(\"a\")")
+            .addLine("    .setAge(3)")
+            .addLine("    .setNickname(\"b\")")
+            .addLine("    .addTags(\"c\", \"d\")")
+            .addLine("    .build();")
+            .addLine("DataType copy = DataType.Builder.from(value).build();")
+            .addLine("assertEquals(value, copy);")
+            .addLine("assertEquals(value.hashCode(), copy.hashCode());")
+            .addLine("assertNotEquals(value, DataType.Builder.from(value).setAge(4).build());")
+            .addLine("assertNotEquals(value, DataType.Builder.from(value).clearNickname().build());")
+            .addLine("assertNotEquals(value, DataType.Builder.from(value).addTags(\"e\").build());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void valueIsNotEqualToPartial() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(recordType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder().setName(\"a\");")
+            .addLine("assertNotEquals(builder.build(), builder.buildPartial());")
+            .addLine("assertNotEquals(builder.buildPartial(), builder.build());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void toStringIsUnchanged() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(recordType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .setName(\"a\")")
+            .addLine("    .setAge(3)")
+            .addLine("    .addTags(\"c\")")
+            .addLine("    .build();")
+            .addLine("assertEquals(\"DataType{name=a, age=3, tags=[c]}\", value.toString());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void serializedValueIsEqual() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(recordType())
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .setName(\"a\")")
+            .addLine("    .setNickname(\"b\")")
+            .addLine("    .addTags(\"c\")")
+            .addLine("    .build();")
+            .addLine("%1$s bytes = new %1$s();", ByteArrayOutputStream.class)
+            .addLine("new %s(bytes).writeObject(value);", ObjectOutputStream.class)
+            .addLine("DataType copy = (DataType) new %s(", ObjectInputStream.class)
+            .addLine("    new %s(bytes.toByteArray())).readObject();", ByteArrayInputStream.class)
+            .addLine("assertEquals(value, copy);")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void toBuilderOnGenericType() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface DataType<A, B> {")
+            .addLine("  A getFirst();")
+            .addLine("  B getSecond();")
+            .addLine("  Builder<A, B> toBuilder();")
+            .addLine("")
+            .addLine("  public static class Builder<A, B> extends DataType_Builder<A, B> {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType<String, Integer> value = new DataType.Builder<String, Integer>()")
+            .addLine("    .setFirst(\"a\")")
+            .addLine("    .setSecond(1)")
+            .addLine("    .build();")
+            .addLine("DataType<String, Integer> updated = value.toBuilder().setSecond(2).build();")
+            .addLine("assertTrue(updated.getClass().isRecord());")
+            .addLine("assertEquals(\"a\", updated.getFirst());")
+            .addLine("assertEquals(2, (int) updated.getSecond());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void methodNamedAfterPropertyKeepsClass() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface DataType {")
+            .addLine("  String getName();")
+            .addLine("")
+            .addLine("  default String name() {")
+            .addLine("    return \"custom\";")
+            .addLine("  }")
+            .addLine("")
+            .addLine("  public static class Builder extends DataType_Builder {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder().setName(\"a\").build();")
+            .addLine("assertFalse(value.getClass().isRecord());")
+            .addLine("assertEquals(\"custom\", value.name());")
+            .build())
+        .runTest();
+  }
+
+  private static SourceBuilder recordType() {
+    return SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface DataType extends %s {", Serializable.class)
+        .addLine("  String getName();")
+        .addLine("  int getAge();")
+        .addLine("  %s<String> getNickname();", Optional.class)
+        .addLine("  %s<String> getTags();", List.class)
+        .addLine("")
+        .addLine("  public static class Builder extends DataType_Builder {")
+        .addLine("    public Builder() {")
+        .addLine("      setAge(0);")
+        .addLine("    }")
+        .addLine("  }")
+        .addLine("}");
+  }
+
+  private static TestBuilder testBuilder() {
+    return new TestBuilder()
+        .addImport("com.example.DataType");
+  }
+}
@@ -0,0 +1,172 @@
+package org.inferred.freebuilder.processor;
+
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
+
+import com.google.common.collect.ImmutableList;
+
+import org.inferred.freebuilder.FreeBuilder;
+import org.inferred.freebuilder.processor.source.SourceBuilder;
+import org.inferred.freebuilder.processor.source.feature.BuilderReuse;
+import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
+import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
+import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
+import org.inferred.freebuilder.processor.source.testing.TestBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.util.List;
+
+/** Behavioral tests for {@link BuilderReuse#REUSABLE reusable} builders. */
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(ParameterizedBehaviorTestFactory.class)
+public class ReusableBuilderTest {
+
+  @Parameters(name = "{0}")
+  public static List<FeatureSet> featureSets() {
+    return ImmutableList.of(
+        new StaticFeatureSet(JAVA_8, BuilderReuse.REUSABLE),
+        new StaticFeatureSet(JAVA_8, GuavaLibrary.AVAILABLE, BuilderReuse.REUSABLE));
+  }
+
+  @Parameter public FeatureSet features;
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+  @Shared public BehaviorTester behaviorTester;
+
+  @Test
+  public void clearRestoresDefaults() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(countingType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder()")
+            .addLine("    .setRequired(1)")
+            .addLine("    .setName(\"first\")")
+            .addLine("    .addItems(\"a\", \"b\");")
+            .addLine("builder.clear();")
+            .addLine("assertEquals(\"default\", builder.getName());")
+            .addLine("assertThat(builder.getItems()).isEmpty();")
+            .addLine("DataType value = builder.setRequired(2).addItems(\"c\").build();")
+            .addLine("assertEquals(2, value.getRequired());")
+            .addLine("assertEquals(\"default\", value.getName());")
+            .addLine("assertThat(value.getItems()).containsExactly(\"c\");")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void clearUnsetsRequiredProperties() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Not set: [required]");
+    behaviorTester
+        .with(new Processor(features))
+        .with(countingType())
+        .with(testBuilder()
+            .addLine("new DataType.Builder()")
+            .addLine("    .setRequired(1)")
+            .addLine("    .clear()")
+            .addLine("    .build();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void clearDoesNotCreateABuilderEachTime() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(countingType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder().clear();")
+            .addLine("int instances = DataType.Builder.instances;")
+            .addLine("for (int i = 0; i < 10; i++) {")
+            .addLine("  builder.clear().setRequired(i).addItems(\"x\").build();")
+            .addLine("}")
+            .addLine("assertEquals(instances, DataType.Builder.instances);")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void builtValuesDoNotShareStateWithReusedBuilder() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(countingType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder();")
+            .addLine("DataType first = builder.setRequired(1).addItems(\"a\", \"b\").build();")
+            .addLine("DataType second = builder.clear().setRequired(2).addItems(\"c\").build();")
+            .addLine("assertThat(first.getItems()).containsExactly(\"a\", \"b\").inOrder();")
+            .addLine("assertThat(second.getItems()).containsExactly(\"c\");")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void mergeFromSkipsDefaults() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(countingType())
+        .with(testBuilder()
+            .addLine("DataType.Builder builder = new DataType.Builder().setName(\"custom\");")
+            .addLine("builder.mergeFrom(new DataType.Builder().setRequired(3));")
+            .addLine("assertEquals(\"custom\", builder.getName());")
+            .addLine("assertEquals(3, builder.getRequired());")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void genericTypesStillClear() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(SourceBuilder.forTesting()
+            .addLine("package com.example;")
+            .addLine("@%s", FreeBuilder.class)
+            .addLine("public interface DataType<T> {")
+            .addLine("  T getItem();")
+            .addLine("")
+            .addLine("  public static class Builder<T> extends DataType_Builder<T> {}")
+            .addLine("}"))
+        .with(testBuilder()
+            .addLine("DataType.Builder<String> builder = new DataType.Builder<String>();")
+            .addLine("builder.setItem(\"a\").clear();")
+            .addLine("assertEquals(\"b\", builder.setItem(\"b\").build().getItem());")
+            .build())
+        .runTest();
+  }
+
+  /** A type whose builder sets a default, and counts how many times it is constructed. */
+  private static SourceBuilder countingType() {
+    return SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public interface DataType {")
+        .addLine("  int getRequired();")
+        .addLine("  String getName();")
+        .addLine("  %s<String> getItems();", List.class)
+        .addLine("")
+        .addLine("  public static class Builder extends DataType_Builder {")
+        .addLine("    public static int instances = 0;")
+        .addLine("")
+        .addLine("    public Builder() {")
+        .addLine("      instances++;")
+        .addLine("      setName(\"default\");")
+        .addLine("    }")
+        .addLine("  }")
+        .addLine("}");
+  }
+
+  private static TestBuilder testBuilder() {
+    return new TestBuilder()
+        .addImport("com.example.DataType");
+  }
+}
@@ -69,7 +69,7 @@ public class ToStringGeneratorTest {
         + "@Override\n"
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -130,11 +130,11 @@ public class ToStringGeneratorTest {
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
         + "  String separator = \"\";\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name);\n"
         + "    separator = \", \";\n"
         + "  }\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.AGE)) {\n"
+        + "  if ((_unsetProperties & 0x2) == 0) {\n"
         + "    result.append(separator).append(\"age=\").append(age);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -188,7 +188,7 @@ public class ToStringGeneratorTest {
         + "@Override\n"
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{name=\").append(name);\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.AGE)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\", age=\").append(age);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -208,7 +208,7 @@ public class ToStringGeneratorTest {
         + "@Override\n"
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name).append(\", \");\n"
         + "  }\n"
         + "  return result.append(\"age=\").append(age).append(\"}\").toString();\n"
@@ -281,7 +281,7 @@ public class ToStringGeneratorTest {
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
         + "  String separator = \"\";\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name);\n"
         + "    separator = \", \";\n"
         + "  }\n"
@@ -314,7 +314,7 @@ public class ToStringGeneratorTest {
         + "    result.append(\"name=\").append(name);\n"
         + "    separator = \", \";\n"
         + "  }\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.AGE)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(separator).append(\"age=\").append(age);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -360,15 +360,15 @@ public class ToStringGeneratorTest {
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
         + "  String separator = \"\";\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name);\n"
         + "    separator = \", \";\n"
         + "  }\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.AGE)) {\n"
+        + "  if ((_unsetProperties & 0x2) == 0) {\n"
         + "    result.append(separator).append(\"age=\").append(age);\n"
         + "    separator = \", \";\n"
         + "  }\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.SHOE_SIZE)) {\n"
+        + "  if ((_unsetProperties & 0x4) == 0) {\n"
         + "    result.append(separator).append(\"shoeSize=\").append(shoeSize);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -437,11 +437,11 @@ public class ToStringGeneratorTest {
         + "@Override\n"
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name).append(\", \");\n"
         + "  }\n"
         + "  result.append(\"age=\").append(age);\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.SHOE_SIZE)) {\n"
+        + "  if ((_unsetProperties & 0x2) == 0) {\n"
         + "    result.append(\", shoeSize=\").append(shoeSize);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -466,7 +466,7 @@ public class ToStringGeneratorTest {
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{name=\").append(name)"
             + ".append(\", age=\").append(age);\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.SHOE_SIZE)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\", shoeSize=\").append(shoeSize);\n"
         + "  }\n"
         + "  return result.append(\"}\").toString();\n"
@@ -490,7 +490,7 @@ public class ToStringGeneratorTest {
         + "@Override\n"
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{name=\").append(name);\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.AGE)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\", age=\").append(age);\n"
         + "  }\n"
         + "  return result.append(\", shoeSize=\").append(shoeSize).append(\"}\").toString();\n"
@@ -514,7 +514,7 @@ public class ToStringGeneratorTest {
         + "@Override\n"
         + "public String toString() {\n"
         + "  StringBuilder result = new StringBuilder(\"partial Person{\");\n"
-        + "  if (!_unsetProperties.contains(Person_Builder.Property.NAME)) {\n"
+        + "  if ((_unsetProperties & 0x1) == 0) {\n"
         + "    result.append(\"name=\").append(name).append(\", \");\n"
         + "  }\n"
         + "  return result.append(\"age=\").append(age).append(\", shoeSize=\").append(shoeSize)"
@@ -0,0 +1,70 @@
+package org.inferred.freebuilder.processor.model;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.truth.Truth.assertThat;
+
+import static java.util.stream.Collectors.toSet;
+
+import static javax.lang.model.util.ElementFilter.constructorsIn;
+
+import org.inferred.freebuilder.processor.source.testing.ModelRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Set;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
+
+@RunWith(JUnit4.class)
+public class MethodIntrospectorTest {
+
+  @Rule public final ModelRule model = new ModelRule();
+
+  @Test
+  public void ownMethodInvocations() {
+    ExecutableElement constructor = constructorOf(
+        "package com.example;",
+        "class DataType {",
+        "  DataType(boolean flag) {",
+        "    setA();",
+        "    this.setB();",
+        "    if (flag) {",
+        "      setC();",
+        "    }",
+        "  }",
+        "  void setA() {}",
+        "  void setB() {}",
+        "  void setC() {}",
+        "}");
+    MethodIntrospector introspector = MethodIntrospector.instance(model.environment());
+
+    Set<Name> invocations = introspector.getOwnMethodInvocations(constructor);
+
+    assertThat(invocations.stream().map(Name::toString).collect(toSet()))
+        .containsExactly("setA", "setB");
+  }
+
+  @Test
+  public void ownMethodInvocationsAreCached() {
+    ExecutableElement constructor = constructorOf(
+        "package com.example;",
+        "class DataType {",
+        "  DataType() {",
+        "    setA();",
+        "  }",
+        "  void setA() {}",
+        "}");
+    MethodIntrospector introspector = MethodIntrospector.instance(model.environment());
+
+    Set<Name> invocations = introspector.getOwnMethodInvocations(constructor);
+
+    assertThat(introspector.getOwnMethodInvocations(constructor)).isSameAs(invocations);
+  }
+
+  private ExecutableElement constructorOf(String... code) {
+    return getOnlyElement(constructorsIn(model.newType(code).getEnclosedElements()));
+  }
+}
@@ -1,5 +1,6 @@
 package org.inferred.freebuilder.processor.model;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -11,6 +12,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -182,6 +184,23 @@ public class ModelUtilsTest {
         (DeclaredType) model.typeMirror("java.util.Collection"), List.class, Set.class));
   }
 
+  @Test
+  public void testWithInitialCapital() {
+    assertEquals("Int", ModelUtils.withInitialCapital(model.typeMirror(int.class)));
+    assertEquals("FooBar", ModelUtils.withInitialCapital("fooBar"));
+  }
+
+  @Test
+  public void testWithInitialCapital_ignoresDefaultLocale() {
+    Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(new Locale("tr", "TR"));
+    try {
+      assertEquals("Int", ModelUtils.withInitialCapital("int"));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
   private void assertSameType(TypeMirror expected, TypeMirror actual) {
     if (!model.typeUtils().isSameType(expected, actual)) {
       String expectedString = (expected == null) ? "null" : expected.toString();
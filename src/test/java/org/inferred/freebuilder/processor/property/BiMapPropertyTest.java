@@ -532,6 +532,46 @@ public class BiMapPropertyTest {
         .runTest();
   }
 
+  @Test
+  public void testMergeFrom_valueInstance_thenPut() {
+    behaviorTester
+        .with(biMapPropertyType)
+        .with(testBuilder()
+            .addLine("DataType template = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s)", keys.example(0), values.example(0))
+            .addLine("    .putItems(%s, %s)", keys.example(1), values.example(1))
+            .addLine("    .build();")
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .mergeFrom(template)")
+            .addLine("    .forcePutItems(%s, %s)", keys.example(3), values.example(1))
+            .addLine("    .removeKeyFromItems(%s)", keys.example(0))
+            .addLine("    .build();")
+            .addLine("assertThat(template.%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0, 1, 1))
+            .addLine("assertThat(value.%s).isEqualTo(%s);", convention.get(), exampleMap(3, 1))
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testMergeFrom_valueInstance_getReturnsLiveView() {
+    behaviorTester
+        .with(biMapPropertyType)
+        .with(testBuilder()
+            .addLine("DataType template = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s)", keys.example(0), values.example(0))
+            .addLine("    .build();")
+            .addLine("DataType.Builder builder = new DataType.Builder().mergeFrom(template);")
+            .addLine("BiMap<%s, %s> itemsView = builder.%s;",
+                keys.type(), values.type(), convention.get())
+            .addLine("builder.putItems(%s, %s);", keys.example(1), values.example(1))
+            .addLine("assertThat(itemsView).isEqualTo(%s);", exampleMap(0, 0, 1, 1))
+            .addLine("assertThat(template.%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0))
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testMergeFrom_builder() {
     behaviorTester
@@ -76,7 +76,7 @@ public class BiMapSourceTest {
         "    }",
         "  }",
         "",
-        "  private final HashBiMap<Integer, String> name = HashBiMap.create();",
+        "  private BiMap<Integer, String> name = ImmutableBiMap.of();",
         "",
         "  /**",
         "   * Associates {@code key} with {@code value} in the bimap to be returned from {@link",
@@ -106,6 +106,9 @@ public class BiMapSourceTest {
         "   */",
         "  public Person.Builder forcePutName(int key, String value) {",
         "    Objects.requireNonNull(value);",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = HashBiMap.create(name);",
+        "    }",
         "    name.forcePut(key, value);",
         "    return (Person.Builder) this;",
         "  }",
@@ -134,6 +137,9 @@ public class BiMapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder removeKeyFromName(int key) {",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = HashBiMap.create(name);",
+        "    }",
         "    name.remove(key);",
         "    return (Person.Builder) this;",
         "  }",
@@ -148,6 +154,9 @@ public class BiMapSourceTest {
         "   */",
         "  public Person.Builder removeValueFromName(String value) {",
         "    Objects.requireNonNull(value);",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = HashBiMap.create(name);",
+        "    }",
         "    name.inverse().remove(value);",
         "    return (Person.Builder) this;",
         "  }",
@@ -165,6 +174,9 @@ public class BiMapSourceTest {
         "   * @throws NullPointerException if {@code mutator} is null",
         "   */",
         "  public Person.Builder mutateName(Consumer<? super BiMap<Integer, String>> mutator) {",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = HashBiMap.create(name);",
+        "    }",
         "    // If forcePutName is overridden, this method will be updated to delegate to it",
         "    mutator.accept(name);",
         "    return (Person.Builder) this;",
@@ -176,7 +188,11 @@ public class BiMapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder clearName() {",
-        "    name.clear();",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = ImmutableBiMap.of();",
+        "    } else {",
+        "      name.clear();",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -186,6 +202,9 @@ public class BiMapSourceTest {
         "   * Changes to this builder will be reflected in the view.",
         "   */",
         "  public BiMap<Integer, String> name() {",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = HashBiMap.create(name);",
+        "    }",
         "    return Maps.unmodifiableBiMap(name);",
         "  }",
         "",
@@ -195,7 +214,11 @@ public class BiMapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder mergeFrom(Person value) {",
-        "    putAllName(value.name());",
+        "    if (value instanceof Value && name == ImmutableBiMap.<Integer, String>of()) {",
+        "      name = ImmutableBiMap.copyOf(value.name());",
+        "    } else {",
+        "      putAllName(value.name());",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -217,7 +240,11 @@ public class BiMapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder clear() {",
-        "    name.clear();",
+        "    if (name instanceof ImmutableBiMap) {",
+        "      name = ImmutableBiMap.of();",
+        "    } else {",
+        "      name.clear();",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -269,7 +296,7 @@ public class BiMapSourceTest {
         "    @Override",
         "    public Person.Builder toBuilder() {",
         "      Person_Builder builder = new Person.Builder();",
-        "      builder.name.putAll(name);",
+        "      builder.name = name;",
         "      return (Person.Builder) builder;",
         "    }",
         "",
@@ -284,7 +311,9 @@ public class BiMapSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -315,7 +344,7 @@ public class BiMapSourceTest {
         "    @Override",
         "    public Person.Builder toBuilder() {",
         "      Person_Builder builder = new PartialBuilder();",
-        "      builder.name.putAll(name);",
+        "      builder.name = name;",
         "      return (Person.Builder) builder;",
         "    }",
         "",
@@ -330,7 +359,9 @@ public class BiMapSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -253,7 +253,10 @@ public class DefaultSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Integer.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -307,7 +310,10 @@ public class DefaultSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Integer.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -367,7 +373,8 @@ public class DefaultSourceTest {
         "import com.example.Person;",
         "import com.google.common.annotations.VisibleForTesting;",
         "import com.google.common.base.Preconditions;",
-        "import java.util.EnumSet;",
+        "import java.util.ArrayList;",
+        "import java.util.List;",
         "import java.util.Objects;",
         "import java.util.function.IntUnaryOperator;",
         "import java.util.function.UnaryOperator;",
@@ -400,11 +407,21 @@ public class DefaultSourceTest {
         "    public String toString() {",
         "      return name;",
         "    }",
+        "",
+        "    private static List<Property> unset(int unsetProperties) {",
+        "      List<Property> result = new ArrayList<>();",
+        "      for (Property property : Property.values()) {",
+        "        if ((unsetProperties & (1 << property.ordinal())) != 0) {",
+        "          result.add(property);",
+        "        }",
+        "      }",
+        "      return result;",
+        "    }",
         "  }",
         "",
         "  private String name;",
         "  private int age;",
-        "  private final EnumSet<Property> _unsetProperties = EnumSet.allOf(Property.class);",
+        "  private int _unsetProperties = 0x3;",
         "",
         "  /**",
         "   * Sets the value to be returned by {@link Person#name()}.",
@@ -414,7 +431,7 @@ public class DefaultSourceTest {
         "   */",
         "  public Person.Builder name(String name) {",
         "    this.name = Objects.requireNonNull(name);",
-        "    _unsetProperties.remove(Property.NAME);",
+        "    _unsetProperties &= ~0x1;",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -438,8 +455,7 @@ public class DefaultSourceTest {
         "   * @throws IllegalStateException if the field has not been set",
         "   */",
         "  public String name() {",
-        "    Preconditions.checkState(!_unsetProperties.contains(Property.NAME), "
-            + "\"name not set\");",
+        "    Preconditions.checkState((_unsetProperties & 0x1) == 0, \"name not set\");",
         "    return name;",
         "  }",
         "",
@@ -450,7 +466,7 @@ public class DefaultSourceTest {
         "   */",
         "  public Person.Builder age(int age) {",
         "    this.age = age;",
-        "    _unsetProperties.remove(Property.AGE);",
+        "    _unsetProperties &= ~0x2;",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -474,7 +490,7 @@ public class DefaultSourceTest {
         "   * @throws IllegalStateException if the field has not been set",
         "   */",
         "  public int age() {",
-        "    Preconditions.checkState(!_unsetProperties.contains(Property.AGE), \"age not set\");",
+        "    Preconditions.checkState((_unsetProperties & 0x2) == 0, \"age not set\");",
         "    return age;",
         "  }",
         "",
@@ -485,12 +501,11 @@ public class DefaultSourceTest {
         "   */",
         "  public Person.Builder mergeFrom(Person value) {",
         "    Person_Builder defaults = new Person.Builder();",
-        "    if (defaults._unsetProperties.contains(Property.NAME)",
-        "        || !Objects.equals(value.name(), defaults.name())) {",
+        "    if ((defaults._unsetProperties & 0x1) != 0 || !Objects.equals(value.name(), "
+            + "defaults.name())) {",
         "      name(value.name());",
         "    }",
-        "    if (defaults._unsetProperties.contains(Property.AGE)"
-            + " || value.age() != defaults.age()) {",
+        "    if ((defaults._unsetProperties & 0x2) != 0 || value.age() != defaults.age()) {",
         "      age(value.age());",
         "    }",
         "    return (Person.Builder) this;",
@@ -505,14 +520,14 @@ public class DefaultSourceTest {
         "    // Upcast to access private fields; otherwise, oddly, we get an access violation.",
         "    Person_Builder base = template;",
         "    Person_Builder defaults = new Person.Builder();",
-        "    if (!base._unsetProperties.contains(Property.NAME)",
-        "        && (defaults._unsetProperties.contains(Property.NAME)",
+        "    if ((base._unsetProperties & 0x1) == 0",
+        "        && ((defaults._unsetProperties & 0x1) != 0",
         "            || !Objects.equals(template.name(), defaults.name()))) {",
         "      name(template.name());",
         "    }",
-        "    if (!base._unsetProperties.contains(Property.AGE)",
-        "        && (defaults._unsetProperties.contains(Property.AGE)"
-            + " || template.age() != defaults.age())) {",
+        "    if ((base._unsetProperties & 0x2) == 0",
+        "        && ((defaults._unsetProperties & 0x2) != 0 || template.age() != "
+            + "defaults.age())) {",
         "      age(template.age());",
         "    }",
         "    return (Person.Builder) this;",
@@ -527,8 +542,7 @@ public class DefaultSourceTest {
         "    Person_Builder defaults = new Person.Builder();",
         "    name = defaults.name;",
         "    age = defaults.age;",
-        "    _unsetProperties.clear();",
-        "    _unsetProperties.addAll(defaults._unsetProperties);",
+        "    _unsetProperties = defaults._unsetProperties;",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -539,8 +553,9 @@ public class DefaultSourceTest {
         "   * @throws IllegalStateException if any field has not been set",
         "   */",
         "  public Person build() {",
-        "    Preconditions.checkState(_unsetProperties.isEmpty(),"
-            + " \"Not set: %s\", _unsetProperties);",
+        "    if (_unsetProperties != 0) {",
+        "      throw new IllegalStateException(\"Not set: \" + Property.unset(_unsetProperties));",
+        "    }",
         "    return new Value(this);",
         "  }",
         "",
@@ -594,7 +609,7 @@ public class DefaultSourceTest {
         "      Person_Builder builder = new Person.Builder();",
         "      builder.name = name;",
         "      builder.age = age;",
-        "      builder._unsetProperties.clear();",
+        "      builder._unsetProperties = 0;",
         "      return (Person.Builder) builder;",
         "    }",
         "",
@@ -609,7 +624,10 @@ public class DefaultSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Integer.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -621,17 +639,17 @@ public class DefaultSourceTest {
         "  private static final class Partial extends Person {",
         "    private final String name;",
         "    private final int age;",
-        "    private final EnumSet<Property> _unsetProperties;",
+        "    private final int _unsetProperties;",
         "",
         "    Partial(Person_Builder builder) {",
         "      this.name = builder.name;",
         "      this.age = builder.age;",
-        "      this._unsetProperties = builder._unsetProperties.clone();",
+        "      this._unsetProperties = builder._unsetProperties;",
         "    }",
         "",
         "    @Override",
         "    public String name() {",
-        "      if (_unsetProperties.contains(Property.NAME)) {",
+        "      if ((_unsetProperties & 0x1) != 0) {",
         "        throw new UnsupportedOperationException(\"name not set\");",
         "      }",
         "      return name;",
@@ -639,7 +657,7 @@ public class DefaultSourceTest {
         "",
         "    @Override",
         "    public int age() {",
-        "      if (_unsetProperties.contains(Property.AGE)) {",
+        "      if ((_unsetProperties & 0x2) != 0) {",
         "        throw new UnsupportedOperationException(\"age not set\");",
         "      }",
         "      return age;",
@@ -657,8 +675,7 @@ public class DefaultSourceTest {
         "      Person_Builder builder = new PartialBuilder();",
         "      builder.name = name;",
         "      builder.age = age;",
-        "      builder._unsetProperties.clear();",
-        "      builder._unsetProperties.addAll(_unsetProperties);",
+        "      builder._unsetProperties = this._unsetProperties;",
         "      return (Person.Builder) builder;",
         "    }",
         "",
@@ -670,23 +687,27 @@ public class DefaultSourceTest {
         "      Partial other = (Partial) obj;",
         "      return Objects.equals(name, other.name)",
         "          && age == other.age",
-        "          && Objects.equals(_unsetProperties, other._unsetProperties);",
+        "          && _unsetProperties == other._unsetProperties;",
         "    }",
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age, _unsetProperties);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Integer.hashCode(age);",
+        "      result = 31 * result + Integer.hashCode(_unsetProperties);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
         "    public String toString() {",
         "      StringBuilder result = new StringBuilder(\"partial Person{\");",
         "      String separator = \"\";",
-        "      if (!_unsetProperties.contains(Property.NAME)) {",
+        "      if ((_unsetProperties & 0x1) == 0) {",
         "        result.append(\"name=\").append(name);",
         "        separator = \", \";",
         "      }",
-        "      if (!_unsetProperties.contains(Property.AGE)) {",
+        "      if ((_unsetProperties & 0x2) == 0) {",
         "        result.append(separator).append(\"age=\").append(age);",
         "      }",
         "      return result.append(\"}\").toString();",
@@ -744,7 +765,8 @@ public class DefaultSourceTest {
         "import com.example.Person;",
         "import com.google.common.annotations.VisibleForTesting;",
         "import com.google.common.base.Preconditions;",
-        "import java.util.EnumSet;",
+        "import java.util.ArrayList;",
+        "import java.util.List;",
         "import java.util.Objects;",
         "import java.util.function.UnaryOperator;",
         "",
@@ -776,11 +798,21 @@ public class DefaultSourceTest {
         "    public String toString() {",
         "      return name;",
         "    }",
+        "",
+        "    private static List<Property> unset(int unsetProperties) {",
+        "      List<Property> result = new ArrayList<>();",
+        "      for (Property property : Property.values()) {",
+        "        if ((unsetProperties & (1 << property.ordinal())) != 0) {",
+        "          result.add(property);",
+        "        }",
+        "      }",
+        "      return result;",
+        "    }",
         "  }",
         "",
         "  private A name;",
         "  private B age;",
-        "  private final EnumSet<Property> _unsetProperties = EnumSet.allOf(Property.class);",
+        "  private int _unsetProperties = 0x3;",
         "",
         "  /**",
         "   * Sets the value to be returned by {@link Person#name()}.",
@@ -790,7 +822,7 @@ public class DefaultSourceTest {
         "   */",
         "  public Person.Builder<A, B> name(A name) {",
         "    this.name = Objects.requireNonNull(name);",
-        "    _unsetProperties.remove(Property.NAME);",
+        "    _unsetProperties &= ~0x1;",
         "    return (Person.Builder<A, B>) this;",
         "  }",
         "",
@@ -814,8 +846,7 @@ public class DefaultSourceTest {
         "   * @throws IllegalStateException if the field has not been set",
         "   */",
         "  public A name() {",
-        "    Preconditions.checkState(!_unsetProperties.contains(Property.NAME), "
-            + "\"name not set\");",
+        "    Preconditions.checkState((_unsetProperties & 0x1) == 0, \"name not set\");",
         "    return name;",
         "  }",
         "",
@@ -827,7 +858,7 @@ public class DefaultSourceTest {
         "   */",
         "  public Person.Builder<A, B> age(B age) {",
         "    this.age = Objects.requireNonNull(age);",
-        "    _unsetProperties.remove(Property.AGE);",
+        "    _unsetProperties &= ~0x2;",
         "    return (Person.Builder<A, B>) this;",
         "  }",
         "",
@@ -851,7 +882,7 @@ public class DefaultSourceTest {
         "   * @throws IllegalStateException if the field has not been set",
         "   */",
         "  public B age() {",
-        "    Preconditions.checkState(!_unsetProperties.contains(Property.AGE), \"age not set\");",
+        "    Preconditions.checkState((_unsetProperties & 0x2) == 0, \"age not set\");",
         "    return age;",
         "  }",
         "",
@@ -862,12 +893,12 @@ public class DefaultSourceTest {
         "   */",
         "  public Person.Builder<A, B> mergeFrom(Person<A, B> value) {",
         "    Person_Builder<A, B> defaults = new Person.Builder<>();",
-        "    if (defaults._unsetProperties.contains(Property.NAME)",
-        "        || !Objects.equals(value.name(), defaults.name())) {",
+        "    if ((defaults._unsetProperties & 0x1) != 0 || !Objects.equals(value.name(), "
+            + "defaults.name())) {",
         "      name(value.name());",
         "    }",
-        "    if (defaults._unsetProperties.contains(Property.AGE)",
-        "        || !Objects.equals(value.age(), defaults.age())) {",
+        "    if ((defaults._unsetProperties & 0x2) != 0 || !Objects.equals(value.age(), "
+            + "defaults.age())) {",
         "      age(value.age());",
         "    }",
         "    return (Person.Builder<A, B>) this;",
@@ -882,13 +913,13 @@ public class DefaultSourceTest {
         "    // Upcast to access private fields; otherwise, oddly, we get an access violation.",
         "    Person_Builder<A, B> base = template;",
         "    Person_Builder<A, B> defaults = new Person.Builder<>();",
-        "    if (!base._unsetProperties.contains(Property.NAME)",
-        "        && (defaults._unsetProperties.contains(Property.NAME)",
+        "    if ((base._unsetProperties & 0x1) == 0",
+        "        && ((defaults._unsetProperties & 0x1) != 0",
         "            || !Objects.equals(template.name(), defaults.name()))) {",
         "      name(template.name());",
         "    }",
-        "    if (!base._unsetProperties.contains(Property.AGE)",
-        "        && (defaults._unsetProperties.contains(Property.AGE)",
+        "    if ((base._unsetProperties & 0x2) == 0",
+        "        && ((defaults._unsetProperties & 0x2) != 0",
         "            || !Objects.equals(template.age(), defaults.age()))) {",
         "      age(template.age());",
         "    }",
@@ -904,8 +935,7 @@ public class DefaultSourceTest {
         "    Person_Builder<A, B> defaults = new Person.Builder<>();",
         "    name = defaults.name;",
         "    age = defaults.age;",
-        "    _unsetProperties.clear();",
-        "    _unsetProperties.addAll(defaults._unsetProperties);",
+        "    _unsetProperties = defaults._unsetProperties;",
         "    return (Person.Builder<A, B>) this;",
         "  }",
         "",
@@ -916,8 +946,9 @@ public class DefaultSourceTest {
         "   * @throws IllegalStateException if any field has not been set",
         "   */",
         "  public Person<A, B> build() {",
-        "    Preconditions.checkState(_unsetProperties.isEmpty(),"
-            + " \"Not set: %s\", _unsetProperties);",
+        "    if (_unsetProperties != 0) {",
+        "      throw new IllegalStateException(\"Not set: \" + Property.unset(_unsetProperties));",
+        "    }",
         "    return new Value<>(this);",
         "  }",
         "",
@@ -971,7 +1002,7 @@ public class DefaultSourceTest {
         "      Person_Builder<A, B> builder = new Person.Builder<>();",
         "      builder.name = name;",
         "      builder.age = age;",
-        "      builder._unsetProperties.clear();",
+        "      builder._unsetProperties = 0;",
         "      return (Person.Builder<A, B>) builder;",
         "    }",
         "",
@@ -986,7 +1017,10 @@ public class DefaultSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -998,17 +1032,17 @@ public class DefaultSourceTest {
         "  private static final class Partial<A, B> extends Person<A, B> {",
         "    private final A name;",
         "    private final B age;",
-        "    private final EnumSet<Property> _unsetProperties;",
+        "    private final int _unsetProperties;",
         "",
         "    Partial(Person_Builder<A, B> builder) {",
         "      this.name = builder.name;",
         "      this.age = builder.age;",
-        "      this._unsetProperties = builder._unsetProperties.clone();",
+        "      this._unsetProperties = builder._unsetProperties;",
         "    }",
         "",
         "    @Override",
         "    public A name() {",
-        "      if (_unsetProperties.contains(Property.NAME)) {",
+        "      if ((_unsetProperties & 0x1) != 0) {",
         "        throw new UnsupportedOperationException(\"name not set\");",
         "      }",
         "      return name;",
@@ -1016,7 +1050,7 @@ public class DefaultSourceTest {
         "",
         "    @Override",
         "    public B age() {",
-        "      if (_unsetProperties.contains(Property.AGE)) {",
+        "      if ((_unsetProperties & 0x2) != 0) {",
         "        throw new UnsupportedOperationException(\"age not set\");",
         "      }",
         "      return age;",
@@ -1034,8 +1068,7 @@ public class DefaultSourceTest {
         "      Person_Builder<A, B> builder = new PartialBuilder<>();",
         "      builder.name = name;",
         "      builder.age = age;",
-        "      builder._unsetProperties.clear();",
-        "      builder._unsetProperties.addAll(_unsetProperties);",
+        "      builder._unsetProperties = this._unsetProperties;",
         "      return (Person.Builder<A, B>) builder;",
         "    }",
         "",
@@ -1047,23 +1080,27 @@ public class DefaultSourceTest {
         "      Partial<?, ?> other = (Partial<?, ?>) obj;",
         "      return Objects.equals(name, other.name)",
         "          && Objects.equals(age, other.age)",
-        "          && Objects.equals(_unsetProperties, other._unsetProperties);",
+        "          && _unsetProperties == other._unsetProperties;",
         "    }",
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age, _unsetProperties);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      result = 31 * result + Integer.hashCode(_unsetProperties);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
         "    public String toString() {",
         "      StringBuilder result = new StringBuilder(\"partial Person{\");",
         "      String separator = \"\";",
-        "      if (!_unsetProperties.contains(Property.NAME)) {",
+        "      if ((_unsetProperties & 0x1) == 0) {",
         "        result.append(\"name=\").append(name);",
         "        separator = \", \";",
         "      }",
-        "      if (!_unsetProperties.contains(Property.AGE)) {",
+        "      if ((_unsetProperties & 0x2) == 0) {",
         "        result.append(separator).append(\"age=\").append(age);",
         "      }",
         "      return result.append(\"}\").toString();",
@@ -341,7 +341,10 @@ public class GuavaOptionalSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -410,7 +413,10 @@ public class GuavaOptionalSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
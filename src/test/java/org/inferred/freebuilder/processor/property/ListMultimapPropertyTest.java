@@ -566,6 +566,56 @@ public class ListMultimapPropertyTest {
         .runTest();
   }
 
+  @Test
+  public void testMergeFrom_valueInstance_thenPut() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(dataType)
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s)", key.example(0), value.example(1))
+            .addLine("    .build();")
+            .addLine("DataType.Builder builder = new DataType.Builder()")
+            .addLine("    .mergeFrom(value)")
+            .addLine("    .putItems(%s, %s);", key.example(2), value.example(3))
+            .addLine("assertThat(value.%s)", convention.get("items"))
+            .addLine("    .contains(%s, %s)", key.example(0), value.example(1))
+            .addLine("    .andNothingElse();")
+            .addLine("assertThat(builder.build().%s)", convention.get("items"))
+            .addLine("    .contains(%s, %s)", key.example(0), value.example(1))
+            .addLine("    .and(%s, %s)", key.example(2), value.example(3))
+            .addLine("    .andNothingElse()")
+            .addLine("    .inOrder();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testMergeFrom_valueInstance_thenRemove() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(dataType)
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s)", key.example(0), value.example(1))
+            .addLine("    .putItems(%s, %s)", key.example(2), value.example(3))
+            .addLine("    .build();")
+            .addLine("DataType copy = new DataType.Builder()")
+            .addLine("    .mergeFrom(value)")
+            .addLine("    .removeItems(%s, %s)", key.example(0), value.example(1))
+            .addLine("    .build();")
+            .addLine("assertThat(value.%s)", convention.get("items"))
+            .addLine("    .contains(%s, %s)", key.example(0), value.example(1))
+            .addLine("    .and(%s, %s)", key.example(2), value.example(3))
+            .addLine("    .andNothingElse()")
+            .addLine("    .inOrder();")
+            .addLine("assertThat(copy.%s)", convention.get("items"))
+            .addLine("    .contains(%s, %s)", key.example(2), value.example(3))
+            .addLine("    .andNothingElse();")
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testMergeFrom_builder() {
     behaviorTester
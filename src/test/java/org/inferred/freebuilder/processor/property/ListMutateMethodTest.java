@@ -17,6 +17,7 @@ package org.inferred.freebuilder.processor.property;
 
 import static org.inferred.freebuilder.processor.property.ElementFactory.STRINGS;
 import static org.inferred.freebuilder.processor.property.ElementFactory.TYPES;
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
 import static org.junit.Assume.assumeTrue;
 
 import com.google.common.collect.ImmutableList;
@@ -28,6 +29,8 @@ import org.inferred.freebuilder.processor.NamingConvention;
 import org.inferred.freebuilder.processor.Processor;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.ListStorage;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
 import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
 import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
 import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
@@ -53,7 +56,10 @@ public class ListMutateMethodTest {
   public static Iterable<Object[]> parameters() {
     List<Boolean> checked = ImmutableList.of(false, true);
     List<NamingConvention> conventions = Arrays.asList(NamingConvention.values());
-    List<FeatureSet> features = FeatureSets.ALL;
+    List<FeatureSet> features = ImmutableList.<FeatureSet>builder()
+        .addAll(FeatureSets.ALL)
+        .add(new StaticFeatureSet(JAVA_8, ListStorage.UNBOXED))
+        .build();
     return () -> Lists
         .cartesianProduct(TYPES, checked, conventions, features)
         .stream()
@@ -18,6 +18,7 @@ package org.inferred.freebuilder.processor.property;
 import static org.inferred.freebuilder.processor.property.ElementFactory.INTEGERS;
 import static org.inferred.freebuilder.processor.property.ElementFactory.TYPES;
 import static org.inferred.freebuilder.processor.source.feature.GuavaLibrary.GUAVA;
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
 import static org.junit.Assume.assumeTrue;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -33,6 +34,8 @@ import org.inferred.freebuilder.processor.NamingConvention;
 import org.inferred.freebuilder.processor.Processor;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.ListStorage;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
 import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
 import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
 import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
@@ -62,7 +65,10 @@ public class ListPropertyTest {
   @Parameters(name = "List<{0}>, {1}, {2}")
   public static Iterable<Object[]> parameters() {
     List<NamingConvention> conventions = Arrays.asList(NamingConvention.values());
-    List<FeatureSet> features = FeatureSets.ALL;
+    List<FeatureSet> features = ImmutableList.<FeatureSet>builder()
+        .addAll(FeatureSets.ALL)
+        .add(new StaticFeatureSet(JAVA_8, ListStorage.UNBOXED))
+        .build();
     return () -> Lists
         .cartesianProduct(TYPES, conventions, features)
         .stream()
@@ -32,6 +32,7 @@ import org.inferred.freebuilder.processor.model.GenericTypeElementImpl.GenericTy
 import org.inferred.freebuilder.processor.source.FunctionalType;
 import org.inferred.freebuilder.processor.source.QualifiedName;
 import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
+import org.inferred.freebuilder.processor.source.feature.ListStorage;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -383,7 +384,10 @@ public class ListSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -437,7 +441,10 @@ public class ListSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -566,6 +573,11 @@ public class ListSourceTest {
         "   * @throws NullPointerException if {@code elements} is null or contains a null element",
         "   */",
         "  public Person.Builder addAllName(Iterable<? extends String> elements) {",
+        "    if (elements instanceof ImmutableList && name == ImmutableList.<String>of()) {",
+        "      // Adopt the immutable list; it will be copied if this builder is modified",
+        "      name = ImmutableList.copyOf(elements);",
+        "      return (Person.Builder) this;",
+        "    }",
         "    return addAllName(elements.spliterator());",
         "  }",
         "",
@@ -679,6 +691,11 @@ public class ListSourceTest {
         "   * @throws NullPointerException if {@code elements} is null or contains a null element",
         "   */",
         "  public Person.Builder addAllAge(Iterable<? extends Integer> elements) {",
+        "    if (elements instanceof ImmutableList && age == ImmutableList.<Integer>of()) {",
+        "      // Adopt the immutable list; it will be copied if this builder is modified",
+        "      age = ImmutableList.copyOf(elements);",
+        "      return (Person.Builder) this;",
+        "    }",
         "    return addAllAge(elements.spliterator());",
         "  }",
         "",
@@ -843,7 +860,10 @@ public class ListSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -897,7 +917,10 @@ public class ListSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name, age);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -908,6 +931,580 @@ public class ListSourceTest {
         "}");
   }
 
+  @Test
+  public void test_unboxed() {
+    assertThat(builder()).given(ListStorage.UNBOXED).generates(
+        "// Autogenerated code. Do not modify.",
+        "package com.example;",
+        "",
+        "import com.example.Person;",
+        "import java.io.Serializable;",
+        "import java.util.AbstractList;",
+        "import java.util.ArrayList;",
+        "import java.util.Arrays;",
+        "import java.util.Collection;",
+        "import java.util.Collections;",
+        "import java.util.List;",
+        "import java.util.Objects;",
+        "import java.util.RandomAccess;",
+        "import java.util.Spliterator;",
+        "import java.util.Spliterator.OfInt;",
+        "import java.util.function.Consumer;",
+        "import java.util.function.IntConsumer;",
+        "import java.util.stream.BaseStream;",
+        "",
+        "/** Auto-generated superclass of {@link Person.Builder}, derived from the API of {@link "
+            + "Person}. */",
+        "abstract class Person_Builder {",
+        "",
+        "  /**",
+        "   * Creates a new builder using {@code value} as a template.",
+        "   *",
+        "   * <p>If {@code value} is a partial, the builder will return more partials.",
+        "   */",
+        "  public static Person.Builder from(Person value) {",
+        "    if (value instanceof Rebuildable) {",
+        "      return ((Rebuildable) value).toBuilder();",
+        "    } else {",
+        "      return new Person.Builder().mergeFrom(value);",
+        "    }",
+        "  }",
+        "",
+        "  private final ArrayList<String> name = new ArrayList<>();",
+        "  private final IntArrayList age = new IntArrayList();",
+        "",
+        "  /**",
+        "   * Adds {@code element} to the list to be returned from {@link Person#name()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code element} is null",
+        "   */",
+        "  public Person.Builder addName(String element) {",
+        "    name.add(Objects.requireNonNull(element));",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#name()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addName(String... elements) {",
+        "    return addAllName(Arrays.asList(elements));",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#name()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addAllName(Spliterator<? extends String> elements) {",
+        "    if ((elements.characteristics() & Spliterator.SIZED) != 0) {",
+        "      long elementsSize = elements.estimateSize();",
+        "      if (elementsSize > 0 && elementsSize <= Integer.MAX_VALUE) {",
+        "        name.ensureCapacity(name.size() + (int) elementsSize);",
+        "      }",
+        "    }",
+        "    elements.forEachRemaining(this::addName);",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#name()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addAllName(BaseStream<? extends String, ?> elements) {",
+        "    return addAllName(elements.spliterator());",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#name()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addAllName(Iterable<? extends String> elements) {",
+        "    return addAllName(elements.spliterator());",
+        "  }",
+        "",
+        "  /**",
+        "   * Applies {@code mutator} to the list to be returned from {@link Person#name()}.",
+        "   *",
+        "   * <p>This method mutates the list in-place. {@code mutator} is a void consumer, so "
+            + "any value",
+        "   * returned from a lambda will be ignored. Take care not to call pure functions, like "
+            + "{@link",
+        "   * Collection#stream()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code mutator} is null",
+        "   */",
+        "  public Person.Builder mutateName(Consumer<? super List<String>> mutator) {",
+        "    // If addName is overridden, this method will be updated to delegate to it",
+        "    mutator.accept(name);",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Clears the list to be returned from {@link Person#name()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder clearName() {",
+        "    name.clear();",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Returns an unmodifiable view of the list that will be returned by {@link "
+            + "Person#name()}.",
+        "   * Changes to this builder will be reflected in the view.",
+        "   */",
+        "  public List<String> name() {",
+        "    return Collections.unmodifiableList(name);",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds {@code element} to the list to be returned from {@link Person#age()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder addAge(int element) {",
+        "    age.append(element);",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#age()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder addAge(int... elements) {",
+        "    age.appendAll(elements);",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#age()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addAllAge(Spliterator<? extends Integer> elements) {",
+        "    if ((elements.characteristics() & Spliterator.SIZED) != 0) {",
+        "      long elementsSize = elements.estimateSize();",
+        "      if (elementsSize > 0 && elementsSize <= Integer.MAX_VALUE) {",
+        "        age.ensureCapacity(age.size() + (int) elementsSize);",
+        "      }",
+        "    }",
+        "    if (elements instanceof OfInt) {",
+        "      ((OfInt) elements).forEachRemaining((IntConsumer) this::addAge);",
+        "    } else {",
+        "      elements.forEachRemaining(this::addAge);",
+        "    }",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#age()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addAllAge(BaseStream<? extends Integer, ?> elements) {",
+        "    return addAllAge(elements.spliterator());",
+        "  }",
+        "",
+        "  /**",
+        "   * Adds each element of {@code elements} to the list to be returned from {@link "
+            + "Person#age()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code elements} is null or contains a null element",
+        "   */",
+        "  public Person.Builder addAllAge(Iterable<? extends Integer> elements) {",
+        "    return addAllAge(elements.spliterator());",
+        "  }",
+        "",
+        "  /**",
+        "   * Applies {@code mutator} to the list to be returned from {@link Person#age()}.",
+        "   *",
+        "   * <p>This method mutates the list in-place. {@code mutator} is a void consumer, so "
+            + "any value",
+        "   * returned from a lambda will be ignored. Take care not to call pure functions, like "
+            + "{@link",
+        "   * Collection#stream()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code mutator} is null",
+        "   */",
+        "  public Person.Builder mutateAge(Consumer<? super List<Integer>> mutator) {",
+        "    // If addAge is overridden, this method will be updated to delegate to it",
+        "    mutator.accept(age);",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Clears the list to be returned from {@link Person#age()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder clearAge() {",
+        "    age.clear();",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Returns an unmodifiable view of the list that will be returned by {@link "
+            + "Person#age()}. Changes",
+        "   * to this builder will be reflected in the view.",
+        "   */",
+        "  public List<Integer> age() {",
+        "    return Collections.unmodifiableList(age);",
+        "  }",
+        "",
+        "  /**",
+        "   * Copies values from {@code value}, appending to collections.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder mergeFrom(Person value) {",
+        "    addAllName(value.name());",
+        "    addAllAge(value.age());",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Copies values from {@code template}, appending to collections.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder mergeFrom(Person.Builder template) {",
+        "    // Upcast to access private fields; otherwise, oddly, we get an access violation.",
+        "    Person_Builder base = template;",
+        "    addAllName(base.name);",
+        "    addAllAge(base.age);",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Resets the state of this builder.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Person.Builder clear() {",
+        "    clearName();",
+        "    clearAge();",
+        "    return (Person.Builder) this;",
+        "  }",
+        "",
+        "  /** Returns a newly-created {@link Person} based on the contents of this {@code "
+            + "Builder}. */",
+        "  public Person build() {",
+        "    return new Value(this);",
+        "  }",
+        "",
+        "  /**",
+        "   * Returns a newly-created partial {@link Person} for use in unit tests. State "
+            + "checking will not",
+        "   * be performed.",
+        "   *",
+        "   * <p>The builder returned by {@link Person.Builder#from(Person)} will propagate the "
+            + "partial",
+        "   * status of its input, overriding {@link Person.Builder#build() build()} to return "
+            + "another",
+        "   * partial. This allows for robust tests of modify-rebuild code.",
+        "   *",
+        "   * <p>Partials should only ever be used in tests. They permit writing robust test "
+            + "cases that won't",
+        "   * fail if this type gains more application-level constraints (e.g. new required "
+            + "fields) in",
+        "   * future. If you require partially complete values in production code, consider "
+            + "using a Builder.",
+        "   */",
+        "  public Person buildPartial() {",
+        "    return new Partial(this);",
+        "  }",
+        "",
+        "  private abstract static class Rebuildable extends Person {",
+        "    public abstract Person.Builder toBuilder();",
+        "  }",
+        "",
+        "  private static final class Value extends Rebuildable {",
+        "    private final List<String> name;",
+        "    private final ImmutableIntList age;",
+        "",
+        "    private Value(Person_Builder builder) {",
+        "      this.name = immutableList(builder.name);",
+        "      this.age = new ImmutableIntList(builder.age.toPrimitiveArray());",
+        "    }",
+        "",
+        "    @Override",
+        "    public List<String> name() {",
+        "      return name;",
+        "    }",
+        "",
+        "    @Override",
+        "    public List<Integer> age() {",
+        "      return age;",
+        "    }",
+        "",
+        "    @Override",
+        "    public Person.Builder toBuilder() {",
+        "      Person_Builder builder = new Person.Builder();",
+        "      builder.name.addAll(name);",
+        "      builder.age.appendAll(age.elements);",
+        "      return (Person.Builder) builder;",
+        "    }",
+        "",
+        "    @Override",
+        "    public boolean equals(Object obj) {",
+        "      if (!(obj instanceof Value)) {",
+        "        return false;",
+        "      }",
+        "      Value other = (Value) obj;",
+        "      return Objects.equals(name, other.name) && Objects.equals(age, other.age);",
+        "    }",
+        "",
+        "    @Override",
+        "    public int hashCode() {",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
+        "    }",
+        "",
+        "    @Override",
+        "    public String toString() {",
+        "      return \"Person{name=\" + name + \", age=\" + age + \"}\";",
+        "    }",
+        "  }",
+        "",
+        "  private static final class Partial extends Rebuildable {",
+        "    private final List<String> name;",
+        "    private final ImmutableIntList age;",
+        "",
+        "    Partial(Person_Builder builder) {",
+        "      this.name = immutableList(builder.name);",
+        "      this.age = new ImmutableIntList(builder.age.toPrimitiveArray());",
+        "    }",
+        "",
+        "    @Override",
+        "    public List<String> name() {",
+        "      return name;",
+        "    }",
+        "",
+        "    @Override",
+        "    public List<Integer> age() {",
+        "      return age;",
+        "    }",
+        "",
+        "    private static class PartialBuilder extends Person.Builder {",
+        "      @Override",
+        "      public Person build() {",
+        "        return buildPartial();",
+        "      }",
+        "    }",
+        "",
+        "    @Override",
+        "    public Person.Builder toBuilder() {",
+        "      Person_Builder builder = new PartialBuilder();",
+        "      builder.name.addAll(name);",
+        "      builder.age.appendAll(age.elements);",
+        "      return (Person.Builder) builder;",
+        "    }",
+        "",
+        "    @Override",
+        "    public boolean equals(Object obj) {",
+        "      if (!(obj instanceof Partial)) {",
+        "        return false;",
+        "      }",
+        "      Partial other = (Partial) obj;",
+        "      return Objects.equals(name, other.name) && Objects.equals(age, other.age);",
+        "    }",
+        "",
+        "    @Override",
+        "    public int hashCode() {",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      result = 31 * result + Objects.hashCode(age);",
+        "      return result;",
+        "    }",
+        "",
+        "    @Override",
+        "    public String toString() {",
+        "      return \"partial Person{name=\" + name + \", age=\" + age + \"}\";",
+        "    }",
+        "  }",
+        "",
+        "  /** An immutable list of {@code int} values, stored in a primitive array. */",
+        "  private static final class ImmutableIntList extends AbstractList<Integer>",
+        "      implements RandomAccess, Serializable {",
+        "",
+        "    private static final long serialVersionUID = 1L;",
+        "",
+        "    final int[] elements;",
+        "",
+        "    /** Takes ownership of {@code elements}, which must not be modified. */",
+        "    ImmutableIntList(int[] elements) {",
+        "      this.elements = elements;",
+        "    }",
+        "",
+        "    @Override",
+        "    public int size() {",
+        "      return elements.length;",
+        "    }",
+        "",
+        "    @Override",
+        "    public Integer get(int index) {",
+        "      return elements[index];",
+        "    }",
+        "",
+        "    @Override",
+        "    public Spliterator<Integer> spliterator() {",
+        "      return Arrays.spliterator(elements);",
+        "    }",
+        "",
+        "    @Override",
+        "    public boolean equals(Object obj) {",
+        "      if (obj instanceof ImmutableIntList) {",
+        "        return Arrays.equals(elements, ((ImmutableIntList) obj).elements);",
+        "      }",
+        "      return super.equals(obj);",
+        "    }",
+        "",
+        "    @Override",
+        "    public int hashCode() {",
+        "      return Arrays.hashCode(elements);",
+        "    }",
+        "",
+        "    @Override",
+        "    public String toString() {",
+        "      return Arrays.toString(elements);",
+        "    }",
+        "  }",
+        "",
+        "  /** A growable list of {@code int} values, stored in a primitive array. */",
+        "  private static final class IntArrayList extends AbstractList<Integer> implements "
+            + "RandomAccess {",
+        "",
+        "    private static final int[] EMPTY = {};",
+        "",
+        "    private int[] elements = EMPTY;",
+        "    private int size;",
+        "",
+        "    void append(int element) {",
+        "      ensureCapacity(size + 1);",
+        "      elements[size++] = element;",
+        "      modCount++;",
+        "    }",
+        "",
+        "    void appendAll(int[] source) {",
+        "      ensureCapacity(size + source.length);",
+        "      System.arraycopy(source, 0, elements, size, source.length);",
+        "      size += source.length;",
+        "      modCount++;",
+        "    }",
+        "",
+        "    void ensureCapacity(int minCapacity) {",
+        "      if (minCapacity > elements.length) {",
+        "        int newCapacity = elements.length + (elements.length >> 1) + 1;",
+        "        elements = Arrays.copyOf(elements, Math.max(minCapacity, newCapacity));",
+        "      }",
+        "    }",
+        "",
+        "    int[] toPrimitiveArray() {",
+        "      return Arrays.copyOf(elements, size);",
+        "    }",
+        "",
+        "    @Override",
+        "    public int size() {",
+        "      return size;",
+        "    }",
+        "",
+        "    @Override",
+        "    public Integer get(int index) {",
+        "      checkElementIndex(index);",
+        "      return elements[index];",
+        "    }",
+        "",
+        "    @Override",
+        "    public Integer set(int index, Integer element) {",
+        "      checkElementIndex(index);",
+        "      int previous = elements[index];",
+        "      elements[index] = element;",
+        "      return previous;",
+        "    }",
+        "",
+        "    @Override",
+        "    public void add(int index, Integer element) {",
+        "      if (index < 0 || index > size) {",
+        "        throw new IndexOutOfBoundsException(\"Index: \" + index + \", Size: \" + size);",
+        "      }",
+        "      int value = element;",
+        "      ensureCapacity(size + 1);",
+        "      System.arraycopy(elements, index, elements, index + 1, size - index);",
+        "      elements[index] = value;",
+        "      size++;",
+        "      modCount++;",
+        "    }",
+        "",
+        "    @Override",
+        "    public Integer remove(int index) {",
+        "      checkElementIndex(index);",
+        "      int previous = elements[index];",
+        "      System.arraycopy(elements, index + 1, elements, index, size - index - 1);",
+        "      size--;",
+        "      modCount++;",
+        "      return previous;",
+        "    }",
+        "",
+        "    @Override",
+        "    public void clear() {",
+        "      size = 0;",
+        "      modCount++;",
+        "    }",
+        "",
+        "    @Override",
+        "    protected void removeRange(int fromIndex, int toIndex) {",
+        "      System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);",
+        "      size -= toIndex - fromIndex;",
+        "      modCount++;",
+        "    }",
+        "",
+        "    private void checkElementIndex(int index) {",
+        "      if (index < 0 || index >= size) {",
+        "        throw new IndexOutOfBoundsException(\"Index: \" + index + \", Size: \" + size);",
+        "      }",
+        "    }",
+        "  }",
+        "",
+        "  @SuppressWarnings(\"unchecked\")",
+        "  private static <E> List<E> immutableList(List<E> elements) {",
+        "    switch (elements.size()) {",
+        "      case 0:",
+        "        return Collections.emptyList();",
+        "      case 1:",
+        "        return Collections.singletonList(elements.get(0));",
+        "      default:",
+        "        return (List<E>) (List<?>) "
+            + "Collections.unmodifiableList(Arrays.asList(elements.toArray()));",
+        "    }",
+        "  }",
+        "}");
+  }
+
   /**
    * Returns a {@link Datatype} instance for a FreeBuilder type with two properties: name, of
    * type {@code List<String>}; and age, of type {@code List<Integer>}.
@@ -962,7 +1559,8 @@ public class ListSourceTest {
             false,
             STRING,
             Optional.empty(),
-            FunctionalType.consumer(wildcardSuper(listString))),
+            FunctionalType.consumer(wildcardSuper(listString)),
+            true),
         age, new ListProperty(
             datatype,
             age,
@@ -971,6 +1569,7 @@ public class ListSourceTest {
             false,
             INTEGER,
             Optional.of(INT),
-            FunctionalType.consumer(wildcardSuper(listInteger)))));
+            FunctionalType.consumer(wildcardSuper(listInteger)),
+            true)));
   }
 }
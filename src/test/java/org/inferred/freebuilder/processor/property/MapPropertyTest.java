@@ -405,6 +405,101 @@ public class MapPropertyTest {
         .runTest();
   }
 
+  @Test
+  public void testMergeFrom_valueInstance_thenPut() {
+    behaviorTester
+        .with(mapPropertyType)
+        .with(testBuilder()
+            .addLine("DataType template = new DataType.Builder()")
+            .addLine("    .putAllItems(%s)", exampleMap(0, 0, 1, 1))
+            .addLine("    .build();")
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .mergeFrom(template)")
+            .addLine("    .putItems(%s, %s)", keys.example(2), values.example(2))
+            .addLine("    .build();")
+            .addLine("assertThat(template.%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0, 1, 1))
+            .addLine("assertThat(value.%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0, 1, 1, 2, 2))
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testMergeFrom_builder_thenPutOnTemplate() {
+    behaviorTester
+        .with(mapPropertyType)
+        .with(testBuilder()
+            .addLine("DataType.Builder template = new DataType.Builder()")
+            .addLine("    .putAllItems(%s);", exampleMap(0, 0, 1, 1))
+            .addLine("DataType.Builder builder = new DataType.Builder()")
+            .addLine("    .mergeFrom(template);")
+            .addLine("template.putItems(%s, %s);", keys.example(2), values.example(2))
+            .addLine("assertThat(builder.build().%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0, 1, 1))
+            .addLine("assertThat(template.build().%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0, 1, 1, 2, 2))
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testMergeFrom_builder_intoNonEmptyBuilder() {
+    behaviorTester
+        .with(mapPropertyType)
+        .with(testBuilder()
+            .addLine("DataType.Builder template = new DataType.Builder()")
+            .addLine("    .putAllItems(%s);", exampleMap(1, 1, 2, 2))
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s)", keys.example(0), values.example(0))
+            .addLine("    .mergeFrom(template)")
+            .addLine("    .build();")
+            .addLine("assertThat(value.%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0, 1, 1, 2, 2))
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testPutAll_nullValue_leavesBuilderUnchanged() {
+    behaviorTester
+        .with(mapPropertyType)
+        .with(testBuilder()
+            .addLine("%1$s<%2$s, %3$s> items = new %4$s<%2$s, %3$s>();",
+                Map.class, keys.type(), values.type(), LinkedHashMap.class)
+            .addLine("items.put(%s, %s);", keys.example(1), values.example(1))
+            .addLine("items.put(%s, (%s) null);", keys.example(2), values.type())
+            .addLine("DataType.Builder builder = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s);", keys.example(0), values.example(0))
+            .addLine("try {")
+            .addLine("  builder.putAllItems(items);")
+            .addLine("  fail(\"Expected NullPointerException\");")
+            .addLine("} catch (NullPointerException expected) {}")
+            .addLine("assertThat(builder.build().%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0))
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testToBuilder_thenPut() {
+    behaviorTester
+        .with(mapPropertyType)
+        .with(testBuilder()
+            .addLine("DataType original = new DataType.Builder()")
+            .addLine("    .putItems(%s, %s)", keys.example(0), values.example(0))
+            .addLine("    .build();")
+            .addLine("DataType.Builder builder = original.toBuilder();")
+            .addLine("builder.putItems(%s, %s);", keys.example(1), values.example(1))
+            .addLine("builder.removeItems(%s);", keys.example(0))
+            .addLine("assertThat(original.%s).isEqualTo(%s);",
+                convention.get(), exampleMap(0, 0))
+            .addLine("assertThat(builder.build().%s).isEqualTo(%s);",
+                convention.get(), exampleMap(1, 1))
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testBuilderClear() {
     behaviorTester
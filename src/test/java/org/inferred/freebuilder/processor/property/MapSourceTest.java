@@ -98,9 +98,12 @@ public class MapSourceTest {
         "   * @throws NullPointerException if {@code map} is null or contains a null key or value",
         "   */",
         "  public Person.Builder putAllName(Map<? extends Integer, ? extends String> map) {",
+        "    // If putName is overridden, this method will be updated to delegate to it",
         "    for (Map.Entry<? extends Integer, ? extends String> entry : map.entrySet()) {",
-        "      putName(entry.getKey(), entry.getValue());",
+        "      Objects.requireNonNull(entry.getKey());",
+        "      Objects.requireNonNull(entry.getValue());",
         "    }",
+        "    name.putAll(map);",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -160,7 +163,11 @@ public class MapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder mergeFrom(Person value) {",
-        "    putAllName(value.name());",
+        "    if (value instanceof Value) {",
+        "      name.putAll(value.name());",
+        "    } else {",
+        "      putAllName(value.name());",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -172,7 +179,7 @@ public class MapSourceTest {
         "  public Person.Builder mergeFrom(Person.Builder template) {",
         "    // Upcast to access private fields; otherwise, oddly, we get an access violation.",
         "    Person_Builder base = template;",
-        "    putAllName(base.name);",
+        "    name.putAll(base.name);",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -248,7 +255,9 @@ public class MapSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -294,7 +303,9 @@ public class MapSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -350,7 +361,7 @@ public class MapSourceTest {
         "    }",
         "  }",
         "",
-        "  private final LinkedHashMap<Integer, String> name = new LinkedHashMap<>();",
+        "  private Map<Integer, String> name = ImmutableMap.of();",
         "",
         "  /**",
         "   * Associates {@code key} with {@code value} in the map to be returned from "
@@ -364,6 +375,9 @@ public class MapSourceTest {
         "   */",
         "  public Person.Builder putName(int key, String value) {",
         "    Objects.requireNonNull(value);",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = new LinkedHashMap<>(name);",
+        "    }",
         "    name.put(key, value);",
         "    return (Person.Builder) this;",
         "  }",
@@ -376,9 +390,22 @@ public class MapSourceTest {
         "   * @throws NullPointerException if {@code map} is null or contains a null key or value",
         "   */",
         "  public Person.Builder putAllName(Map<? extends Integer, ? extends String> map) {",
-        "    for (Map.Entry<? extends Integer, ? extends String> entry : map.entrySet()) {",
-        "      putName(entry.getKey(), entry.getValue());",
+        "    // If putName is overridden, this method will be updated to delegate to it",
+        "    if (map instanceof ImmutableMap) {",
+        "      if (name == ImmutableMap.<Integer, String>of()) {",
+        "        name = ImmutableMap.copyOf(map);",
+        "        return (Person.Builder) this;",
+        "      }",
+        "    } else {",
+        "      for (Map.Entry<? extends Integer, ? extends String> entry : map.entrySet()) {",
+        "        Objects.requireNonNull(entry.getKey());",
+        "        Objects.requireNonNull(entry.getValue());",
+        "      }",
         "    }",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = new LinkedHashMap<>(name);",
+        "    }",
+        "    name.putAll(map);",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -390,6 +417,9 @@ public class MapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder removeName(int key) {",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = new LinkedHashMap<>(name);",
+        "    }",
         "    name.remove(key);",
         "    return (Person.Builder) this;",
         "  }",
@@ -407,6 +437,9 @@ public class MapSourceTest {
         "   * @throws NullPointerException if {@code mutator} is null",
         "   */",
         "  public Person.Builder mutateName(Consumer<? super Map<Integer, String>> mutator) {",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = new LinkedHashMap<>(name);",
+        "    }",
         "    // If putName is overridden, this method will be updated to delegate to it",
         "    mutator.accept(name);",
         "    return (Person.Builder) this;",
@@ -418,7 +451,11 @@ public class MapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder clearName() {",
-        "    name.clear();",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = ImmutableMap.of();",
+        "    } else {",
+        "      name.clear();",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -428,6 +465,9 @@ public class MapSourceTest {
         "   * to this builder will be reflected in the view.",
         "   */",
         "  public Map<Integer, String> name() {",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = new LinkedHashMap<>(name);",
+        "    }",
         "    return Collections.unmodifiableMap(name);",
         "  }",
         "",
@@ -449,7 +489,15 @@ public class MapSourceTest {
         "  public Person.Builder mergeFrom(Person.Builder template) {",
         "    // Upcast to access private fields; otherwise, oddly, we get an access violation.",
         "    Person_Builder base = template;",
-        "    putAllName(base.name);",
+        "    if (name == ImmutableMap.<Integer, String>of() && base.name instanceof "
+            + "ImmutableMap) {",
+        "      name = base.name;",
+        "    } else {",
+        "      if (name instanceof ImmutableMap) {",
+        "        name = new LinkedHashMap<>(name);",
+        "      }",
+        "      name.putAll(base.name);",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -459,7 +507,11 @@ public class MapSourceTest {
         "   * @return this {@code Builder} object",
         "   */",
         "  public Person.Builder clear() {",
-        "    name.clear();",
+        "    if (name instanceof ImmutableMap) {",
+        "      name = ImmutableMap.of();",
+        "    } else {",
+        "      name.clear();",
+        "    }",
         "    return (Person.Builder) this;",
         "  }",
         "",
@@ -511,7 +563,7 @@ public class MapSourceTest {
         "    @Override",
         "    public Person.Builder toBuilder() {",
         "      Person_Builder builder = new Person.Builder();",
-        "      builder.name.putAll(name);",
+        "      builder.name = name;",
         "      return (Person.Builder) builder;",
         "    }",
         "",
@@ -526,7 +578,9 @@ public class MapSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -557,7 +611,7 @@ public class MapSourceTest {
         "    @Override",
         "    public Person.Builder toBuilder() {",
         "      Person_Builder builder = new PartialBuilder();",
-        "      builder.name.putAll(name);",
+        "      builder.name = name;",
         "      return (Person.Builder) builder;",
         "    }",
         "",
@@ -572,7 +626,9 @@ public class MapSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -618,6 +674,7 @@ public class MapSourceTest {
                 datatype,
                 name,
                 false,
+                false,
                 INTEGER,
                 Optional.of(INT),
                 STRING,
@@ -531,6 +531,46 @@ public class MultisetPropertyTest {
         .runTest();
   }
 
+  @Test
+  public void testMergeFrom_valueInstance_thenAdd() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(dataType)
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .addItems(%s)", element.examples(0, 1))
+            .addLine("    .build();")
+            .addLine("DataType.Builder builder = new DataType.Builder()")
+            .addLine("    .mergeFrom(value)")
+            .addLine("    .addItems(%s);", element.example(2))
+            .addLine("assertThat(value.%s).iteratesAs(%s);",
+                convention.get("items"), element.examples(0, 1))
+            .addLine("assertThat(builder.build().%s).iteratesAs(%s);",
+                convention.get("items"), element.examples(0, 1, 2))
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testMergeFrom_valueInstance_getReturnsLiveView() {
+    behaviorTester
+        .with(new Processor(features))
+        .with(dataType)
+        .with(testBuilder()
+            .addLine("DataType value = new DataType.Builder()")
+            .addLine("    .addItems(%s)", element.examples(0, 1))
+            .addLine("    .build();")
+            .addLine("DataType.Builder builder = new DataType.Builder().mergeFrom(value);")
+            .addLine("%s<%s> itemsView = builder.%s;",
+                Multiset.class, element.type(), convention.get("items"))
+            .addLine("builder.addItems(%s);", element.example(2))
+            .addLine("assertThat(itemsView).iteratesAs(%s);", element.examples(0, 1, 2))
+            .addLine("assertThat(value.%s).iteratesAs(%s);",
+                convention.get("items"), element.examples(0, 1))
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testMergeFrom_builder() {
     behaviorTester
@@ -15,9 +15,12 @@
  */
 package org.inferred.freebuilder.processor.property;
 
+import static org.inferred.freebuilder.processor.source.feature.SourceLevel.JAVA_8;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Primitives;
 import com.google.common.testing.EqualsTester;
@@ -28,6 +31,8 @@ import org.inferred.freebuilder.processor.NamingConvention;
 import org.inferred.freebuilder.processor.Processor;
 import org.inferred.freebuilder.processor.source.SourceBuilder;
 import org.inferred.freebuilder.processor.source.feature.FeatureSet;
+import org.inferred.freebuilder.processor.source.feature.OptionalStorage;
+import org.inferred.freebuilder.processor.source.feature.StaticFeatureSet;
 import org.inferred.freebuilder.processor.source.testing.BehaviorTester;
 import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory;
 import org.inferred.freebuilder.processor.source.testing.ParameterizedBehaviorTestFactory.Shared;
@@ -89,7 +94,10 @@ public class PrimitiveOptionalPropertyTest {
   public static Iterable<Object[]> parameters() {
     List<OptionalFactory> optionals = Arrays.asList(OptionalFactory.values());
     List<NamingConvention> conventions = Arrays.asList(NamingConvention.values());
-    List<FeatureSet> features = FeatureSets.ALL;
+    List<FeatureSet> features = ImmutableList.<FeatureSet>builder()
+        .addAll(FeatureSets.ALL)
+        .add(new StaticFeatureSet(JAVA_8, OptionalStorage.UNBOXED))
+        .build();
     return () -> Lists
         .cartesianProduct(optionals, conventions, features)
         .stream()
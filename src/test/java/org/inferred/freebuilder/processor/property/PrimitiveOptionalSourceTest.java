@@ -29,6 +29,7 @@ import org.inferred.freebuilder.processor.model.PrimitiveTypeImpl;
 import org.inferred.freebuilder.processor.property.PrimitiveOptionalProperty.OptionalType;
 import org.inferred.freebuilder.processor.source.QualifiedName;
 import org.inferred.freebuilder.processor.source.feature.GuavaLibrary;
+import org.inferred.freebuilder.processor.source.feature.OptionalStorage;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -285,7 +286,10 @@ public class PrimitiveOptionalSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(cost, tax);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(cost);",
+        "      result = 31 * result + Objects.hashCode(tax);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -348,7 +352,10 @@ public class PrimitiveOptionalSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(cost, tax);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(cost);",
+        "      result = 31 * result + Objects.hashCode(tax);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -368,6 +375,405 @@ public class PrimitiveOptionalSourceTest {
         "}");
   }
 
+  @Test
+  public void testSource_unboxed() {
+    assertThat(builder()).given(OptionalStorage.UNBOXED).generates(
+        "// Autogenerated code. Do not modify.",
+        "package com.example;",
+        "",
+        "import com.example.Item;",
+        "import java.util.Objects;",
+        "import java.util.OptionalDouble;",
+        "import java.util.OptionalInt;",
+        "import java.util.function.DoubleUnaryOperator;",
+        "import java.util.function.IntUnaryOperator;",
+        "",
+        "/** Auto-generated superclass of {@link Item.Builder}, derived from the API of {@link "
+            + "Item}. */",
+        "abstract class Item_Builder {",
+        "",
+        "  /**",
+        "   * Creates a new builder using {@code value} as a template.",
+        "   *",
+        "   * <p>If {@code value} is a partial, the builder will return more partials.",
+        "   */",
+        "  public static Item.Builder from(Item value) {",
+        "    if (value instanceof Rebuildable) {",
+        "      return ((Rebuildable) value).toBuilder();",
+        "    } else {",
+        "      return new Item.Builder().mergeFrom(value);",
+        "    }",
+        "  }",
+        "",
+        "  // Store a primitive and a presence flag instead of an OptionalInt, so no",
+        "  // optional is allocated by our setter methods.",
+        "  private int cost = 0;",
+        "  private boolean _costPresent = false;",
+        "  // Store a primitive and a presence flag instead of an OptionalDouble, so no",
+        "  // optional is allocated by our setter methods.",
+        "  private double tax = 0;",
+        "  private boolean _taxPresent = false;",
+        "",
+        "  /**",
+        "   * Sets the value to be returned by {@link Item#cost()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder cost(int cost) {",
+        "    this.cost = cost;",
+        "    _costPresent = true;",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Sets the value to be returned by {@link Item#cost()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code cost} is null",
+        "   */",
+        "  public Item.Builder cost(OptionalInt cost) {",
+        "    if (cost.isPresent()) {",
+        "      return cost(cost.getAsInt());",
+        "    } else {",
+        "      return clearCost();",
+        "    }",
+        "  }",
+        "",
+        "  /**",
+        "   * If the value to be returned by {@link Item#cost()} is present, replaces it by "
+            + "applying {@code",
+        "   * mapper} to it and using the result.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code mapper} is null",
+        "   */",
+        "  public Item.Builder mapCost(IntUnaryOperator mapper) {",
+        "    Objects.requireNonNull(mapper);",
+        "    if (_costPresent) {",
+        "      cost(mapper.applyAsInt(cost));",
+        "    }",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Sets the value to be returned by {@link Item#cost()} to {@link OptionalInt#empty()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder clearCost() {",
+        "    cost = 0;",
+        "    _costPresent = false;",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /** Returns the value that will be returned by {@link Item#cost()}. */",
+        "  public OptionalInt cost() {",
+        "    return (_costPresent ? OptionalInt.of(cost) : OptionalInt.empty());",
+        "  }",
+        "",
+        "  /**",
+        "   * Sets the value to be returned by {@link Item#tax()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder tax(double tax) {",
+        "    this.tax = tax;",
+        "    _taxPresent = true;",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Sets the value to be returned by {@link Item#tax()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code tax} is null",
+        "   */",
+        "  public Item.Builder tax(OptionalDouble tax) {",
+        "    if (tax.isPresent()) {",
+        "      return tax(tax.getAsDouble());",
+        "    } else {",
+        "      return clearTax();",
+        "    }",
+        "  }",
+        "",
+        "  /**",
+        "   * If the value to be returned by {@link Item#tax()} is present, replaces it by "
+            + "applying {@code",
+        "   * mapper} to it and using the result.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   * @throws NullPointerException if {@code mapper} is null",
+        "   */",
+        "  public Item.Builder mapTax(DoubleUnaryOperator mapper) {",
+        "    Objects.requireNonNull(mapper);",
+        "    if (_taxPresent) {",
+        "      tax(mapper.applyAsDouble(tax));",
+        "    }",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Sets the value to be returned by {@link Item#tax()} to {@link "
+            + "OptionalDouble#empty()}.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder clearTax() {",
+        "    tax = 0;",
+        "    _taxPresent = false;",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /** Returns the value that will be returned by {@link Item#tax()}. */",
+        "  public OptionalDouble tax() {",
+        "    return (_taxPresent ? OptionalDouble.of(tax) : OptionalDouble.empty());",
+        "  }",
+        "",
+        "  /**",
+        "   * Copies values from {@code value}, skipping empty optionals.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder mergeFrom(Item value) {",
+        "    if (value instanceof Value) {",
+        "      Value other = (Value) value;",
+        "      if (other._costPresent) {",
+        "        cost(other.cost);",
+        "      }",
+        "    } else {",
+        "      value.cost().ifPresent(this::cost);",
+        "    }",
+        "    if (value instanceof Value) {",
+        "      Value _other = (Value) value;",
+        "      if (_other._taxPresent) {",
+        "        tax(_other.tax);",
+        "      }",
+        "    } else {",
+        "      value.tax().ifPresent(this::tax);",
+        "    }",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Copies values from {@code template}, skipping empty optionals.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder mergeFrom(Item.Builder template) {",
+        "    // Upcast to access private fields; otherwise, oddly, we get an access violation.",
+        "    Item_Builder base = template;",
+        "    if (base._costPresent) {",
+        "      cost(base.cost);",
+        "    }",
+        "    if (base._taxPresent) {",
+        "      tax(base.tax);",
+        "    }",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /**",
+        "   * Resets the state of this builder.",
+        "   *",
+        "   * @return this {@code Builder} object",
+        "   */",
+        "  public Item.Builder clear() {",
+        "    Item_Builder defaults = new Item.Builder();",
+        "    cost = defaults.cost;",
+        "    _costPresent = defaults._costPresent;",
+        "    tax = defaults.tax;",
+        "    _taxPresent = defaults._taxPresent;",
+        "    return (Item.Builder) this;",
+        "  }",
+        "",
+        "  /** Returns a newly-created {@link Item} based on the contents of this {@code "
+            + "Builder}. */",
+        "  public Item build() {",
+        "    return new Value(this);",
+        "  }",
+        "",
+        "  /**",
+        "   * Returns a newly-created partial {@link Item} for use in unit tests. State checking "
+            + "will not be",
+        "   * performed.",
+        "   *",
+        "   * <p>The builder returned by {@link Item.Builder#from(Item)} will propagate the "
+            + "partial status of",
+        "   * its input, overriding {@link Item.Builder#build() build()} to return another "
+            + "partial. This",
+        "   * allows for robust tests of modify-rebuild code.",
+        "   *",
+        "   * <p>Partials should only ever be used in tests. They permit writing robust test "
+            + "cases that won't",
+        "   * fail if this type gains more application-level constraints (e.g. new required "
+            + "fields) in",
+        "   * future. If you require partially complete values in production code, consider "
+            + "using a Builder.",
+        "   */",
+        "  public Item buildPartial() {",
+        "    return new Partial(this);",
+        "  }",
+        "",
+        "  private abstract static class Rebuildable extends Item {",
+        "    public abstract Item.Builder toBuilder();",
+        "  }",
+        "",
+        "  private static final class Value extends Rebuildable {",
+        "    // Store a primitive and a presence flag instead of an OptionalInt, so no",
+        "    // optional is allocated until our getter method is called. The primitive",
+        "    // is always zero if the value is absent.",
+        "    private final int cost;",
+        "    private final boolean _costPresent;",
+        "    // Store a primitive and a presence flag instead of an OptionalDouble, so no",
+        "    // optional is allocated until our getter method is called. The primitive",
+        "    // is always zero if the value is absent.",
+        "    private final double tax;",
+        "    private final boolean _taxPresent;",
+        "",
+        "    private Value(Item_Builder builder) {",
+        "      this.cost = builder.cost;",
+        "      this._costPresent = builder._costPresent;",
+        "      this.tax = builder.tax;",
+        "      this._taxPresent = builder._taxPresent;",
+        "    }",
+        "",
+        "    @Override",
+        "    public OptionalInt cost() {",
+        "      return (_costPresent ? OptionalInt.of(cost) : OptionalInt.empty());",
+        "    }",
+        "",
+        "    @Override",
+        "    public OptionalDouble tax() {",
+        "      return (_taxPresent ? OptionalDouble.of(tax) : OptionalDouble.empty());",
+        "    }",
+        "",
+        "    @Override",
+        "    public Item.Builder toBuilder() {",
+        "      Item_Builder builder = new Item.Builder();",
+        "      builder.cost = cost;",
+        "      builder._costPresent = _costPresent;",
+        "      builder.tax = tax;",
+        "      builder._taxPresent = _taxPresent;",
+        "      return (Item.Builder) builder;",
+        "    }",
+        "",
+        "    @Override",
+        "    public boolean equals(Object obj) {",
+        "      if (!(obj instanceof Value)) {",
+        "        return false;",
+        "      }",
+        "      Value other = (Value) obj;",
+        "      return cost == other.cost",
+        "          && _costPresent == other._costPresent",
+        "          && Double.doubleToLongBits(tax) == Double.doubleToLongBits(other.tax)",
+        "          && _taxPresent == other._taxPresent;",
+        "    }",
+        "",
+        "    @Override",
+        "    public int hashCode() {",
+        "      int result = 1;",
+        "      result = 31 * result + Integer.hashCode(cost);",
+        "      result = 31 * result + Double.hashCode(tax);",
+        "      return result;",
+        "    }",
+        "",
+        "    @Override",
+        "    public String toString() {",
+        "      StringBuilder result = new StringBuilder(\"Item{\");",
+        "      String separator = \"\";",
+        "      if (_costPresent) {",
+        "        result.append(\"cost=\").append(cost);",
+        "        separator = \", \";",
+        "      }",
+        "      if (_taxPresent) {",
+        "        result.append(separator).append(\"tax=\").append(tax);",
+        "      }",
+        "      return result.append(\"}\").toString();",
+        "    }",
+        "  }",
+        "",
+        "  private static final class Partial extends Rebuildable {",
+        "    // Store a primitive and a presence flag instead of an OptionalInt, so no",
+        "    // optional is allocated until our getter method is called. The primitive",
+        "    // is always zero if the value is absent.",
+        "    private final int cost;",
+        "    private final boolean _costPresent;",
+        "    // Store a primitive and a presence flag instead of an OptionalDouble, so no",
+        "    // optional is allocated until our getter method is called. The primitive",
+        "    // is always zero if the value is absent.",
+        "    private final double tax;",
+        "    private final boolean _taxPresent;",
+        "",
+        "    Partial(Item_Builder builder) {",
+        "      this.cost = builder.cost;",
+        "      this._costPresent = builder._costPresent;",
+        "      this.tax = builder.tax;",
+        "      this._taxPresent = builder._taxPresent;",
+        "    }",
+        "",
+        "    @Override",
+        "    public OptionalInt cost() {",
+        "      return (_costPresent ? OptionalInt.of(cost) : OptionalInt.empty());",
+        "    }",
+        "",
+        "    @Override",
+        "    public OptionalDouble tax() {",
+        "      return (_taxPresent ? OptionalDouble.of(tax) : OptionalDouble.empty());",
+        "    }",
+        "",
+        "    private static class PartialBuilder extends Item.Builder {",
+        "      @Override",
+        "      public Item build() {",
+        "        return buildPartial();",
+        "      }",
+        "    }",
+        "",
+        "    @Override",
+        "    public Item.Builder toBuilder() {",
+        "      Item_Builder builder = new PartialBuilder();",
+        "      builder.cost = cost;",
+        "      builder._costPresent = _costPresent;",
+        "      builder.tax = tax;",
+        "      builder._taxPresent = _taxPresent;",
+        "      return (Item.Builder) builder;",
+        "    }",
+        "",
+        "    @Override",
+        "    public boolean equals(Object obj) {",
+        "      if (!(obj instanceof Partial)) {",
+        "        return false;",
+        "      }",
+        "      Partial other = (Partial) obj;",
+        "      return cost == other.cost",
+        "          && _costPresent == other._costPresent",
+        "          && Double.doubleToLongBits(tax) == Double.doubleToLongBits(other.tax)",
+        "          && _taxPresent == other._taxPresent;",
+        "    }",
+        "",
+        "    @Override",
+        "    public int hashCode() {",
+        "      int result = 1;",
+        "      result = 31 * result + Integer.hashCode(cost);",
+        "      result = 31 * result + Double.hashCode(tax);",
+        "      return result;",
+        "    }",
+        "",
+        "    @Override",
+        "    public String toString() {",
+        "      StringBuilder result = new StringBuilder(\"partial Item{\");",
+        "      String separator = \"\";",
+        "      if (_costPresent) {",
+        "        result.append(\"cost=\").append(cost);",
+        "        separator = \", \";",
+        "      }",
+        "      if (_taxPresent) {",
+        "        result.append(separator).append(\"tax=\").append(tax);",
+        "      }",
+        "      return result.append(\"}\").toString();",
+        "    }",
+        "  }",
+        "}");
+  }
+
   private static GeneratedBuilder builder() {
     ClassTypeImpl optionalInt = newTopLevelClass("java.util.OptionalInt");
     ClassTypeImpl optionalDouble = newTopLevelClass("java.util.OptionalDouble");
@@ -118,6 +118,42 @@ public class RequiredPropertiesTest {
         .runTest();
   }
 
+  @Test
+  public void testCantBuildWithUnsetPropertiesBeyondSixtyFour() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Not set: [property40, property69]");
+    TestBuilder testBuilder = testBuilder().addLine("new DataType.Builder()");
+    for (int i = 0; i < 70; i++) {
+      if (i != 40 && i != 69) {
+        testBuilder.addLine("    .%s(%s)", convention.set("property" + i), i);
+      }
+    }
+    behaviorTester
+        .with(new Processor(features))
+        .with(manyRequiredPropertiesType(70))
+        .with(testBuilder
+            .addLine("    .build();")
+            .build())
+        .runTest();
+  }
+
+  @Test
+  public void testBuildWithPropertiesBeyondSixtyFour() {
+    TestBuilder testBuilder = testBuilder().addLine("DataType value = new DataType.Builder()");
+    for (int i = 0; i < 70; i++) {
+      testBuilder.addLine("    .%s(%s)", convention.set("property" + i), i);
+    }
+    behaviorTester
+        .with(new Processor(features))
+        .with(manyRequiredPropertiesType(70))
+        .with(testBuilder
+            .addLine("    .build();")
+            .addLine("assertEquals(40, value.%s);", convention.get("property40"))
+            .addLine("assertEquals(69, value.%s);", convention.get("property69"))
+            .build())
+        .runTest();
+  }
+
   @Test
   public void testMergeFrom_valueInstance() {
     behaviorTester
@@ -310,6 +346,20 @@ public class RequiredPropertiesTest {
         .runTest();
   }
 
+  private SourceBuilder manyRequiredPropertiesType(int numProperties) {
+    SourceBuilder type = SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("@%s", FreeBuilder.class)
+        .addLine("public abstract class DataType {");
+    for (int i = 0; i < numProperties; i++) {
+      type.addLine("  public abstract int %s;", convention.get("property" + i));
+    }
+    return type
+        .addLine("")
+        .addLine("  public static class Builder extends DataType_Builder {}")
+        .addLine("}");
+  }
+
   private static TestBuilder testBuilder() {
     return new TestBuilder().addImport("com.example.DataType");
   }
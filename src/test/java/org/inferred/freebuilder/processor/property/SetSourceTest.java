@@ -282,7 +282,9 @@ public class SetSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -328,7 +330,9 @@ public class SetSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -452,6 +456,11 @@ public class SetSourceTest {
         "   * @throws NullPointerException if {@code elements} is null or contains a null element",
         "   */",
         "  public Person.Builder addAllName(Iterable<? extends String> elements) {",
+        "    if (elements instanceof ImmutableSet && name == ImmutableSet.<String>of()) {",
+        "      // Adopt the immutable set; it will be copied if this builder is modified",
+        "      name = ImmutableSet.copyOf(elements);",
+        "      return (Person.Builder) this;",
+        "    }",
         "    elements.forEach(this::addName);",
         "    return (Person.Builder) this;",
         "  }",
@@ -618,7 +627,9 @@ public class SetSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -664,7 +675,9 @@ public class SetSourceTest {
         "",
         "    @Override",
         "    public int hashCode() {",
-        "      return Objects.hash(name);",
+        "      int result = 1;",
+        "      result = 31 * result + Objects.hashCode(name);",
+        "      return result;",
         "    }",
         "",
         "    @Override",
@@ -714,6 +727,7 @@ public class SetSourceTest {
             consumer(wildcardSuper(setString)),
             false,
             false,
-            false)));
+            false,
+            true)));
   }
 }
@@ -6,7 +6,9 @@ import static org.inferred.freebuilder.processor.source.FunctionalType.unboxedUn
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import static java.util.stream.Collectors.toMap;
@@ -232,6 +234,56 @@ public class FunctionalTypeTest {
     assertEquals(longConsumer, result);
   }
 
+  @Test
+  public void testAcceptedTypesMemoizedWhileCacheOpen() {
+    TypeElement myBuilder = model.newType(
+        "package com.example;",
+        "public class MyBuilder {",
+        "  public MyBuilder mutateFoo(" + LongConsumer.class.getName() + " mutator) {",
+        "    return this;",
+        "  }",
+        "}");
+    DeclaredType type = (DeclaredType) myBuilder.asType();
+
+    List<FunctionalType> uncached = FunctionalType.functionalTypesAcceptedByMethod(
+        type, "mutateFoo", model.elementUtils(), model.typeUtils());
+    try (FunctionalType.AcceptedTypesCache cache =
+        FunctionalType.cacheAcceptedTypes(model.elementUtils())) {
+      List<FunctionalType> first = FunctionalType.functionalTypesAcceptedByMethod(
+          type, "mutateFoo", model.elementUtils(), model.typeUtils());
+      List<FunctionalType> second = FunctionalType.functionalTypesAcceptedByMethod(
+          type, "mutateFoo", model.elementUtils(), model.typeUtils());
+
+      assertEquals(uncached, first);
+      assertSame(first, second);
+    }
+    assertNotSame(uncached, FunctionalType.functionalTypesAcceptedByMethod(
+        type, "mutateFoo", model.elementUtils(), model.typeUtils()));
+  }
+
+  @Test
+  public void testAcceptedTypesNotMemoizedIfHierarchyHasErrorTypes() {
+    TypeElement myBuilder = model.newType(
+        "package com.example;",
+        "public class MyBuilder extends NotYetMade {",
+        "  @Override public MyBuilder mutateFoo(" + LongConsumer.class.getName() + " mutator) {",
+        "    return super.mutateFoo(mutator);",
+        "  }",
+        "}");
+    DeclaredType type = (DeclaredType) myBuilder.asType();
+
+    try (FunctionalType.AcceptedTypesCache cache =
+        FunctionalType.cacheAcceptedTypes(model.elementUtils())) {
+      List<FunctionalType> first = FunctionalType.functionalTypesAcceptedByMethod(
+          type, "mutateFoo", model.elementUtils(), model.typeUtils());
+      List<FunctionalType> second = FunctionalType.functionalTypesAcceptedByMethod(
+          type, "mutateFoo", model.elementUtils(), model.typeUtils());
+
+      assertEquals(first, second);
+      assertNotSame(first, second);
+    }
+  }
+
   private interface IntListConsumer {
     void take(List<Integer> stuff);
   }
@@ -22,15 +22,18 @@ import static org.junit.Assert.fail;
 import static java.util.stream.Collectors.joining;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import org.inferred.freebuilder.processor.model.MethodFinder;
 import org.inferred.freebuilder.processor.source.testing.ModelRule;
+import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
@@ -44,6 +47,12 @@ import javax.lang.model.util.SimpleTypeVisitor8;
 public class MethodFinderTest {
 
   @ClassRule public static ModelRule model = new ModelRule();
+  private MethodFinder.LibraryTypeCache libraryTypeCache;
+
+  @Before
+  public void cacheLibraryTypes() {
+    libraryTypeCache = MethodFinder.cacheLibraryTypes(model.elementUtils());
+  }
 
   abstract static class ClassOne {
     abstract void method();
@@ -189,6 +198,46 @@ public class MethodFinderTest {
     assertThat(errorTypes).hasSize(2);
   }
 
+  @Test
+  public void testLibraryTypesAreCached() {
+    ImmutableSet<ExecutableElement> methods = MethodFinder.methodsOn(
+        model.typeElement(Consumer.class), model.elementUtils(), errorType -> { });
+
+    assertThat(toStrings(methods)).containsExactly(
+        "void Consumer::accept(T)", "Consumer Consumer::andThen(Consumer)");
+    assertThat(MethodFinder.methodsOn(
+        model.typeElement(Consumer.class), model.elementUtils(), errorType -> { }))
+        .isSameAs(methods);
+    assertThat(MethodFinder.cacheLibraryTypes(model.elementUtils())).isSameAs(libraryTypeCache);
+  }
+
+  @Test
+  public void testOtherTypesAreNotCached() {
+    ImmutableSet<ExecutableElement> methods = MethodFinder.methodsOn(
+        model.typeElement(ClassOne.class), model.elementUtils(), errorType -> { });
+
+    assertThat(MethodFinder.methodsOn(
+        model.typeElement(ClassOne.class), model.elementUtils(), errorType -> { }))
+        .isNotSameAs(methods);
+  }
+
+  @Test
+  public void testLibraryTypesWithErrorTypesAreNotCached() {
+    TypeElement testClass = model.newType(
+        "package javax.example;",
+        "class TestClass extends MissingType {",
+        "  public int foo(short a);",
+        "}");
+    List<ErrorType> errorTypes = new ArrayList<>();
+
+    MethodFinder.methodsOn(testClass, model.elementUtils(), errorTypes::add);
+    List<String> methods =
+        toStrings(MethodFinder.methodsOn(testClass, model.elementUtils(), errorTypes::add));
+
+    assertThat(methods).containsExactly("int TestClass::foo(short)");
+    assertThat(errorTypes).hasSize(2);
+  }
+
   interface RedeclaresToString {
     @Override String toString();
   }
@@ -16,6 +16,7 @@ import org.junit.runners.Parameterized.Parameters;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import javax.lang.model.type.TypeKind;
 
@@ -133,6 +134,42 @@ public class ObjectsExcerptsTest {
     runTesterClass(code);
   }
 
+  @Test
+  public void testHashCode_notNullable() {
+    SourceBuilder code = testerClass();
+    int numValues = valueSet.values.size();
+    for (int i = 0; i < numValues; ++i) {
+      code.addLine("%s value%s = %s;", valueSet.notNullableType, i, valueSet.values.get(i));
+    }
+    for (int i = 0; i < numValues; ++i) {
+      code.addLine("assertEquals(\"hashCode of \" + value%s, %s.hashCode((%s) value%s), %s);",
+          i,
+          Objects.class,
+          valueSet.nullableType,
+          i,
+          ObjectsExcerpts.hashCode("value" + i, valueSet.kind));
+    }
+    runTesterClass(code);
+  }
+
+  @Test
+  public void testHashCode_nullable() {
+    SourceBuilder code = testerClass();
+    int numValues = valueSet.values.size();
+    for (int i = 0; i < numValues; ++i) {
+      code.addLine("%s value%s = %s;", valueSet.nullableType, i, valueSet.values.get(i));
+    }
+    code.addLine("%s value%s = null;", valueSet.nullableType, numValues);
+    for (int i = 0; i < numValues + 1; ++i) {
+      code.addLine("assertEquals(\"hashCode of \" + value%s, %s.hashCode(value%s), %s);",
+          i,
+          Objects.class,
+          i,
+          ObjectsExcerpts.hashCode("value" + i, TypeKind.DECLARED));
+    }
+    runTesterClass(code);
+  }
+
   private SourceBuilder testerClass() {
     return SourceBuilder.forTesting(features)
         .addLine("package com.example;")
@@ -0,0 +1,128 @@
+package org.inferred.freebuilder.processor.source;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+import org.inferred.freebuilder.processor.source.ScopeHandler.Reflection;
+import org.inferred.freebuilder.processor.source.ScopeHandler.TypeInfo;
+import org.inferred.freebuilder.processor.source.ScopeHandler.Visibility;
+import org.inferred.freebuilder.processor.source.testing.ModelRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RunWith(JUnit4.class)
+public class ReflectionCacheTest {
+
+  @Rule public ModelRule model = new ModelRule();
+  private final Multiset<String> calls = HashMultiset.create();
+  private ReflectionCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new ReflectionCache(new CountingReflection(
+        new CompilerReflection(model.elementUtils())));
+  }
+
+  @Test
+  public void findIsCached() {
+    TypeInfo first = cache.find(HashMap.class.getName()).get();
+    TypeInfo second = cache.find(HashMap.class.getName()).get();
+    assertThat(second).isSameAs(first);
+    assertThat(second.name()).isEqualTo(QualifiedName.of(HashMap.class));
+    assertThat(calls.count("find java.util.HashMap")).isEqualTo(1);
+  }
+
+  @Test
+  public void missingTypeIsCached() {
+    assertThat(cache.find("com.example.Missing")).isEqualTo(Optional.empty());
+    assertThat(cache.find("com.example.Missing")).isEqualTo(Optional.empty());
+    assertThat(calls.count("find com.example.Missing")).isEqualTo(1);
+  }
+
+  @Test
+  public void visibilityIsCached() {
+    TypeInfo type = cache.find(HashMap.class.getName()).get();
+    assertThat(type.visibility()).isEqualTo(Visibility.PUBLIC);
+    assertThat(type.visibility()).isEqualTo(Visibility.PUBLIC);
+    assertThat(calls.count("visibility java.util.HashMap")).isEqualTo(1);
+  }
+
+  @Test
+  public void supertypesAreCachedAndShared() {
+    TypeInfo type = cache.find(HashMap.class.getName()).get();
+    TypeInfo supertype = type.supertypes().collect(toList()).get(0);
+    assertThat(supertype.name()).isEqualTo(QualifiedName.of(AbstractMap.class));
+    assertThat(type.supertypes().collect(toList()).get(0)).isSameAs(supertype);
+    assertThat(cache.find(AbstractMap.class.getName()).get()).isSameAs(supertype);
+    assertThat(calls.count("supertypes java.util.HashMap")).isEqualTo(1);
+    assertThat(calls.count("find java.util.AbstractMap")).isEqualTo(0);
+  }
+
+  @Test
+  public void nestedTypesAreCachedAndShared() {
+    TypeInfo type = cache.find(Map.class.getName()).get();
+    TypeInfo nestedType = type.nestedTypes().collect(toList()).get(0);
+    assertThat(nestedType.name()).isEqualTo(QualifiedName.of(Map.Entry.class));
+    assertThat(type.nestedTypes().collect(toList()).get(0)).isSameAs(nestedType);
+    assertThat(cache.find(Map.Entry.class.getCanonicalName()).get()).isSameAs(nestedType);
+    assertThat(calls.count("nestedTypes java.util.Map")).isEqualTo(1);
+  }
+
+  private class CountingReflection implements Reflection {
+    private final Reflection delegate;
+
+    CountingReflection(Reflection delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<TypeInfo> find(String typename) {
+      calls.add("find " + typename);
+      return delegate.find(typename).map(CountingTypeInfo::new);
+    }
+  }
+
+  private class CountingTypeInfo implements TypeInfo {
+    private final TypeInfo delegate;
+
+    CountingTypeInfo(TypeInfo delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public QualifiedName name() {
+      return delegate.name();
+    }
+
+    @Override
+    public Visibility visibility() {
+      calls.add("visibility " + name());
+      return delegate.visibility();
+    }
+
+    @Override
+    public Stream<TypeInfo> supertypes() {
+      calls.add("supertypes " + name());
+      return delegate.supertypes().map(CountingTypeInfo::new);
+    }
+
+    @Override
+    public Stream<TypeInfo> nestedTypes() {
+      calls.add("nestedTypes " + name());
+      return delegate.nestedTypes().map(CountingTypeInfo::new);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package org.inferred.freebuilder.processor.source;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.base.Joiner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReindenterTest {
+
+  @Test
+  public void indentsByBraceDepth() {
+    assertReindents(
+        lines(
+            "class Foo {",
+            "void bar() {",
+            "  baz();",
+            "      }",
+            "}"),
+        lines(
+            "class Foo {",
+            "  void bar() {",
+            "    baz();",
+            "  }",
+            "}"));
+  }
+
+  @Test
+  public void indentsContinuationLines() {
+    assertReindents(
+        lines(
+            "class Foo {",
+            "int bar() {",
+            "return a",
+            "&& b(",
+            "c);",
+            "}",
+            "}"),
+        lines(
+            "class Foo {",
+            "  int bar() {",
+            "    return a",
+            "        && b(",
+            "        c);",
+            "  }",
+            "}"));
+  }
+
+  @Test
+  public void annotationsAreNotContinued() {
+    assertReindents(
+        lines(
+            "class Foo {",
+            "@Override",
+            "public int hashCode() {",
+            "return 1;",
+            "}",
+            "}"),
+        lines(
+            "class Foo {",
+            "  @Override",
+            "  public int hashCode() {",
+            "    return 1;",
+            "  }",
+            "}"));
+  }
+
+  @Test
+  public void alignsJavadocStars() {
+    assertReindents(
+        lines(
+            "class Foo {",
+            "/**",
+            "* Does {@code bar}.",
+            "*/",
+            "void bar();",
+            "}"),
+        lines(
+            "class Foo {",
+            "  /**",
+            "   * Does {@code bar}.",
+            "   */",
+            "  void bar();",
+            "}"));
+  }
+
+  @Test
+  public void ignoresBracesInLiteralsAndComments() {
+    assertReindents(
+        lines(
+            "class Foo {",
+            "String a = \"{\\\"\";",
+            "char b = '{'; // {",
+            "/* { */ int c;",
+            "}"),
+        lines(
+            "class Foo {",
+            "  String a = \"{\\\"\";",
+            "  char b = '{'; // {",
+            "  /* { */ int c;",
+            "}"));
+  }
+
+  @Test
+  public void collapsesBlankLines() {
+    assertReindents(
+        lines(
+            "",
+            "class Foo {",
+            "",
+            "   ",
+            "int a;",
+            "}",
+            "",
+            ""),
+        lines(
+            "class Foo {",
+            "",
+            "  int a;",
+            "}"));
+  }
+
+  @Test
+  public void preservesWindowsLineSeparators() {
+    assertEquals(
+        "class Foo {\r\n  int a;\r\n}\r\n",
+        Reindenter.reindent("class Foo {\r\nint a;\r\n}\r\n"));
+  }
+
+  private static String lines(String... lines) {
+    return Joiner.on("\n").join(lines) + "\n";
+  }
+
+  private static void assertReindents(String source, String expected) {
+    assertEquals(expected, Reindenter.reindent(source));
+  }
+}
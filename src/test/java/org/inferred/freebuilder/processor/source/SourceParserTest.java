@@ -1,5 +1,7 @@
 package org.inferred.freebuilder.processor.source;
 
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -9,6 +11,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -59,6 +62,12 @@ public class SourceParserTest {
     verify(eventHandler).onTypeBlockStart("class", "FooBar", ImmutableSet.of());
   }
 
+  @Test
+  public void recordDeclaration() {
+    parse("private record Value<T>(@Nullable T item, List<T> items) implements Baz.Bam<T> {");
+    verify(eventHandler).onTypeBlockStart("record", "Value", ImmutableSet.of("Baz.Bam"));
+  }
+
   @Test
   public void classWithUmlaut() {
     parse("public class Vögel {");
@@ -149,6 +158,18 @@ public class SourceParserTest {
     verify(eventHandler).onMethodBlockStart("foo", ImmutableSet.of("bar"));
   }
 
+  @Test
+  public void synchronizedMethod() {
+    parse("synchronized void foo(int x) {");
+    verify(eventHandler).onMethodBlockStart("foo", ImmutableSet.of("x"));
+  }
+
+  @Test
+  public void synchronizedBlock() {
+    parse("synchronized (lock) {");
+    verify(eventHandler).onOtherBlockStart();
+  }
+
   @Test
   public void plainConstructor() {
     parse("FooBar(int bar) {");
@@ -180,12 +201,83 @@ public class SourceParserTest {
     verify(eventHandler).onOtherBlockStart();
   }
 
+  @Test
+  public void commentsAndLiteralsIgnored() {
+    parse("/* { */ // }\n"
+        + "String s = \"{\\\"}\"; char c = '{'; char d = '\\''; if (a / b > c) {");
+    verify(eventHandler).onOtherBlockStart();
+  }
+
+  @Test
+  public void lambdaBody() {
+    parse("list.forEach(item -> {");
+    verify(eventHandler).onOtherBlockStart();
+  }
+
+  @Test
+  public void anonymousClass() {
+    parse("return new Runnable() {");
+    verify(eventHandler).onMethodBlockStart("Runnable", ImmutableSet.of());
+  }
+
+  @Test
+  public void splitAcrossChunks() {
+    String source = "package com.example; /* {\n} */ public class Foo extends Bar {\n"
+        + "  // }\n"
+        + "  public void baz(String bam) {\n"
+        + "    String s = \"\\\"}\";\n"
+        + "    try {\n"
+        + "    } finally {\n"
+        + "    }\n"
+        + "  }\n"
+        + "}\n";
+    for (char c : source.toCharArray()) {
+      parser.parse(c);
+    }
+    InOrder inOrder = inOrder(eventHandler);
+    inOrder.verify(eventHandler).onPackageStatement("com.example");
+    inOrder.verify(eventHandler).onTypeBlockStart("class", "Foo", ImmutableSet.of("Bar"));
+    inOrder.verify(eventHandler).onMethodBlockStart("baz", ImmutableSet.of("bam"));
+    inOrder.verify(eventHandler).onOtherBlockStart();
+    inOrder.verify(eventHandler).onBlockEnd();
+    inOrder.verify(eventHandler).onOtherBlockStart();
+    inOrder.verify(eventHandler, times(3)).onBlockEnd();
+  }
+
+  @Test
+  public void chunkedEventsMatchPerCharacterEvents() {
+    String source = "package com.example;\n"
+        + "@Foo(\"{\") public class Foo<T> implements Bar<T>, Baz {\n"
+        + "  /* } { */ private final Object lock = new Object();\n"
+        + "  public synchronized void bam(int x, List<T> ys) throws Error {\n"
+        + "    synchronized (lock) {\n"
+        + "      if (x < 'a' && x > '\\'') { run(() -> { }); }\n"
+        + "    }\n"
+        + "  }\n"
+        + "  record Pair(int a, String b) {}\n"
+        + "}\n";
+    InOrder inOrder = inOrder(eventHandler);
+    for (int chunkSize : new int[] { 1, 2, 7, source.length() }) {
+      SourceParser chunkedParser = new SourceParser(eventHandler);
+      for (int i = 0; i < source.length(); i += chunkSize) {
+        chunkedParser.parse(source, i, Math.min(i + chunkSize, source.length()));
+      }
+      inOrder.verify(eventHandler).onPackageStatement("com.example");
+      inOrder.verify(eventHandler).onTypeBlockStart("class", "Foo", ImmutableSet.of("Bar", "Baz"));
+      inOrder.verify(eventHandler).onMethodBlockStart("bam", ImmutableSet.of("x", "ys"));
+      inOrder.verify(eventHandler, times(3)).onOtherBlockStart();
+      inOrder.verify(eventHandler, times(4)).onBlockEnd();
+      inOrder.verify(eventHandler).onTypeBlockStart("record", "Pair", ImmutableSet.of());
+      inOrder.verify(eventHandler, times(2)).onBlockEnd();
+    }
+  }
+
   @After
   public void teardown() {
     verifyNoMoreInteractions(eventHandler);
   }
 
   private void parse(CharSequence chars) {
-    chars.chars().forEach(c -> parser.parse((char) c));
+    parser.parse(chars, 0, chars.length());
   }
 }
@@ -0,0 +1,96 @@
+package org.inferred.freebuilder.processor.source;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.MissingFormatArgumentException;
+
+@RunWith(JUnit4.class)
+public class TemplateApplierTest {
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private final StringBuilder output = new StringBuilder();
+
+  @Test
+  public void sequentialParams() {
+    apply("foo(%s, %s);", "a", "b");
+    assertThat(output.toString()).isEqualTo("foo([a], [b]);");
+  }
+
+  @Test
+  public void indexedParams() {
+    apply("%2$s = %1$s + %2$s", "a", "b");
+    assertThat(output.toString()).isEqualTo("[b] = [a] + [b]");
+  }
+
+  @Test
+  public void indexedParamsDoNotConsumeSequentialParams() {
+    apply("%2$s %s %s", "a", "b");
+    assertThat(output.toString()).isEqualTo("[b] [a] [b]");
+  }
+
+  @Test
+  public void percentAndNewline() {
+    apply("100%% of %s%n", "a");
+    assertThat(output.toString()).isEqualTo("100% of [a]" + LINE_SEPARATOR);
+  }
+
+  @Test
+  public void nonStringTemplate() {
+    apply(new StringBuilder("%s and %s"), "a", "b");
+    assertThat(output.toString()).isEqualTo("[a] and [b]");
+  }
+
+  @Test
+  public void sequentialParamsContinueAcrossTemplates() {
+    TemplateApplier applier = applier("a", "b", "c");
+    applier.parse("%s;");
+    applier.parse("%s, %s");
+    assertThat(output.toString()).isEqualTo("[a];[b], [c]");
+  }
+
+  @Test
+  public void sameTemplateWithDifferentParams() {
+    String template = "x = %s;";
+    apply(template, "a");
+    apply(template, "b");
+    assertThat(output.toString()).isEqualTo("x = [a];x = [b];");
+  }
+
+  @Test
+  public void missingParam() {
+    try {
+      apply("foo(%s, %s);", "a");
+      fail("Expected MissingFormatArgumentException");
+    } catch (MissingFormatArgumentException expected) {
+      assertThat(expected.getFormatSpecifier()).isEqualTo("%s");
+    }
+    assertThat(output.toString()).isEqualTo("foo([a], ");
+  }
+
+  @Test
+  public void missingIndexedParam() {
+    try {
+      apply("foo(%3$s);", "a", "b");
+      fail("Expected MissingFormatArgumentException");
+    } catch (MissingFormatArgumentException expected) {
+      assertThat(expected.getFormatSpecifier()).isEqualTo("%3$s");
+    }
+  }
+
+  private void apply(CharSequence template, Object... params) {
+    applier(params).parse(template);
+  }
+
+  private TemplateApplier applier(Object... params) {
+    return TemplateApplier.withParams(params)
+        .onText(output::append)
+        .onParam(param -> output.append("[").append(param).append("]"));
+  }
+}
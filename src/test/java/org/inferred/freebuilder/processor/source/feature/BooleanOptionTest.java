@@ -0,0 +1,111 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import static org.inferred.freebuilder.processor.source.feature.BuildMemoization.BUILD_MEMOIZATION;
+import static org.inferred.freebuilder.processor.source.feature.BuilderCollectors.BUILDER_COLLECTORS;
+import static org.inferred.freebuilder.processor.source.feature.BuilderReuse.BUILDER_REUSE;
+import static org.inferred.freebuilder.processor.source.feature.CollectionStorage.COLLECTION_STORAGE;
+import static org.inferred.freebuilder.processor.source.feature.ListStorage.LIST_STORAGE;
+import static org.inferred.freebuilder.processor.source.feature.OptionalStorage.OPTIONAL_STORAGE;
+import static org.inferred.freebuilder.processor.source.feature.ValueRecords.VALUE_RECORDS;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+@RunWith(JUnit4.class)
+public class BooleanOptionTest {
+
+  private enum Flag implements Feature<Flag> { OFF, ON }
+
+  private static final String OPTION = "test.option";
+  private static final BooleanOption<Flag> TEST_OPTION =
+      new BooleanOption<>(OPTION, Flag.OFF, Flag.ON);
+
+  @Test
+  public void parse() {
+    assertEquals(Optional.of(true), BooleanOption.parse("true"));
+    assertEquals(Optional.of(true), BooleanOption.parse(" TRUE "));
+    assertEquals(Optional.of(false), BooleanOption.parse("false"));
+    assertEquals(Optional.of(false), BooleanOption.parse(" False "));
+    assertEquals(Optional.empty(), BooleanOption.parse("yes"));
+    assertEquals(Optional.empty(), BooleanOption.parse(null));
+  }
+
+  @Test
+  public void forOption() {
+    assertEquals(Optional.of(Flag.ON), TEST_OPTION.forOption(" True "));
+    assertEquals(Optional.of(Flag.OFF), TEST_OPTION.forOption("false"));
+    assertEquals(Optional.empty(), TEST_OPTION.forOption("?"));
+    assertEquals(Optional.empty(), TEST_OPTION.forOption(null));
+  }
+
+  @Test
+  public void forEnvironment() {
+    assertEquals(Flag.OFF, featureFrom(TEST_OPTION, ImmutableMap.of()));
+    assertEquals(Flag.ON, featureFrom(TEST_OPTION, options("true")));
+    assertEquals(Flag.OFF, featureFrom(TEST_OPTION, options("false")));
+    assertEquals(Flag.OFF, featureFrom(TEST_OPTION, options("?")));
+  }
+
+  @Test
+  public void testDefault() {
+    assertEquals(Flag.OFF, TEST_OPTION.testDefault(null));
+  }
+
+  @Test
+  public void featuresDefaultToFalse() {
+    assertEquals(OptionalStorage.BOXED, featureFrom(OPTIONAL_STORAGE, ImmutableMap.of()));
+    assertEquals(ListStorage.BOXED, featureFrom(LIST_STORAGE, ImmutableMap.of()));
+    assertEquals(BuilderReuse.DISPOSABLE, featureFrom(BUILDER_REUSE, ImmutableMap.of()));
+    assertEquals(BuildMemoization.DISABLED, featureFrom(BUILD_MEMOIZATION, ImmutableMap.of()));
+    assertEquals(CollectionStorage.STANDARD, featureFrom(COLLECTION_STORAGE, ImmutableMap.of()));
+    assertEquals(BuilderCollectors.OMITTED, featureFrom(BUILDER_COLLECTORS, ImmutableMap.of()));
+    assertEquals(ValueRecords.CLASSES, featureFrom(VALUE_RECORDS, ImmutableMap.of()));
+  }
+
+  @Test
+  public void featuresEnabledByTheirOption() {
+    assertEquals(
+        OptionalStorage.UNBOXED,
+        featureFrom(OPTIONAL_STORAGE, ImmutableMap.of(OptionalStorage.OPTION, "true")));
+    assertEquals(
+        ListStorage.UNBOXED,
+        featureFrom(LIST_STORAGE, ImmutableMap.of(ListStorage.OPTION, "true")));
+    assertEquals(
+        BuilderReuse.REUSABLE,
+        featureFrom(BUILDER_REUSE, ImmutableMap.of(BuilderReuse.OPTION, "true")));
+    assertEquals(
+        BuildMemoization.ENABLED,
+        featureFrom(BUILD_MEMOIZATION, ImmutableMap.of(BuildMemoization.OPTION, "true")));
+    assertEquals(
+        CollectionStorage.COMPACT,
+        featureFrom(COLLECTION_STORAGE, ImmutableMap.of(CollectionStorage.OPTION, "true")));
+    assertEquals(
+        BuilderCollectors.GENERATED,
+        featureFrom(BUILDER_COLLECTORS, ImmutableMap.of(BuilderCollectors.OPTION, "true")));
+    assertEquals(
+        ValueRecords.RECORDS,
+        featureFrom(VALUE_RECORDS, ImmutableMap.of(ValueRecords.OPTION, "true")));
+  }
+
+  private static Map<String, String> options(String value) {
+    return ImmutableMap.of(OPTION, value);
+  }
+
+  private static <F extends Feature<F>> F featureFrom(
+      FeatureType<F> type, Map<String, String> options) {
+    ProcessingEnvironment env = mock(ProcessingEnvironment.class);
+    when(env.getOptions()).thenReturn(options);
+    return type.forEnvironment(env, null);
+  }
+}
@@ -0,0 +1,73 @@
+package org.inferred.freebuilder.processor.source.feature;
+
+import static org.inferred.freebuilder.processor.source.feature.SourceFormat.SOURCE_FORMAT;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+@RunWith(JUnit4.class)
+public class SourceFormatTest {
+
+  @Test
+  public void defaultsToFull() {
+    assertEquals(SourceFormat.FULL, sourceFormatFrom(ImmutableMap.of()));
+  }
+
+  @Test
+  public void none() {
+    assertEquals(SourceFormat.NONE, sourceFormatFrom(ImmutableMap.of(SourceFormat.OPTION, "none")));
+  }
+
+  @Test
+  public void fast() {
+    assertEquals(SourceFormat.FAST, sourceFormatFrom(ImmutableMap.of(SourceFormat.OPTION, "fast")));
+  }
+
+  @Test
+  public void full() {
+    assertEquals(SourceFormat.FULL, sourceFormatFrom(ImmutableMap.of(SourceFormat.OPTION, "full")));
+  }
+
+  @Test
+  public void unrecognisedValueFallsBackToFull() {
+    assertEquals(SourceFormat.FULL, sourceFormatFrom(ImmutableMap.of(SourceFormat.OPTION, "?")));
+  }
+
+  @Test
+  public void forOptionIgnoresCaseAndWhitespace() {
+    assertEquals(Optional.of(SourceFormat.FAST), SourceFormat.forOption(" Fast "));
+  }
+
+  @Test
+  public void forOptionRejectsUnrecognisedValue() {
+    assertEquals(Optional.empty(), SourceFormat.forOption("pretty"));
+  }
+
+  @Test
+  public void forOptionRejectsNull() {
+    assertEquals(Optional.empty(), SourceFormat.forOption(null));
+  }
+
+  @Test
+  public void noneLeavesSourceUnchanged() throws Exception {
+    String source = "class Foo {\nint x;\n\n\n}\n";
+    assertEquals(source, SourceFormat.NONE.format(source));
+  }
+
+  private static SourceFormat sourceFormatFrom(Map<String, String> options) {
+    ProcessingEnvironment env = mock(ProcessingEnvironment.class);
+    when(env.getOptions()).thenReturn(options);
+    return SOURCE_FORMAT.forEnvironment(env, null);
+  }
+}
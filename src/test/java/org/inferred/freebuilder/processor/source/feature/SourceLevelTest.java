@@ -17,6 +17,7 @@ package org.inferred.freebuilder.processor.source.feature;
 
 import static org.inferred.freebuilder.processor.source.feature.SourceLevel.SOURCE_LEVEL;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -35,6 +36,13 @@ public class SourceLevelTest {
     assertEquals(SourceLevel.JAVA_8, sourceLevelFrom(SourceVersion.RELEASE_8));
   }
 
+  @Test
+  public void java16() {
+    // RELEASE_16 is not available on older JDKs, so look it up by ordinal
+    assumeTrue("SourceVersion.RELEASE_16 exists", SourceVersion.values().length > 16);
+    assertEquals(SourceLevel.JAVA_16, sourceLevelFrom(SourceVersion.values()[16]));
+  }
+
   private static SourceLevel sourceLevelFrom(SourceVersion version) {
     ProcessingEnvironment env = mock(ProcessingEnvironment.class);
     when(env.getSourceVersion()).thenReturn(version);
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.junit.rules.ExpectedException.none;
 
 import com.google.common.collect.ImmutableList;
@@ -140,8 +141,16 @@ public class BehaviorTesterTest {
 
   @Test
   public void sourceLevelAffectsCompilationErrors() {
-    // Cannot currently write this test as there is only one supported Java source level
-    assertThat(SourceLevel.values()).hasLength(1);
+    assumeTrue("Compiler supports records", SourceVersion.latestSupported().ordinal() >= 16);
+    SourceBuilder source = SourceBuilder.forTesting()
+        .addLine("package com.example;")
+        .addLine("public record Point(int x, int y) { }");
+    TestSource test = new TestBuilder()
+        .addLine("assertEquals(2, new com.example.Point(2, 3).x());")
+        .build();
+    behaviorTesterWith(SourceLevel.JAVA_16).with(source).with(test).runTest();
+    thrown.expect(CompilationException.class);
+    behaviorTesterWith(SourceLevel.JAVA_8).with(source).with(test).runTest();
   }
 
   @Test
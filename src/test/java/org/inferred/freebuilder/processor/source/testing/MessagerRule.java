@@ -39,6 +39,10 @@ public class MessagerRule implements Messager, TestRule {
     verify(Kind.ERROR, element, message);
   }
 
+  public void verifyWarning(String element, String message) {
+    verify(Kind.WARNING, element, message);
+  }
+
   public void verifyNote(String element, String message) {
     verify(Kind.NOTE, element, message);
   }